@@ -11,16 +11,23 @@
 package org.eclipse.compare;
 
 import java.io.*;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.eclipse.compare.internal.CompareUIPlugin;
+import org.eclipse.compare.internal.IContentChecksum;
 import org.eclipse.compare.internal.Utilities;
 import org.eclipse.compare.structuremergeviewer.*;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.swt.graphics.Image;
 
 /**
@@ -29,6 +36,12 @@ import org.eclipse.swt.graphics.Image;
  * hierarchical structure of <code>IStructureComparator</code>s.
  * <p>
  * It is used when comparing the internal structure of a zip archive.
+ * <p>
+ * If the archive is a file in the local file system, only its central
+ * directory is read when the structure is created and the contents of
+ * an entry are inflated when they are first accessed. Entries whose
+ * sizes and CRC-32 checksums match are considered equal without
+ * reading their contents.
  *
  * @since 2.0
  */
@@ -129,9 +142,13 @@ public class ZipFileStructureCreator implements IStructureCreator {
 		}
 	}
 
-	static class ZipFile extends ZipResource implements IStreamContentAccessor {
+	static class ZipFile extends ZipResource implements IStreamContentAccessor, IContentChecksum {
 
 		private byte[] fContents;
+		private File fArchive;
+		private String fEntryName;
+		private long fSize= -1;
+		private long fChecksum= -1;
 
 		ZipFile(String name) {
 			super(name);
@@ -152,13 +169,41 @@ public class ZipFileStructureCreator implements IStructureCreator {
 		}
 
 		@Override
-		public InputStream getContents() {
-			if (fContents == null)
-				fContents= new byte[0];
-			return new ByteArrayInputStream(fContents);
+		public InputStream getContents() throws CoreException {
+			try {
+				byte[] bytes= getBytes();
+				return new ByteArrayInputStream(bytes != null ? bytes : new byte[0]);
+			} catch (IOException ex) {
+				throw new CoreException(new Status(IStatus.ERROR, CompareUIPlugin.PLUGIN_ID, 0, ex.getMessage(), ex));
+			}
+		}
+
+		@Override
+		public long getSize() {
+			return fSize;
 		}
 
-		byte[] getBytes() {
+		@Override
+		public long getChecksum() {
+			return fChecksum;
+		}
+
+		/*
+		 * Returns the contents of the entry, inflating them
+		 * from the archive the first time they are accessed.
+		 */
+		synchronized byte[] getBytes() throws IOException {
+			if (fContents == null && fArchive != null) {
+				java.util.zip.ZipFile zip= new java.util.zip.ZipFile(fArchive);
+				try {
+					ZipEntry entry= zip.getEntry(fEntryName);
+					if (entry == null)
+						throw new FileNotFoundException(fEntryName);
+					fContents= readBytes(zip.getInputStream(entry), entry.getSize());
+				} finally {
+					zip.close();
+				}
+			}
 			return fContents;
 		}
 
@@ -166,17 +211,15 @@ public class ZipFileStructureCreator implements IStructureCreator {
 			fContents= buffer;
 		}
 
-		void appendBytes(byte[] buffer, int length) {
-	    	if (length > 0) {
-				int oldLen= 0;
-				if (fContents != null)
-					oldLen= fContents.length;
-				byte[] newBuf= new byte[oldLen + length];
-				if (oldLen > 0)
-		    		System.arraycopy(fContents, 0, newBuf, 0, oldLen);
-	    		System.arraycopy(buffer, 0, newBuf, oldLen, length);
-	    		fContents= newBuf;
-	    	}
+		void setEntry(File archive, ZipEntry entry) {
+			fArchive= archive;
+			fEntryName= entry.getName();
+			setChecksum(entry);
+		}
+
+		void setChecksum(ZipEntry entry) {
+			fSize= entry.getSize();
+			fChecksum= entry.getCrc();
 		}
 	}
 
@@ -206,6 +249,15 @@ public class ZipFileStructureCreator implements IStructureCreator {
 	@Override
 	public IStructureComparator getStructure(Object input) {
 
+		File archive= getLocalArchive(input);
+		if (archive != null) {
+			try {
+				return getRoot(createIndex(archive));
+			} catch (IOException ex) {
+				return null;
+			}
+		}
+
 		InputStream is= null;
 
 		if (input instanceof IStreamContentAccessor) {
@@ -230,26 +282,9 @@ public class ZipFileStructureCreator implements IStructureCreator {
 
 				ZipFile ze= root.createContainer(entry.getName());
 				if (ze != null) {
-					int length= (int) entry.getSize();
-					if (length >= 0) {
-						byte[] buffer= new byte[length];
-						int offset= 0;
-
-						do {
-							int n= zip.read(buffer, offset, length);
-							offset += n;
-							length -= n;
-						} while (length > 0);
-
-						ze.setBytes(buffer);
-					} else {
-						byte[] buffer= new byte[1024];
-						int n;
-						do {
-							n= zip.read(buffer, 0, 1024);
-							ze.appendBytes(buffer, n);
-						} while (n >= 0);
-					}
+					ze.setBytes(readBytes(zip, entry.getSize()));
+					// The size and checksum are known once the entry has been read
+					ze.setChecksum(entry);
 				}
 				zip.closeEntry();
 			}
@@ -263,6 +298,10 @@ public class ZipFileStructureCreator implements IStructureCreator {
 			}
 		}
 
+		return getRoot(root);
+	}
+
+	private IStructureComparator getRoot(ZipFolder root) {
 		if (root.fChildren.size() == 1) {
 			Iterator<ZipResource> iter= root.fChildren.values().iterator();
 			return iter.next();
@@ -270,12 +309,82 @@ public class ZipFileStructureCreator implements IStructureCreator {
 		return root;
 	}
 
+	/*
+	 * Creates the structure of the given archive from its central directory
+	 * without reading the contents of the entries.
+	 */
+	private ZipFolder createIndex(File archive) throws IOException {
+		ZipFolder root= new ZipFolder(""); //$NON-NLS-1$
+		java.util.zip.ZipFile zip= new java.util.zip.ZipFile(archive);
+		try {
+			Enumeration<? extends ZipEntry> entries= zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry= entries.nextElement();
+				ZipFile ze= root.createContainer(entry.getName());
+				if (ze != null)
+					ze.setEntry(archive, entry);
+			}
+		} finally {
+			zip.close();
+		}
+		return root;
+	}
+
+	/*
+	 * Returns the file of the given input if it is a workspace file in the
+	 * local file system whose contents have not been modified in the compare
+	 * editor, or <code>null</code> otherwise.
+	 */
+	private File getLocalArchive(Object input) {
+		if (input instanceof ResourceNode) {
+			ResourceNode node= (ResourceNode) input;
+			IResource resource= node.getResource();
+			if (node.fContent == null && resource instanceof IFile) {
+				IPath location= resource.getLocation();
+				if (location != null) {
+					File file= location.toFile();
+					if (file.isFile())
+						return file;
+				}
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Reads the given stream to the end. The size is used
+	 * to allocate the buffer if it is known.
+	 */
+	private static byte[] readBytes(InputStream in, long size) throws IOException {
+		if (size >= 0 && size <= Integer.MAX_VALUE) {
+			byte[] buffer= new byte[(int) size];
+			int offset= 0;
+			while (offset < buffer.length) {
+				int n= in.read(buffer, offset, buffer.length - offset);
+				if (n < 0)
+					throw new EOFException();
+				offset += n;
+			}
+			return buffer;
+		}
+		ByteArrayOutputStream out= new ByteArrayOutputStream();
+		byte[] buffer= new byte[8192];
+		int n;
+		while ((n= in.read(buffer)) >= 0)
+			out.write(buffer, 0, n);
+		return out.toByteArray();
+	}
+
 	@Override
 	public String getContents(Object o, boolean ignoreWhitespace) {
 		if (o instanceof ZipFile) {
-			byte[] bytes= ((ZipFile)o).getBytes();
-			if (bytes != null)
-				return new String(bytes);
+			try {
+				byte[] bytes= ((ZipFile)o).getBytes();
+				if (bytes != null)
+					return new String(bytes);
+			} catch (IOException ex) {
+				CompareUIPlugin.log(ex);
+			}
 			return ""; //$NON-NLS-1$
 		}
 		return null;
@@ -65,6 +65,7 @@ import org.eclipse.compare.internal.Utilities;
 import org.eclipse.compare.internal.merge.DocumentMerger;
 import org.eclipse.compare.internal.merge.DocumentMerger.Diff;
 import org.eclipse.compare.internal.merge.DocumentMerger.IDocumentMergerInput;
+import org.eclipse.compare.internal.merge.DocumentMerger.IncrementalDiff;
 import org.eclipse.compare.patch.IHunk;
 import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.structuremergeviewer.DiffNode;
@@ -85,6 +86,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.ActionContributionItem;
 import org.eclipse.jface.action.IAction;
@@ -409,6 +411,13 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 	private boolean isConfigured = false;
 	private boolean fRedoDiff = false;
 
+	/** Delay in milliseconds after the last edit before the edited region is compared again */
+	private static final int INCREMENTAL_DIFF_DELAY= 300;
+	/** Starts the comparison of the edited region once no edits have been made for the delay */
+	private Runnable fIncrementalDiffTimer;
+	/** The comparison of the edited region that runs in the background */
+	private Job fIncrementalDiffJob;
+
 	private final class InternalOutlineViewerCreator extends OutlineViewerCreator implements ISelectionChangedListener {
 		@Override
 		public Viewer findStructureViewer(Viewer oldViewer,
@@ -456,22 +465,7 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 		}
 
 	    private Diff findDiff(Position p, boolean left) {
-			for (Iterator<?> iterator = fMerger.rangesIterator(); iterator.hasNext();) {
-				Diff diff = (Diff) iterator.next();
-				Position diffPos;
-				if (left) {
-					diffPos = diff.getPosition(LEFT_CONTRIBUTOR);
-				} else {
-					diffPos = diff.getPosition(RIGHT_CONTRIBUTOR);
-				}
-				// If the element falls within a diff, highlight that diff
-				if (diffPos.offset + diffPos.length >= p.offset && diff.getKind() != RangeDifference.NOCHANGE)
-					return diff;
-				// Otherwise, highlight the first diff after the elements position
-				if (diffPos.offset >= p.offset)
-					return diff;
-			}
-			return null;
+			return fMerger.findDiff(p, left);
 		}
 
 		private Position getPosition(ITypedElement left) {
@@ -1887,6 +1881,8 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 		if (fHandlerService != null)
 			fHandlerService.dispose();
 
+		cancelIncrementalDiff();
+
 		Object input= getInput();
 		removeFromDocumentManager(ANCESTOR_CONTRIBUTOR, input);
 		removeFromDocumentManager(LEFT_CONTRIBUTOR, input);
@@ -2181,7 +2177,8 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 
 			Point region= new Point(0, 0);
 			char leg = getLeg(tp);
-			for (Iterator<?> iterator = fMerger.changesIterator(); iterator.hasNext();) {
+			int first= fMerger.findChangeIndex(leg, -shift / lineHeight);
+			for (Iterator<?> iterator = fMerger.changesIterator(first); iterator.hasNext();) {
 				Diff diff = (Diff) iterator.next();
 				if (diff.isDeleted())
 					continue;
@@ -2225,7 +2222,9 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 
 			Point region= new Point(0, 0);
 
-			for (Iterator<?> iterator = fMerger.changesIterator(); iterator.hasNext();) {
+			int first= Math.min(fMerger.findChangeIndex(LEFT_CONTRIBUTOR, -lshift / lineHeight),
+					fMerger.findChangeIndex(RIGHT_CONTRIBUTOR, -rshift / lineHeight));
+			for (Iterator<?> iterator = fMerger.changesIterator(first); iterator.hasNext();) {
 				Diff diff = (Diff) iterator.next();
 				if (diff.isDeleted())
 					continue;
@@ -3058,10 +3057,13 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 	private void documentChanged(DocumentEvent e, boolean dirty) {
 		final IDocument doc= e.getDocument();
 
+		int length= e.getText() != null ? e.getText().length() : 0;
 		if (doc == fLeft.getSourceViewer().getDocument()) {
 			setLeftDirty(dirty);
+			fMerger.markEdited(LEFT_CONTRIBUTOR, e.getOffset(), length);
 		} else if (doc == fRight.getSourceViewer().getDocument()) {
 			setRightDirty(dirty);
+			fMerger.markEdited(RIGHT_CONTRIBUTOR, e.getOffset(), length);
 		}
 		if (!isLeftDirty() && !isRightDirty()) {
 			fRedoDiff = false;
@@ -3086,9 +3088,87 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 			}.schedule();
 		} else {
 			updateLines(doc);
+			scheduleIncrementalDiff();
+		}
+	}
+
+	/*
+	 * Compares the edited region again once no edits have been made for a while.
+	 * Each step runs where it has to:
+	 * - a display timer, restarted by every edit, copies the contents of the region
+	 *   in the UI thread since the documents and diffs may only be accessed there,
+	 * - a job compares the copy so that the comparison of a large region does not
+	 *   block typing,
+	 * - the resulting diffs replace the diffs of the region in the UI thread unless
+	 *   the documents have been changed in the meantime.
+	 */
+	private void scheduleIncrementalDiff() {
+		cancelIncrementalDiff();
+		final Display display= getControl().getDisplay();
+		fIncrementalDiffTimer= new Runnable() {
+			@Override
+			public void run() {
+				if (getControl().isDisposed() || fIncrementalDiffTimer != this)
+					return;
+				fIncrementalDiffTimer= null;
+				IncrementalDiff incrementalDiff= fMerger.createIncrementalDiff();
+				if (incrementalDiff != null)
+					startIncrementalDiff(incrementalDiff, display);
+			}
+		};
+		display.timerExec(INCREMENTAL_DIFF_DELAY, fIncrementalDiffTimer);
+	}
+
+	private void startIncrementalDiff(final IncrementalDiff incrementalDiff, final Display display) {
+		fIncrementalDiffJob= new Job(CompareMessages.DocumentMerger_0) {
+			@Override
+			protected IStatus run(IProgressMonitor pm) {
+				incrementalDiff.compute(pm);
+				if (pm.isCanceled() || display.isDisposed())
+					return Status.CANCEL_STATUS;
+				final Job computeJob= this;
+				display.asyncExec(() -> {
+					if (!getControl().isDisposed() && fIncrementalDiffJob == computeJob) {
+						fIncrementalDiffJob= null;
+						applyIncrementalDiff(incrementalDiff);
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		fIncrementalDiffJob.setSystem(true);
+		fIncrementalDiffJob.schedule();
+	}
+
+	private void cancelIncrementalDiff() {
+		if (fIncrementalDiffTimer != null) {
+			Control control= getControl();
+			if (control != null && !control.isDisposed())
+				control.getDisplay().timerExec(-1, fIncrementalDiffTimer);
+			fIncrementalDiffTimer= null;
+		}
+		if (fIncrementalDiffJob != null) {
+			fIncrementalDiffJob.cancel();
+			fIncrementalDiffJob= null;
 		}
 	}
 
+	private void applyIncrementalDiff(IncrementalDiff incrementalDiff) {
+		if (!incrementalDiff.apply())
+			return;
+		Diff oldDiff= getLastDiff();
+		if (oldDiff != null && incrementalDiff.isReplaced(oldDiff.getParent())) {
+			fCurrentDiff= null;
+			fSavedDiff= null;
+			Diff newDiff= findNewDiff(oldDiff);
+			if (newDiff != null)
+				setCurrentDiff(newDiff, false);
+		}
+		updateControls();
+		updateVScrollBar();
+		updatePresentation();
+	}
+
 
 	private void saveDiff() {
 			fSavedDiff = fCurrentDiff;
@@ -3443,6 +3523,7 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 		fRight.resetLineBackground();
 		saveDiff();
 		fCurrentDiff= null;
+		cancelIncrementalDiff();
 		try {
 			fMerger.doDiff();
 		} catch (CoreException e) {
@@ -4232,7 +4313,10 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 
 			Point region= new Point(0, 0);
 
-			for (Iterator<?> iterator = fMerger.changesIterator(); iterator.hasNext();) {
+			// only the changes that end below the top of either side can be visible
+			int first= Math.min(fMerger.findChangeIndex(LEFT_CONTRIBUTOR, -lshift / lineHeightLeft),
+					fMerger.findChangeIndex(RIGHT_CONTRIBUTOR, -rshift / lineHeightRight));
+			for (Iterator<?> iterator = fMerger.changesIterator(first); iterator.hasNext();) {
 				Diff diff = (Diff) iterator.next();
 				if (diff.isDeleted())
 					continue;
@@ -4377,7 +4461,8 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 
 			Point region= new Point(0, 0);
 			char leg = getLeg(tp);
-			for (Iterator<?> iterator = fMerger.changesIterator(); iterator.hasNext();) {
+			int first= fMerger.findChangeIndex(leg, -shift / lineHeight);
+			for (Iterator<?> iterator = fMerger.changesIterator(first); iterator.hasNext();) {
 				Diff diff = (Diff) iterator.next();
 				if (diff.isDeleted())
 					continue;
@@ -4433,7 +4518,8 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 		Point range= new Point(0, 0);
 
 		char leg = getLeg(tp);
-		for (Iterator<?> iterator = fMerger.changesIterator(); iterator.hasNext();) {
+		int first= fMerger.findChangeIndex(leg, (event.y - shift) / lineHeight);
+		for (Iterator<?> iterator = fMerger.changesIterator(first); iterator.hasNext();) {
 			Diff diff = (Diff) iterator.next();
 			if (diff.isDeleted())
 				continue;
@@ -5238,6 +5324,10 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 				public int getChangesCount() {
 					return fMerger.changesCount();
 				}
+				@Override
+				public boolean isIncrementalDiffPending() {
+					return fIncrementalDiffTimer != null || fIncrementalDiffJob != null;
+				}
 			};
 		}
 		if (adapter == OutlineViewerCreator.class) {
@@ -0,0 +1,468 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.internal;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.compare.IStreamContentAccessor;
+import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.ResourceNode;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.*;
+
+/**
+ * Compares the contents of two binary inputs chunk by chunk. The contents of
+ * local files are read through file channels, other contents are read from
+ * their streams, into large buffers.
+ * <p>
+ * The comparison either stops at the first difference or records a summary
+ * of all the ranges that differ.
+ */
+public class BinaryComparator {
+
+	/** The size of the chunks read from streams and files */
+	private static final int STREAM_CHUNK_SIZE= 1024 * 1024;
+
+	/** The number of bytes that correspond to one unit of work */
+	private static final int WORK_UNIT= 64 * 1024;
+
+	/** The maximum number of differing ranges recorded in a summary */
+	public static final int MAX_RANGES= 1000;
+
+	/**
+	 * The result of a comparison.
+	 */
+	public static class Result {
+		private long fFirstDifference= -1;
+		private long fLeftLength= -1;
+		private long fRightLength= -1;
+		private long fDifferingBytes;
+		private final List<long[]> fRanges= new ArrayList<>();
+		private boolean fTruncated;
+
+		/**
+		 * Returns the position of the first byte that differs or -1 if the contents are identical.
+		 * @return the position of the first byte that differs or -1
+		 */
+		public long getFirstDifference() {
+			return fFirstDifference;
+		}
+
+		/**
+		 * Returns whether the contents are identical.
+		 * @return whether the contents are identical
+		 */
+		public boolean isIdentical() {
+			return fFirstDifference == -1;
+		}
+
+		/**
+		 * Returns the length of the left contents or -1 if the comparison
+		 * stopped before the length was known.
+		 * @return the length of the left contents or -1
+		 */
+		public long getLeftLength() {
+			return fLeftLength;
+		}
+
+		/**
+		 * Returns the length of the right contents or -1 if the comparison
+		 * stopped before the length was known.
+		 * @return the length of the right contents or -1
+		 */
+		public long getRightLength() {
+			return fRightLength;
+		}
+
+		/**
+		 * Returns the differing ranges as pairs of start (inclusive) and end (exclusive)
+		 * positions. Only the ranges of a summary are recorded and at most {@link #MAX_RANGES}.
+		 * @return the differing ranges
+		 */
+		public long[][] getRanges() {
+			return fRanges.toArray(new long[fRanges.size()][]);
+		}
+
+		/**
+		 * Returns whether more than {@link #MAX_RANGES} ranges differ
+		 * so that not all of them have been recorded.
+		 * @return whether not all differing ranges have been recorded
+		 */
+		public boolean isTruncated() {
+			return fTruncated;
+		}
+
+		/**
+		 * Returns the total number of bytes in the differing ranges of a summary.
+		 * @return the total number of bytes in the differing ranges
+		 */
+		public long getDifferingBytes() {
+			return fDifferingBytes;
+		}
+
+		void addRange(long start, long end) {
+			if (fFirstDifference == -1)
+				fFirstDifference= start;
+			fDifferingBytes+= end - start;
+			if (fRanges.size() < MAX_RANGES)
+				fRanges.add(new long[] { start, end });
+			else
+				fTruncated= true;
+		}
+	}
+
+	/*
+	 * A source of consecutive chunks of contents.
+	 */
+	private interface ChunkSource extends Closeable {
+		/*
+		 * Returns the next chunk, which has no remaining bytes at the end of the contents.
+		 * The previously returned chunk must no longer be used.
+		 */
+		ByteBuffer next() throws IOException;
+
+		/*
+		 * Returns the length of the contents or -1 if it is not known.
+		 */
+		long length();
+	}
+
+	private static class StreamSource implements ChunkSource {
+		private final InputStream fStream;
+		private ByteBuffer fBuffer;
+
+		StreamSource(InputStream stream) {
+			fStream= stream;
+		}
+
+		@Override
+		public ByteBuffer next() throws IOException {
+			if (fBuffer == null)
+				fBuffer= ByteBuffer.allocate(STREAM_CHUNK_SIZE);
+			byte[] bytes= fBuffer.array();
+			int count= 0;
+			while (count < bytes.length) {
+				int read= fStream.read(bytes, count, bytes.length - count);
+				if (read == -1)
+					break;
+				count+= read;
+			}
+			fBuffer.clear();
+			fBuffer.limit(count);
+			return fBuffer;
+		}
+
+		@Override
+		public long length() {
+			return -1;
+		}
+
+		@Override
+		public void close() throws IOException {
+			fStream.close();
+		}
+	}
+
+	/*
+	 * Reads a file through its channel into a reused heap buffer. Mapped buffers
+	 * are not used since they cannot be released explicitly and keep the file
+	 * open until they are garbage collected.
+	 */
+	private static class FileSource implements ChunkSource {
+		private final FileInputStream fStream;
+		private final FileChannel fChannel;
+		private final long fLength;
+		private ByteBuffer fBuffer;
+
+		FileSource(File file) throws IOException {
+			fStream= new FileInputStream(file);
+			fChannel= fStream.getChannel();
+			fLength= fChannel.size();
+		}
+
+		@Override
+		public ByteBuffer next() throws IOException {
+			if (fBuffer == null)
+				fBuffer= ByteBuffer.allocate((int) Math.min(STREAM_CHUNK_SIZE, Math.max(fLength, 1)));
+			fBuffer.clear();
+			while (fBuffer.hasRemaining()) {
+				if (fChannel.read(fBuffer) == -1)
+					break;
+			}
+			fBuffer.flip();
+			return fBuffer;
+		}
+
+		@Override
+		public long length() {
+			return fLength;
+		}
+
+		@Override
+		public void close() throws IOException {
+			fStream.close();
+		}
+	}
+
+	/**
+	 * Compares the contents of the given elements.
+	 * @param left the left element
+	 * @param right the right element
+	 * @param summarize whether all differing ranges are determined or the
+	 * comparison stops at the first difference
+	 * @param monitor a progress monitor
+	 * @return the result of the comparison or <code>null</code> if
+	 * one of the elements has no contents
+	 * @throws CoreException if the contents of an element could not be accessed
+	 * @throws IOException if the contents could not be read
+	 * @throws OperationCanceledException if the comparison was canceled
+	 */
+	public static Result compare(ITypedElement left, ITypedElement right, boolean summarize, IProgressMonitor monitor) throws CoreException, IOException {
+		ChunkSource l= null;
+		ChunkSource r= null;
+		try {
+			l= openSource(left);
+			r= openSource(right);
+			if (l == null || r == null)
+				return null;
+			return compare(l, r, summarize, monitor);
+		} finally {
+			close(l);
+			close(r);
+		}
+	}
+
+	/**
+	 * Compares the contents of the given streams. The streams are not closed.
+	 * @param left the left contents
+	 * @param right the right contents
+	 * @param summarize whether all differing ranges are determined or the
+	 * comparison stops at the first difference
+	 * @param monitor a progress monitor
+	 * @return the result of the comparison
+	 * @throws IOException if the contents could not be read
+	 * @throws OperationCanceledException if the comparison was canceled
+	 */
+	public static Result compare(InputStream left, InputStream right, boolean summarize, IProgressMonitor monitor) throws IOException {
+		return compare(new StreamSource(left), new StreamSource(right), summarize, monitor);
+	}
+
+	/**
+	 * Compares the contents of the given files. The files are closed when
+	 * the comparison is done.
+	 * @param left the left file
+	 * @param right the right file
+	 * @param summarize whether all differing ranges are determined or the
+	 * comparison stops at the first difference
+	 * @param monitor a progress monitor
+	 * @return the result of the comparison
+	 * @throws IOException if the files could not be read
+	 * @throws OperationCanceledException if the comparison was canceled
+	 */
+	public static Result compare(File left, File right, boolean summarize, IProgressMonitor monitor) throws IOException {
+		ChunkSource l= null;
+		ChunkSource r= null;
+		try {
+			l= new FileSource(left);
+			r= new FileSource(right);
+			return compare(l, r, summarize, monitor);
+		} finally {
+			close(l);
+			close(r);
+		}
+	}
+
+	private static Result compare(ChunkSource left, ChunkSource right, boolean summarize, IProgressMonitor monitor) throws IOException {
+		long total= Math.max(left.length(), right.length());
+		SubMonitor progress= SubMonitor.convert(monitor, total >= 0 ? (int) (total / WORK_UNIT) + 1 : 100);
+		Result result= new Result();
+		long position= 0;
+		long rangeStart= -1;
+		long unreported= 0;
+		ByteBuffer l= left.next();
+		ByteBuffer r= right.next();
+		while (l.hasRemaining() && r.hasRemaining()) {
+			if (progress.isCanceled())
+				throw new OperationCanceledException();
+			int length= Math.min(l.remaining(), r.remaining());
+			int index= 0;
+			while (index < length) {
+				if (rangeStart == -1) {
+					int mismatch= mismatch(l, r, index, length);
+					if (mismatch == -1)
+						break;
+					if (!summarize) {
+						result.fFirstDifference= position + mismatch;
+						result.fLeftLength= left.length();
+						result.fRightLength= right.length();
+						return result;
+					}
+					rangeStart= position + mismatch;
+					index= mismatch;
+				} else {
+					int match= match(l, r, index, length);
+					if (match == -1)
+						break;
+					result.addRange(rangeStart, position + match);
+					rangeStart= -1;
+					index= match;
+				}
+			}
+			l.position(l.position() + length);
+			r.position(r.position() + length);
+			position+= length;
+			unreported+= length;
+			if (unreported >= WORK_UNIT) {
+				reportProgress(progress, total, (int) (unreported / WORK_UNIT));
+				unreported%= WORK_UNIT;
+			}
+			if (!l.hasRemaining())
+				l= left.next();
+			if (!r.hasRemaining())
+				r= right.next();
+		}
+
+		if (!summarize) {
+			// The contents differ if only one of them has been read completely
+			if (l.hasRemaining() || r.hasRemaining()) {
+				result.fFirstDifference= position;
+				result.fLeftLength= l.hasRemaining() ? left.length() : position;
+				result.fRightLength= r.hasRemaining() ? right.length() : position;
+			} else {
+				result.fLeftLength= position;
+				result.fRightLength= position;
+			}
+			progress.done();
+			return result;
+		}
+
+		// The remaining contents of the longer input differ
+		long leftLength= l.hasRemaining() ? remaining(left, l, position, progress) : position;
+		long rightLength= r.hasRemaining() ? remaining(right, r, position, progress) : position;
+		result.fLeftLength= leftLength;
+		result.fRightLength= rightLength;
+		long end= Math.max(leftLength, rightLength);
+		if (rangeStart != -1) {
+			result.addRange(rangeStart, end);
+		} else if (position < end) {
+			result.addRange(position, end);
+		}
+		progress.done();
+		return result;
+	}
+
+	/*
+	 * Returns the length of the contents of the source, reading the
+	 * remaining contents if the length is not known.
+	 */
+	private static long remaining(ChunkSource source, ByteBuffer current, long position, SubMonitor progress) throws IOException {
+		if (source.length() >= 0)
+			return source.length();
+		long length= position;
+		ByteBuffer buffer= current;
+		while (buffer.hasRemaining()) {
+			if (progress.isCanceled())
+				throw new OperationCanceledException();
+			length+= buffer.remaining();
+			buffer= source.next();
+		}
+		return length;
+	}
+
+	private static void reportProgress(SubMonitor progress, long total, int work) {
+		if (total >= 0) {
+			progress.worked(work);
+		} else {
+			// The length is not known so report a logarithmic progress
+			progress.setWorkRemaining(100);
+			progress.worked(1);
+		}
+	}
+
+	/*
+	 * Returns the index, relative to the positions of the buffers, of the first
+	 * byte in the given range that differs, or -1 if all bytes are equal.
+	 */
+	private static int mismatch(ByteBuffer l, ByteBuffer r, int from, int to) {
+		int lp= l.position();
+		int rp= r.position();
+		int i= from;
+		// Compare 8 bytes at a time until a difference is found
+		for (; i + 8 <= to; i+= 8) {
+			if (l.getLong(lp + i) != r.getLong(rp + i))
+				break;
+		}
+		for (; i < to; i++) {
+			if (l.get(lp + i) != r.get(rp + i))
+				return i;
+		}
+		return -1;
+	}
+
+	/*
+	 * Returns the index, relative to the positions of the buffers, of the first
+	 * byte in the given range that is equal, or -1 if all bytes differ.
+	 */
+	private static int match(ByteBuffer l, ByteBuffer r, int from, int to) {
+		int lp= l.position();
+		int rp= r.position();
+		for (int i= from; i < to; i++) {
+			if (l.get(lp + i) == r.get(rp + i))
+				return i;
+		}
+		return -1;
+	}
+
+	private static ChunkSource openSource(ITypedElement element) throws CoreException, IOException {
+		if (!(element instanceof IStreamContentAccessor))
+			return null;
+		InputStream stream= ((IStreamContentAccessor) element).getContents();
+		if (stream == null)
+			return null;
+		File file= getLocalFile(element);
+		// Contents that have been modified in the compare editor are returned from memory
+		if (file != null && !(stream instanceof ByteArrayInputStream)) {
+			Utilities.close(stream);
+			return new FileSource(file);
+		}
+		return new StreamSource(stream);
+	}
+
+	private static File getLocalFile(ITypedElement element) {
+		if (element instanceof ResourceNode) {
+			IResource resource= ((ResourceNode) element).getResource();
+			if (resource instanceof IFile) {
+				IPath location= resource.getLocation();
+				if (location != null) {
+					File file= location.toFile();
+					if (file.isFile())
+						return file;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// silently ignored
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.compare.internal;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ResourceBundle;
 
 import org.eclipse.compare.CompareConfiguration;
@@ -21,8 +22,14 @@ import org.eclipse.compare.IStreamContentAccessor;
 import org.eclipse.compare.ITypedElement;
 import org.eclipse.compare.structuremergeviewer.ICompareInput;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.layout.RowLayout;
+import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Label;
@@ -32,18 +39,23 @@ import com.ibm.icu.text.MessageFormat;
 
 /**
  * A simple compare viewer for binary files.
- * Shows the position of the first non-matching byte.
+ * Shows the position of the first non-matching byte and,
+ * on request, a summary of the differing ranges.
  */
 public class BinaryCompareViewer extends AbstractViewer {
 
 	private static final String BUNDLE_NAME = "org.eclipse.compare.internal.BinaryCompareViewerResources"; //$NON-NLS-1$
 
-	private static final int EOF = -1;
+	/** The maximum number of differing ranges that are listed in the summary */
+	private static final int MAX_LISTED_RANGES = 20;
+
 	private ICompareInput fInput;
 	private ResourceBundle fBundle;
 
 	private Composite fComposite;
 	private Label fMessage;
+	private Button fSummaryButton;
+	private Label fSummary;
 	private CompareConfiguration compareConfiguration;
 
 	public BinaryCompareViewer(Composite parent, final CompareConfiguration cc) {
@@ -82,23 +94,24 @@ public class BinaryCompareViewer extends AbstractViewer {
 			InputStream right= null;
 
 			String message= null;
+			boolean differs= false;
+			disposeSummary();
 			try {
 				left= getStream(fInput.getLeft());
 				right= getStream(fInput.getRight());
 
 				if (left != null && right != null) {
-					int pos= 0;
-					while (true) {
-						int l= left.read();
-						int r= right.read();
-						if (l != r) {
-							String format= Utilities.getString(fBundle, "diffMessageFormat"); //$NON-NLS-1$
-							message= MessageFormat.format(format, Integer.toString(pos) );
-							break;
-						}
-						if (l == EOF)
-							break;
-						pos++;
+					// The contents are read again by the comparator, from the local files if possible
+					Utilities.close(left);
+					Utilities.close(right);
+					left= right= null;
+					BinaryComparator.Result result= compare(false);
+					if (result == null) {
+						message= Utilities.getString(fBundle, "cancelledMessage"); //$NON-NLS-1$
+					} else if (!result.isIdentical()) {
+						String format= Utilities.getString(fBundle, "diffMessageFormat"); //$NON-NLS-1$
+						message= MessageFormat.format(format, Long.toString(result.getFirstDifference()));
+						differs= true;
 					}
 				} else if (left == null && right == null) {
 					message= Utilities.getString(fBundle, "deleteConflictMessage"); //$NON-NLS-1$
@@ -118,10 +131,107 @@ public class BinaryCompareViewer extends AbstractViewer {
 			}
 			if (message != null)
 				fMessage.setText(message);
+			if (differs)
+				createSummaryButton();
 			fComposite.layout();
 		}
 	}
 
+	/*
+	 * Compares the contents of the input with progress. Returns null if the
+	 * comparison was canceled.
+	 */
+	private BinaryComparator.Result compare(final boolean summarize) throws CoreException, IOException {
+		final BinaryComparator.Result[] result= new BinaryComparator.Result[1];
+		final ITypedElement left= fInput.getLeft();
+		final ITypedElement right= fInput.getRight();
+		IRunnableWithProgress runnable= monitor -> {
+			SubMonitor progress= SubMonitor.convert(monitor, Utilities.getString(fBundle, "progressMessage"), 1); //$NON-NLS-1$
+			try {
+				result[0]= BinaryComparator.compare(left, right, summarize, progress.split(1));
+			} catch (OperationCanceledException e) {
+				throw new InterruptedException();
+			} catch (CoreException | IOException e) {
+				throw new InvocationTargetException(e);
+			}
+		};
+		try {
+			compareConfiguration.getContainer().run(true, true, runnable);
+		} catch (InvocationTargetException e) {
+			Throwable target= e.getTargetException();
+			if (target instanceof CoreException)
+				throw (CoreException) target;
+			if (target instanceof IOException)
+				throw (IOException) target;
+			throw new IOException(target);
+		} catch (InterruptedException e) {
+			return null;
+		}
+		return result[0];
+	}
+
+	private void createSummaryButton() {
+		fSummaryButton= new Button(fComposite, SWT.PUSH);
+		fSummaryButton.setText(Utilities.getString(fBundle, "summaryButton")); //$NON-NLS-1$
+		fSummaryButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				showSummary();
+			}
+		});
+	}
+
+	private void showSummary() {
+		String message;
+		try {
+			BinaryComparator.Result result= compare(true);
+			if (result == null) {
+				message= Utilities.getString(fBundle, "cancelledMessage"); //$NON-NLS-1$
+			} else {
+				message= getSummary(result);
+				fSummaryButton.dispose();
+				fSummaryButton= null;
+			}
+		} catch (CoreException | IOException ex) {
+			message= Utilities.getString(fBundle, "errorMessage"); //$NON-NLS-1$
+			CompareUIPlugin.log(ex);
+		}
+		if (fSummary == null || fSummary.isDisposed())
+			fSummary= new Label(fComposite, SWT.WRAP);
+		fSummary.setText(message);
+		fComposite.layout();
+	}
+
+	private String getSummary(BinaryComparator.Result result) {
+		long[][] ranges= result.getRanges();
+		StringBuffer buffer= new StringBuffer();
+		String count= result.isTruncated() ? '>' + Integer.toString(ranges.length) : Integer.toString(ranges.length);
+		buffer.append(MessageFormat.format(Utilities.getString(fBundle, "summaryMessageFormat"), //$NON-NLS-1$
+				count, Long.toString(result.getDifferingBytes()),
+				Long.toString(result.getLeftLength()), Long.toString(result.getRightLength())));
+		String rangeFormat= Utilities.getString(fBundle, "rangeMessageFormat"); //$NON-NLS-1$
+		for (int i= 0; i < ranges.length && i < MAX_LISTED_RANGES; i++) {
+			buffer.append('\n');
+			buffer.append(MessageFormat.format(rangeFormat, Long.toString(ranges[i][0]), Long.toString(ranges[i][1] - 1)));
+		}
+		if (ranges.length > MAX_LISTED_RANGES || result.isTruncated()) {
+			buffer.append('\n');
+			buffer.append(Utilities.getString(fBundle, "moreRangesMessage")); //$NON-NLS-1$
+		}
+		return buffer.toString();
+	}
+
+	private void disposeSummary() {
+		if (fSummaryButton != null) {
+			fSummaryButton.dispose();
+			fSummaryButton= null;
+		}
+		if (fSummary != null) {
+			fSummary.dispose();
+			fSummary= null;
+		}
+	}
+
 	@Override
 	public Object getInput() {
 		return fInput;
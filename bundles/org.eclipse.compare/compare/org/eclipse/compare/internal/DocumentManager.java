@@ -10,56 +10,160 @@
  *******************************************************************************/
 package org.eclipse.compare.internal;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.jface.text.IDocument;
 
 /**
  * No API yet.
+ * <p>
+ * The documents are keyed by the identity of their input objects. The
+ * inputs are only weakly referenced so that the documents of inputs that
+ * have been garbage collected are released.
  */
 public class DocumentManager {
 
 	private static final boolean DEBUG= false;
 
-	private static ArrayList<Object> fgKeys= new ArrayList<>();
-	private static ArrayList<IDocument> fgValues= new ArrayList<>();
+	/*
+	 * A weak reference to an input that is equal to another key
+	 * if both refer to the same input.
+	 */
+	private static class Key extends WeakReference<Object> {
+		private final int fHash;
 
-	public static IDocument get(Object o) {
+		Key(Object o, ReferenceQueue<Object> queue) {
+			super(o, queue);
+			fHash= System.identityHashCode(o);
+		}
+
+		@Override
+		public int hashCode() {
+			return fHash;
+		}
 
-		for (int i= 0; i < fgKeys.size(); i++) {
-			if (fgKeys.get(i) == o)
-				return fgValues.get(i);
+		@Override
+		public boolean equals(Object other) {
+			if (this == other)
+				return true;
+			if (other instanceof Key) {
+				Object o= get();
+				return o != null && o == ((Key) other).get();
+			}
+			return false;
 		}
-		return null;
 	}
 
-	public static void put(Object o, IDocument document) {
+	private static final ReferenceQueue<Object> fgQueue= new ReferenceQueue<>();
+	private static final Map<Key, IDocument> fgDocuments= new HashMap<>();
+	// The keys of each document so that documents can be removed without a scan
+	private static final Map<IDocument, List<Key>> fgKeys= new IdentityHashMap<>();
+
+	private static long fgHits;
+	private static long fgMisses;
+
+	public static synchronized IDocument get(Object o) {
+		expungeStaleEntries();
+		IDocument document= o != null ? fgDocuments.get(new Key(o, null)) : null;
+		if (document != null)
+			fgHits++;
+		else
+			fgMisses++;
+		return document;
+	}
+
+	public static synchronized void put(Object o, IDocument document) {
 		if (DEBUG) System.out.println("DocumentManager.put: " + document);	//$NON-NLS-1$
-		for (int i= 0; i < fgKeys.size(); i++) {
-			if (fgKeys.get(i) == o) {
-				fgValues.set(i, document);
-				return;
-			}
+		expungeStaleEntries();
+		Key key= new Key(o, fgQueue);
+		// Remove the previous entry first since the map keeps its original key
+		IDocument oldDocument= fgDocuments.remove(key);
+		if (oldDocument != null)
+			removeKey(oldDocument, key);
+		fgDocuments.put(key, document);
+		List<Key> keys= fgKeys.get(document);
+		if (keys == null) {
+			keys= new ArrayList<>(1);
+			fgKeys.put(document, keys);
 		}
-		fgKeys.add(o);
-		fgValues.add(document);
+		keys.add(key);
 	}
 
-	public static void remove(IDocument document) {
+	public static synchronized void remove(IDocument document) {
 		if (document != null) {
 			if (DEBUG) System.out.println("DocumentManager.remove: " + document);	//$NON-NLS-1$
-			for (int i= 0; i < fgValues.size(); i++) {
-				if (fgValues.get(i) == document) {
-					fgKeys.remove(i);
-					fgValues.remove(i);
-					return;
-				}
+			expungeStaleEntries();
+			List<Key> keys= fgKeys.remove(document);
+			if (keys == null) {
+				if (DEBUG) System.out.println("DocumentManager.remove: not found");	//$NON-NLS-1$
+				return;
 			}
-			if (DEBUG) System.out.println("DocumentManager.remove: not found");	//$NON-NLS-1$
+			for (Key key : keys)
+				fgDocuments.remove(key);
 		}
 	}
 
+	/**
+	 * Returns the number of lookups that found a document.
+	 * @return the number of lookups that found a document
+	 */
+	public static synchronized long getHitCount() {
+		return fgHits;
+	}
+
+	/**
+	 * Returns the number of lookups that did not find a document.
+	 * @return the number of lookups that did not find a document
+	 */
+	public static synchronized long getMissCount() {
+		return fgMisses;
+	}
+
+	/**
+	 * Returns the number of documents that are currently managed.
+	 * @return the number of managed documents
+	 */
+	public static synchronized int size() {
+		expungeStaleEntries();
+		return fgKeys.size();
+	}
+
 	public static void dump() {
-		if (DEBUG) System.out.println("DocumentManager: managed docs:" + fgValues.size());	//$NON-NLS-1$
+		if (DEBUG) System.out.println("DocumentManager: managed docs:" + size() + " hits:" + getHitCount() + " misses:" + getMissCount());	//$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/*
+	 * Releases the documents of the inputs that have been garbage collected.
+	 */
+	private static void expungeStaleEntries() {
+		Reference<?> reference;
+		while ((reference= fgQueue.poll()) != null) {
+			Key key= (Key) reference;
+			// Stale keys are only equal to themselves
+			IDocument document= fgDocuments.remove(key);
+			if (document != null)
+				removeKey(document, key);
+		}
+	}
+
+	private static void removeKey(IDocument document, Key key) {
+		List<Key> keys= fgKeys.get(document);
+		if (keys != null) {
+			for (int i= 0; i < keys.size(); i++) {
+				if (keys.get(i) == key || keys.get(i).equals(key)) {
+					keys.remove(i);
+					break;
+				}
+			}
+			if (keys.isEmpty())
+				fgKeys.remove(document);
+		}
 	}
 }
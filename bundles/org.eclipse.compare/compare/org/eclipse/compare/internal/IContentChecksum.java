@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.internal;
+
+/**
+ * Implemented by compare elements that know the size and the CRC-32 checksum
+ * of their contents without reading them, for example the entries of a zip
+ * archive. The <code>Differencer</code> uses this information to compare
+ * such elements without accessing their contents.
+ */
+public interface IContentChecksum {
+
+	/**
+	 * Returns the size of the contents in bytes.
+	 *
+	 * @return the size of the contents or <code>-1</code> if not known
+	 */
+	long getSize();
+
+	/**
+	 * Returns the CRC-32 checksum of the contents.
+	 *
+	 * @return the checksum of the contents or <code>-1</code> if not known
+	 */
+	long getChecksum();
+}
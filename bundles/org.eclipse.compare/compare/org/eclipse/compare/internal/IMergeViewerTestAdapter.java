@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2013 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -31,4 +31,11 @@ public interface IMergeViewerTestAdapter {
 	 * @return the number of changes
 	 */
 	public int getChangesCount();
+
+	/**
+	 * Returns whether a comparison of edited text is scheduled or running
+	 *
+	 * @return whether the comparison of edited text has not completed
+	 */
+	public boolean isIncrementalDiffPending();
 }
@@ -22,6 +22,7 @@ import org.eclipse.compare.internal.core.LCS;
 import org.eclipse.compare.rangedifferencer.*;
 import org.eclipse.compare.structuremergeviewer.Differencer;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.text.*;
 import org.eclipse.swt.graphics.Image;
@@ -45,6 +46,9 @@ public class DocumentMerger {
 	/** if true copying conflicts from one side to other concatenates both sides */
 	private static final boolean APPEND_CONFLICT= true;
 
+	/** Number of changes before and after the visible ones whose token diffs are computed in the background */
+	private static final int PREFETCH_CHANGE_COUNT= 20;
+
 	/** All diffs for calculating scrolling position (includes line ranges without changes) */
 	private ArrayList<Diff> fAllDiffs;
 	/** Subset of above: just real differences. */
@@ -52,6 +56,12 @@ public class DocumentMerger {
 
 	private IDocumentMergerInput fInput;
 
+	/** Computes the token diffs of the changes next to the visible ones */
+	private Job fPrefetchJob;
+
+	/** Incremented whenever the diffs are replaced so that outdated incremental diffs are ignored */
+	private int fDiffGeneration;
+
 	/**
 	 * Interface that defines that input to the document merge process
 	 */
@@ -96,6 +106,12 @@ public class DocumentMerger {
 		/** child token diffs */
 		List<Diff> fDiffs;
 		boolean fIsWhitespace= false;
+		/** if the token diffs have not been computed yet */
+		boolean fTokenDiffsPending;
+		/** token differences computed in the background, used when the diff is first shown */
+		volatile TokenDiffs fPrefetchedTokenDiffs;
+		/** if the text of the diff has been edited since the diff was computed */
+		boolean fEdited;
 
 		/*
 		 * Create Diff from two ranges and an optional parent diff.
@@ -212,8 +228,24 @@ public class DocumentMerger {
 
 		void setResolved(boolean r) {
 			fResolved= r;
-			if (r)
+			if (r) {
 				fDiffs= null;
+				fTokenDiffsPending= false;
+				fPrefetchedTokenDiffs= null;
+			}
+		}
+
+		/*
+		 * Computes the token diffs if this has not been done yet.
+		 * Must be called in the UI thread since the documents are accessed.
+		 */
+		void ensureTokenDiffs() {
+			if (fTokenDiffsPending) {
+				fTokenDiffsPending= false;
+				TokenDiffs prefetched= fPrefetchedTokenDiffs;
+				fPrefetchedTokenDiffs= null;
+				computeTokenDiffs(this, prefetched);
+			}
 		}
 
 		public boolean isResolved() {
@@ -279,7 +311,10 @@ public class DocumentMerger {
 		}
 
 		public Diff[] getChangeDiffs(int contributor, IRegion region) {
-			if (fDiffs != null && intersectsRegion(contributor, region)) {
+			if (!intersectsRegion(contributor, region))
+				return new Diff[0];
+			ensureTokenDiffs();
+			if (fDiffs != null) {
 				List<Diff> result = new ArrayList<>();
 				for (Iterator<Diff> iterator = fDiffs.iterator(); iterator.hasNext();) {
 					Diff diff = iterator.next();
@@ -300,6 +335,7 @@ public class DocumentMerger {
 		}
 
 		public boolean hasChildren() {
+			ensureTokenDiffs();
 			return fDiffs != null && !fDiffs.isEmpty();
 		}
 
@@ -316,6 +352,7 @@ public class DocumentMerger {
 		}
 
 		public Iterator<Diff> childIterator() {
+			ensureTokenDiffs();
 			if (fDiffs == null)
 				return new ArrayList<Diff>().iterator();
 			return fDiffs.iterator();
@@ -329,10 +366,14 @@ public class DocumentMerger {
 	/**
 	 * Perform a two level 2- or 3-way diff.
 	 * The first level is based on line comparison, the second level on token comparison.
+	 * The token comparison of a change is only performed when the change is shown
+	 * (see {@link #getChangeDiffs(char, IRegion)}) or its token diffs are requested.
 	 * @throws CoreException
 	 */
 	public void doDiff() throws CoreException {
 
+		cancelPrefetch();
+		fDiffGeneration++;
 		fChangeDiffs= new ArrayList<>();
 		IDocument lDoc = getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
 		IDocument rDoc = getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
@@ -482,17 +523,12 @@ public class DocumentMerger {
 						diff.fIsWhitespace= true;
 					}
 
-					// If the diff is of interest, record it and generate the token diffs
+					// If the diff is of interest, record it. The token diffs
+					// are generated when the diff is first shown.
 					if (useChange(diff)) {
 						recordChangeDiff(diff);
-						if (s.length() > 0 && d.length() > 0) {
-							if (a == null && sancestor != null)
-								a= extract2(aDoc, sancestor, es.ancestorStart(), es.ancestorLength());
-							if (USE_MERGING_TOKEN_DIFF)
-								mergingTokenDiff(diff, aDoc, a, rDoc, d, lDoc, s);
-							else
-								simpleTokenDiff(diff, aDoc, a, rDoc, d, lDoc, s);
-						}
+						if (s.length() > 0 && d.length() > 0)
+							diff.fTokenDiffsPending= true;
 					}
 				}
 			}
@@ -514,6 +550,285 @@ public class DocumentMerger {
 		return false;
 	}
 
+	/**
+	 * Records that the given range of the document of the given contributor has been
+	 * edited. The diffs touching the range are compared again by the next
+	 * {@link #createIncrementalDiff() incremental diff}.
+	 * @param contributor the contributor whose document was edited
+	 * @param offset the offset of the edit
+	 * @param length the length of the text that was inserted by the edit
+	 */
+	public void markEdited(char contributor, int offset, int length) {
+		if (fAllDiffs == null)
+			return;
+		int end= offset + length;
+		for (int i= indexOfFirstEndingAfter(fAllDiffs, contributor, offset); i < fAllDiffs.size(); i++) {
+			Diff diff= fAllDiffs.get(i);
+			Position p= diff.getPosition(contributor);
+			if (p == null || p.offset > end)
+				break;
+			diff.fEdited= true;
+		}
+	}
+
+	/**
+	 * Creates an incremental diff for the edited diffs, or returns <code>null</code>
+	 * if no diffs have been edited or the edits cannot be compared incrementally.
+	 * The compared region is extended to the closest unchanged and unedited ranges
+	 * before and after the edited diffs. Must be called in the UI thread.
+	 * @return an incremental diff or <code>null</code>
+	 */
+	public IncrementalDiff createIncrementalDiff() {
+		if (fAllDiffs == null || fChangeDiffs == null || fAllDiffs.isEmpty() || isPatchHunk())
+			return null;
+		IDocument lDoc= getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+		IDocument rDoc= getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+		IDocument aDoc= null;
+		if (isThreeWay() && !isIgnoreAncestor())
+			aDoc= getDocument(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR);
+		if (lDoc == null || rDoc == null)
+			return null;
+		// Comparisons of document ranges are always performed as a whole
+		if (getRegion(MergeViewerContentProvider.LEFT_CONTRIBUTOR) != null
+				|| getRegion(MergeViewerContentProvider.RIGHT_CONTRIBUTOR) != null
+				|| (aDoc != null && getRegion(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR) != null))
+			return null;
+		if ((aDoc != null) != (fAllDiffs.get(0).fAncestorPos != null))
+			return null;
+		if (!(lDoc instanceof IDocumentExtension4) || !(rDoc instanceof IDocumentExtension4)
+				|| (aDoc != null && !(aDoc instanceof IDocumentExtension4)))
+			return null;
+
+		int first= -1;
+		int last= -1;
+		for (int i= 0; i < fAllDiffs.size(); i++) {
+			if (fAllDiffs.get(i).fEdited) {
+				if (first == -1)
+					first= i;
+				last= i;
+			}
+		}
+		if (first == -1)
+			return null;
+		while (first > 0 && !isAnchor(fAllDiffs.get(first - 1)))
+			first--;
+		while (last < fAllDiffs.size() - 1 && !isAnchor(fAllDiffs.get(last + 1)))
+			last++;
+		try {
+			return new IncrementalDiff(first, last, aDoc, lDoc, rDoc);
+		} catch (BadLocationException e) {
+			return null;
+		}
+	}
+
+	/*
+	 * Returns whether the diff bounds an incremental diff. Such a diff has
+	 * the same contents on all sides and has not been edited.
+	 */
+	private static boolean isAnchor(Diff diff) {
+		return diff.fDirection == RangeDifference.NOCHANGE && !diff.fEdited && !diff.isDeleted();
+	}
+
+	/*
+	 * The line difference of a region compared by an incremental diff.
+	 * The offsets are relative to the start of the region.
+	 */
+	private static class DiffRange {
+		int fKind;
+		int fAncestorStart, fAncestorEnd;
+		int fLeftStart, fLeftEnd;
+		int fRightStart, fRightEnd;
+		boolean fIsWhitespace;
+	}
+
+	/**
+	 * The comparison of the region of the documents affected by edits. The region
+	 * is bounded by unchanged ranges so the diffs outside of it remain valid.
+	 * An incremental diff is created and applied in the UI thread while
+	 * {@link #compute(IProgressMonitor)} may be run in any thread since it
+	 * only accesses a copy of the contents of the region.
+	 */
+	public class IncrementalDiff {
+		private final int fGeneration;
+		private final int fFirst;
+		private final int fLast;
+		private final IDocument fAncestorDoc;
+		private final IDocument fLeftDoc;
+		private final IDocument fRightDoc;
+		private final long fAncestorStamp;
+		private final long fLeftStamp;
+		private final long fRightStamp;
+		private final int fAncestorStart;
+		private final int fLeftStart;
+		private final int fRightStart;
+		private final String fAncestorText;
+		private final String fLeftText;
+		private final String fRightText;
+		private final boolean fIgnoreWhitespace;
+		private final ICompareFilter[] fCompareFilters;
+		private volatile List<DiffRange> fRanges;
+		private Set<Diff> fReplaced;
+
+		IncrementalDiff(int first, int last, IDocument aDoc, IDocument lDoc, IDocument rDoc) throws BadLocationException {
+			fGeneration= fDiffGeneration;
+			fFirst= first;
+			fLast= last;
+			fAncestorDoc= aDoc;
+			fLeftDoc= lDoc;
+			fRightDoc= rDoc;
+			fAncestorStamp= aDoc != null ? ((IDocumentExtension4) aDoc).getModificationStamp() : 0;
+			fLeftStamp= ((IDocumentExtension4) lDoc).getModificationStamp();
+			fRightStamp= ((IDocumentExtension4) rDoc).getModificationStamp();
+			fAncestorStart= aDoc != null ? getRegionStart(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR) : 0;
+			fLeftStart= getRegionStart(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+			fRightStart= getRegionStart(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+			fAncestorText= aDoc != null ? getRegionText(aDoc, MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR, fAncestorStart) : null;
+			fLeftText= getRegionText(lDoc, MergeViewerContentProvider.LEFT_CONTRIBUTOR, fLeftStart);
+			fRightText= getRegionText(rDoc, MergeViewerContentProvider.RIGHT_CONTRIBUTOR, fRightStart);
+			fIgnoreWhitespace= isIgnoreWhitespace();
+			fCompareFilters= getCompareFilters();
+		}
+
+		private int getRegionStart(char contributor) {
+			if (fFirst == 0)
+				return 0;
+			Position p= fAllDiffs.get(fFirst - 1).getPosition(contributor);
+			return p.offset + p.length;
+		}
+
+		private String getRegionText(IDocument doc, char contributor, int start) throws BadLocationException {
+			int end= fLast < fAllDiffs.size() - 1 ? fAllDiffs.get(fLast + 1).getPosition(contributor).offset : doc.getLength();
+			return doc.get(start, end - start);
+		}
+
+		/**
+		 * Compares the lines of the edited region.
+		 * @param monitor a progress monitor
+		 */
+		public void compute(IProgressMonitor monitor) {
+			IDocument aDoc= fAncestorText != null ? new Document(fAncestorText) : null;
+			IDocument lDoc= new Document(fLeftText);
+			IDocument rDoc= new Document(fRightText);
+			DocLineComparator sa= aDoc != null ? new DocLineComparator(aDoc, null, fIgnoreWhitespace, fCompareFilters, MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR) : null;
+			DocLineComparator sl= new DocLineComparator(lDoc, null, fIgnoreWhitespace, fCompareFilters, MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+			DocLineComparator sr= new DocLineComparator(rDoc, null, fIgnoreWhitespace, fCompareFilters, MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+
+			monitor.beginTask(CompareMessages.DocumentMerger_0, maxWork(sa, sl, sr));
+			try {
+				RangeDifference[] e= RangeDifferencer.findRanges(monitor, sa, sl, sr);
+				if (monitor.isCanceled())
+					return;
+				List<DiffRange> ranges= new ArrayList<>(e.length);
+				for (int i= 0; i < e.length; i++) {
+					RangeDifference es= e[i];
+					DiffRange range= new DiffRange();
+					range.fKind= es.kind();
+					if (sa != null) {
+						range.fAncestorStart= sa.getTokenStart(es.ancestorStart());
+						range.fAncestorEnd= getTokenEnd2(sa, es.ancestorStart(), es.ancestorLength());
+					}
+					range.fLeftStart= sl.getTokenStart(es.leftStart());
+					range.fLeftEnd= getTokenEnd2(sl, es.leftStart(), es.leftLength());
+					range.fRightStart= sr.getTokenStart(es.rightStart());
+					range.fRightEnd= getTokenEnd2(sr, es.rightStart(), es.rightLength());
+					if (fIgnoreWhitespace) {
+						String a= sa != null ? extract2(aDoc, sa, es.ancestorStart(), es.ancestorLength()) : null;
+						String s= extract2(lDoc, sl, es.leftStart(), es.leftLength());
+						String d= extract2(rDoc, sr, es.rightStart(), es.rightLength());
+						range.fIsWhitespace= (a == null || a.trim().length() == 0)
+								&& s.trim().length() == 0
+								&& d.trim().length() == 0;
+					}
+					ranges.add(range);
+				}
+				fRanges= ranges;
+			} finally {
+				monitor.done();
+			}
+		}
+
+		/**
+		 * Replaces the diffs of the region by the computed ones if neither the
+		 * documents nor the diffs have changed since this incremental diff was created.
+		 * Must be called in the UI thread.
+		 * @return whether the diffs have been replaced
+		 */
+		public boolean apply() {
+			List<DiffRange> ranges= fRanges;
+			if (ranges == null || fGeneration != fDiffGeneration)
+				return false;
+			if ((fAncestorDoc != null && ((IDocumentExtension4) fAncestorDoc).getModificationStamp() != fAncestorStamp)
+					|| ((IDocumentExtension4) fLeftDoc).getModificationStamp() != fLeftStamp
+					|| ((IDocumentExtension4) fRightDoc).getModificationStamp() != fRightStamp)
+				return false;
+
+			Set<Diff> oldChanges= Collections.newSetFromMap(new IdentityHashMap<Diff, Boolean>());
+			oldChanges.addAll(fChangeDiffs);
+			fReplaced= Collections.newSetFromMap(new IdentityHashMap<Diff, Boolean>());
+			List<Diff> replaced= fAllDiffs.subList(fFirst, fLast + 1);
+			for (Diff diff : replaced) {
+				removePositions(diff);
+				fReplaced.add(diff);
+			}
+			replaced.clear();
+
+			Set<Diff> newChanges= Collections.newSetFromMap(new IdentityHashMap<Diff, Boolean>());
+			List<Diff> added= new ArrayList<>(ranges.size());
+			for (DiffRange range : ranges) {
+				Diff diff= new Diff(null, range.fKind,
+						fAncestorDoc, null, fAncestorStart + range.fAncestorStart, fAncestorStart + range.fAncestorEnd,
+						fLeftDoc, null, fLeftStart + range.fLeftStart, fLeftStart + range.fLeftEnd,
+						fRightDoc, null, fRightStart + range.fRightStart, fRightStart + range.fRightEnd);
+				diff.fIsWhitespace= range.fIsWhitespace;
+				if (useChange(diff)) {
+					newChanges.add(diff);
+					if (diff.fLeftPos.length > 0 && diff.fRightPos.length > 0)
+						diff.fTokenDiffsPending= true;
+				}
+				added.add(diff);
+			}
+			fAllDiffs.addAll(fFirst, added);
+
+			ArrayList<Diff> changes= new ArrayList<>(fChangeDiffs.size() + newChanges.size());
+			for (Diff diff : fAllDiffs) {
+				if (oldChanges.contains(diff) || newChanges.contains(diff))
+					changes.add(diff);
+			}
+			fChangeDiffs= changes;
+			fDiffGeneration++;
+			return true;
+		}
+
+		/**
+		 * Returns whether the given diff has been replaced when this incremental diff was applied.
+		 * @param diff a diff
+		 * @return whether the given diff has been replaced
+		 */
+		public boolean isReplaced(Diff diff) {
+			return fReplaced != null && fReplaced.contains(diff);
+		}
+
+		private void removePositions(Diff diff) {
+			removePosition(fAncestorDoc, diff.fAncestorPos);
+			removePosition(fLeftDoc, diff.fLeftPos);
+			removePosition(fRightDoc, diff.fRightPos);
+			if (diff.fDiffs != null) {
+				for (Diff child : diff.fDiffs)
+					removePositions(child);
+			}
+		}
+
+		private void removePosition(IDocument doc, Position p) {
+			if (doc == null || p == null)
+				return;
+			try {
+				doc.removePosition(DIFF_RANGE_CATEGORY, p);
+			} catch (BadPositionCategoryException e) {
+				// silently ignored
+			}
+		}
+	}
+
 	public Diff findDiff(char type, int pos) throws CoreException {
 
 		IDocument aDoc= null;
@@ -729,28 +1044,146 @@ public class DocumentMerger {
 		return null;
 	}
 
+	/*
+	 * The token comparators and token differences of the contents of a change.
+	 */
+	private static class TokenDiffs {
+		final String fAncestor;
+		final String fLeft;
+		final String fRight;
+		final ITokenComparator fAncestorComparator;
+		final ITokenComparator fLeftComparator;
+		final ITokenComparator fRightComparator;
+		final RangeDifference[] fRanges;
+
+		TokenDiffs(String a, String s, String d, ITokenComparator sa, ITokenComparator sy, ITokenComparator sm) {
+			fAncestor= a;
+			fLeft= s;
+			fRight= d;
+			fAncestorComparator= sa;
+			fLeftComparator= sy;
+			fRightComparator= sm;
+			fRanges= RangeDifferencer.findRanges(sa, sy, sm);
+		}
+
+		boolean matches(String a, String s, String d) {
+			return Objects.equals(fAncestor, a) && fLeft.equals(s) && fRight.equals(d);
+		}
+	}
+
+	private TokenDiffs findTokenDiffs(String a, String s, String d) {
+		ITokenComparator sa= a != null ? createTokenComparator(a) : null;
+		return new TokenDiffs(a, s, d, sa, createTokenComparator(s), createTokenComparator(d));
+	}
+
+	/*
+	 * Generates the token diffs of the given change from the current contents of the documents.
+	 * The prefetched token differences are used if they were computed for the same contents.
+	 */
+	private void computeTokenDiffs(Diff diff, TokenDiffs prefetched) {
+		if (diff.isDeleted())
+			return;
+		IDocument aDoc= diff.fAncestorPos != null ? getDocument(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR) : null;
+		IDocument lDoc= getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+		IDocument rDoc= getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+		if (lDoc == null || rDoc == null)
+			return;
+		String a= aDoc != null ? extract(aDoc, diff.fAncestorPos) : null;
+		String s= extract(lDoc, diff.fLeftPos);
+		String d= extract(rDoc, diff.fRightPos);
+		if (s.length() == 0 || d.length() == 0)
+			return;
+		TokenDiffs tokens= prefetched != null && prefetched.matches(a, s, d) ? prefetched : findTokenDiffs(a, s, d);
+		if (USE_MERGING_TOKEN_DIFF)
+			mergingTokenDiff(diff, aDoc, rDoc, lDoc, tokens);
+		else
+			simpleTokenDiff(diff, aDoc, rDoc, lDoc, tokens);
+	}
+
+	private static String extract(IDocument doc, Position p) {
+		try {
+			return doc.get(p.getOffset(), p.getLength());
+		} catch (BadLocationException e) {
+			// silently ignored
+		}
+		return ""; //$NON-NLS-1$
+	}
+
+	/*
+	 * Computes the token differences of the changes around the given range of changes
+	 * in the background so that they are available when the changes are scrolled into view.
+	 */
+	private void prefetchTokenDiffs(int first, int last) {
+		final List<Diff> diffs= new ArrayList<>();
+		final List<String[]> contents= new ArrayList<>();
+		int start= Math.max(0, first - PREFETCH_CHANGE_COUNT);
+		int end= Math.min(fChangeDiffs.size() - 1, last + PREFETCH_CHANGE_COUNT);
+		for (int i= start; i <= end; i++) {
+			Diff diff= fChangeDiffs.get(i);
+			if (!diff.fTokenDiffsPending || diff.fPrefetchedTokenDiffs != null || diff.isDeleted())
+				continue;
+			IDocument aDoc= diff.fAncestorPos != null ? getDocument(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR) : null;
+			IDocument lDoc= getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+			IDocument rDoc= getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+			if (lDoc == null || rDoc == null)
+				return;
+			String s= extract(lDoc, diff.fLeftPos);
+			String d= extract(rDoc, diff.fRightPos);
+			if (s.length() == 0 || d.length() == 0)
+				continue;
+			diffs.add(diff);
+			contents.add(new String[] { aDoc != null ? extract(aDoc, diff.fAncestorPos) : null, s, d });
+		}
+		if (diffs.isEmpty())
+			return;
+		cancelPrefetch();
+		fPrefetchJob= new Job(CompareMessages.DocumentMerger_0) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				for (int i= 0; i < diffs.size(); i++) {
+					if (monitor.isCanceled())
+						return Status.CANCEL_STATUS;
+					String[] c= contents.get(i);
+					diffs.get(i).fPrefetchedTokenDiffs= findTokenDiffs(c[0], c[1], c[2]);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		fPrefetchJob.setSystem(true);
+		fPrefetchJob.setPriority(Job.DECORATE);
+		fPrefetchJob.schedule();
+	}
+
+	private void cancelPrefetch() {
+		if (fPrefetchJob != null) {
+			fPrefetchJob.cancel();
+			fPrefetchJob= null;
+		}
+	}
+
 	/*
 	 * Performs a "smart" token based 3-way diff on the character range specified by the given baseDiff.
 	 * It is "smart" because it tries to minimize the number of token diffs by merging them.
 	 */
 	private void mergingTokenDiff(Diff baseDiff,
-				IDocument ancestorDoc, String a,
-				IDocument rightDoc, String d,
-				IDocument leftDoc, String s) {
+				IDocument ancestorDoc,
+				IDocument rightDoc,
+				IDocument leftDoc,
+				TokenDiffs tokens) {
 		ITokenComparator sa= null;
 		int ancestorStart= 0;
 		if (ancestorDoc != null) {
-			sa= createTokenComparator(a);
+			sa= tokens.fAncestorComparator;
 			ancestorStart= baseDiff.fAncestorPos.getOffset();
 		}
 
 		int rightStart= baseDiff.fRightPos.getOffset();
-		ITokenComparator sm= createTokenComparator(d);
+		ITokenComparator sm= tokens.fRightComparator;
 
 		int leftStart= baseDiff.fLeftPos.getOffset();
-		ITokenComparator sy= createTokenComparator(s);
+		ITokenComparator sy= tokens.fLeftComparator;
 
-		RangeDifference[] r= RangeDifferencer.findRanges(sa, sy, sm);
+		RangeDifference[] r= tokens.fRanges;
 		for (int i= 0; i < r.length; i++) {
 			RangeDifference  es= r[i];
 			// determine range of diffs in one line
@@ -825,24 +1258,25 @@ public class DocumentMerger {
 	 * Performs a token based 3-way diff on the character range specified by the given baseDiff.
 	 */
 	private void simpleTokenDiff(final Diff baseDiff,
-				IDocument ancestorDoc, String a,
-				IDocument rightDoc, String d,
-				IDocument leftDoc, String s) {
+				IDocument ancestorDoc,
+				IDocument rightDoc,
+				IDocument leftDoc,
+				TokenDiffs tokens) {
 
 		int ancestorStart= 0;
 		ITokenComparator sa= null;
 		if (ancestorDoc != null) {
 			ancestorStart= baseDiff.fAncestorPos.getOffset();
-			sa= createTokenComparator(a);
+			sa= tokens.fAncestorComparator;
 		}
 
 		int rightStart= baseDiff.fRightPos.getOffset();
-		ITokenComparator sm= createTokenComparator(d);
+		ITokenComparator sm= tokens.fRightComparator;
 
 		int leftStart= baseDiff.fLeftPos.getOffset();
-		ITokenComparator sy= createTokenComparator(s);
+		ITokenComparator sy= tokens.fLeftComparator;
 
-		RangeDifference[] e= RangeDifferencer.findRanges(sa, sy, sm);
+		RangeDifference[] e= tokens.fRanges;
 		for (int i= 0; i < e.length; i++) {
 			RangeDifference es= e[i];
 			int kind= es.kind();
@@ -955,26 +1389,66 @@ public class DocumentMerger {
 		return region;
 	}
 
-    public Diff findDiff(Position p, boolean left) {
-		for (Iterator<Diff> iterator = fAllDiffs.iterator(); iterator.hasNext();) {
-			Diff diff = iterator.next();
-			Position diffPos;
-			if (left) {
-				diffPos = diff.fLeftPos;
-			} else {
-				diffPos = diff.fRightPos;
-			}
-			// If the element falls within a diff, highlight that diff
-			if (diffPos.offset + diffPos.length >= p.offset && diff.fDirection != RangeDifference.NOCHANGE)
-				return diff;
-			// Otherwise, highlight the first diff after the elements position
-			if (diffPos.offset >= p.offset)
-				return diff;
-		}
+	public Diff findDiff(Position p, boolean left) {
+		if (fAllDiffs == null)
+			return null;
+		char contributor= left ? MergeViewerContentProvider.LEFT_CONTRIBUTOR : MergeViewerContentProvider.RIGHT_CONTRIBUTOR;
+		// The preceding diffs end before the position
+		int index= indexOfFirstEndingAfter(fAllDiffs, contributor, p.offset);
+		if (index >= fAllDiffs.size())
+			return null;
+		Diff diff= fAllDiffs.get(index);
+		// If the element falls within a diff, highlight that diff
+		if (diff.fDirection != RangeDifference.NOCHANGE)
+			return diff;
+		// Otherwise, highlight the first diff after the elements position
+		if (diff.getPosition(contributor).offset >= p.offset)
+			return diff;
+		if (index + 1 < fAllDiffs.size())
+			return fAllDiffs.get(index + 1);
 		return null;
 	}
 
+	/*
+	 * Returns the index of the first diff in the given list whose range in the given
+	 * contributor ends at or after the given offset. The diffs are ordered by their
+	 * position in each of the contributors so a binary search can be used.
+	 */
+	private static int indexOfFirstEndingAfter(List<Diff> diffs, char contributor, int offset) {
+		int low= 0;
+		int high= diffs.size();
+		while (low < high) {
+			int mid= (low + high) >>> 1;
+			Position p= diffs.get(mid).getPosition(contributor);
+			if (p != null && p.offset + p.length < offset)
+				low= mid + 1;
+			else
+				high= mid;
+		}
+		return low;
+	}
+
+	/*
+	 * Returns the index of the first diff in the given list whose range in the given
+	 * contributor starts after the given offset.
+	 */
+	private static int indexOfFirstStartingAfter(List<Diff> diffs, char contributor, int offset) {
+		int low= 0;
+		int high= diffs.size();
+		while (low < high) {
+			int mid= (low + high) >>> 1;
+			Position p= diffs.get(mid).getPosition(contributor);
+			if (p != null && p.offset <= offset)
+				low= mid + 1;
+			else
+				high= mid;
+		}
+		return low;
+	}
+
 	public void reset() {
+		cancelPrefetch();
+		fDiffGeneration++;
 		fChangeDiffs= null;
 		fAllDiffs= null;
 	}
@@ -1106,14 +1580,27 @@ public class DocumentMerger {
 		if (fChangeDiffs == null)
 			return new Diff[0];
 		List<Diff> intersectingDiffs = new ArrayList<>();
-		for (Iterator<Diff> iterator = fChangeDiffs.iterator(); iterator.hasNext();) {
-			Diff diff = iterator.next();
+		int first = -1;
+		int last = -1;
+		int regionEnd = region.getOffset() + region.getLength();
+		for (int i = indexOfFirstEndingAfter(fChangeDiffs, contributor, region.getOffset()); i < fChangeDiffs.size(); i++) {
+			Diff diff = fChangeDiffs.get(i);
+			Position p = diff.getPosition(contributor);
+			if (p != null && p.offset > regionEnd)
+				break;
+			if (!diff.intersectsRegion(contributor, region))
+				continue;
+			if (first == -1)
+				first = i;
+			last = i;
 			Diff[] changeDiffs = diff.getChangeDiffs(contributor, region);
-			for (int i = 0; i < changeDiffs.length; i++) {
-				Diff changeDiff = changeDiffs[i];
+			for (int j = 0; j < changeDiffs.length; j++) {
+				Diff changeDiff = changeDiffs[j];
 				intersectingDiffs.add(changeDiff);
 			}
 		}
+		if (first != -1)
+			prefetchTokenDiffs(first, last);
 		return intersectingDiffs.toArray(new Diff[intersectingDiffs.size()]);
 	}
 
@@ -1156,6 +1643,41 @@ public class DocumentMerger {
 		return fChangeDiffs.iterator();
 	}
 
+	/**
+	 * Returns an iterator over the changes starting with the change at the given index.
+	 * @param index the index of the first change
+	 * @return an iterator over the changes starting at the given index
+	 * @see #findChangeIndex(char, int)
+	 */
+	public Iterator<Diff> changesIterator(int index) {
+		if (fChangeDiffs == null || index >= fChangeDiffs.size())
+			return new ArrayList<Diff>().iterator();
+		return fChangeDiffs.listIterator(Math.max(0, index));
+	}
+
+	/**
+	 * Returns the index of the first change whose range in the given contributor
+	 * ends at or after the start of the given line. The changes before this index
+	 * are located above the line so painting and hit testing can start at it.
+	 * @param contributor the contributor
+	 * @param line the 0 based line in the document of the contributor
+	 * @return the index of the first change that ends at or after the given line
+	 */
+	public int findChangeIndex(char contributor, int line) {
+		if (fChangeDiffs == null || line <= 0)
+			return 0;
+		IDocument doc= getDocument(contributor);
+		if (doc == null)
+			return 0;
+		int offset;
+		try {
+			offset= line < doc.getNumberOfLines() ? doc.getLineOffset(line) : doc.getLength();
+		} catch (BadLocationException e) {
+			return 0;
+		}
+		return indexOfFirstEndingAfter(fChangeDiffs, contributor, offset);
+	}
+
 	public Iterator<Diff> rangesIterator() {
 		if (fAllDiffs == null)
 			return new ArrayList<Diff>().iterator();
@@ -1258,12 +1780,17 @@ public class DocumentMerger {
 
 	public Diff findDiff(char contributor, int rangeStart, int rangeEnd) {
 		if (hasChanges()) {
-			for (Iterator<Diff> iterator = changesIterator(); iterator.hasNext();) {
-				Diff diff = iterator.next();
+			int docLength= getDocument(contributor).getLength();
+			for (int i= indexOfFirstEndingAfter(fChangeDiffs, contributor, rangeStart); i < fChangeDiffs.size(); i++) {
+				Diff diff = fChangeDiffs.get(i);
 				if (diff.isDeleted() || diff.getKind() == RangeDifference.NOCHANGE)
 				    continue;
-				if (diff.overlaps(contributor, rangeStart, rangeEnd, getDocument(contributor).getLength()))
+				if (diff.overlaps(contributor, rangeStart, rangeEnd, docLength))
 					return diff;
+				// The remaining diffs start after the range
+				Position p= diff.getPosition(contributor);
+				if (p != null && p.offset > rangeEnd)
+					break;
 			}
 		}
 		return null;
@@ -1282,20 +1809,24 @@ public class DocumentMerger {
 	private Diff findNext(char contributor, List<Diff> v, int start, int end, boolean deep) {
 		if (v == null)
 			return null;
-		for (int i= 0; i < v.size(); i++) {
+		// Diffs that end before the start can neither be the next diff nor contain it
+		for (int i= indexOfFirstEndingAfter(v, contributor, start); i < v.size(); i++) {
 			Diff diff= v.get(i);
 			Position p= diff.getPosition(contributor);
 			if (p != null) {
 				int startOffset= p.getOffset();
 				if (end < startOffset)  // <=
 					return diff;
-				if (deep && diff.hasChildren()) {
+				if (deep) {
+					// only look at the token diffs if the range is within the diff
 					Diff d= null;
 					int endOffset= startOffset + p.getLength();
 					if (start == startOffset && (end == endOffset || end == endOffset-1)) {
-						d= findNext(contributor, diff.fDiffs, start-1, start-1, deep);
+						if (diff.hasChildren())
+							d= findNext(contributor, diff.fDiffs, start-1, start-1, deep);
 					} else if (end < endOffset) {
-						d= findNext(contributor, diff.fDiffs, start, end, deep);
+						if (diff.hasChildren())
+							d= findNext(contributor, diff.fDiffs, start, end, deep);
 					}
 					if (d != null)
 						return d;
@@ -1312,7 +1843,8 @@ public class DocumentMerger {
 	private Diff findPrev(char contributor, List<Diff> v, int start, int end, boolean deep) {
 		if (v == null)
 			return null;
-		for (int i= v.size()-1; i >= 0; i--) {
+		// Diffs that start after the start can neither be the previous diff nor contain it
+		for (int i= indexOfFirstStartingAfter(v, contributor, start)-1; i >= 0; i--) {
 			Diff diff= v.get(i);
 			Position p= diff.getPosition(contributor);
 			if (p != null) {
@@ -1325,12 +1857,12 @@ public class DocumentMerger {
 					}
 					return diff;
 				}
-				if (deep && diff.hasChildren()) {
+				if (deep && start >= startOffset && diff.hasChildren()) {
 					Diff d= null;
 					if (start == startOffset && end == endOffset) {
 						// A whole diff is selected so we'll fall through
 						// and go the the last change in the previous diff
-					} else if (start >= startOffset) {
+					} else {
 						// If we are at or before the first diff, select the
 						// entire diff so next and previous are symmetrical
 						if (isFirstChildDiff(contributor, start, diff)) {
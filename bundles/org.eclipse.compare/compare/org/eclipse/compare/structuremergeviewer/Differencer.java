@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,7 @@ import java.util.Set;
 
 import org.eclipse.compare.IStreamContentAccessor;
 import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.internal.IContentChecksum;
 import org.eclipse.compare.internal.MergeViewerContentProvider;
 import org.eclipse.compare.internal.Utilities;
 import org.eclipse.core.runtime.Assert;
@@ -445,8 +446,11 @@ public class Differencer {
 	 * <p>
 	 * The <code>Differencer</code> implementation
 	 * returns <code>true</code> if both inputs implement <code>IStreamContentAccessor</code>
-	 * and their byte contents is identical. Subclasses may override to implement
-	 * a different content compare on the given inputs.
+	 * and their byte contents is identical. Inputs that know the size and the
+	 * checksum of their contents, such as the entries of a zip archive, are
+	 * compared by size and checksum without reading their contents.
+	 * Subclasses may override to implement a different content compare on the
+	 * given inputs.
 	 * </p>
 	 *
 	 * @param input1 first input to contents compare
@@ -458,6 +462,17 @@ public class Differencer {
 		if (input1 == input2)
 			return true;
 
+		if (input1 instanceof IContentChecksum && input2 instanceof IContentChecksum) {
+			IContentChecksum c1= (IContentChecksum) input1;
+			IContentChecksum c2= (IContentChecksum) input2;
+			if (c1.getSize() >= 0 && c2.getSize() >= 0) {
+				if (c1.getSize() != c2.getSize())
+					return false;
+				if (c1.getChecksum() >= 0 && c2.getChecksum() >= 0)
+					return c1.getChecksum() == c2.getChecksum();
+			}
+		}
+
 		InputStream is1= getStream(input1);
 		InputStream is2= getStream(input2);
 
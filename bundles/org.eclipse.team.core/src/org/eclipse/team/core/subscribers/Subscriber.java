@@ -25,6 +25,8 @@ import org.eclipse.team.core.synchronize.SyncInfoSet;
 import org.eclipse.team.core.variants.IResourceVariantComparator;
 import org.eclipse.team.internal.core.*;
 import org.eclipse.team.internal.core.mapping.SyncInfoToDiffConverter;
+import org.eclipse.team.internal.core.subscribers.ParallelSyncInfoCollector;
+import org.eclipse.team.internal.core.subscribers.SubscriberStateIndex;
 
 /**
  * A Subscriber provides synchronization between local resources and a
@@ -66,6 +68,9 @@ import org.eclipse.team.internal.core.mapping.SyncInfoToDiffConverter;
 abstract public class Subscriber {
 
 	private List<ISubscriberChangeListener> listeners = new ArrayList<>(1);
+	private volatile SubscriberStateIndex stateIndex;
+	private final Object stateIndexLock = new Object();
+	private volatile boolean parallelCollectionEnabled;
 
 	/**
 	 * Return the name of this subscription, in a format that is
@@ -248,8 +253,18 @@ abstract public class Subscriber {
 	 * @param set the sync info set to which out-of-sync resources should be added (or removed). Any errors
 	 * should be added to the set as well.
 	 * @param monitor a progress monitor
+	 * @see #setParallelCollectionEnabled(boolean)
 	 */
 	public void collectOutOfSync(IResource[] resources, int depth, SyncInfoSet set, IProgressMonitor monitor) {
+		if (isParallelCollectionEnabled()) {
+			new ParallelSyncInfoCollector(this) {
+				@Override
+				protected void collect(IResource resource, int collectDepth, SyncInfoSet collectSet, IProgressMonitor collectMonitor) {
+					Subscriber.this.collect(resource, collectDepth, collectSet, collectMonitor);
+				}
+			}.collectOutOfSync(resources, depth, set, monitor);
+			return;
+		}
 		try {
 			monitor.beginTask(null, 100 * resources.length);
 			for (int i = 0; i < resources.length; i++) {
@@ -498,6 +513,9 @@ abstract public class Subscriber {
 	 * @see IThreeWayDiff
 	 */
 	public int getState(ResourceMapping mapping, int stateMask, IProgressMonitor monitor) throws CoreException {
+		SubscriberStateIndex index = stateIndex;
+		if (index != null)
+			return index.getState(mapping, stateMask, monitor);
 		ResourceTraversal[] traversals = mapping.getTraversals(new SubscriberResourceMappingContext(this, true), monitor);
 		final int[] direction = new int[] { 0 };
 		final int[] kind = new int[] { 0 };
@@ -521,4 +539,77 @@ abstract public class Subscriber {
 		});
 		return (direction[0] | kind[0]) & stateMask;
 	}
+
+	/**
+	 * Set whether the synchronization state of the containers of this subscriber
+	 * is aggregated in an index that is used by
+	 * {@link #getState(ResourceMapping, int, IProgressMonitor)}. When the index
+	 * is enabled, the state of a container is calculated once and is then kept
+	 * until the subscriber reports a change or a resource in the subtree of the
+	 * container changes in the workspace. A subscriber should only enable the
+	 * index if it fires change events for all changes to the synchronization
+	 * state that are not caused by changes to the local resources.
+	 * <p>
+	 * The index is disabled by default.
+	 *
+	 * @param enabled whether the index is enabled
+	 * @since 3.9
+	 */
+	public void setStateIndexEnabled(boolean enabled) {
+		SubscriberStateIndex oldIndex = null;
+		synchronized (stateIndexLock) {
+			if (enabled == (stateIndex != null))
+				return;
+			if (enabled) {
+				stateIndex = new SubscriberStateIndex(this);
+			} else {
+				oldIndex = stateIndex;
+				stateIndex = null;
+			}
+		}
+		if (oldIndex != null)
+			oldIndex.dispose();
+	}
+
+	/**
+	 * Return whether the synchronization state of the containers of this
+	 * subscriber is aggregated in an index.
+	 *
+	 * @return whether the state index is enabled
+	 * @see #setStateIndexEnabled(boolean)
+	 * @since 3.9
+	 */
+	public boolean isStateIndexEnabled() {
+		return stateIndex != null;
+	}
+
+	/**
+	 * Set whether {@link #collectOutOfSync(IResource[], int, SyncInfoSet, IProgressMonitor)}
+	 * visits the resources in several jobs. When enabled, the traversal is
+	 * partitioned by project and top-level folder, the partitions are visited
+	 * concurrently and the results are added to the set in batches by the
+	 * calling thread. A subscriber should only enable parallel collection if
+	 * {@link #getSyncInfo(IResource)} and {@link #members(IResource)} can be
+	 * invoked concurrently and do not contact the server.
+	 * <p>
+	 * Parallel collection is disabled by default.
+	 *
+	 * @param enabled whether parallel collection is enabled
+	 * @since 3.9
+	 */
+	public void setParallelCollectionEnabled(boolean enabled) {
+		parallelCollectionEnabled = enabled;
+	}
+
+	/**
+	 * Return whether the out-of-sync resources of this subscriber are
+	 * collected in several jobs.
+	 *
+	 * @return whether parallel collection is enabled
+	 * @see #setParallelCollectionEnabled(boolean)
+	 * @since 3.9
+	 */
+	public boolean isParallelCollectionEnabled() {
+		return parallelCollectionEnabled;
+	}
 }
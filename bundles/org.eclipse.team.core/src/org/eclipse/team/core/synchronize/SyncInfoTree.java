@@ -42,6 +42,9 @@ public class SyncInfoTree extends SyncInfoSet {
 
 	protected Map<IPath, Set<IResource>> parents = Collections.synchronizedMap(new HashMap<>());
 
+	// {IPath -> Integer} the number of conflicting resources in the subtree of each resource
+	private final Map<IPath, Integer> conflicts = new HashMap<>();
+
 	/**
 	 * Create an empty sync info tree.
 	 */
@@ -60,6 +63,8 @@ public class SyncInfoTree extends SyncInfoSet {
 			SyncInfo info = infos[i];
 			IResource local = info.getLocal();
 			addToParents(local, local);
+			if (isConflicting(info))
+				updateConflicts(local, 1);
 		}
 	}
 
@@ -80,6 +85,21 @@ public class SyncInfoTree extends SyncInfoSet {
 		return (allDescendants != null && !allDescendants.isEmpty());
 	}
 
+	/**
+	 * Return whether the given resource or any of its descendants is a conflicting
+	 * out-of-sync resource in this set. The number of conflicts in the subtree of
+	 * each resource is maintained as the set changes so the subtree is not visited.
+	 *
+	 * @param resource the root of the resource subtree
+	 * @return <code>true</code> if the subtree contains a conflict
+	 * @since 3.9
+	 */
+	public synchronized boolean hasConflicts(IResource resource) {
+		if (resource.getType() == IResource.ROOT)
+			return countFor(SyncInfo.CONFLICTING, SyncInfo.DIRECTION_MASK) > 0;
+		return conflicts.containsKey(resource.getFullPath());
+	}
+
 	/**
 	 * Return the <code>SyncInfo</code> for each out-of-sync resource in the subtree rooted at the given resource
 	 * to the depth specified. The depth is one of:
@@ -161,12 +181,16 @@ public class SyncInfoTree extends SyncInfoSet {
 	public void add(SyncInfo info) {
 		try {
 			beginInput();
-			boolean alreadyExists = getSyncInfo(info.getLocal()) != null;
+			SyncInfo oldInfo = getSyncInfo(info.getLocal());
+			boolean alreadyExists = oldInfo != null;
 			super.add(info);
 			if(! alreadyExists) {
 				IResource local = info.getLocal();
 				addToParents(local, local);
 			}
+			boolean wasConflicting = alreadyExists && isConflicting(oldInfo);
+			if (wasConflicting != isConflicting(info))
+				updateConflicts(info.getLocal(), wasConflicting ? -1 : 1);
 		} finally {
 			endInput(null);
 		}
@@ -176,8 +200,11 @@ public class SyncInfoTree extends SyncInfoSet {
 	public void remove(IResource resource) {
 		try {
 			beginInput();
+			SyncInfo oldInfo = getSyncInfo(resource);
 			super.remove(resource);
 			removeFromParents(resource, resource);
+			if (oldInfo != null && isConflicting(oldInfo))
+				updateConflicts(resource, -1);
 		} finally {
 			endInput(null);
 		}
@@ -191,6 +218,7 @@ public class SyncInfoTree extends SyncInfoSet {
 			super.clear();
 			synchronized(this) {
 				parents.clear();
+				conflicts.clear();
 			}
 		} finally {
 			endInput(null);
@@ -249,6 +277,26 @@ public class SyncInfoTree extends SyncInfoSet {
 		return removedParent;
 	}
 
+	private static boolean isConflicting(SyncInfo info) {
+		return (info.getKind() & SyncInfo.DIRECTION_MASK) == SyncInfo.CONFLICTING;
+	}
+
+	/*
+	 * Add the given delta to the conflict count of the resource and its ancestors
+	 */
+	private synchronized void updateConflicts(IResource resource, int delta) {
+		for (IResource r = resource; r != null && r.getType() != IResource.ROOT; r = r.getParent()) {
+			IPath path = r.getFullPath();
+			Integer count = conflicts.get(path);
+			int newCount = (count == null ? 0 : count.intValue()) + delta;
+			if (newCount > 0) {
+				conflicts.put(path, Integer.valueOf(newCount));
+			} else {
+				conflicts.remove(path);
+			}
+		}
+	}
+
 	private void internalAddedSubtreeRoot(IResource parent) {
 		((SyncInfoTreeChangeEvent)getChangeEvent()).addedSubtreeRoot(parent);
 	}
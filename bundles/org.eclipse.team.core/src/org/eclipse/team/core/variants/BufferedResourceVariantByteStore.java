@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.core.variants;
+
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.core.Messages;
+import org.eclipse.team.internal.core.TeamPlugin;
+import org.eclipse.team.internal.core.subscribers.ByteStoreSaveParticipant;
+
+/**
+ * A <code>ResourceVariantByteStore</code> that caches the variant bytes in
+ * memory and persists them using the <code>org.eclipse.core.resources.ISynchronizer</code>
+ * so that the tree is cached across workbench invocations.
+ * <p>
+ * Bytes are read from the synchronizer the first time they are accessed and
+ * are then served from memory. Modifications are kept in memory and written to
+ * the synchronizer in a single batch when the workspace (or the project containing
+ * the modified resources) is saved or when {@link #persist(IResource, IProgressMonitor)}
+ * is invoked. This avoids copying the bytes on each access and is intended for
+ * subscribers, such as those built on {@link ThreeWaySynchronizer}, that access
+ * the bytes of a large number of resources.
+ * <p>
+ * The number of unmodified entries (including those of resources that are
+ * known to have no bytes) that are kept in memory is bounded. The least
+ * recently used ones are discarded and read again from the synchronizer
+ * when needed. Modified bytes stay in memory until they are persisted.
+ * <p>
+ * The byte arrays returned by this store are shared with the store and
+ * must not be modified by clients.
+ *
+ * @since 3.9
+ * @noextend This class is not intended to be subclassed by clients.
+ */
+public class BufferedResourceVariantByteStore extends ResourceVariantByteStore {
+
+	/**
+	 * The default maximum number of unmodified entries kept in memory
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 10000;
+
+	private static final byte[] NO_REMOTE = new byte[0];
+
+	// Marker for resources that are known to have no bytes
+	private static final byte[] NO_BYTES = new byte[0];
+
+	/*
+	 * Orders paths segment by segment so that the descendants of
+	 * a path directly follow it in a sorted map
+	 */
+	private static final Comparator<IPath> PATH_ORDER = (path1, path2) -> {
+		int count1 = path1.segmentCount();
+		int count2 = path2.segmentCount();
+		for (int i = 0; i < count1 && i < count2; i++) {
+			int result = path1.segment(i).compareTo(path2.segment(i));
+			if (result != 0)
+				return result;
+		}
+		return count1 - count2;
+	};
+
+	private QualifiedName syncName;
+
+	private final int cacheSize;
+
+	// {IPath -> byte[]} the bytes of the resources that have been accessed, sorted by path
+	private TreeMap<IPath, byte[]> bytesCache = new TreeMap<>(PATH_ORDER);
+
+	// {IPath -> IPath} the paths of the unmodified cached bytes, least recently used first
+	private Map<IPath, IPath> unmodifiedPaths = new LinkedHashMap<IPath, IPath>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IPath, IPath> eldest) {
+			if (size() <= cacheSize)
+				return false;
+			bytesCache.remove(eldest.getKey());
+			return true;
+		}
+	};
+
+	// {IPath -> IResource} resources whose bytes have not been written to the synchronizer, sorted by path
+	private TreeMap<IPath, IResource> dirtyResources = new TreeMap<>(PATH_ORDER);
+
+	// {IPath -> Set<IResource>} the modified children of a container
+	private Map<IPath, Set<IResource>> dirtyMembers = new HashMap<>();
+
+	/**
+	 * Create a byte store that uses the given qualified name
+	 * as the key in the <code>org.eclipse.core.resources.ISynchronizer</code>.
+	 * It must be unique and should use the plugin as the local name
+	 * and a unique id within the plugin as the qualifier name.
+	 * @param name the key used in the Core synchronizer
+	 */
+	public BufferedResourceVariantByteStore(QualifiedName name) {
+		this(name, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Create a byte store that uses the given qualified name
+	 * as the key in the <code>org.eclipse.core.resources.ISynchronizer</code>
+	 * and keeps at most the given number of unmodified entries in memory.
+	 * @param name the key used in the Core synchronizer
+	 * @param cacheSize the maximum number of unmodified entries kept in memory
+	 */
+	public BufferedResourceVariantByteStore(QualifiedName name, int cacheSize) {
+		Assert.isLegal(cacheSize > 0);
+		syncName = name;
+		this.cacheSize = cacheSize;
+		getSynchronizer().add(syncName);
+		ByteStoreSaveParticipant.add(this);
+	}
+
+	@Override
+	public void dispose() {
+		ByteStoreSaveParticipant.remove(this);
+		synchronized (this) {
+			bytesCache.clear();
+			unmodifiedPaths.clear();
+			dirtyResources.clear();
+			dirtyMembers.clear();
+		}
+		getSynchronizer().remove(getSyncName());
+	}
+
+	/**
+	 * Return the qualified name that uniquely identifies this tree.
+	 * @return the qualified name that uniquely identifies this tree.
+	 */
+	public QualifiedName getSyncName() {
+		return syncName;
+	}
+
+	@Override
+	public synchronized byte[] getBytes(IResource resource) throws TeamException {
+		byte[] syncBytes = internalGetSyncBytes(resource);
+		if (syncBytes != null && equals(syncBytes, NO_REMOTE)) {
+			// If it is known that there is no remote, return null
+			return null;
+		}
+		return syncBytes;
+	}
+
+	@Override
+	public synchronized boolean setBytes(IResource resource, byte[] bytes) throws TeamException {
+		Assert.isNotNull(bytes);
+		byte[] oldBytes = internalGetSyncBytes(resource);
+		if (oldBytes != null && equals(oldBytes, bytes)) return false;
+		bytesCache.put(resource.getFullPath(), bytes);
+		markDirty(resource);
+		return true;
+	}
+
+	@Override
+	public synchronized boolean flushBytes(IResource resource, int depth) throws TeamException {
+		if (depth == IResource.DEPTH_ZERO) {
+			if (internalGetSyncBytes(resource) == null)
+				return false;
+			bytesCache.put(resource.getFullPath(), NO_BYTES);
+			markDirty(resource);
+			return true;
+		}
+		boolean flushed = removeCachedDescendants(resource.getFullPath(), depth);
+		if (resource.exists() || resource.isPhantom()) {
+			try {
+				getSynchronizer().flushSyncInfo(getSyncName(), resource, depth);
+				flushed = true;
+			} catch (CoreException e) {
+				throw TeamException.asTeamException(e);
+			}
+		}
+		return flushed;
+	}
+
+	/**
+	 * Return whether the resource variant state for this resource is known.
+	 * This is used to differentiate the case where a resource variant has never been fetched
+	 * from the case where the resource variant is known to not exist. In the later
+	 * case, this method returns <code>true</code> while <code>getBytes</code> returns <code>null</code>
+	 * @param resource the local resource
+	 * @return whether the resource variant state for this resource is known
+	 * @throws TeamException
+	 */
+	public synchronized boolean isVariantKnown(IResource resource) throws TeamException {
+		return internalGetSyncBytes(resource) != null;
+	}
+
+	/**
+	 * This method should be invoked by a client to indicate that it is known that
+	 * there is no remote resource associated with the local resource. After this method
+	 * is invoked, <code>isVariantKnown(resource)</code> will return <code>true</code> and
+	 * <code>getBytes(resource)</code> will return <code>null</code>.
+	 * @return <code>true</code> if this changes the remote sync bytes
+	 */
+	@Override
+	public boolean deleteBytes(IResource resource) throws TeamException {
+		return setBytes(resource, NO_REMOTE);
+	}
+
+	@Override
+	public synchronized IResource[] members(IResource resource) throws TeamException {
+		if(resource.getType() == IResource.FILE) {
+			return new IResource[0];
+		}
+		Set<IResource> filteredMembers = new LinkedHashSet<>();
+		IContainer container = (IContainer)resource;
+		if (container.exists() || container.isPhantom()) {
+			try {
+				// Filter and return only resources that have sync bytes in the cache.
+				IResource[] members = container.members(true /* include phantoms */);
+				for (int i = 0; i < members.length; i++) {
+					IResource member = members[i];
+					if (getBytes(member) != null) {
+						filteredMembers.add(member);
+					}
+				}
+			} catch (CoreException e) {
+				throw TeamException.asTeamException(e);
+			}
+		}
+		// Add the children whose bytes have not been persisted yet
+		Set<IResource> modified = dirtyMembers.get(resource.getFullPath());
+		if (modified != null) {
+			for (IResource member : modified) {
+				if (getBytes(member) != null) {
+					filteredMembers.add(member);
+				}
+			}
+		}
+		return filteredMembers.toArray(new IResource[filteredMembers.size()]);
+	}
+
+	/**
+	 * Write the modified bytes of the given resource and its descendants
+	 * to the workspace synchronizer. This is done automatically when the
+	 * workspace is saved but clients may invoke this method to persist
+	 * the bytes sooner.
+	 * <p>
+	 * The bytes of resources in closed projects are kept in memory until the
+	 * project is open again and those of resources in deleted projects are
+	 * discarded. The bytes that could not be written are kept in memory so that
+	 * they are written again the next time the bytes are persisted.
+	 * @param root the resource whose modified bytes are to be written
+	 * @param monitor a progress monitor
+	 * @throws TeamException if the bytes of some resources could not be written
+	 */
+	public void persist(final IResource root, IProgressMonitor monitor) throws TeamException {
+		synchronized (this) {
+			if (dirtyResources.isEmpty())
+				return;
+		}
+		try {
+			ResourcesPlugin.getWorkspace().run((IWorkspaceRunnable) pm -> internalPersist(root.getFullPath()), root, IWorkspace.AVOID_UPDATE, monitor);
+		} catch (CoreException e) {
+			throw TeamException.asTeamException(e);
+		}
+	}
+
+	private synchronized void internalPersist(IPath root) throws TeamException {
+		ISynchronizer synchronizer = getSynchronizer();
+		List<IStatus> errors = new ArrayList<>();
+		for (Iterator<Map.Entry<IPath, IResource>> iter = dirtyResources.tailMap(root, true).entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IPath, IResource> entry = iter.next();
+			IPath path = entry.getKey();
+			if (!root.isPrefixOf(path))
+				break;
+			IResource resource = entry.getValue();
+			IProject project = resource.getProject();
+			if (project != null && !project.isAccessible()) {
+				if (project.exists())
+					continue;
+				// The project was deleted so there is nothing to persist
+				bytesCache.remove(path);
+				iter.remove();
+				removeDirtyMember(resource);
+				continue;
+			}
+			byte[] bytes = bytesCache.get(path);
+			try {
+				if (bytes == NO_BYTES) {
+					if (resource.exists() || resource.isPhantom())
+						synchronizer.flushSyncInfo(getSyncName(), resource, IResource.DEPTH_ZERO);
+				} else if (bytes != null) {
+					synchronizer.setSyncInfo(getSyncName(), resource, bytes);
+				}
+			} catch (CoreException e) {
+				// Keep the bytes so that they are written the next time
+				errors.add(e.getStatus());
+				continue;
+			}
+			iter.remove();
+			removeDirtyMember(resource);
+			if (bytes != null)
+				unmodifiedPaths.put(path, path);
+		}
+		if (!errors.isEmpty()) {
+			throw new TeamException(new MultiStatus(TeamPlugin.ID, 0,
+					errors.toArray(new IStatus[errors.size()]),
+					NLS.bind(Messages.BufferedResourceVariantByteStore_0, Integer.toString(errors.size())), null));
+		}
+	}
+
+	@Override
+	public void run(IResource root, IWorkspaceRunnable runnable, IProgressMonitor monitor)
+			throws TeamException {
+		try {
+			ResourcesPlugin.getWorkspace().run(runnable, root, 0, monitor);
+		} catch (CoreException e) {
+			throw TeamException.asTeamException(e);
+		}
+	}
+
+	private ISynchronizer getSynchronizer() {
+		return ResourcesPlugin.getWorkspace().getSynchronizer();
+	}
+
+	private byte[] internalGetSyncBytes(IResource resource) throws TeamException {
+		IPath path = resource.getFullPath();
+		byte[] bytes = bytesCache.get(path);
+		if (bytes == null) {
+			try {
+				bytes = getSynchronizer().getSyncInfo(getSyncName(), resource);
+			} catch (CoreException e) {
+				throw TeamException.asTeamException(e);
+			}
+			bytesCache.put(path, bytes == null ? NO_BYTES : bytes);
+			unmodifiedPaths.put(path, path);
+		} else {
+			// Mark the entry as recently used
+			unmodifiedPaths.get(path);
+		}
+		return bytes == NO_BYTES ? null : bytes;
+	}
+
+	private void markDirty(IResource resource) {
+		unmodifiedPaths.remove(resource.getFullPath());
+		dirtyResources.put(resource.getFullPath(), resource);
+		IContainer parent = resource.getParent();
+		if (parent != null) {
+			Set<IResource> members = dirtyMembers.get(parent.getFullPath());
+			if (members == null) {
+				members = new HashSet<>();
+				dirtyMembers.put(parent.getFullPath(), members);
+			}
+			members.add(resource);
+		}
+	}
+
+	private void removeDirtyMember(IResource resource) {
+		IContainer parent = resource.getParent();
+		if (parent == null)
+			return;
+		Set<IResource> members = dirtyMembers.get(parent.getFullPath());
+		if (members != null) {
+			members.remove(resource);
+			if (members.isEmpty())
+				dirtyMembers.remove(parent.getFullPath());
+		}
+	}
+
+	/*
+	 * Remove the cached and modified bytes of the given path and its
+	 * descendants to the given depth. Return whether any bytes were removed.
+	 */
+	private boolean removeCachedDescendants(IPath path, int depth) {
+		boolean removed = false;
+		// The descendants directly follow the path in the sorted cache
+		for (Iterator<Map.Entry<IPath, byte[]>> iter = bytesCache.tailMap(path, true).entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IPath, byte[]> entry = iter.next();
+			IPath cachedPath = entry.getKey();
+			if (!path.isPrefixOf(cachedPath))
+				break;
+			if (depth != IResource.DEPTH_INFINITE && cachedPath.segmentCount() - path.segmentCount() > 1)
+				continue;
+			if (entry.getValue() != NO_BYTES)
+				removed = true;
+			iter.remove();
+			unmodifiedPaths.remove(cachedPath);
+			IResource resource = dirtyResources.remove(cachedPath);
+			if (resource != null)
+				removeDirtyMember(resource);
+		}
+		return removed;
+	}
+}
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRunnable;
@@ -41,11 +40,14 @@ import org.eclipse.team.core.TeamException;
  * directly or queue events on an outgoing event queue</li>
  * <li>The <code>doDispatchEvents</code> method of the subclass is called at certain intervals
  * to give the subclass a chance to dispatch the events in it's outgoing queue. The interval between
- * the first 3 dispatches will be the <code>shortDispatchDelay</code> and subsequent intervals will be
- * the <code>longDispatchDelay</code>. This is done to avoid constantly hammering the UI for long running
- * operations.<li>
+ * dispatches starts at the <code>shortDispatchDelay</code> and grows with the measured cost of the
+ * dispatches and the number of queued events, up to the <code>longDispatchDelay</code>. This is done to
+ * avoid constantly hammering the UI for long running operations.<li>
  * <li>Errors that occur during event processing or dispatch can be accumulated by calling the <code>handle</code>
  * method. Accumulated errors are used to form the status that is returned when the job completes.<li>
+ * <li>Subclasses can identify events that are coalescable (see <code>isCoalescable</code>). A coalescable
+ * resource event is discarded if an event of the same type is queued for the same resource or one of its
+ * ancestors with a depth that covers it and no other events are queued in between.<li>
  * </ul>
  * </p>
  *
@@ -59,7 +61,13 @@ public abstract class BackgroundEventHandler {
 	public static final int RUNNABLE_EVENT = 1000;
 
 	// Events that need to be processed
-	private List<Event> awaitingProcessing = new ArrayList<>();
+	private Deque<Event> awaitingProcessing = new ArrayDeque<>();
+
+	// {IPath -> ResourceEvent} coalescable events queued since the last non-coalescable event
+	private Map<IPath, ResourceEvent> coalescableEvents = new HashMap<>();
+
+	// Incremented each time a non-coalescable event is queued at the end of the queue
+	private int coalescingEpoch;
 
 	// The job that runs when events need to be processed
 	private Job eventHandlerJob;
@@ -76,15 +84,24 @@ public abstract class BackgroundEventHandler {
 	// the number of dispatches that have occurred since the job started
 	private int dispatchCount;
 
-	// time between event dispatches
+	// average time spent in the dispatches of this handler
+	private long averageDispatchTime;
+
+	// minimum time between event dispatches
 	private static final long DISPATCH_DELAY = 1500;
 
-	// time between dispatches if the dispatch threshold has been exceeded
+	// maximum time between event dispatches
 	private static final long LONG_DISPATCH_DELAY = 10000;
 
-	// the number of dispatches that can occur before using the long delay
+	// the number of dispatches that always use the short delay
 	private static final int DISPATCH_THRESHOLD = 3;
 
+	// dispatching should not take more than 1/DISPATCH_COST_RATIO of the processing time
+	private static final int DISPATCH_COST_RATIO = 5;
+
+	// the number of queued events above which the long delay is used
+	private static final int LARGE_QUEUE_THRESHOLD = 1000;
+
 	// time to wait for messages to be queued
 	private static final long WAIT_DELAY = 100;
 
@@ -95,6 +112,7 @@ public abstract class BackgroundEventHandler {
 	 */
 	public static class Event {
 	    private int type;
+	    private int epoch;
 		public Event(int type) {
 			this.type = type;
 		}
@@ -259,6 +277,7 @@ public abstract class BackgroundEventHandler {
 			// The handler has been shutdown. Clean up the queue.
 			synchronized(this) {
 				awaitingProcessing.clear();
+				coalescableEvents.clear();
 			}
 		} else if (! isQueueEmpty()) {
 			// An event squeaked in as the job was finishing. Reschedule the job.
@@ -300,9 +319,17 @@ public abstract class BackgroundEventHandler {
 			System.out.println("Event queued on " + getName() + ":" + event.toString()); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		if (front) {
-			awaitingProcessing.add(0, event);
+			// Events on the front of the queue are processed before the
+			// coalescable events so they do not affect coalescing
+			awaitingProcessing.addFirst(event);
+		} else if (isCoalescable(event)) {
+			if (!coalesce((ResourceEvent)event))
+				return;
+			awaitingProcessing.addLast(event);
 		} else {
-			awaitingProcessing.add(event);
+			coalescingEpoch++;
+			coalescableEvents.clear();
+			awaitingProcessing.addLast(event);
 		}
 		if (!isShutdown() && eventHandlerJob != null) {
 			if(eventHandlerJob.getState() == Job.NONE) {
@@ -313,6 +340,82 @@ public abstract class BackgroundEventHandler {
 		}
 	}
 
+	/**
+	 * Return whether the given event can be coalesced with other queued
+	 * events. Coalescable events must be resource events whose result only
+	 * depends on the state of the resources when they are processed, so that
+	 * an event is equivalent to any other event of the same type whose
+	 * resource and depth covers it. The default is to not coalesce any events.
+	 * @param event the event
+	 * @return whether the given event can be coalesced with other queued events
+	 */
+	protected boolean isCoalescable(Event event) {
+		return false;
+	}
+
+	/*
+	 * Record the given coalescable event. Return false if the event is
+	 * covered by an event that is already queued and need not be queued.
+	 */
+	private boolean coalesce(ResourceEvent event) {
+		if (findCoveringEvent(event) != null) {
+			if (Policy.DEBUG_BACKGROUND_EVENTS) {
+				System.out.println("Event coalesced on " + getName() + ":" + event.toString()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return false;
+		}
+		event.epoch = coalescingEpoch;
+		coalescableEvents.put(event.getResource().getFullPath(), event);
+		return true;
+	}
+
+	/*
+	 * Return a queued coalescable event, other than the given event, of the
+	 * same type that covers the given event or null if there is no such event.
+	 */
+	private ResourceEvent findCoveringEvent(ResourceEvent event) {
+		if (coalescableEvents.isEmpty())
+			return null;
+		IPath path = event.getResource().getFullPath();
+		ResourceEvent existing = coalescableEvents.get(path);
+		if (existing != null && existing != event && existing.getType() == event.getType()
+				&& covers(existing.getDepth(), event.getDepth())) {
+			return existing;
+		}
+		for (int i = 1, count = path.segmentCount(); i <= count; i++) {
+			existing = coalescableEvents.get(path.removeLastSegments(i));
+			if (existing != null && existing.getType() == event.getType()
+					&& (existing.getDepth() == IResource.DEPTH_INFINITE
+						|| (i == 1 && existing.getDepth() == IResource.DEPTH_ONE && event.getDepth() == IResource.DEPTH_ZERO))) {
+				return existing;
+			}
+		}
+		return null;
+	}
+
+	private boolean covers(int depth, int otherDepth) {
+		if (depth == IResource.DEPTH_INFINITE)
+			return true;
+		if (depth == IResource.DEPTH_ONE)
+			return otherDepth != IResource.DEPTH_INFINITE;
+		return otherDepth == IResource.DEPTH_ZERO;
+	}
+
+	/*
+	 * Remove the given event from the coalescing index and return whether it has been
+	 * superseded by an event that was queued after it with no other events in between.
+	 */
+	private boolean isSuperseded(Event event) {
+		if (!(event instanceof ResourceEvent) || event.epoch != coalescingEpoch || !isCoalescable(event))
+			return false;
+		ResourceEvent resourceEvent = (ResourceEvent) event;
+		IPath path = resourceEvent.getResource().getFullPath();
+		if (coalescableEvents.get(path) == event) {
+			coalescableEvents.remove(path);
+		}
+		return findCoveringEvent(resourceEvent) != null;
+	}
+
 	/**
 	 * Return the name that is to be associated with the background job.
 	 * @return the job name
@@ -326,17 +429,24 @@ public abstract class BackgroundEventHandler {
 	 * @return the next event in the queue
 	 */
 	protected synchronized Event nextElement() {
-		if (isShutdown() || isQueueEmpty()) {
-			return null;
+		while (!isShutdown() && !isQueueEmpty()) {
+			Event event = awaitingProcessing.removeFirst();
+			if (isSuperseded(event)) {
+				if (Policy.DEBUG_BACKGROUND_EVENTS) {
+					System.out.println("Event coalesced on " + getName() + ":" + event.toString()); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				continue;
+			}
+			return event;
 		}
-		return awaitingProcessing.remove(0);
+		return null;
 	}
 
 	protected synchronized Event peek() {
 		if (isShutdown() || isQueueEmpty()) {
 			return null;
 		}
-		return awaitingProcessing.get(0);
+		return awaitingProcessing.peekFirst();
 	}
 
 	/**
@@ -399,9 +509,13 @@ public abstract class BackgroundEventHandler {
 	 * @throws TeamException
 	 */
 	protected final void dispatchEvents(IProgressMonitor monitor) throws TeamException {
+		long start = System.currentTimeMillis();
 		if (doDispatchEvents(monitor)) {
 			// something was dispatched so adjust dispatch count.
 			dispatchCount++;
+			// keep a moving average of the time the dispatches take
+			long duration = System.currentTimeMillis() - start;
+			averageDispatchTime = (averageDispatchTime * 3 + duration) / 4;
 		}
 		timeOfLastDispatch = System.currentTimeMillis();
 	}
@@ -448,8 +562,24 @@ public abstract class BackgroundEventHandler {
 
 	private boolean isDispatchDelayExceeded() {
 		long duration = System.currentTimeMillis() - timeOfLastDispatch;
-		return ((dispatchCount < DISPATCH_THRESHOLD && duration >= getShortDispatchDelay()) ||
-				duration >= getLongDispatchDelay());
+		return duration >= getDispatchDelay();
+	}
+
+	/*
+	 * Return the time to wait between dispatches. The delay grows with the
+	 * measured cost of dispatching so that dispatching does not dominate the
+	 * processing and uses the long delay when a large number of events are queued.
+	 */
+	private long getDispatchDelay() {
+		long shortDelay = getShortDispatchDelay();
+		if (dispatchCount < DISPATCH_THRESHOLD)
+			return shortDelay;
+		long longDelay = getLongDispatchDelay();
+		synchronized (this) {
+			if (awaitingProcessing.size() > LARGE_QUEUE_THRESHOLD)
+				return longDelay;
+		}
+		return Math.min(longDelay, Math.max(shortDelay, averageDispatchTime * DISPATCH_COST_RATIO));
 	}
 
 	/**
@@ -464,7 +594,7 @@ public abstract class BackgroundEventHandler {
 	 * Return the value that is used to determine how often
 	 * the events are dispatched (i.e. how often the UI is
 	 * updated) for the first 3 cycles. The default value is 1.5 seconds.
-	 * After the first 3 cycles, a longer delay is used
+	 * After the first 3 cycles, this is the minimum delay between dispatches.
      * @return the dispatch delay used for the first 3 cycles.
      */
     protected long getShortDispatchDelay() {
@@ -472,10 +602,11 @@ public abstract class BackgroundEventHandler {
     }
 
 	/**
-	 * Return the value that is used to determine how often
-	 * the events are dispatched (i.e. how often the UI is
-	 * updated) after the first 3 cycles. The default value is 10 seconds.
-     * @return the dispatch delay used after the first 3 cycles.
+	 * Return the value that is used to determine the maximum time
+	 * between dispatches (i.e. how often the UI is updated) after the
+	 * first 3 cycles. This delay is used when a large number of events
+	 * are queued or when the dispatches are expensive. The default value is 10 seconds.
+     * @return the maximum dispatch delay used after the first 3 cycles.
      */
     protected long getLongDispatchDelay() {
         return LONG_DISPATCH_DELAY;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -93,6 +93,8 @@ public class Messages extends NLS {
 	public static String SyncByteConverter_1;
 	public static String BatchingLock_11;
 	public static String SubscriberEventHandler_12;
+	public static String ParallelSyncInfoCollector_0;
+	public static String BufferedResourceVariantByteStore_0;
 	public static String ProjectSetCapability_0;
 	public static String ProjectSetCapability_1;
 
@@ -22,6 +22,7 @@ import org.eclipse.osgi.service.debug.DebugOptionsListener;
 import org.eclipse.team.core.*;
 import org.eclipse.team.core.mapping.DelegatingStorageMerger;
 import org.eclipse.team.internal.core.mapping.IStreamMergerDelegate;
+import org.eclipse.team.internal.core.subscribers.ByteStoreSaveParticipant;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 
@@ -97,6 +98,7 @@ final public class TeamPlugin extends Plugin {
 
 			Team.shutdown();
 			ResourceVariantCache.shutdown();
+			ByteStoreSaveParticipant.shutdown();
 		} finally {
 			super.stop(context);
 		}
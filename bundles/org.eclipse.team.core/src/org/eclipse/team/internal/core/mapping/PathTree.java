@@ -15,16 +15,29 @@ import java.util.*;
 import org.eclipse.core.runtime.IPath;
 
 /**
- * A tree of objects keyed by path
+ * A tree of objects keyed by path. The tree is stored hierarchically, one
+ * node per path segment, and each node keeps the number of objects contained
+ * in its subtree so that updates and queries only touch the nodes between a
+ * path and the root.
  */
 public class PathTree {
 
 	class Node {
+		final Node parent;
+		final String name;
+		IPath path;
 		Object payload;
-		Set<IPath> descendantsWithPayload;
+		Map<String, Node> children;
+		// The number of objects in this subtree, including the payload of this node
+		int count;
 		int flags;
+		Node(Node parent, String name, IPath path) {
+			this.parent = parent;
+			this.name = name;
+			this.path = path;
+		}
 		public boolean isEmpty() {
-			return payload == null && (descendantsWithPayload == null || descendantsWithPayload.isEmpty());
+			return count == 0;
 		}
 		public Object getPayload() {
 			return payload;
@@ -33,7 +46,7 @@ public class PathTree {
 			this.payload = payload;
 		}
 		public boolean hasDescendants() {
-			return descendantsWithPayload != null && !descendantsWithPayload.isEmpty();
+			return count > (payload == null ? 0 : 1);
 		}
 		public boolean hasFlag(int propertyBit) {
 			return (flags & propertyBit) != 0;
@@ -45,10 +58,10 @@ public class PathTree {
 				flags ^= propertyBit;
 		}
 		public boolean descendantHasFlag(int property) {
-			if (hasDescendants()) {
-				for (Iterator<IPath> iter = descendantsWithPayload.iterator(); iter.hasNext();) {
-					IPath path = iter.next();
-					Node child = getNode(path);
+			// Flags are propagated to the root so the immediate
+			// children reflect the state of the whole subtree
+			if (children != null) {
+				for (Node child : children.values()) {
 					if (child.hasFlag(property)) {
 						return true;
 					}
@@ -56,9 +69,28 @@ public class PathTree {
 			}
 			return false;
 		}
+		Node getChild(String segment) {
+			if (children == null)
+				return null;
+			return children.get(segment);
+		}
+		Node addChild(String segment, IPath childPath) {
+			Node child = new Node(this, segment, childPath);
+			if (children == null)
+				children = new HashMap<>();
+			children.put(segment, child);
+			return child;
+		}
+		void removeChild(Node child) {
+			if (children != null) {
+				children.remove(child.name);
+				if (children.isEmpty())
+					children = null;
+			}
+		}
 	}
 
-	private Map<IPath, Node> objects = new HashMap<>();
+	private Node root = new Node(null, null, null);
 
 	/**
 	 * Return the object at the given path or <code>null</code>
@@ -82,14 +114,14 @@ public class PathTree {
 	 * @return the previous object at that path or <code>null</code>
 	 */
 	public synchronized Object put(IPath path, Object object) {
-		Node node = getNode(path);
-		if (node == null) {
-			node = addNode(path);
-		}
+		if (object == null)
+			return remove(path);
+		Node node = getOrAddNode(path);
 		Object previous = node.getPayload();
 		node.setPayload(object);
-		if(previous == null) {
-			addToParents(path, path);
+		node.path = path;
+		if (previous == null) {
+			adjustCounts(node, 1);
 		}
 		return previous;
 	}
@@ -108,14 +140,11 @@ public class PathTree {
 			return null;
 		Object previous = node.getPayload();
 		node.setPayload(null);
-		if(previous != null) {
-			removeFromParents(path, path);
-			if (node.isEmpty()) {
-				removeNode(path);
-			}
+		if (previous != null) {
+			adjustCounts(node, -1);
+			prune(node);
 		}
 		return previous;
-
 	}
 
 	/**
@@ -124,7 +153,7 @@ public class PathTree {
 	 * @return whether there are children for the given path
 	 */
 	public synchronized boolean hasChildren(IPath path) {
-		if (path.isEmpty()) return !objects.isEmpty();
+		if (path.isEmpty()) return !isEmpty();
 		Node node = getNode(path);
 		if (node == null)
 			return false;
@@ -137,93 +166,22 @@ public class PathTree {
 	 * @return the paths for any children of the given path in this set
 	 */
 	public synchronized IPath[] getChildren(IPath path) {
-		// OPTIMIZE: could be optimized so that we don't traverse all the deep
-		// children to find the immediate ones.
-		Set<IPath> children = new HashSet<>();
 		Node node = getNode(path);
-		if (node != null) {
-			Set possibleChildren = node.descendantsWithPayload;
-			if(possibleChildren != null) {
-				for (Iterator it = possibleChildren.iterator(); it.hasNext();) {
-					Object next = it.next();
-					IPath descendantPath = (IPath)next;
-					IPath childPath = null;
-					if(descendantPath.segmentCount() == (path.segmentCount() +  1)) {
-						childPath = descendantPath;
-					} else if (descendantPath.segmentCount() > path.segmentCount()) {
-						childPath = descendantPath.removeLastSegments(descendantPath.segmentCount() - path.segmentCount() - 1);
-					}
-					if (childPath != null) {
-						children.add(childPath);
-					}
-				}
-			}
-		}
-		return children.toArray(new IPath[children.size()]);
-	}
-
-	private boolean addToParents(IPath path, IPath parent) {
-		// this flag is used to indicate if the parent was previously in the set
-		boolean addedParent = false;
-		if (path == parent) {
-			// this is the leaf that was just added
-			addedParent = true;
-		} else {
-			Node node = getNode(parent);
-			if (node == null)
-				node = addNode(parent);
-			Set<IPath> children = node.descendantsWithPayload;
-			if (children == null) {
-				children = new HashSet<>();
-				node.descendantsWithPayload = children;
-				// this is a new folder in the sync set
-				addedParent = true;
-			}
-			children.add(path);
-		}
-		// if the parent already existed and the resource is new, record it
-		if ((parent.segmentCount() == 0 || !addToParents(path, parent.removeLastSegments(1))) && addedParent) {
-			// TODO: we may not need to record the removed subtree
-			// internalAddedSubtreeRoot(parent);
-		}
-		return addedParent;
-	}
-
-	private boolean removeFromParents(IPath path, IPath parent) {
-		// this flag is used to indicate if the parent was removed from the set
-		boolean removedParent = false;
-		Node node = getNode(parent);
-		if (node == null) {
-			// this is the leaf
-			removedParent = true;
-		} else {
-			Set children = node.descendantsWithPayload;
-			if (children == null) {
-				// this is the leaf
-				removedParent = true;
-			} else {
-				children.remove(path);
-				if (children.isEmpty()) {
-					node.descendantsWithPayload = null;
-					if (node.isEmpty())
-						removeNode(parent);
-					removedParent = true;
-				}
-			}
+		if (node == null || node.children == null)
+			return new IPath[0];
+		IPath[] result = new IPath[node.children.size()];
+		int i = 0;
+		for (Node child : node.children.values()) {
+			result[i++] = child.path;
 		}
-		//	if the parent wasn't removed and the resource was, record it
-		if ((parent.segmentCount() == 0 || !removeFromParents(path, parent.removeLastSegments(1))) && removedParent) {
-			// TODO: may not need to record this
-			//internalRemovedSubtreeRoot(parent);
-		}
-		return removedParent;
+		return result;
 	}
 
 	/**
 	 * Clear all entries from the path tree.
 	 */
 	public synchronized void clear() {
-		objects.clear();
+		root = new Node(null, null, null);
 	}
 
 	/**
@@ -231,7 +189,7 @@ public class PathTree {
 	 * @return whether the path tree is empty
 	 */
 	public synchronized boolean isEmpty() {
-		return objects.isEmpty();
+		return root.isEmpty();
 	}
 
 	/**
@@ -239,13 +197,8 @@ public class PathTree {
 	 * @return the paths in this tree that contain diffs.
 	 */
 	public synchronized IPath[] getPaths() {
-		List<IPath> result = new ArrayList<>();
-		for (Iterator iter = objects.keySet().iterator(); iter.hasNext();) {
-			IPath path = (IPath) iter.next();
-			Node node = getNode(path);
-			if (node.getPayload() != null)
-				result.add(path);
-		}
+		List<IPath> result = new ArrayList<>(root.count);
+		collect(root, result, true);
 		return result.toArray(new IPath[result.size()]);
 	}
 
@@ -254,13 +207,8 @@ public class PathTree {
 	 * @return all the values in the tree
 	 */
 	public synchronized Collection values() {
-		List<Object> result = new ArrayList<>();
-		for (Iterator iter = objects.keySet().iterator(); iter.hasNext();) {
-			IPath path = (IPath) iter.next();
-			Node node = getNode(path);
-			if (node.getPayload() != null)
-				result.add(node.getPayload());
-		}
+		List<Object> result = new ArrayList<>(root.count);
+		collect(root, result, false);
 		return result;
 	}
 
@@ -268,23 +216,61 @@ public class PathTree {
 	 * Return the number of nodes contained in this path tree.
 	 * @return the number of nodes contained in this path tree
 	 */
-	public int size() {
-		return values().size();
+	public synchronized int size() {
+		return root.count;
+	}
+
+	private void collect(Node node, List result, boolean paths) {
+		if (node.getPayload() != null)
+			result.add(paths ? node.path : node.getPayload());
+		if (node.children != null) {
+			for (Node child : node.children.values()) {
+				collect(child, result, paths);
+			}
+		}
 	}
 
 	private Node getNode(IPath path) {
-		return objects.get(path);
+		Node node = root;
+		for (int i = 0, segmentCount = path.segmentCount(); i < segmentCount; i++) {
+			node = node.getChild(path.segment(i));
+			if (node == null)
+				return null;
+		}
+		return node;
 	}
 
-	private Node addNode(IPath path) {
-		Node node;
-		node = new Node();
-		objects.put(path, node);
+	private Node getOrAddNode(IPath path) {
+		Node node = root;
+		int segmentCount = path.segmentCount();
+		for (int i = 0; i < segmentCount; i++) {
+			String segment = path.segment(i);
+			Node child = node.getChild(segment);
+			if (child == null) {
+				IPath childPath = i == segmentCount - 1 ? path : path.uptoSegment(i + 1);
+				child = node.addChild(segment, childPath);
+			}
+			node = child;
+		}
 		return node;
 	}
 
-	private Object removeNode(IPath path) {
-		return objects.remove(path);
+	private void adjustCounts(Node node, int delta) {
+		for (Node current = node; current != null; current = current.parent) {
+			current.count += delta;
+		}
+	}
+
+	/*
+	 * Remove the node and any of its ancestors that no longer
+	 * contain any objects.
+	 */
+	private void prune(Node node) {
+		Node current = node;
+		while (current.parent != null && current.isEmpty()) {
+			current.parent.removeChild(current);
+			current = current.parent;
+		}
 	}
 
 	/**
@@ -297,26 +283,24 @@ public class PathTree {
 	 * @return the paths whose bit changed
 	 */
 	public synchronized IPath[] setPropogatedProperty(IPath path, int property, boolean value) {
-		Set<IPath> changed = new HashSet<>();
-		internalSetPropertyBit(path, property, value, changed);
-		return changed.toArray(new IPath[changed.size()]);
-	}
-
-	private void internalSetPropertyBit(IPath path, int property, boolean value, Set<IPath> changed) {
 		if (path.segmentCount() == 0)
-			return;
+			return new IPath[0];
 		Node node = getNode(path);
 		if (node == null)
-			return;
-		// No need to set it if the value hans't changed
-		if (value == node.hasFlag(property))
-			return;
-		// Only unset the property if no descendants have the flag set
-		if (!value && node.descendantHasFlag(property))
-			return;
-		node.setProperty(property, value);
-		changed.add(path);
-		internalSetPropertyBit(path.removeLastSegments(1), property, value, changed);
+			return new IPath[0];
+		List<IPath> changed = new ArrayList<>();
+		// The root node never holds properties
+		for (Node current = node; current.parent != null; current = current.parent) {
+			// No need to set it if the value hans't changed
+			if (value == current.hasFlag(property))
+				break;
+			// Only unset the property if no descendants have the flag set
+			if (!value && current.descendantHasFlag(property))
+				break;
+			current.setProperty(property, value);
+			changed.add(current.path);
+		}
+		return changed.toArray(new IPath[changed.size()]);
 	}
 
 	public synchronized boolean getProperty(IPath path, int property) {
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.subscribers;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.variants.BufferedResourceVariantByteStore;
+import org.eclipse.team.internal.core.TeamPlugin;
+
+/**
+ * Save participant that writes the pending changes of the
+ * {@link BufferedResourceVariantByteStore} instances to the workspace
+ * synchronizer when the workspace or a project is saved.
+ */
+public class ByteStoreSaveParticipant implements ISaveParticipant {
+
+	private static ByteStoreSaveParticipant instance;
+
+	private final Set<BufferedResourceVariantByteStore> stores = new LinkedHashSet<>();
+
+	/**
+	 * Register the store so that its changes are persisted when
+	 * the workspace is saved.
+	 * @param store the byte store
+	 */
+	public static synchronized void add(BufferedResourceVariantByteStore store) {
+		if (instance == null) {
+			instance = new ByteStoreSaveParticipant();
+			try {
+				ResourcesPlugin.getWorkspace().addSaveParticipant(TeamPlugin.ID, instance);
+			} catch (CoreException e) {
+				TeamPlugin.log(e);
+			}
+		}
+		synchronized (instance.stores) {
+			instance.stores.add(store);
+		}
+	}
+
+	/**
+	 * Stop persisting the changes of the given store.
+	 * @param store the byte store
+	 */
+	public static synchronized void remove(BufferedResourceVariantByteStore store) {
+		if (instance == null)
+			return;
+		synchronized (instance.stores) {
+			instance.stores.remove(store);
+		}
+	}
+
+	/**
+	 * Remove the save participant. This is invoked when the plug-in is stopped.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			ResourcesPlugin.getWorkspace().removeSaveParticipant(TeamPlugin.ID);
+			instance = null;
+		}
+	}
+
+	private BufferedResourceVariantByteStore[] getStores() {
+		synchronized (stores) {
+			return stores.toArray(new BufferedResourceVariantByteStore[stores.size()]);
+		}
+	}
+
+	@Override
+	public void saving(ISaveContext context) throws CoreException {
+		IResource root = context.getKind() == ISaveContext.PROJECT_SAVE
+				? context.getProject()
+				: ResourcesPlugin.getWorkspace().getRoot();
+		BufferedResourceVariantByteStore[] allStores = getStores();
+		for (int i = 0; i < allStores.length; i++) {
+			try {
+				allStores[i].persist(root, null);
+			} catch (TeamException e) {
+				// The bytes that could not be written are written by the next save
+				TeamPlugin.log(e);
+			}
+		}
+	}
+
+	@Override
+	public void doneSaving(ISaveContext context) {
+		// Nothing to do
+	}
+
+	@Override
+	public void prepareToSave(ISaveContext context) throws CoreException {
+		// Nothing to do
+	}
+
+	@Override
+	public void rollback(ISaveContext context) {
+		// Nothing to do
+	}
+}
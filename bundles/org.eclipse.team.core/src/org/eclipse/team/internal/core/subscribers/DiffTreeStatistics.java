@@ -10,29 +10,52 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core.subscribers;
 
-import java.util.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.eclipse.team.core.diff.IDiff;
 import org.eclipse.team.core.diff.IThreeWayDiff;
 import org.eclipse.team.core.synchronize.SyncInfo;
 
 public class DiffTreeStatistics {
+
+	/*
+	 * The state of a diff is its kind (IDiff.ADD, REMOVE or CHANGE) or-ed with
+	 * its direction (IThreeWayDiff.OUTGOING, INCOMING or CONFLICTING). These
+	 * bits are packed into a small index so the counts can live in a fixed
+	 * size array instead of a map.
+	 */
+	private static final int KIND_MASK = 0x7;
+	private static final int DIRECTION_SHIFT = 5;
+	private static final int STATE_MASK = KIND_MASK | IThreeWayDiff.DIRECTION_MASK;
+	private static final int SLOTS = (KIND_MASK | (IThreeWayDiff.DIRECTION_MASK >> DIRECTION_SHIFT)) + 1;
+
 	/**
-	 * {Integer sync kind -> Long number of infos with that sync kind in this sync set}
+	 * {packed sync state -> number of diffs with that state in this diff tree}
 	 */
-	protected Map<Integer, Long> stats = Collections.synchronizedMap(new HashMap<>());
+	private final AtomicLongArray stats = new AtomicLongArray(SLOTS);
+
+	/**
+	 * {Integer sync state -> Long number of diffs} for states that fall outside
+	 * of the kind and direction bits. Created lazily as it is normally not used.
+	 */
+	private volatile Map<Integer, Long> otherStats;
 
 	/**
 	 * Count this sync state.
 	 * @param state the state
 	 */
 	public void add(int state) {
-		// update statistics
-		Long count = stats.get(Integer.valueOf(state));
-		if(count == null) {
-			count = Long.valueOf(0);
+		if ((state & ~STATE_MASK) == 0) {
+			stats.incrementAndGet(toIndex(state));
+		} else {
+			Map<Integer, Long> other = getOtherStats();
+			synchronized (other) {
+				Long count = other.get(Integer.valueOf(state));
+				other.put(Integer.valueOf(state), Long.valueOf(count == null ? 1 : count.longValue() + 1));
+			}
 		}
-		stats.put(Integer.valueOf(state), Long.valueOf(count.longValue() + 1));
 	}
 
 	/**
@@ -40,18 +63,32 @@ public class DiffTreeStatistics {
 	 * @param state the info type to remove
 	 */
 	public void remove(int state) {
-		// update stats
-		Integer kind = Integer.valueOf(state);
-		Long count = stats.get(kind);
-		if(count == null) {
-			// error condition, shouldn't be removing if we haven't added yet
-			// programmer error calling remove before add.
+		if ((state & ~STATE_MASK) == 0) {
+			int index = toIndex(state);
+			long count;
+			do {
+				count = stats.get(index);
+				if (count <= 0) {
+					// error condition, shouldn't be removing if we haven't added yet
+					// programmer error calling remove before add.
+					return;
+				}
+			} while (!stats.compareAndSet(index, count, count - 1));
 		} else {
-			long newCount = count.intValue() - 1;
-			if(newCount > 0) {
-				stats.put(kind, Long.valueOf(newCount));
-			} else {
-				stats.remove(kind);
+			Map<Integer, Long> other = otherStats;
+			if (other == null)
+				return;
+			synchronized (other) {
+				Integer kind = Integer.valueOf(state);
+				Long count = other.get(kind);
+				if (count != null) {
+					long newCount = count.longValue() - 1;
+					if (newCount > 0) {
+						other.put(kind, Long.valueOf(newCount));
+					} else {
+						other.remove(kind);
+					}
+				}
 			}
 		}
 	}
@@ -67,23 +104,29 @@ public class DiffTreeStatistics {
 	 * @return the number of sync info types added for the specific kind
 	 */
 	public long countFor(int state, int mask) {
-		if(mask == 0) {
-			Long count = stats.get(Integer.valueOf(state));
-			return count == null ? 0 : count.longValue();
+		long count = 0;
+		if (mask == 0) {
+			if ((state & ~STATE_MASK) == 0)
+				return stats.get(toIndex(state));
 		} else {
-			Set keySet = stats.keySet();
-			long count = 0;
-			synchronized (stats) {
-				Iterator it = keySet.iterator();
-				while (it.hasNext()) {
-					Integer key = (Integer) it.next();
-					if((key.intValue() & mask) == state) {
-						count += stats.get(key).intValue();
+			for (int i = 0; i < SLOTS; i++) {
+				if ((toState(i) & mask) == state) {
+					count += stats.get(i);
+				}
+			}
+		}
+		Map<Integer, Long> other = otherStats;
+		if (other != null) {
+			synchronized (other) {
+				for (Map.Entry<Integer, Long> entry : other.entrySet()) {
+					int key = entry.getKey().intValue();
+					if ((mask == 0 && key == state) || (mask != 0 && (key & mask) == state)) {
+						count += entry.getValue().longValue();
 					}
 				}
 			}
-			return count;
 		}
+		return count;
 	}
 
 	/**
@@ -91,7 +134,10 @@ public class DiffTreeStatistics {
 	 * sync infos are added.
 	 */
 	public void clear() {
-		stats.clear();
+		for (int i = 0; i < SLOTS; i++) {
+			stats.set(i, 0);
+		}
+		otherStats = null;
 	}
 
 	/**
@@ -100,14 +146,45 @@ public class DiffTreeStatistics {
 	@Override
 	public String toString() {
 		StringBuilder out = new StringBuilder();
-		Iterator it = stats.keySet().iterator();
-		while (it.hasNext()) {
-			Integer kind = (Integer) it.next();
-			out.append(SyncInfo.kindToString(kind.intValue()) + ": " + stats.get(kind) + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		for (int i = 0; i < SLOTS; i++) {
+			long count = stats.get(i);
+			if (count > 0) {
+				out.append(SyncInfo.kindToString(toState(i)) + ": " + count + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		Map<Integer, Long> other = otherStats;
+		if (other != null) {
+			synchronized (other) {
+				for (Map.Entry<Integer, Long> entry : other.entrySet()) {
+					out.append(SyncInfo.kindToString(entry.getKey().intValue()) + ": " + entry.getValue() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
 		}
 		return out.toString();
 	}
 
+	private static int toIndex(int state) {
+		return (state & KIND_MASK) | ((state & IThreeWayDiff.DIRECTION_MASK) >> DIRECTION_SHIFT);
+	}
+
+	private static int toState(int index) {
+		return (index & KIND_MASK) | ((index << DIRECTION_SHIFT) & IThreeWayDiff.DIRECTION_MASK);
+	}
+
+	private Map<Integer, Long> getOtherStats() {
+		Map<Integer, Long> other = otherStats;
+		if (other == null) {
+			synchronized (this) {
+				other = otherStats;
+				if (other == null) {
+					other = new HashMap<>();
+					otherStats = other;
+				}
+			}
+		}
+		return other;
+	}
+
 	public void add(IDiff delta) {
 		int state = getState(delta);
 		add(state);
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.subscribers;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.team.core.ITeamStatus;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.subscribers.Subscriber;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.core.synchronize.SyncInfoSet;
+import org.eclipse.team.internal.core.Messages;
+import org.eclipse.team.internal.core.Policy;
+
+/**
+ * Collects the out-of-sync resources of a subscriber in several jobs. The
+ * traversal is partitioned by project and top-level folder and each partition
+ * is visited by one of the jobs using {@link #collect(IResource, int, SyncInfoSet, IProgressMonitor)}.
+ * The results of the jobs are added to the target set in batches, each within
+ * a <code>beginInput/endInput</code> block, by the thread that invoked
+ * {@link #collectOutOfSync(IResource[], int, SyncInfoSet, IProgressMonitor)}
+ * as soon as they are available.
+ * <p>
+ * The collection falls back to a single visit in the calling thread when
+ * there is only one partition or when the calling thread holds a scheduling
+ * rule (or the workspace tree is locked) since the jobs could then block on
+ * the calling thread.
+ */
+public abstract class ParallelSyncInfoCollector {
+
+	// The number of results that are delivered to the set at once
+	private static final int BATCH_SIZE = 100;
+	// How often (in milliseconds) cancellation is checked while waiting for results
+	private static final int POLL_INTERVAL = 100;
+	private static final int MAX_JOBS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	private final Subscriber subscriber;
+
+	/*
+	 * A resource of the traversal that is visited to a depth by one job
+	 */
+	private static class Partition {
+		final IResource resource;
+		final int depth;
+		Partition(IResource resource, int depth) {
+			this.resource = resource;
+			this.depth = depth;
+		}
+	}
+
+	/*
+	 * A batch of results or the outcome of a job
+	 */
+	private static class Batch {
+		final List<Object> results;
+		final boolean done;
+		RuntimeException exception;
+		Batch(List<Object> results, boolean done) {
+			this.results = results;
+			this.done = done;
+		}
+	}
+
+	/*
+	 * Set that records the results of a job and queues them in batches
+	 */
+	private static class BatchingSyncInfoSet extends SyncInfoSet {
+		private final BlockingQueue<Batch> batches;
+		private List<Object> results = new ArrayList<>();
+		BatchingSyncInfoSet(BlockingQueue<Batch> batches) {
+			this.batches = batches;
+		}
+		@Override
+		public void add(SyncInfo info) {
+			record(info);
+		}
+		@Override
+		public void remove(IResource resource) {
+			record(resource);
+		}
+		@Override
+		public void addError(ITeamStatus status) {
+			record(status);
+		}
+		private void record(Object result) {
+			results.add(result);
+			if (results.size() >= BATCH_SIZE)
+				flush();
+		}
+		void flush() {
+			if (!results.isEmpty()) {
+				batches.add(new Batch(results, false));
+				results = new ArrayList<>();
+			}
+		}
+	}
+
+	/*
+	 * Job that visits the partitions taken from a shared list
+	 */
+	private class CollectionJob extends Job {
+		private final LinkedList<Partition> pending;
+		private final BlockingQueue<Batch> batches;
+		CollectionJob(LinkedList<Partition> pending, BlockingQueue<Batch> batches) {
+			super(NLS.bind(Messages.ParallelSyncInfoCollector_0, subscriber.getName()));
+			this.pending = pending;
+			this.batches = batches;
+			setSystem(true);
+		}
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			BatchingSyncInfoSet set = new BatchingSyncInfoSet(batches);
+			Batch done = new Batch(Collections.emptyList(), true);
+			try {
+				while (!monitor.isCanceled()) {
+					Partition partition;
+					synchronized (pending) {
+						if (pending.isEmpty())
+							break;
+						partition = pending.removeFirst();
+					}
+					collect(partition.resource, partition.depth, set, monitor);
+					set.flush();
+				}
+			} catch (RuntimeException e) {
+				// Includes cancellation, which is reported to the collecting thread as well
+				done.exception = e;
+			} finally {
+				batches.add(done);
+			}
+			return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+		}
+	}
+
+	/**
+	 * Create a collector for the given subscriber.
+	 * @param subscriber the subscriber
+	 */
+	public ParallelSyncInfoCollector(Subscriber subscriber) {
+		this.subscriber = subscriber;
+	}
+
+	/**
+	 * Add the out-of-sync resources under the given resources to the given set
+	 * (see {@link Subscriber#collectOutOfSync(IResource[], int, SyncInfoSet, IProgressMonitor)}).
+	 * @param resources the roots of the subtrees to collect
+	 * @param depth the depth to which sync info is collected
+	 * @param set the set to which the out-of-sync resources are added
+	 * @param monitor a progress monitor
+	 */
+	public void collectOutOfSync(IResource[] resources, int depth, SyncInfoSet set, IProgressMonitor monitor) {
+		LinkedList<Partition> partitions = new LinkedList<>();
+		for (int i = 0; i < resources.length; i++) {
+			addPartitions(resources[i], depth, partitions);
+		}
+		if (partitions.size() <= 1 || Job.getJobManager().currentRule() != null || ResourcesPlugin.getWorkspace().isTreeLocked()) {
+			collectSequentially(partitions, set, monitor);
+		} else {
+			collectConcurrently(partitions, set, monitor);
+		}
+	}
+
+	/**
+	 * Add the sync info of the out-of-sync resources under the given resource
+	 * to the given set, remove the resource from the set if it is not supervised
+	 * and record errors using {@link SyncInfoSet#addError(ITeamStatus)}. The
+	 * given monitor should be checked for cancellation. This method is invoked
+	 * concurrently by several jobs.
+	 * @param resource the resource
+	 * @param depth the depth to which sync info is collected
+	 * @param set the set to which the results are added
+	 * @param monitor a progress monitor
+	 */
+	protected abstract void collect(IResource resource, int depth, SyncInfoSet set, IProgressMonitor monitor);
+
+	/*
+	 * Split the workspace root and projects visited to infinite depth into the
+	 * container itself and a partition for each of its members.
+	 */
+	private void addPartitions(IResource resource, int depth, List<Partition> partitions) {
+		if (depth == IResource.DEPTH_INFINITE && (resource.getType() == IResource.ROOT || resource.getType() == IResource.PROJECT)) {
+			try {
+				IResource[] members = subscriber.members(resource);
+				partitions.add(new Partition(resource, IResource.DEPTH_ZERO));
+				for (int i = 0; i < members.length; i++) {
+					addPartitions(members[i], depth, partitions);
+				}
+				return;
+			} catch (TeamException e) {
+				// Let the visit of the whole resource report the error
+			}
+		}
+		partitions.add(new Partition(resource, depth));
+	}
+
+	private void collectSequentially(List<Partition> partitions, SyncInfoSet set, IProgressMonitor monitor) {
+		try {
+			monitor.beginTask(null, 100 * partitions.size());
+			for (Partition partition : partitions) {
+				IProgressMonitor subMonitor = Policy.subMonitorFor(monitor, 100);
+				subMonitor.beginTask(null, IProgressMonitor.UNKNOWN);
+				collect(partition.resource, partition.depth, set, subMonitor);
+				subMonitor.done();
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private void collectConcurrently(LinkedList<Partition> partitions, SyncInfoSet set, IProgressMonitor monitor) {
+		BlockingQueue<Batch> batches = new LinkedBlockingQueue<>();
+		int jobCount = Math.min(MAX_JOBS, partitions.size());
+		CollectionJob[] jobs = new CollectionJob[jobCount];
+		for (int i = 0; i < jobCount; i++) {
+			jobs[i] = new CollectionJob(partitions, batches);
+			jobs[i].schedule();
+		}
+		try {
+			monitor.beginTask(null, IProgressMonitor.UNKNOWN);
+			for (int running = jobCount; running > 0;) {
+				Policy.checkCanceled(monitor);
+				Batch batch = batches.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (batch == null)
+					continue;
+				if (batch.done) {
+					running--;
+					if (batch.exception != null)
+						throw batch.exception;
+					continue;
+				}
+				addResults(batch.results, set);
+				// Tick the monitor to give the owner a chance to do something
+				monitor.worked(1);
+			}
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} finally {
+			// Stop any jobs that are still collecting if we were cancelled or failed
+			for (int i = 0; i < jobs.length; i++) {
+				jobs[i].cancel();
+			}
+			for (int i = 0; i < jobs.length; i++) {
+				try {
+					jobs[i].join();
+				} catch (InterruptedException e) {
+					// Ignore
+				}
+			}
+			monitor.done();
+		}
+	}
+
+	private void addResults(List<Object> results, SyncInfoSet set) {
+		try {
+			set.beginInput();
+			for (Object result : results) {
+				if (result instanceof SyncInfo) {
+					set.add((SyncInfo) result);
+				} else if (result instanceof IResource) {
+					set.remove((IResource) result);
+				} else {
+					set.addError((ITeamStatus) result);
+				}
+			}
+		} finally {
+			set.endInput(null);
+		}
+	}
+}
@@ -232,6 +232,13 @@ public class SubscriberDiffTreeEventHandler extends SubscriberEventHandler {
 		}
 	}
 
+	@Override
+	protected IResource[] getOutOfSyncResources() {
+		if (state != STATE_COLLECTING_CHANGES || exceptionState != EXCEPTION_NONE)
+			return null;
+		return tree.getAffectedResources();
+	}
+
 	/**
 	 * Return the resource diff tree that contains the out-of-sync diffs for the
 	 * subscriber.
@@ -248,6 +255,8 @@ public class SubscriberDiffTreeEventHandler extends SubscriberEventHandler {
 
 	@Override
 	public void shutdown() {
+		// The output can only be saved while the state reflects the collection
+		saveSnapshot();
 		state = STATE_SHUTDOWN;
 		collector.dispose();
 		super.shutdown();
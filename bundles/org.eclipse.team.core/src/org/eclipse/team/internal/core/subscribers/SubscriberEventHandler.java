@@ -12,6 +12,7 @@ package org.eclipse.team.internal.core.subscribers;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRunnable;
@@ -51,6 +52,16 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 
 	private ISynchronizationScopeChangeListener scopeChangeListener;
 
+	// The id under which the out-of-sync resources are persisted between sessions or null
+	private String snapshotId;
+	private boolean snapshotLoaded;
+	// The number of queued initialization events of the current generation that have not been processed
+	private final AtomicInteger pendingInitializations = new AtomicInteger();
+	// Incremented on each initialization so that events of a previous initialization are not counted
+	private volatile int initializationGeneration;
+	private volatile boolean collectionComplete;
+	private volatile boolean collectionFailed;
+
 	/**
 	 * Internal resource synchronization event. Can contain a result.
 	 */
@@ -80,6 +91,17 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 		}
 	}
 
+	/*
+	 * An initialization event that records the initialization it belongs to
+	 */
+	private class InitializeEvent extends SubscriberEvent {
+		final int generation;
+		InitializeEvent(IResource resource, int depth, int generation) {
+			super(resource, INITIALIZE, depth);
+			this.generation = generation;
+		}
+	}
+
 	/**
 	 * Create a handler. This will initialize all resources for the subscriber associated with
 	 * the set.
@@ -125,6 +147,13 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 			super.queueEvent(event, front);
 		}
 	}
+	@Override
+	protected boolean isCoalescable(Event event) {
+		// The sync state of the resources of a change is calculated when the
+		// event is processed so changes covered by another queued change are redundant
+		return event.getType() == SubscriberEvent.CHANGE && event instanceof SubscriberEvent;
+	}
+
 	/**
 	 * Schedule the job or process the events now.
 	 */
@@ -251,6 +280,8 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 	 */
 	protected void handleException(CoreException e, IResource resource, int code, String message) {
 		handleException(e);
+		collectionFailed = true;
+		collectionComplete = false;
 	}
 
 	/**
@@ -279,6 +310,32 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 	 *   optimized recalculation if supported by the subscriber.
 	 */
 	protected void reset(ResourceTraversal[] traversals, int type) {
+		if (type == SubscriberEvent.INITIALIZE) {
+			int generation = ++initializationGeneration;
+			collectionFailed = false;
+			if (snapshotId != null && started && !snapshotLoaded && traversals.length > 0) {
+				snapshotLoaded = true;
+				IResource[] resources = loadSnapshot(traversals);
+				if (resources != null) {
+					// The resources that were out-of-sync are collected first so that the
+					// output is filled right away. The scope is still collected afterwards.
+					for (int i = 0; i < resources.length; i++) {
+						queueEvent(new SubscriberEvent(resources[i], SubscriberEvent.CHANGE, IResource.DEPTH_ZERO), false);
+					}
+				}
+			}
+			int count = started ? countResources(traversals) : 0;
+			pendingInitializations.set(count);
+			collectionComplete = started && count == 0;
+			for (int i = 0; i < traversals.length; i++) {
+				ResourceTraversal traversal = traversals[i];
+				IResource[] resources = traversal.getResources();
+				for (int j = 0; j < resources.length; j++) {
+					queueEvent(new InitializeEvent(resources[j], traversal.getDepth(), generation), false);
+				}
+			}
+			return;
+		}
 		for (int i = 0; i < traversals.length; i++) {
 			ResourceTraversal traversal = traversals[i];
 			IResource[] resources = traversal.getResources();
@@ -288,6 +345,71 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 		}
 	}
 
+	private int countResources(ResourceTraversal[] traversals) {
+		int count = 0;
+		for (int i = 0; i < traversals.length; i++) {
+			count += traversals[i].getResources().length;
+		}
+		return count;
+	}
+
+	/*
+	 * Return the resources that were out-of-sync when the snapshot of the
+	 * scope was saved or <code>null</code> if there is no valid snapshot.
+	 * These are collected before the whole scope. Their state is obtained from
+	 * the subscriber so the snapshot only determines the order of the collection;
+	 * resources that changed while no handler was running are found by the
+	 * collection of the scope. The snapshot is only saved after a complete
+	 * collection and is deleted once it is loaded.
+	 */
+	private IResource[] loadSnapshot(ResourceTraversal[] traversals) {
+		SubscriberStateSnapshot snapshot = new SubscriberStateSnapshot(getSubscriber(), snapshotId, traversals);
+		IResource[] resources = snapshot.load();
+		if (resources != null)
+			snapshot.delete();
+		return resources;
+	}
+
+	/**
+	 * Set the id under which the resources that are out-of-sync when the handler
+	 * is shutdown are persisted so that their state is calculated first when a
+	 * handler with the same id, subscriber and scope is started in a subsequent
+	 * session. The id must identify the configuration of the subscriber and be
+	 * stable between sessions. Snapshots are disabled if the id is <code>null</code>,
+	 * which is the default. This must be called before the handler is started.
+	 * @param id the snapshot id or <code>null</code>
+	 */
+	public void setSnapshotId(String id) {
+		this.snapshotId = id;
+	}
+
+	/**
+	 * Return the resources that are currently out-of-sync in the output
+	 * of this handler or <code>null</code> if the output cannot be
+	 * persisted. This is used to save the snapshot when the handler is shutdown.
+	 * @return the out-of-sync resources or <code>null</code>
+	 */
+	protected IResource[] getOutOfSyncResources() {
+		return null;
+	}
+
+	/**
+	 * Save the out-of-sync resources if snapshots are enabled and the
+	 * collection of the scope is complete. The snapshot is saved at most once.
+	 * Subclasses whose output can no longer be obtained once they start
+	 * shutting down must call this method before doing so.
+	 */
+	protected final void saveSnapshot() {
+		String id = snapshotId;
+		if (id == null || !collectionComplete)
+			return;
+		snapshotId = null;
+		IResource[] resources = getOutOfSyncResources();
+		if (resources == null)
+			return;
+		new SubscriberStateSnapshot(getSubscriber(), id, scope.getTraversals()).save(resources);
+	}
+
 	@Override
 	protected void processEvent(Event event, IProgressMonitor monitor) {
 		try {
@@ -309,10 +431,17 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 					break;
 				case SubscriberEvent.INITIALIZE :
 					monitor.subTask(NLS.bind(Messages.SubscriberEventHandler_2, new String[] { event.getResource().getFullPath().toString() }));
-					collectAll(
-					        event.getResource(),
-					        ((ResourceEvent)event).getDepth(),
-							Policy.subMonitorFor(monitor, 64));
+					try {
+						collectAll(
+						        event.getResource(),
+						        ((ResourceEvent)event).getDepth(),
+								Policy.subMonitorFor(monitor, 64));
+					} finally {
+						if (event instanceof InitializeEvent
+								&& ((InitializeEvent)event).generation == initializationGeneration
+								&& pendingInitializations.decrementAndGet() == 0)
+							collectionComplete = !collectionFailed;
+					}
 					break;
 			}
 		} catch (OperationCanceledException e) {
@@ -343,6 +472,10 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 	 */
 	protected void handleCancel(OperationCanceledException e) {
 		resultCache.clear();
+		collectionFailed = true;
+		collectionComplete = false;
+		// The remaining initialization events will not be counted
+		pendingInitializations.set(0);
 	}
 
 	/*
@@ -409,6 +542,10 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 
 	@Override
 	public void shutdown() {
+		saveSnapshot();
+		// Queued initialization events are discarded
+		pendingInitializations.set(0);
+		collectionComplete = false;
 		super.shutdown();
 		scope.removeScopeChangeListener(scopeChangeListener);
 	}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.subscribers;
+
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.mapping.ResourceMapping;
+import org.eclipse.core.resources.mapping.ResourceTraversal;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.IThreeWayDiff;
+import org.eclipse.team.core.subscribers.*;
+import org.eclipse.team.internal.core.TeamPlugin;
+
+/**
+ * Keeps the synchronization state of the subtree of each container of a
+ * subscriber aggregated so that the state of a resource mapping can be
+ * determined without visiting all the resources it covers. The aggregated
+ * state of a container is calculated when it is first needed and is discarded
+ * for the container and its ancestors when the subscriber reports a change
+ * or when a resource in its subtree changes in the workspace.
+ * <p>
+ * The aggregated state combines the direction flags of the visited diffs
+ * with a bit for each diff kind that was seen, following the rules of
+ * {@link Subscriber#getState(ResourceMapping, int, IProgressMonitor)}.
+ */
+public class SubscriberStateIndex implements ISubscriberChangeListener, IResourceChangeListener {
+
+	private final Subscriber subscriber;
+	private final Map<IResource, Integer> states = new HashMap<>();
+	// Incremented on each change so that states calculated concurrently with a change are not kept
+	private long generation;
+
+	/**
+	 * Create an index for the given subscriber. The index listens to
+	 * the subscriber and to the workspace until it is disposed.
+	 * @param subscriber the subscriber
+	 */
+	public SubscriberStateIndex(Subscriber subscriber) {
+		this.subscriber = subscriber;
+		subscriber.addListener(this);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Stop listening for changes and discard the aggregated states.
+	 */
+	public void dispose() {
+		subscriber.removeListener(this);
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+		synchronized (states) {
+			states.clear();
+			generation++;
+		}
+	}
+
+	/**
+	 * Return the synchronization state of the given resource mapping
+	 * (see {@link Subscriber#getState(ResourceMapping, int, IProgressMonitor)}).
+	 * @param mapping the resource mapping
+	 * @param stateMask the mask that identifies the state flags of interest
+	 * @param monitor a progress monitor
+	 * @return the synchronization state of the resource mapping
+	 * @throws CoreException if the state could not be determined
+	 */
+	public int getState(ResourceMapping mapping, int stateMask, IProgressMonitor monitor) throws CoreException {
+		ResourceTraversal[] traversals = mapping.getTraversals(new SubscriberResourceMappingContext(subscriber, true), monitor);
+		int state = 0;
+		for (int i = 0; i < traversals.length; i++) {
+			ResourceTraversal traversal = traversals[i];
+			IResource[] resources = traversal.getResources();
+			for (int j = 0; j < resources.length; j++) {
+				state |= getState(resources[j], traversal.getDepth());
+			}
+		}
+		return (state & IThreeWayDiff.DIRECTION_MASK | getKind(state)) & stateMask;
+	}
+
+	/*
+	 * If the traversals contain a combination of kinds, return a CHANGE
+	 */
+	private static int getKind(int state) {
+		int kinds = state & (IDiff.ADD | IDiff.REMOVE | IDiff.CHANGE);
+		if (kinds == IDiff.ADD || kinds == IDiff.REMOVE || kinds == IDiff.CHANGE || kinds == 0)
+			return kinds;
+		return IDiff.CHANGE;
+	}
+
+	private int getState(IResource resource, int depth) throws CoreException {
+		switch (depth) {
+		case IResource.DEPTH_INFINITE:
+			return getSubtreeState(resource);
+		case IResource.DEPTH_ONE:
+			int state = getDiffState(resource);
+			if (!isVisitChildren(resource, state))
+				return state;
+			IResource[] members = subscriber.members(resource);
+			for (int i = 0; i < members.length; i++) {
+				state |= getDiffState(members[i]);
+			}
+			return state;
+		default:
+			return getDiffState(resource);
+		}
+	}
+
+	/*
+	 * Return the aggregated state of the resource and its descendants.
+	 * The states of containers are cached.
+	 */
+	private int getSubtreeState(IResource resource) throws CoreException {
+		if (resource.getType() == IResource.FILE)
+			return getDiffState(resource);
+		long startGeneration;
+		synchronized (states) {
+			Integer cached = states.get(resource);
+			if (cached != null)
+				return cached.intValue();
+			startGeneration = generation;
+		}
+		int state = getDiffState(resource);
+		if (isVisitChildren(resource, state)) {
+			IResource[] members = subscriber.members(resource);
+			for (int i = 0; i < members.length; i++) {
+				state |= getSubtreeState(members[i]);
+			}
+		}
+		synchronized (states) {
+			if (generation == startGeneration)
+				states.put(resource, Integer.valueOf(state));
+		}
+		return state;
+	}
+
+	/*
+	 * Return the direction and kind bit of the diff of the resource
+	 * or zero if the resource is in-sync.
+	 */
+	private int getDiffState(IResource resource) throws CoreException {
+		IDiff diff = subscriber.getDiff(resource);
+		if (diff == null || diff.getKind() == IDiff.NO_CHANGE)
+			return 0;
+		int state = diff.getKind();
+		if (diff instanceof IThreeWayDiff)
+			state |= ((IThreeWayDiff) diff).getDirection();
+		return state;
+	}
+
+	/*
+	 * Only need to visit the children of a change
+	 */
+	private boolean isVisitChildren(IResource resource, int state) {
+		return resource.getType() != IResource.FILE
+				&& (state & (IDiff.ADD | IDiff.REMOVE)) == 0;
+	}
+
+	/**
+	 * Return the number of containers whose aggregated state is cached.
+	 * @return the number of cached containers
+	 */
+	public int size() {
+		synchronized (states) {
+			return states.size();
+		}
+	}
+
+	/*
+	 * Discard the aggregated state of the resource and its ancestors and, if
+	 * requested, of its descendants.
+	 */
+	private void invalidate(IResource resource, boolean descendants) {
+		synchronized (states) {
+			generation++;
+			if (descendants && resource.getType() != IResource.FILE) {
+				IPath path = resource.getFullPath();
+				for (Iterator<IResource> iter = states.keySet().iterator(); iter.hasNext();) {
+					if (path.isPrefixOf(iter.next().getFullPath()))
+						iter.remove();
+				}
+			}
+			IResource current = resource;
+			while (current != null) {
+				states.remove(current);
+				current = current.getParent();
+			}
+		}
+	}
+
+	@Override
+	public void subscriberResourceChanged(ISubscriberChangeEvent[] deltas) {
+		for (int i = 0; i < deltas.length; i++) {
+			ISubscriberChangeEvent delta = deltas[i];
+			int flags = delta.getFlags();
+			invalidate(delta.getResource(), (flags & (ISubscriberChangeEvent.ROOT_ADDED | ISubscriberChangeEvent.ROOT_REMOVED)) != 0);
+		}
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null)
+			return;
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta child) {
+					int kind = child.getKind();
+					// Marker changes do not affect the synchronization state
+					if (kind != IResourceDelta.CHANGED || (child.getFlags() & ~IResourceDelta.MARKERS) != 0) {
+						invalidate(child.getResource(), kind == IResourceDelta.REMOVED || (child.getFlags() & IResourceDelta.OPEN) != 0);
+					}
+					// The descendants of a removed resource need no other notification
+					return kind != IResourceDelta.REMOVED;
+				}
+			});
+		} catch (CoreException e) {
+			TeamPlugin.log(e);
+			synchronized (states) {
+				states.clear();
+				generation++;
+			}
+		}
+	}
+}
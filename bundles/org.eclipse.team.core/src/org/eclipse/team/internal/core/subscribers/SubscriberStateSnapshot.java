@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.subscribers;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.mapping.ResourceTraversal;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.subscribers.Subscriber;
+import org.eclipse.team.internal.core.TeamPlugin;
+
+/**
+ * Persists the set of resources that were out-of-sync for a subscriber in a
+ * given scope. The snapshot is stored in the state location of the plug-in
+ * and is used by the {@link SubscriberEventHandler} to recalculate the state
+ * of the previously out-of-sync resources before the full collection of the
+ * scope is performed, so that views can be populated as soon as they are opened.
+ * <p>
+ * Only the location of the resources is stored. The synchronization state
+ * itself is always obtained from the subscriber.
+ * <p>
+ * Snapshots are identified by the type of the subscriber, an id that is
+ * provided by the client that owns the handler and the scope. The complete
+ * identification is stored in the snapshot and checked when it is loaded.
+ */
+public class SubscriberStateSnapshot {
+
+	private static final String SNAPSHOT_DIRECTORY = ".subscriberSnapshots"; //$NON-NLS-1$
+	private static final String SNAPSHOT_FILE_EXTENSION = ".snapshot"; //$NON-NLS-1$
+	private static final int SNAPSHOT_FORMAT_VERSION = 1;
+
+	// The maximum number of snapshots kept in the state location
+	private static final int MAX_SNAPSHOTS = 20;
+
+	private final String key;
+
+	/**
+	 * Create a snapshot for the given subscriber and scope traversals.
+	 * @param subscriber the subscriber
+	 * @param id an id that is stable between sessions and identifies the
+	 * configuration of the subscriber for the client that owns the snapshot
+	 * @param traversals the traversals that define the scope
+	 */
+	public SubscriberStateSnapshot(Subscriber subscriber, String id, ResourceTraversal[] traversals) {
+		this.key = createKey(subscriber, id, traversals);
+	}
+
+	private static String createKey(Subscriber subscriber, String id, ResourceTraversal[] traversals) {
+		List<String> entries = new ArrayList<>();
+		for (int i = 0; i < traversals.length; i++) {
+			ResourceTraversal traversal = traversals[i];
+			IResource[] resources = traversal.getResources();
+			for (int j = 0; j < resources.length; j++) {
+				entries.add(resources[j].getFullPath().toString() + ':' + traversal.getDepth());
+			}
+		}
+		Collections.sort(entries);
+		StringBuilder buffer = new StringBuilder();
+		buffer.append(subscriber.getClass().getName());
+		buffer.append('#');
+		buffer.append(id);
+		for (String entry : entries) {
+			buffer.append('|');
+			buffer.append(entry);
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Return the resources recorded in the snapshot or <code>null</code>
+	 * if there is no valid snapshot for the subscriber and scope. An empty
+	 * array means that no resources were out-of-sync.
+	 * @return the resources recorded in the snapshot or <code>null</code>
+	 */
+	public IResource[] load() {
+		File file = getSnapshotFile();
+		if (!file.exists())
+			return null;
+		try {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (input.readInt() != SNAPSHOT_FORMAT_VERSION)
+					return null;
+				// The key can exceed the limits of writeUTF so it is stored as raw bytes
+				byte[] keyBytes = new byte[input.readInt()];
+				input.readFully(keyBytes);
+				if (!key.equals(new String(keyBytes, StandardCharsets.UTF_8)))
+					return null;
+				IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+				int count = input.readInt();
+				List<IResource> result = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					int type = input.readInt();
+					IPath path = new Path(input.readUTF());
+					IResource resource = getResource(root, type, path);
+					if (resource != null)
+						result.add(resource);
+				}
+				return result.toArray(new IResource[result.size()]);
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			TeamPlugin.log(IStatus.ERROR, e.getMessage(), e);
+			file.delete();
+			return null;
+		}
+	}
+
+	private IResource getResource(IWorkspaceRoot root, int type, IPath path) {
+		switch (type) {
+		case IResource.FILE:
+			return path.segmentCount() > 1 ? root.getFile(path) : null;
+		case IResource.FOLDER:
+			return path.segmentCount() > 1 ? root.getFolder(path) : null;
+		case IResource.PROJECT:
+			return path.segmentCount() == 1 ? root.getProject(path.lastSegment()) : null;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Record the given resources in the snapshot, replacing any
+	 * previously saved resources.
+	 * @param resources the out-of-sync resources
+	 */
+	public void save(IResource[] resources) {
+		File file = getSnapshotFile();
+		File parent = file.getParentFile();
+		if (!parent.exists() && !parent.mkdirs())
+			return;
+		try {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				output.writeInt(SNAPSHOT_FORMAT_VERSION);
+				byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+				output.writeInt(keyBytes.length);
+				output.write(keyBytes);
+				output.writeInt(resources.length);
+				for (int i = 0; i < resources.length; i++) {
+					IResource resource = resources[i];
+					output.writeInt(resource.getType());
+					output.writeUTF(resource.getFullPath().toString());
+				}
+			} finally {
+				output.close();
+			}
+		} catch (IOException e) {
+			TeamPlugin.log(IStatus.ERROR, e.getMessage(), e);
+			file.delete();
+			return;
+		}
+		pruneSnapshots(parent);
+	}
+
+	/**
+	 * Remove the snapshot for the subscriber and scope.
+	 */
+	public void delete() {
+		File file = getSnapshotFile();
+		if (file.exists())
+			file.delete();
+	}
+
+	/*
+	 * Only keep the most recently written snapshots so that the state location
+	 * does not accumulate snapshots of short lived scopes.
+	 */
+	private void pruneSnapshots(File directory) {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(SNAPSHOT_FILE_EXTENSION));
+		if (files == null || files.length <= MAX_SNAPSHOTS)
+			return;
+		Arrays.sort(files, (f1, f2) -> Long.compare(f2.lastModified(), f1.lastModified()));
+		for (int i = MAX_SNAPSHOTS; i < files.length; i++) {
+			files[i].delete();
+		}
+	}
+
+	private File getSnapshotFile() {
+		String name = getDigest(key) + SNAPSHOT_FILE_EXTENSION;
+		return TeamPlugin.getPlugin().getStateLocation().append(SNAPSHOT_DIRECTORY).append(name).toFile();
+	}
+
+	/*
+	 * Return a hexadecimal digest of the key that is used as the file name.
+	 * Keys that share a digest replace each other's snapshot but never load it
+	 * since the key is checked when the snapshot is loaded.
+	 */
+	private static String getDigest(String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+			StringBuilder buffer = new StringBuilder(digest.length * 2);
+			for (int i = 0; i < digest.length; i++) {
+				buffer.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+				buffer.append(Character.forDigit(digest[i] & 0xF, 16));
+			}
+			return buffer.toString();
+		} catch (NoSuchAlgorithmException e) {
+			return Integer.toHexString(key.hashCode());
+		}
+	}
+}
@@ -63,6 +63,18 @@ public final class SubscriberSyncInfoCollector extends SubscriberResourceCollect
 		getEventHandler().setProgressGroupHint(monitor, ticks);
 	}
 
+	/**
+	 * Set the id under which the out-of-sync resources of the collector are
+	 * persisted when it is disposed so that they are collected first the
+	 * next time a collector with the same id, subscriber and roots is started.
+	 * Snapshots are disabled if the id is <code>null</code>, which is the default.
+	 * This must be called before the collector is started.
+	 * @param id the snapshot id or <code>null</code>
+	 */
+	public void setSnapshotId(String id) {
+		eventHandler.setSnapshotId(id);
+	}
+
 	/**
 	 * Start the collector.
 	 */
@@ -188,6 +188,14 @@ public class SubscriberSyncInfoEventHandler extends SubscriberEventHandler {
 		}
 	}
 
+	@Override
+	protected IResource[] getOutOfSyncResources() {
+		SubscriberSyncInfoSet syncSet = syncSetInput.getSyncSet();
+		if (syncSet.getErrors().length > 0)
+			return null;
+		return syncSet.getResources();
+	}
+
 	/**
 	 * Initialize all resources for the subscriber associated with the set. This
 	 * will basically recalculate all synchronization information for the
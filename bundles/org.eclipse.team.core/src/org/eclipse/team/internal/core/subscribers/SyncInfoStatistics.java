@@ -11,8 +11,8 @@
 package org.eclipse.team.internal.core.subscribers;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.eclipse.team.core.synchronize.SyncInfo;
 
@@ -20,20 +20,36 @@ import org.eclipse.team.core.synchronize.SyncInfo;
  * Counts SyncInfo states and allows for easy querying for different sync states.
  */
 public class SyncInfoStatistics {
-	//	{int sync kind -> int number of infos with that sync kind in this sync set}
-	protected Map<Integer, Long> stats = new HashMap<>();
+
+	/*
+	 * All kind bits defined by SyncInfo (change type, direction and conflict
+	 * type) fit in the low seven bits so the counts are kept in an array
+	 * indexed by the kind itself.
+	 */
+	private static final int KIND_MASK = 0x7F;
+	private static final int SLOTS = KIND_MASK + 1;
+
+	//	{int sync kind -> number of infos with that sync kind in this sync set}
+	private final AtomicLongArray stats = new AtomicLongArray(SLOTS);
+
+	//	{Integer sync kind -> Long number of infos} for kinds using bits outside of KIND_MASK
+	private volatile Map<Integer, Long> otherStats;
 
 	/**
 	 * Count this sync kind. Only the type of the sync info is stored.
 	 * @param info the new info
 	 */
 	public void add(SyncInfo info) {
-		// update statistics
-		Long count = stats.get(Integer.valueOf(info.getKind()));
-		if(count == null) {
-			count = Long.valueOf(0);
+		int kind = info.getKind();
+		if ((kind & ~KIND_MASK) == 0) {
+			stats.incrementAndGet(kind);
+		} else {
+			Map<Integer, Long> other = getOtherStats();
+			synchronized (other) {
+				Long count = other.get(Integer.valueOf(kind));
+				other.put(Integer.valueOf(kind), Long.valueOf(count == null ? 1 : count.longValue() + 1));
+			}
 		}
-		stats.put(Integer.valueOf(info.getKind()), Long.valueOf(count.longValue() + 1));
 	}
 
 	/**
@@ -41,18 +57,31 @@ public class SyncInfoStatistics {
 	 * @param info the info type to remove
 	 */
 	public void remove(SyncInfo info) {
-		// update stats
-		Integer kind = Integer.valueOf(info.getKind());
-		Long count = stats.get(kind);
-		if(count == null) {
-			// error condition, shouldn't be removing if we haven't added yet
-			// programmer error calling remove before add.
+		int kind = info.getKind();
+		if ((kind & ~KIND_MASK) == 0) {
+			long count;
+			do {
+				count = stats.get(kind);
+				if (count <= 0) {
+					// error condition, shouldn't be removing if we haven't added yet
+					// programmer error calling remove before add.
+					return;
+				}
+			} while (!stats.compareAndSet(kind, count, count - 1));
 		} else {
-			long newCount = count.intValue() - 1;
-			if(newCount > 0) {
-				stats.put(kind, Long.valueOf(newCount));
-			} else {
-				stats.remove(kind);
+			Map<Integer, Long> other = otherStats;
+			if (other == null)
+				return;
+			synchronized (other) {
+				Long count = other.get(Integer.valueOf(kind));
+				if (count != null) {
+					long newCount = count.longValue() - 1;
+					if (newCount > 0) {
+						other.put(Integer.valueOf(kind), Long.valueOf(newCount));
+					} else {
+						other.remove(Integer.valueOf(kind));
+					}
+				}
 			}
 		}
 	}
@@ -68,20 +97,29 @@ public class SyncInfoStatistics {
 	 * @return the number of sync info types added for the specific kind
 	 */
 	public long countFor(int kind, int mask) {
-		if(mask == 0) {
-			Long count = stats.get(Integer.valueOf(kind));
-			return count == null ? 0 : count.longValue();
+		long count = 0;
+		if (mask == 0) {
+			if ((kind & ~KIND_MASK) == 0)
+				return stats.get(kind);
 		} else {
-			Iterator it = stats.keySet().iterator();
-			long count = 0;
-			while (it.hasNext()) {
-				Integer key = (Integer) it.next();
-				if((key.intValue() & mask) == kind) {
-					count += stats.get(key).intValue();
+			for (int i = 0; i < SLOTS; i++) {
+				if ((i & mask) == kind) {
+					count += stats.get(i);
+				}
+			}
+		}
+		Map<Integer, Long> other = otherStats;
+		if (other != null) {
+			synchronized (other) {
+				for (Map.Entry<Integer, Long> entry : other.entrySet()) {
+					int key = entry.getKey().intValue();
+					if ((mask == 0 && key == kind) || (mask != 0 && (key & mask) == kind)) {
+						count += entry.getValue().longValue();
+					}
 				}
 			}
-			return count;
 		}
+		return count;
 	}
 
 	/**
@@ -89,7 +127,10 @@ public class SyncInfoStatistics {
 	 * sync infos are added.
 	 */
 	public void clear() {
-		stats.clear();
+		for (int i = 0; i < SLOTS; i++) {
+			stats.set(i, 0);
+		}
+		otherStats = null;
 	}
 
 	/**
@@ -98,11 +139,34 @@ public class SyncInfoStatistics {
 	@Override
 	public String toString() {
 		StringBuilder out = new StringBuilder();
-		Iterator it = stats.keySet().iterator();
-		while (it.hasNext()) {
-			Integer kind = (Integer) it.next();
-			out.append(SyncInfo.kindToString(kind.intValue()) + ": " + stats.get(kind) + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		for (int i = 0; i < SLOTS; i++) {
+			long count = stats.get(i);
+			if (count > 0) {
+				out.append(SyncInfo.kindToString(i) + ": " + count + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		Map<Integer, Long> other = otherStats;
+		if (other != null) {
+			synchronized (other) {
+				for (Map.Entry<Integer, Long> entry : other.entrySet()) {
+					out.append(SyncInfo.kindToString(entry.getKey().intValue()) + ": " + entry.getValue() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
 		}
 		return out.toString();
 	}
+
+	private Map<Integer, Long> getOtherStats() {
+		Map<Integer, Long> other = otherStats;
+		if (other == null) {
+			synchronized (this) {
+				other = otherStats;
+				if (other == null) {
+					other = new HashMap<>();
+					otherStats = other;
+				}
+			}
+		}
+		return other;
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -265,4 +265,5 @@ public class CVSMessages extends NLS {
 	}
 
 	public static String CVSFileHistory_0;
+	public static String PersistentLogEntryCache_0;
 }
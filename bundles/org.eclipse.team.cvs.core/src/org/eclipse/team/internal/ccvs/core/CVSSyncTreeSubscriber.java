@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,6 +25,7 @@ import org.eclipse.team.core.synchronize.SyncInfo;
 import org.eclipse.team.core.variants.*;
 import org.eclipse.team.internal.ccvs.core.filehistory.CVSResourceVariantFileRevision;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
 import org.eclipse.team.internal.core.mapping.ResourceVariantFileRevision;
 import org.eclipse.team.internal.core.mapping.SyncInfoToDiffConverter;
 
@@ -73,8 +74,16 @@ public abstract class CVSSyncTreeSubscriber extends ResourceVariantTreeSubscribe
 	 */
 	public SyncInfo getSyncInfo(IResource resource) throws TeamException {
 		if (!isSupervised(resource)) return null;
-		if(resource.getType() == IResource.FILE || !isThreeWay()) {
+		if (!isThreeWay()) {
 			return super.getSyncInfo(resource);
+		} else if (resource.getType() == IResource.FILE) {
+			IResourceVariant remoteResource = getRemoteTree().getResourceVariant(resource);
+			IResourceVariant baseResource = getBaseTree().getResourceVariant(resource);
+			// Share a single handle when the remote is the unchanged base revision
+			if (isSameRevision(baseResource, remoteResource)) {
+				remoteResource = baseResource;
+			}
+			return getSyncInfo(resource, baseResource, remoteResource);
 		} else {
 			// In CVS, folders do not have a base. Hence, the remote is used as the base.
 			IResourceVariant remoteResource = getRemoteTree().getResourceVariant(resource);
@@ -82,6 +91,21 @@ public abstract class CVSSyncTreeSubscriber extends ResourceVariantTreeSubscribe
 		}
 	}
 	
+	/*
+	 * Return whether the given file variants have the same sync bytes and
+	 * the same parent folder sync bytes and can therefore be shared.
+	 */
+	private boolean isSameRevision(IResourceVariant base, IResourceVariant remote) {
+		if (!(base instanceof RemoteFile) || !(remote instanceof RemoteFile)) return false;
+		RemoteFile baseFile = (RemoteFile)base;
+		RemoteFile remoteFile = (RemoteFile)remote;
+		if (!Arrays.equals(baseFile.getSyncBytes(), remoteFile.getSyncBytes())) return false;
+		ICVSRemoteResource baseParent = baseFile.getRemoteParent();
+		ICVSRemoteResource remoteParent = remoteFile.getRemoteParent();
+		if (baseParent == null || remoteParent == null) return false;
+		return Arrays.equals(((IResourceVariant)baseParent).asBytes(), ((IResourceVariant)remoteParent).asBytes());
+	}
+	
 	/* (non-Javadoc)
 	 * @see org.eclipse.team.core.sync.ISyncTreeSubscriber#isSupervised(org.eclipse.core.resources.IResource)
 	 */
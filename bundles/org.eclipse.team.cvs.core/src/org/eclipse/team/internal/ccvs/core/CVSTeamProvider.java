@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -840,6 +840,8 @@ public class CVSTeamProvider extends RepositoryProvider {
 	
 	public void setWatchEditEnabled(boolean enabled) throws CVSException {
 		internalSetWatchEditEnabled(enabled ? Boolean.TRUE.toString() : Boolean.FALSE.toString());
+		// The setting is not a resource change so let listeners know the CVS state of the project changed
+		ResourceStateChangeListeners.getListener().resourceSyncInfoChanged(new IResource[] { getProject() });
 	}
 	
 	private void internalSetWatchEditEnabled(String enabled) throws CVSException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,7 @@ import org.eclipse.team.internal.ccvs.core.resources.EclipseSynchronizer;
 import org.eclipse.team.internal.ccvs.core.syncinfo.*;
 import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
 import org.eclipse.team.internal.core.subscribers.ActiveChangeSetManager;
+import org.eclipse.team.internal.core.subscribers.ParallelSyncInfoCollector;
 
 /**
  * CVSWorkspaceSubscriber
@@ -69,6 +70,11 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 		};
 		
 		ResourceStateChangeListeners.getListener().addResourceStateChangeListener(this); 
+		
+		// Changes to the sync info are reported so the state of folders can be aggregated for decoration
+		setStateIndexEnabled(true);
+		// The sync info is cached in memory and access to it is synchronized so it can be collected concurrently
+		setParallelCollectionEnabled(true);
 	}
 
 	/* 
@@ -173,46 +179,79 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 	 * @see org.eclipse.team.core.subscribers.Subscriber#collectOutOfSync(org.eclipse.core.resources.IResource[], int, org.eclipse.team.core.synchronize.SyncInfoSet, org.eclipse.core.runtime.IProgressMonitor)
 	 */
 	public void collectOutOfSync(IResource[] resources, int depth, final SyncInfoSet set, final IProgressMonitor monitor) {
+		if (isParallelCollectionEnabled() && !EclipseSynchronizer.getInstance().isLockedByCurrentThread()) {
+			collectConcurrently(resources, depth, set, monitor);
+			return;
+		}
 		monitor.beginTask(null, IProgressMonitor.UNKNOWN);
 		for (int i = 0; i < resources.length; i++) {
 			IResource resource = resources[i];
-			try {
-				if (!isSupervised(resource)) {
-					return;
-				}
-			} catch (TeamException e) {
-				// fallthrough and try to collect sync info
-				CVSProviderPlugin.log(e);
+			if (!isSupervisedRoot(resource)) {
+				return;
 			}
-			try {
-				visit(resource, new IResourceVisitor() {
-					public boolean visit(IResource innerResource) throws CoreException {
-						try {
-							Policy.checkCanceled(monitor);
-							if (innerResource.getType() != IResource.FILE) {
-								monitor.subTask(NLS.bind(CVSMessages.CVSWorkspaceSubscriber_1, new String[] { innerResource.getFullPath().toString() })); 
-							}
-							if (isOutOfSync(innerResource, monitor)) {
-								SyncInfo info = getSyncInfo(innerResource);
-								if (info != null && info.getKind() != 0) {
-									set.add(info);
-								}
+			collectOutOfSync(resource, depth, set, monitor);
+		}
+		monitor.done();
+	}
+	
+	/*
+	 * Collect the out-of-sync resources in several jobs. The collection stops at the
+	 * first resource that is not supervised, as it does when collecting sequentially.
+	 */
+	private void collectConcurrently(IResource[] resources, int depth, SyncInfoSet set, IProgressMonitor monitor) {
+		List roots = new ArrayList();
+		for (int i = 0; i < resources.length; i++) {
+			IResource resource = resources[i];
+			if (!isSupervisedRoot(resource)) {
+				break;
+			}
+			roots.add(resource);
+		}
+		new ParallelSyncInfoCollector(this) {
+			protected void collect(IResource resource, int collectDepth, SyncInfoSet collectSet, IProgressMonitor collectMonitor) {
+				CVSWorkspaceSubscriber.this.collectOutOfSync(resource, collectDepth, collectSet, collectMonitor);
+			}
+		}.collectOutOfSync((IResource[]) roots.toArray(new IResource[roots.size()]), depth, set, monitor);
+	}
+	
+	private boolean isSupervisedRoot(IResource resource) {
+		try {
+			return isSupervised(resource);
+		} catch (TeamException e) {
+			// fallthrough and try to collect sync info
+			CVSProviderPlugin.log(e);
+			return true;
+		}
+	}
+	
+	private void collectOutOfSync(IResource resource, int depth, final SyncInfoSet set, final IProgressMonitor monitor) {
+		try {
+			visit(resource, new IResourceVisitor() {
+				public boolean visit(IResource innerResource) throws CoreException {
+					try {
+						Policy.checkCanceled(monitor);
+						if (innerResource.getType() != IResource.FILE) {
+							monitor.subTask(NLS.bind(CVSMessages.CVSWorkspaceSubscriber_1, new String[] { innerResource.getFullPath().toString() })); 
+						}
+						if (isOutOfSync(innerResource, monitor)) {
+							SyncInfo info = getSyncInfo(innerResource);
+							if (info != null && info.getKind() != 0) {
+								set.add(info);
 							}
-						} catch (TeamException e) {
-							set.addError(new TeamStatus(
-									IStatus.ERROR, CVSProviderPlugin.ID, ITeamStatus.RESOURCE_SYNC_INFO_ERROR,
-									NLS.bind(CVSMessages.CVSWorkspaceSubscriber_2, new String[] { innerResource.getFullPath().toString(), e.getMessage() }), e, innerResource)); 
 						}
-						return true;
+					} catch (TeamException e) {
+						set.addError(new TeamStatus(
+								IStatus.ERROR, CVSProviderPlugin.ID, ITeamStatus.RESOURCE_SYNC_INFO_ERROR,
+								NLS.bind(CVSMessages.CVSWorkspaceSubscriber_2, new String[] { innerResource.getFullPath().toString(), e.getMessage() }), e, innerResource)); 
 					}
-				}, depth);
-			} catch (CoreException e) {
-				set.addError(new TeamStatus(
-						IStatus.ERROR, CVSProviderPlugin.ID, ITeamStatus.SYNC_INFO_SET_ERROR,
-						e.getMessage(), e, ResourcesPlugin.getWorkspace().getRoot()));
-			}
+					return true;
+				}
+			}, depth);
+		} catch (CoreException e) {
+			set.addError(new TeamStatus(
+					IStatus.ERROR, CVSProviderPlugin.ID, ITeamStatus.SYNC_INFO_SET_ERROR,
+					e.getMessage(), e, ResourcesPlugin.getWorkspace().getRoot()));
 		}
-		monitor.done();
 	}
 	
 	private void visit(IResource resource, IResourceVisitor visitor, int depth) throws CoreException {
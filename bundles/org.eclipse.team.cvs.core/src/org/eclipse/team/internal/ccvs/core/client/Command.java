@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,7 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.listeners.ICommandOutputListener;
+import org.eclipse.team.internal.ccvs.core.filesystem.RemoteListingCache;
 
 /**
  * Abstract base class for command requests.
@@ -331,6 +332,10 @@ public abstract class Command extends Request {
 				} catch (RuntimeException e) {
 					notifyConsoleOnCompletion(session, null, e);
 					throw e;
+				} finally {
+					// The command may have changed the repository even if it failed
+					if (isListingModification(session, gOptions))
+						RemoteListingCache.getCache().invalidate(session.getCVSRepositoryLocation());
 				}
 			}
 		};
@@ -354,6 +359,20 @@ public abstract class Command extends Request {
 		return true;
 	}
 
+	/**
+	 * Return whether this command may change the folders and files that
+	 * are listed for the repository. If <code>true</code> is returned,
+	 * the cached listings of the repository are discarded when the command
+	 * completes. By default, <code>false</code> is returned.
+	 * @param session the session the command was executed in
+	 * @param globalOptions the global options of the command
+	 * @return whether this command may change the remote listings
+	 * @see RemoteListingCache
+	 */
+	protected boolean isListingModification(Session session, GlobalOption[] globalOptions) {
+		return false;
+	}
+
 	private void notifyConsoleOnCompletion(Session session, IStatus status, Exception exception) {
 		ConsoleListeners.getInstance().commandCompleted(session, status, exception);
 		if (Policy.isDebugProtocol()) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,11 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.client;
 
+import java.util.Date;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSTag;
 import org.eclipse.team.internal.ccvs.core.ICVSResource;
 
 public class Log extends AbstractMessageCommand {
@@ -24,6 +27,16 @@ public class Log extends AbstractMessageCommand {
 	
 	public static final LocalOption NO_TAGS = new LocalOption("-N"); //$NON-NLS-1$
 	
+	/**
+	 * Return an option that only selects the revisions that were
+	 * committed after the given date.
+	 * @param date the date
+	 * @return the log option
+	 */
+	public static LocalOption makeCommittedAfterOption(Date date) {
+		return new LocalOption("-d", ">" + new CVSTag(date).getName()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+	
 	protected Log() { }
 	protected String getRequestId() {
 		return "log"; //$NON-NLS-1$
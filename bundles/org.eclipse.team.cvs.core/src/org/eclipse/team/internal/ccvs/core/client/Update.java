@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -62,6 +62,16 @@ public class Update extends Command {
 	protected String getRequestId() {
 		return "update"; //$NON-NLS-1$
 	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ccvs.core.client.Command#isListingModification(org.eclipse.team.internal.ccvs.core.client.Session, org.eclipse.team.internal.ccvs.core.client.Command.GlobalOption[])
+	 */
+	protected boolean isListingModification(Session session, GlobalOption[] globalOptions) {
+		// An update of the workspace shows the current state of the repository so
+		// listings fetched before it are fetched again. Remote folders and sandboxes
+		// are fetched with updates as well, which must not discard the listings.
+		return session.getLocalRoot().getIResource() != null && !DO_NOT_CHANGE.isElementOf(globalOptions);
+	}
 	
 	protected ICommandOutputListener getDefaultCommandOutputListener() {
 		return DEFAULT_OUTPUT_LISTENER;
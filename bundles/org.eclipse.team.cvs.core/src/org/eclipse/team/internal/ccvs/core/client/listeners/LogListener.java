@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,7 +22,6 @@ import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.CommandOutputListener;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
-import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 
 /**
@@ -39,6 +38,7 @@ public class LogListener extends CommandOutputListener {
     private static final Locale LOG_TIMESTAMP_LOCALE= Locale.US;
     private final DateFormat LOG_DATE_FORMATTER_OLD = new SimpleDateFormat(LOG_TIMESTAMP_FORMAT_OLD, LOG_TIMESTAMP_LOCALE);
     private final DateFormat LOG_DATE_FORMATTER = new SimpleDateFormat(LOG_TIMESTAMP_FORMAT, LOG_TIMESTAMP_LOCALE);
+    private final Calendar logCalendar = new GregorianCalendar(TimeZone.getTimeZone("GMT"), LOG_TIMESTAMP_LOCALE); //$NON-NLS-1$
     
     // Server message prefix used for error detection
     private static final String NOTHING_KNOWN_ABOUT = "nothing known about "; //$NON-NLS-1$
@@ -59,7 +59,7 @@ public class LogListener extends CommandOutputListener {
     // Instance variables for accumulating Log information
     private RemoteFile currentFile;
     private int state = BEGIN;
-    private StringBuffer comment;
+    private final StringBuffer comment = new StringBuffer();
     private String fileState;
     private String revision;
     private String author;
@@ -112,9 +112,13 @@ public class LogListener extends CommandOutputListener {
     public IStatus messageLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
     	// Fields we will find in the log for a file
     	// keys = String (tag name), values = String (tag revision number) */
+    	// The lines are dispatched on their first character so that the lines
+    	// of each revision are parsed without copying or matching them repeatedly
+    	int length = line.length();
+    	char first = length == 0 ? 0 : line.charAt(0);
     	switch (state) {
     		case BEGIN:
-    			if (line.startsWith("RCS file: ")) { //$NON-NLS-1$
+    			if (first == 'R' && line.startsWith("RCS file: ")) { //$NON-NLS-1$
     				// We are starting to recieve the log for a file
     				String fileName = getRelativeFilePath(location, line.substring(10).trim());
     				if (fileName == null) {
@@ -126,14 +130,16 @@ public class LogListener extends CommandOutputListener {
     			        	beginFile(location, fileName);
     			        }
     				}
-    			} else  if (line.startsWith("symbolic names:")) { //$NON-NLS-1$
+    			} else  if (first == 's' && line.startsWith("symbolic names:")) { //$NON-NLS-1$
     				state = SYMBOLIC_NAMES;
-    			} else if (line.startsWith("revision ")) { //$NON-NLS-1$
+    			} else if (first == 'r' && line.startsWith("revision ")) { //$NON-NLS-1$
     				// if the revision has been locked, remove the "locked by" suffix 
-    				revision = line.substring(9).replaceFirst(ResourceSyncInfo.LOCKEDBY_REGEX, ""); //$NON-NLS-1$
-    				revision = internAndCopyString(revision);
+    				int end = 9;
+    				while (end < length && !Character.isWhitespace(line.charAt(end)))
+    					end++;
+    				revision = line.substring(9, end);
     				state = REVISION;
-    			} else if (line.startsWith("total revisions:")){ //$NON-NLS-1$
+    			} else if (first == 't' && line.startsWith("total revisions:")){ //$NON-NLS-1$
     				//if there are no current revision selected and this is a branch then we are in the 
     				//case where there have been no changes made on the branch since the initial branching
     				//and we need to get the revision that the branch was made from
@@ -144,17 +150,19 @@ public class LogListener extends CommandOutputListener {
     					//ok put into comment state to await ======= and add info to log
     					state = COMMENT;
     					revision = BRANCH_REVISION;
-    					comment = new StringBuffer();
+    					comment.setLength(0);
     				}
     			}
     			break;
     		case SYMBOLIC_NAMES:
-    			if (line.startsWith("keyword substitution:")) { //$NON-NLS-1$
-    				state = BEGIN;
+    			if (first != '\t') {
+    				if (line.startsWith("keyword substitution:")) { //$NON-NLS-1$
+    					state = BEGIN;
+    				}
     			} else {
     				int firstColon = line.indexOf(':');
     				String tagName = internAndCopyString(line.substring(1, firstColon));
-    				String tagRevision = internAndCopyString(line.substring(firstColon + 2));
+    				String tagRevision = line.substring(firstColon + 2);
     				versions.add(new VersionInfo(tagRevision, tagName));
     			}
     			break;
@@ -162,86 +170,96 @@ public class LogListener extends CommandOutputListener {
     			// date: 2000/06/19 04:56:21;  author: somebody;  state: Exp;  lines: +114 -45
     			// get the creation date
     			int endOfDateIndex = line.indexOf(';', 6);
-    			creationDate = convertFromLogTime(line.substring(6, endOfDateIndex) + " GMT"); //$NON-NLS-1$
+    			creationDate = parseLogTime(line, 6, endOfDateIndex);
     
     			// get the author name
     			int endOfAuthorIndex = line.indexOf(';', endOfDateIndex + 1);
-    			author = internAndCopyString(line.substring(endOfDateIndex + 11, endOfAuthorIndex));
+    			author = internRegion(line, endOfDateIndex + 11, endOfAuthorIndex, author);
 
     			// get the file state (because this revision might be "dead")
-    			int endOfStateIndex = line.indexOf(';', endOfAuthorIndex + 1) < 0 ? line.length() : line.indexOf(';', endOfAuthorIndex + 1);
-    			fileState = internAndCopyString(line.substring(endOfAuthorIndex + 10, endOfStateIndex));
-    			comment = new StringBuffer();
+    			int endOfStateIndex = line.indexOf(';', endOfAuthorIndex + 1) < 0 ? length : line.indexOf(';', endOfAuthorIndex + 1);
+    			fileState = internRegion(line, endOfAuthorIndex + 10, endOfStateIndex, fileState);
+    			comment.setLength(0);
     			state = COMMENT;
     			break;
     		case COMMENT:
     			// skip next line (info about branches) if it exists, if not then it is a comment line.
-    			if (line.startsWith("branches:")) break; //$NON-NLS-1$
-    			if (line.equals("=============================================================================") //$NON-NLS-1$
-    				|| line.equals("----------------------------")) { //$NON-NLS-1$
+    			if (first == 'b' && line.startsWith("branches:")) break; //$NON-NLS-1$
+    			if ((first == '=' && line.equals("=============================================================================")) //$NON-NLS-1$
+    				|| (first == '-' && line.equals("----------------------------"))) { //$NON-NLS-1$
     				state = DONE;
     				break;
     			}
-    			//check for null if we are in the waiting to finish case (brought on by branches)
-    			if (comment == null)
-    				break; 
     			
     			if (comment.length() != 0) comment.append('\n');
     			comment.append(line);
     			break;
     	}
     	if (state == DONE) {
-    		// we are only interested in tag names for this revision, remove all others.
-    		List thisRevisionTags = versions.isEmpty() ? Collections.EMPTY_LIST : new ArrayList(3);
-    		List thisRevisionBranches = new ArrayList(1);
-    		//a parallel lists for revision tags (used only for branches with no commits on them)
-    		List revisionVersions = versions.isEmpty() ? Collections.EMPTY_LIST : new ArrayList(3);
-    		String branchRevision = this.getBranchRevision(revision);
-    		for (Iterator i = versions.iterator(); i.hasNext();) {
-    			VersionInfo version = (VersionInfo) i.next();
-    			String tagName = version.getTagName();
-    			String tagRevision = version.getTagRevision();
-    			String tagBranchRevision = version.getBranchRevision();
-				int type = version.isBranch() ? CVSTag.BRANCH : CVSTag.VERSION;
-				if ( branchRevision.equals(tagBranchRevision) || 
-						(version.isBranch() && revision.equals(tagRevision))) {
-    				CVSTag cvsTag = new CVSTag(tagName, tagBranchRevision, type);
-    				thisRevisionBranches.add(cvsTag);
-    			}
-    			
-				if (tagRevision.equals(revision) ||
-    				revision.equals(BRANCH_REVISION)) {
-    				CVSTag cvsTag = new CVSTag(tagName, tagBranchRevision, type);
-    				thisRevisionTags.add(cvsTag);
-    				if (revision.equals(BRANCH_REVISION)){
-    					//also record the tag revision
-    					revisionVersions.add(tagRevision);
-    				}
-    			}
-    		}
-    		
-    		if (branchRevision.equals(CVSTag.HEAD_REVISION)) {
-    			CVSTag tag = new CVSTag(CVSTag.HEAD_BRANCH, CVSTag.HEAD_REVISION, CVSTag.HEAD);
-				thisRevisionBranches.add(tag);
-    		} else {
-        		if ( thisRevisionBranches.size() == 0) {
-        			CVSTag cvsTag = new CVSTag(CVSTag.UNKNOWN_BRANCH, branchRevision, CVSTag.BRANCH);
-        			thisRevisionBranches.add(cvsTag);
-    			}			
-    		}
     		if (currentFile != null) {
-    			LogEntry entry = new LogEntry(currentFile, revision, author, creationDate,
-    				internString(comment.toString()), fileState, 
-    				!thisRevisionTags.isEmpty() ? (CVSTag[]) thisRevisionTags.toArray(new CVSTag[thisRevisionTags.size()]) :NO_TAGS, 
-    				!thisRevisionBranches.isEmpty() ? (CVSTag[]) thisRevisionBranches.toArray(new CVSTag[thisRevisionBranches.size()]) :NO_TAGS, 
-    					!revisionVersions.isEmpty() ? (String[]) revisionVersions.toArray(new String[revisionVersions.size()]) : NO_VERSIONS);
-    			addEntry(entry);
+    			addEntry(createEntry(revision, author, creationDate, internString(comment.toString()), fileState));
     		}
     		state = BEGIN;
     	}
     	return OK;
     }
 
+    /**
+     * Create the log entry for the given revision of the current file. The tags
+     * and branches of the entry are determined from the symbolic names that were
+     * received for the file.
+     * @param revision the revision
+     * @param author the author of the revision
+     * @param date the date of the revision
+     * @param comment the comment of the revision
+     * @param fileState the state of the revision
+     * @return the log entry
+     */
+    protected LogEntry createEntry(String revision, String author, Date date, String comment, String fileState) {
+		// we are only interested in tag names for this revision, remove all others.
+		List thisRevisionTags = versions.isEmpty() ? Collections.EMPTY_LIST : new ArrayList(3);
+		List thisRevisionBranches = new ArrayList(1);
+		//a parallel lists for revision tags (used only for branches with no commits on them)
+		List revisionVersions = versions.isEmpty() ? Collections.EMPTY_LIST : new ArrayList(3);
+		String branchRevision = this.getBranchRevision(revision);
+		for (Iterator i = versions.iterator(); i.hasNext();) {
+			VersionInfo version = (VersionInfo) i.next();
+			String tagName = version.getTagName();
+			String tagRevision = version.getTagRevision();
+			String tagBranchRevision = version.getBranchRevision();
+			int type = version.isBranch() ? CVSTag.BRANCH : CVSTag.VERSION;
+			if ( branchRevision.equals(tagBranchRevision) || 
+					(version.isBranch() && revision.equals(tagRevision))) {
+				CVSTag cvsTag = new CVSTag(tagName, tagBranchRevision, type);
+				thisRevisionBranches.add(cvsTag);
+			}
+			
+			if (tagRevision.equals(revision) ||
+				revision.equals(BRANCH_REVISION)) {
+				CVSTag cvsTag = new CVSTag(tagName, tagBranchRevision, type);
+				thisRevisionTags.add(cvsTag);
+				if (revision.equals(BRANCH_REVISION)){
+					//also record the tag revision
+					revisionVersions.add(tagRevision);
+				}
+			}
+		}
+		
+		if (branchRevision.equals(CVSTag.HEAD_REVISION)) {
+			CVSTag tag = new CVSTag(CVSTag.HEAD_BRANCH, CVSTag.HEAD_REVISION, CVSTag.HEAD);
+			thisRevisionBranches.add(tag);
+		} else {
+			if ( thisRevisionBranches.size() == 0) {
+				CVSTag cvsTag = new CVSTag(CVSTag.UNKNOWN_BRANCH, branchRevision, CVSTag.BRANCH);
+				thisRevisionBranches.add(cvsTag);
+			}			
+		}
+		return new LogEntry(currentFile, revision, author, date, comment, fileState, 
+			!thisRevisionTags.isEmpty() ? (CVSTag[]) thisRevisionTags.toArray(new CVSTag[thisRevisionTags.size()]) :NO_TAGS, 
+			!thisRevisionBranches.isEmpty() ? (CVSTag[]) thisRevisionBranches.toArray(new CVSTag[thisRevisionBranches.size()]) :NO_TAGS, 
+				!revisionVersions.isEmpty() ? (String[]) revisionVersions.toArray(new String[revisionVersions.size()]) : NO_VERSIONS);
+    }
+
     /**
      * Convert revision number to branch number.
      * 
@@ -285,6 +303,70 @@ public class LogListener extends CommandOutputListener {
         CVSProviderPlugin.log(IStatus.WARNING, "Invalid file path '" + badFilePath + "' received from " + location.toString(), null); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
+    /**
+     * Parses the time stamp between the given offsets of a "date:" line of the
+     * log without copying it. The time stamp has the form
+     * <code>yyyy/MM/dd HH:mm:ss</code> or <code>yyyy-MM-dd HH:mm:ss +hhmm</code>
+     * and is in GMT unless an offset is given. Other forms are left to the
+     * date formats.
+     */
+    private Date parseLogTime(String line, int start, int end) {
+    	int length = end - start;
+    	if ((length == 19 || length == 25) && line.charAt(start + 10) == ' ') {
+    		int year = parseDigits(line, start, 4);
+    		int month = parseDigits(line, start + 5, 2);
+    		int day = parseDigits(line, start + 8, 2);
+    		int hour = parseDigits(line, start + 11, 2);
+    		int minute = parseDigits(line, start + 14, 2);
+    		int second = parseDigits(line, start + 17, 2);
+    		int offset = 0;
+    		if (length == 25) {
+    			char sign = line.charAt(start + 20);
+    			int hours = parseDigits(line, start + 21, 2);
+    			int minutes = parseDigits(line, start + 23, 2);
+    			if ((sign == '+' || sign == '-') && hours >= 0 && minutes >= 0) {
+    				offset = (hours * 60 + minutes) * 60000;
+    				if (sign == '-')
+    					offset = -offset;
+    			} else {
+    				year = -1;
+    			}
+    		}
+    		if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+    			logCalendar.clear();
+    			logCalendar.set(year, month - 1, day, hour, minute, second);
+    			return new Date(logCalendar.getTimeInMillis() - offset);
+    		}
+    	}
+    	return convertFromLogTime(line.substring(start, end) + " GMT"); //$NON-NLS-1$
+    }
+
+    /*
+     * Return the value of the given number of decimal digits
+     * or -1 if there is a character that is not a digit.
+     */
+    private static int parseDigits(String line, int start, int count) {
+    	int value = 0;
+    	for (int i = start; i < start + count; i++) {
+    		char c = line.charAt(i);
+    		if (c < '0' || c > '9')
+    			return -1;
+    		value = value * 10 + (c - '0');
+    	}
+    	return value;
+    }
+
+    /*
+     * Return the interned string for the given region of the line. The
+     * previous value is returned without a copy if the region matches it.
+     */
+    private String internRegion(String line, int start, int end, String previous) {
+    	int length = end - start;
+    	if (previous != null && previous.length() == length && line.regionMatches(start, previous, 0, length))
+    		return previous;
+    	return internAndCopyString(line.substring(start, end));
+    }
+
     /**
      * Converts a time stamp as sent from a cvs server for a "log" command into a
      * <code>Date</code>.
@@ -0,0 +1,540 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.filehistory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogEntry;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
+
+/**
+ * A cache of the log entries of remote files that is persisted in the state
+ * location of the plug-in, one file per repository. The cache is updated when
+ * the full log of a file is fetched. Subsequent fetches only request the
+ * revisions that were committed after the last cached revision and merge
+ * them with the cached entries. The tags of the cached entries are updated
+ * from the symbolic names that are always sent by the server.
+ * <p>
+ * The entries of single revisions that are fetched with <code>rlog</code>
+ * are cached as well but are only returned without their tags, which may
+ * have changed since they were fetched. The number of files cached for a
+ * repository is bounded and the least recently used files are discarded.
+ * Modifications are written to disk shortly after they are made.
+ */
+public class PersistentLogEntryCache {
+
+	private static final String CACHE_DIRECTORY = ".logEntryCache"; //$NON-NLS-1$
+	private static final String CACHE_FILE_EXTENSION = ".log"; //$NON-NLS-1$
+	private static final int CACHE_FORMAT_VERSION = 2;
+
+	// The maximum number of files whose entries are cached for a repository
+	private static final int MAX_FILES = 2000;
+	// The delay (in milliseconds) after which modifications are written to disk
+	private static final long SAVE_DELAY = 60000;
+
+	// Overlap with the previous fetch so revisions committed within the same second are not missed
+	private static final long DATE_OVERLAP = 1000;
+
+	private static final CVSTag[] NO_TAGS = new CVSTag[0];
+	private static final String[] NO_REVISIONS = new String[0];
+
+	private static PersistentLogEntryCache instance;
+
+	/*
+	 * The cached information of a single revision
+	 */
+	private static class CachedEntry {
+		String revision;
+		String author;
+		long date;
+		String comment;
+		String state;
+		CVSTag[] tags;
+		CVSTag[] branches;
+		String[] revisions;
+
+		CachedEntry() {
+			// Used when the entry is read from disk
+		}
+
+		CachedEntry(ILogEntry entry) {
+			revision = entry.getRevision();
+			author = entry.getAuthor();
+			date = entry.getDate() == null ? -1 : entry.getDate().getTime();
+			comment = entry.getComment();
+			state = entry.getState();
+			tags = entry.getTags();
+			branches = entry.getBranches();
+			revisions = entry instanceof LogEntry ? ((LogEntry) entry).getBranchRevisions() : NO_REVISIONS;
+		}
+
+		Date getDate() {
+			return date == -1 ? null : new Date(date);
+		}
+
+		ILogEntry toLogEntry(RemoteFile file, boolean includeTags) {
+			if (!includeTags)
+				return new LogEntry(file, revision, author, getDate(), comment, state, NO_TAGS, NO_TAGS, revisions);
+			return new LogEntry(file, revision, author, getDate(), comment, state, tags, branches, revisions);
+		}
+	}
+
+	/*
+	 * The cached log entries of a file
+	 */
+	private static class FileLog {
+		// In the order received from the server
+		final List<CachedEntry> entries;
+		// Whether the entries are the full log of the file or single revisions
+		final boolean complete;
+
+		FileLog(List<CachedEntry> entries, boolean complete) {
+			this.entries = entries;
+			this.complete = complete;
+		}
+	}
+
+	/*
+	 * Map of the file logs that discards the least recently used file once
+	 * the maximum number of files is exceeded
+	 */
+	private static class FileLogMap extends LinkedHashMap<String, FileLog> {
+		private static final long serialVersionUID = 1L;
+
+		FileLogMap() {
+			super(16, 0.75f, true /* access order */);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, FileLog> eldest) {
+			return size() > MAX_FILES;
+		}
+	}
+
+	/*
+	 * The cached log entries of the files of a repository
+	 */
+	private static class RepositoryLog {
+		final String location;
+		// {String path -> FileLog}
+		final Map<String, FileLog> files = new FileLogMap();
+		boolean dirty;
+
+		RepositoryLog(String location) {
+			this.location = location;
+		}
+	}
+
+	/**
+	 * A log listener that updates the cache with the log of a single file.
+	 * The listener must be passed to the <code>log</code> command of the file
+	 * and {@link #commit()} must be invoked once the command has completed.
+	 */
+	public class CacheUpdater extends LogListener {
+		private final RemoteFile file;
+		private final boolean incremental;
+		private final List<ILogEntry> received = new ArrayList<>();
+		private boolean fileReceived;
+
+		CacheUpdater(RemoteFile file, boolean incremental) {
+			super(file, null);
+			this.file = file;
+			this.incremental = incremental;
+		}
+
+		@Override
+		public IStatus messageLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
+			if (line.startsWith("RCS file: ")) //$NON-NLS-1$
+				fileReceived = true;
+			return super.messageLine(line, location, commandRoot, monitor);
+		}
+
+		@Override
+		protected void addEntry(LogEntry entry) {
+			if (entry.getRemoteFile().getRepositoryRelativePath().equals(file.getRepositoryRelativePath())) {
+				// No revisions were committed since the last fetch
+				if (incremental && entry.getRevision().equals(BRANCH_REVISION))
+					return;
+				received.add(entry);
+			}
+		}
+
+		/**
+		 * Merge the received entries with the cached entries of the file
+		 * and update the cache.
+		 * @return all the log entries of the file
+		 */
+		public ILogEntry[] commit() {
+			if (!fileReceived)
+				return received.toArray(new ILogEntry[received.size()]);
+			List<ILogEntry> result = new ArrayList<>(received);
+			synchronized (PersistentLogEntryCache.this) {
+				RepositoryLog log = getRepositoryLog(file.getRepository());
+				if (incremental) {
+					FileLog cached = log.files.get(file.getRepositoryRelativePath());
+					if (cached != null) {
+						Set<String> receivedRevisions = new HashSet<>();
+						for (ILogEntry entry : received)
+							receivedRevisions.add(entry.getRevision());
+						for (CachedEntry entry : cached.entries) {
+							if (!receivedRevisions.contains(entry.revision)) {
+								// Recreate the entry so that its tags reflect the received symbolic names
+								result.add(createEntry(entry.revision, entry.author, entry.getDate(), entry.comment, entry.state));
+							}
+						}
+					}
+				}
+				List<CachedEntry> entries = new ArrayList<>(result.size());
+				for (ILogEntry entry : result) {
+					if (!entry.getRevision().equals(BRANCH_REVISION))
+						entries.add(new CachedEntry(entry));
+				}
+				log.files.put(file.getRepositoryRelativePath(), new FileLog(entries, true));
+				markDirty(log);
+			}
+			return result.toArray(new ILogEntry[result.size()]);
+		}
+	}
+
+	// {String location -> RepositoryLog} the repositories whose cache has been loaded
+	private final Map<String, RepositoryLog> repositories = new HashMap<>();
+
+	private final Job saveJob = new Job(CVSMessages.PersistentLogEntryCache_0) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			save();
+			return Status.OK_STATUS;
+		}
+	};
+
+	private PersistentLogEntryCache() {
+		saveJob.setSystem(true);
+	}
+
+	/**
+	 * Return the log entry cache.
+	 * @return the log entry cache
+	 */
+	public static synchronized PersistentLogEntryCache getCache() {
+		if (instance == null)
+			instance = new PersistentLogEntryCache();
+		return instance;
+	}
+
+	/**
+	 * Save the modified caches. This is invoked when the plug-in is stopped.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			instance.saveJob.cancel();
+			instance.save();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Create a listener that updates the cache with the entries received
+	 * from the <code>log</code> command of the given file.
+	 * @param file the remote file
+	 * @param incremental whether only the revisions committed after
+	 * {@link #getLastRevisionDate(RemoteFile)} are fetched
+	 * @return the listener
+	 */
+	public CacheUpdater createUpdater(RemoteFile file, boolean incremental) {
+		return new CacheUpdater(file, incremental);
+	}
+
+	/**
+	 * Return the date after which revisions of the given file must be fetched
+	 * to update the cache or <code>null</code> if the log of the file is not cached.
+	 * @param file the remote file
+	 * @return the date after which revisions must be fetched or <code>null</code>
+	 */
+	public synchronized Date getLastRevisionDate(RemoteFile file) {
+		FileLog fileLog = getRepositoryLog(file.getRepository()).files.get(file.getRepositoryRelativePath());
+		if (fileLog == null || !fileLog.complete || fileLog.entries.isEmpty())
+			return null;
+		long last = -1;
+		for (CachedEntry entry : fileLog.entries) {
+			if (entry.date == -1)
+				return null;
+			last = Math.max(last, entry.date);
+		}
+		return new Date(last - DATE_OVERLAP);
+	}
+
+	/**
+	 * Return the cached log entry of the revision of the given file
+	 * or <code>null</code> if the revision is not cached. The entry has
+	 * no tags since tags may have been added or moved since the entry was
+	 * fetched. It must only be used where the tags are not required.
+	 * @param file the remote file
+	 * @return the cached log entry without tags or <code>null</code>
+	 */
+	public synchronized ILogEntry getLogEntry(RemoteFile file) {
+		FileLog fileLog = getRepositoryLog(file.getRepository()).files.get(file.getRepositoryRelativePath());
+		if (fileLog != null) {
+			String revision = file.getRevision();
+			for (CachedEntry entry : fileLog.entries) {
+				if (entry.revision.equals(revision))
+					return entry.toLogEntry(file, false);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Record the log entry of a single revision of the given file. The entry
+	 * is ignored if the full log of the file is cached since that log is only
+	 * updated with the revisions committed after its last revision.
+	 * @param file the remote file
+	 * @param entry the log entry of the revision of the file
+	 */
+	public synchronized void addLogEntry(RemoteFile file, ILogEntry entry) {
+		RepositoryLog log = getRepositoryLog(file.getRepository());
+		String path = file.getRepositoryRelativePath();
+		FileLog fileLog = log.files.get(path);
+		if (fileLog == null) {
+			fileLog = new FileLog(new ArrayList<CachedEntry>(), false);
+			log.files.put(path, fileLog);
+		} else if (fileLog.complete) {
+			return;
+		}
+		for (Iterator<CachedEntry> iter = fileLog.entries.iterator(); iter.hasNext();) {
+			if (iter.next().revision.equals(entry.getRevision()))
+				iter.remove();
+		}
+		fileLog.entries.add(new CachedEntry(entry));
+		markDirty(log);
+	}
+
+	/**
+	 * Remove the single revision entries that were recorded for the given
+	 * file using {@link #addLogEntry(RemoteFile, ILogEntry)}. The full log
+	 * of the file is kept since it is brought up-to-date when it is fetched.
+	 * @param file the remote file
+	 */
+	public synchronized void invalidate(RemoteFile file) {
+		RepositoryLog log = getRepositoryLog(file.getRepository());
+		String path = file.getRepositoryRelativePath();
+		FileLog fileLog = log.files.get(path);
+		if (fileLog != null && !fileLog.complete) {
+			log.files.remove(path);
+			markDirty(log);
+		}
+	}
+
+	/**
+	 * Return the cached log entries of the given file or <code>null</code>
+	 * if the log of the file is not cached.
+	 * @param file the remote file
+	 * @return the cached log entries or <code>null</code>
+	 */
+	public synchronized ILogEntry[] getLogEntries(RemoteFile file) {
+		FileLog fileLog = getRepositoryLog(file.getRepository()).files.get(file.getRepositoryRelativePath());
+		if (fileLog == null || !fileLog.complete)
+			return null;
+		ILogEntry[] result = new ILogEntry[fileLog.entries.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = fileLog.entries.get(i).toLogEntry(file, true);
+		}
+		return result;
+	}
+
+	/**
+	 * Remove the cached entries of the given repository.
+	 * @param location the repository location
+	 */
+	public synchronized void clear(ICVSRepositoryLocation location) {
+		String key = location.getLocation(false);
+		repositories.remove(key);
+		getCacheFile(key).delete();
+	}
+
+	/**
+	 * Write the modified caches to disk.
+	 */
+	public synchronized void save() {
+		for (RepositoryLog log : repositories.values()) {
+			if (log.dirty) {
+				save(log);
+				log.dirty = false;
+			}
+		}
+	}
+
+	/*
+	 * Mark the log as modified and schedule it to be written to disk
+	 */
+	private void markDirty(RepositoryLog log) {
+		log.dirty = true;
+		if (saveJob.getState() == Job.NONE)
+			saveJob.schedule(SAVE_DELAY);
+	}
+
+	private RepositoryLog getRepositoryLog(ICVSRepositoryLocation location) {
+		String key = location.getLocation(false);
+		RepositoryLog log = repositories.get(key);
+		if (log == null) {
+			log = load(key);
+			repositories.put(key, log);
+		}
+		return log;
+	}
+
+	private File getCacheFile(String location) {
+		String name = Integer.toHexString(location.hashCode()) + CACHE_FILE_EXTENSION;
+		return CVSProviderPlugin.getPlugin().getStateLocation().append(CACHE_DIRECTORY).append(name).toFile();
+	}
+
+	private RepositoryLog load(String location) {
+		RepositoryLog log = new RepositoryLog(location);
+		File file = getCacheFile(location);
+		if (!file.exists())
+			return log;
+		try {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				// Locations with the same hash code share a file
+				if (input.readInt() != CACHE_FORMAT_VERSION || !location.equals(readString(input)))
+					return log;
+				int fileCount = input.readInt();
+				for (int i = 0; i < fileCount; i++) {
+					String path = readString(input);
+					boolean complete = input.readBoolean();
+					int entryCount = input.readInt();
+					List<CachedEntry> entries = new ArrayList<>(entryCount);
+					for (int j = 0; j < entryCount; j++) {
+						entries.add(readEntry(input));
+					}
+					log.files.put(path, new FileLog(entries, complete));
+				}
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			CVSProviderPlugin.log(IStatus.ERROR, e.getMessage(), e);
+			log.files.clear();
+			file.delete();
+		}
+		return log;
+	}
+
+	private void save(RepositoryLog log) {
+		File file = getCacheFile(log.location);
+		File parent = file.getParentFile();
+		if (!parent.exists() && !parent.mkdirs())
+			return;
+		try {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				output.writeInt(CACHE_FORMAT_VERSION);
+				writeString(output, log.location);
+				output.writeInt(log.files.size());
+				for (Map.Entry<String, FileLog> entry : log.files.entrySet()) {
+					writeString(output, entry.getKey());
+					FileLog fileLog = entry.getValue();
+					output.writeBoolean(fileLog.complete);
+					output.writeInt(fileLog.entries.size());
+					for (CachedEntry cached : fileLog.entries) {
+						writeEntry(output, cached);
+					}
+				}
+			} finally {
+				output.close();
+			}
+		} catch (IOException e) {
+			CVSProviderPlugin.log(IStatus.ERROR, e.getMessage(), e);
+			file.delete();
+		}
+	}
+
+	private CachedEntry readEntry(DataInputStream input) throws IOException {
+		CachedEntry entry = new CachedEntry();
+		entry.revision = readString(input);
+		entry.author = readString(input);
+		entry.date = input.readLong();
+		entry.comment = readString(input);
+		entry.state = readString(input);
+		entry.tags = readTags(input);
+		entry.branches = readTags(input);
+		int count = input.readInt();
+		entry.revisions = count == 0 ? NO_REVISIONS : new String[count];
+		for (int i = 0; i < count; i++) {
+			entry.revisions[i] = readString(input);
+		}
+		return entry;
+	}
+
+	private void writeEntry(DataOutputStream output, CachedEntry entry) throws IOException {
+		writeString(output, entry.revision);
+		writeString(output, entry.author);
+		output.writeLong(entry.date);
+		writeString(output, entry.comment);
+		writeString(output, entry.state);
+		writeTags(output, entry.tags);
+		writeTags(output, entry.branches);
+		output.writeInt(entry.revisions.length);
+		for (int i = 0; i < entry.revisions.length; i++) {
+			writeString(output, entry.revisions[i]);
+		}
+	}
+
+	private CVSTag[] readTags(DataInputStream input) throws IOException {
+		int count = input.readInt();
+		if (count == 0)
+			return NO_TAGS;
+		CVSTag[] tags = new CVSTag[count];
+		for (int i = 0; i < count; i++) {
+			String name = readString(input);
+			String branchRevision = readString(input);
+			tags[i] = new CVSTag(name, branchRevision, input.readInt());
+		}
+		return tags;
+	}
+
+	private void writeTags(DataOutputStream output, CVSTag[] tags) throws IOException {
+		output.writeInt(tags.length);
+		for (int i = 0; i < tags.length; i++) {
+			writeString(output, tags[i].getName());
+			writeString(output, tags[i].getBranchRevision());
+			output.writeInt(tags[i].getType());
+		}
+	}
+
+	/*
+	 * Comments can exceed the limits of writeUTF so strings are stored as raw bytes
+	 */
+	private String readString(DataInputStream input) throws IOException {
+		int length = input.readInt();
+		if (length == -1)
+			return null;
+		byte[] bytes = new byte[length];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private void writeString(DataOutputStream output, String string) throws IOException {
+		if (string == null) {
+			output.writeInt(-1);
+			return;
+		}
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+}
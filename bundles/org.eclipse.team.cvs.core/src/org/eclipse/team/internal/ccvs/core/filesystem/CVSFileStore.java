@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -55,13 +55,17 @@ public class CVSFileStore extends FileStore {
 		if (info != null && !info.isDirectory()) {
 			return new IFileInfo[0];
 		}
-		ICVSRemoteFolder folder = uri.toFolder();
-		ICVSResource[] children = folder.fetchChildren(monitor);
+		RemoteListingCache cache = RemoteListingCache.getCache();
+		ICVSResource[] children = cache.getChildren(uri, monitor);
 		
 		IFileInfo[] childInfos = new IFileInfo[children.length];
 		for (int i = 0; i < children.length; i++) {
 			ICVSResource child = children[i];
-			IFileInfo info = getFileInfo(child, monitor);
+			IFileInfo info = cache.getFileInfo(uri, child.getName());
+			if (info == null) {
+				info = getFileInfo(child, monitor);
+				cache.setFileInfo(uri, info);
+			}
 			childInfos[i] = info;
 		}
 		return childInfos;
@@ -88,25 +92,25 @@ public class CVSFileStore extends FileStore {
 			ICVSRemoteFile file = uri.toFile();
 			return getFileInfo(file, monitor);
 		}
-		ICVSRemoteFolder folder = uri.getParentFolder();
-		
-		if (folder == null) {
+		if (uri.isRepositoryRoot()) {
 			// this is the repo root so return an info that indicates this
 			FileInfo info = new FileInfo();
 			info.setExists(true);
 			info.setName(uri.getRepositoryName());
 			info.setDirectory(true);
+			return info;
 		}
-		ICVSResource[] children = folder.fetchChildren(monitor);
-		ICVSResource resource = null;
-		for (int i = 0; i < children.length; i++) {
-			ICVSResource child = children[i];
-			if (child.getName().equals(getName())) {
-				resource = child;
-				break;
-			}
+		// Answer the info from the listing of the parent which is shared by all siblings
+		CVSURI parent = uri.removeLastSegment();
+		RemoteListingCache cache = RemoteListingCache.getCache();
+		IFileInfo info = cache.getFileInfo(parent, getName());
+		if (info == null) {
+			ICVSResource[] children = cache.getChildren(parent, monitor);
+			info = getFileInfo(RemoteListingCache.findChild(children, getName()), monitor);
+			if (info != null)
+				cache.setFileInfo(parent, info);
 		}
-		return getFileInfo(resource, monitor);
+		return info;
 	}
 
 	private boolean isStickyRevision() {
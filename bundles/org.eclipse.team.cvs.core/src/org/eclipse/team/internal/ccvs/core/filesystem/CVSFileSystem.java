@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -58,6 +58,8 @@ public class CVSFileSystem extends FileSystem {
 		
 		//Make sure that we're building the tree from the topmost level - keep cycling until you hit null
 		ICVSRemoteFolder folder = cvsURI.getProjectURI().toFolder();
+		// The tree is fetched from the server so discard any stale listings
+		RemoteListingCache.getCache().invalidate(cvsURI.getProjectURI());
 		
 		try {
 			RemoteLogger logger = new RemoteLogger(folder);
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.filesystem;
+
+import java.util.*;
+
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.internal.ccvs.core.*;
+
+/**
+ * Caches the children of remote folders that were fetched by the
+ * {@link CVSFileStore} so that browsing a remote module does not fetch
+ * the same listing for each of its members. Listings expire after a
+ * configurable time to live and can be invalidated explicitly. The listings
+ * of a repository are invalidated by the commands that change what is
+ * listed for it (see <code>Command#isListingModification(Session, GlobalOption[])</code>).
+ * <p>
+ * The time to live in milliseconds can be set with the
+ * <code>org.eclipse.team.cvs.core.listingCacheTimeToLive</code>
+ * system property or with {@link #setTimeToLive(long)}.
+ */
+public class RemoteListingCache {
+
+	private static final String TIME_TO_LIVE_PROPERTY = "org.eclipse.team.cvs.core.listingCacheTimeToLive"; //$NON-NLS-1$
+	private static final long DEFAULT_TIME_TO_LIVE = 30000;
+
+	// The maximum number of folder listings that are cached
+	private static final int MAX_LISTINGS = 1000;
+
+	private static RemoteListingCache instance;
+
+	/*
+	 * Identifies a folder of a repository for a given tag
+	 */
+	private static class Key {
+		final String location;
+		final IPath path;
+		final String tag;
+
+		Key(CVSURI uri) {
+			location = uri.getRepository().getLocation(false);
+			path = uri.getPath().makeRelative();
+			CVSTag cvsTag = uri.getTag();
+			tag = cvsTag == null ? null : cvsTag.getType() + ":" + cvsTag.getName(); //$NON-NLS-1$
+		}
+
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return location.equals(other.location) && path.equals(other.path)
+					&& (tag == null ? other.tag == null : tag.equals(other.tag));
+		}
+
+		public int hashCode() {
+			return location.hashCode() ^ path.hashCode();
+		}
+	}
+
+	/*
+	 * The fetched children of a folder and the file infos
+	 * that were created for them
+	 */
+	private static class Listing {
+		final long timestamp;
+		final ICVSResource[] children;
+		final Map infos = new HashMap(); // {String name -> IFileInfo}
+
+		Listing(ICVSResource[] children, long timestamp) {
+			this.children = children;
+			this.timestamp = timestamp;
+		}
+	}
+
+	private final Map listings = new LinkedHashMap(16, 0.75f, true) { // {Key -> Listing}
+		private static final long serialVersionUID = 1L;
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_LISTINGS;
+		}
+	};
+
+	private long timeToLive = Long.getLong(TIME_TO_LIVE_PROPERTY, DEFAULT_TIME_TO_LIVE).longValue();
+
+	/**
+	 * Return the listing cache.
+	 * @return the listing cache
+	 */
+	public static synchronized RemoteListingCache getCache() {
+		if (instance == null)
+			instance = new RemoteListingCache();
+		return instance;
+	}
+
+	/**
+	 * Return the children of the folder with the given URI, fetching
+	 * them from the server if they are not cached or have expired.
+	 * @param uri the folder URI
+	 * @param monitor a progress monitor
+	 * @return the children of the folder
+	 * @throws CVSException if the children could not be fetched
+	 */
+	public ICVSResource[] getChildren(CVSURI uri, IProgressMonitor monitor) throws CVSException {
+		Listing listing = getListing(uri);
+		if (listing != null)
+			return listing.children;
+		long timestamp = System.currentTimeMillis();
+		ICVSResource[] children = uri.toFolder().fetchChildren(monitor);
+		synchronized (this) {
+			listings.put(new Key(uri), new Listing(children, timestamp));
+		}
+		return children;
+	}
+
+	/**
+	 * Return the cached file info of the given child of the folder
+	 * or <code>null</code> if no info is cached.
+	 * @param uri the folder URI
+	 * @param name the name of the child
+	 * @return the cached file info or <code>null</code>
+	 */
+	public synchronized IFileInfo getFileInfo(CVSURI uri, String name) {
+		Listing listing = getListing(uri);
+		if (listing == null)
+			return null;
+		return (IFileInfo) listing.infos.get(name);
+	}
+
+	/**
+	 * Cache the file info of the given child of the folder. The info
+	 * expires with the listing of the folder.
+	 * @param uri the folder URI
+	 * @param info the file info of the child
+	 */
+	public synchronized void setFileInfo(CVSURI uri, IFileInfo info) {
+		Listing listing = getListing(uri);
+		if (listing != null)
+			listing.infos.put(info.getName(), info);
+	}
+
+	/**
+	 * Remove the cached listings of the folder with the given URI
+	 * and of all its descendants.
+	 * @param uri the folder URI
+	 */
+	public synchronized void invalidate(CVSURI uri) {
+		Key root = new Key(uri);
+		for (Iterator iter = listings.keySet().iterator(); iter.hasNext();) {
+			Key key = (Key) iter.next();
+			if (key.location.equals(root.location) && root.path.isPrefixOf(key.path))
+				iter.remove();
+		}
+	}
+
+	/**
+	 * Remove the cached listings of all the folders of the given repository.
+	 * @param location the repository location
+	 */
+	public synchronized void invalidate(ICVSRepositoryLocation location) {
+		String locationString = location.getLocation(false);
+		for (Iterator iter = listings.keySet().iterator(); iter.hasNext();) {
+			Key key = (Key) iter.next();
+			if (key.location.equals(locationString))
+				iter.remove();
+		}
+	}
+
+	/**
+	 * Remove all cached listings.
+	 */
+	public synchronized void invalidateAll() {
+		listings.clear();
+	}
+
+	/**
+	 * Set the time in milliseconds for which fetched listings are used.
+	 * A value of zero disables the cache.
+	 * @param timeToLive the time to live in milliseconds
+	 */
+	public synchronized void setTimeToLive(long timeToLive) {
+		this.timeToLive = timeToLive;
+		if (timeToLive <= 0)
+			listings.clear();
+	}
+
+	/**
+	 * Return the time in milliseconds for which fetched listings are used.
+	 * @return the time to live in milliseconds
+	 */
+	public synchronized long getTimeToLive() {
+		return timeToLive;
+	}
+
+	private synchronized Listing getListing(CVSURI uri) {
+		Key key = new Key(uri);
+		Listing listing = (Listing) listings.get(key);
+		if (listing != null && System.currentTimeMillis() - listing.timestamp >= timeToLive) {
+			listings.remove(key);
+			return null;
+		}
+		return listing;
+	}
+
+	/*
+	 * Return the child with the given name or null if there is no such child.
+	 */
+	static ICVSResource findChild(ICVSResource[] children, String name) {
+		for (int i = 0; i < children.length; i++) {
+			if (children[i].getName().equals(name))
+				return children[i];
+		}
+		return null;
+	}
+
+}
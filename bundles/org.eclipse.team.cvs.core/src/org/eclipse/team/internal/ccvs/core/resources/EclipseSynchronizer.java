@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -549,6 +549,16 @@ public class EclipseSynchronizer implements IFlushOperation {
 		lock.acquire();
 	}
 	
+	/**
+	 * Return whether the current thread is accessing the internal data structures
+	 * of the synchronizer. Other threads that access the synchronizer block until
+	 * the access ends.
+	 * @return whether the synchronizer is locked by the current thread
+	 */
+	public boolean isLockedByCurrentThread() {
+		return lock.getDepth() > 0;
+	}
+	
 	/*
 	 * End an access to the internal data structures of the synchronizer
 	 */
@@ -1493,29 +1503,28 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			beginOperation();
 			
+			IContainer parent = resource.getParent();
 			if (getSyncInfoCacheFor(resource).cachesDirtyState()) {
 				if (indicator == getDirtyIndicator(resource)) {
 					return;
 				}
 				getSyncInfoCacheFor(resource).setDirtyIndicator(resource, indicator);	
-			} 					
+			} else if (!resource.exists()) {
+				// The resource may have been counted as a dirty child of its parent before it was deleted
+				sessionPropertyCache.resetDirtyCount(parent);
+			}
 			
 			if (Policy.DEBUG_DIRTY_CACHING) {
 				debug(resource, indicator, "adjusting dirty state"); //$NON-NLS-1$
 			}									
 
-			IContainer parent = resource.getParent();
-			if(indicator == NOT_DIRTY_INDICATOR) {
+			// The parent remains dirty as long as another child is known to be dirty.
+			// Otherwise, its state is recomputed when it is next needed.
+			if(indicator == IS_DIRTY_INDICATOR || sessionPropertyCache.getDirtyCount(parent) > 0) {
+				adjustDirtyStateRecursively(parent, IS_DIRTY_INDICATOR);
+			} else {
 				adjustDirtyStateRecursively(parent, RECOMPUTE_INDICATOR);
 			}
-			
-			if(indicator == RECOMPUTE_INDICATOR) {
-				adjustDirtyStateRecursively(parent, RECOMPUTE_INDICATOR);
-			} 
-			
-			if(indicator == IS_DIRTY_INDICATOR) {
-				adjustDirtyStateRecursively(parent, indicator);
-			} 
 		} finally {
 			endOperation();
 		}
@@ -1593,6 +1602,10 @@ public class EclipseSynchronizer implements IFlushOperation {
 			debug(resource, indicator, "getModificationState"); //$NON-NLS-1$
 		}
 		if (indicator == null || indicator == RECOMPUTE_INDICATOR) {
+			// A folder with a child that is known to be dirty is dirty
+			if (resource.getType() != IResource.FILE && sessionPropertyCache.getDirtyCount((IContainer)resource) > 0) {
+				return ICVSFile.DIRTY;
+			}
 			return ICVSFile.UNKNOWN;
 		} else if (indicator == IS_DIRTY_INDICATOR) {
 			return ICVSFile.DIRTY;
@@ -1748,6 +1761,10 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			beginOperation();
 			IContainer folder = (IContainer)cvsFolder.getIResource();
+			if (modified && sessionPropertyCache.getDirtyCount(folder) > 0) {
+				setDirtyIndicator(folder, modified);
+				return;
+			}
 			// The drop out condition for clean or dirty are the opposite.
 			// (i.e. if modified and a dirty is found we can set the indicator
 			// and if not modified and a dirty or unknown is found we cannot set the indicator)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,6 +29,7 @@ import org.eclipse.team.internal.ccvs.core.client.listeners.ILogEntryListener;
 import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
 import org.eclipse.team.internal.ccvs.core.connection.CVSServerException;
 import org.eclipse.team.internal.ccvs.core.filehistory.CVSResourceVariantFileRevision;
+import org.eclipse.team.internal.ccvs.core.filehistory.PersistentLogEntryCache;
 import org.eclipse.team.internal.ccvs.core.filesystem.CVSURI;
 import org.eclipse.team.internal.ccvs.core.syncinfo.*;
 
@@ -275,6 +276,9 @@ public class RemoteFile extends RemoteResource implements ICVSRemoteFile  {
 	}
 	
 	/**
+	 * Return the log entries of the file. The entries are cached persistently
+	 * so that only the revisions committed since the entries were last
+	 * fetched are requested from the server.
 	 * @see ICVSRemoteFile#getLogEntries()
 	 */
 	@Override
@@ -287,16 +291,21 @@ public class RemoteFile extends RemoteResource implements ICVSRemoteFile  {
 			QuietOption quietness = CVSProviderPlugin.getPlugin().getQuietness();
 			try {
 				CVSProviderPlugin.getPlugin().setQuietness(Command.VERBOSE);
-				LogEntryListener listener = new LogEntryListener();  
+				PersistentLogEntryCache cache = PersistentLogEntryCache.getCache();
+				Date lastRevisionDate = cache.getLastRevisionDate(this);
+				LocalOption[] options = lastRevisionDate == null 
+					? Command.NO_LOCAL_OPTIONS 
+					: new LocalOption[] { Log.makeCommittedAfterOption(lastRevisionDate) };
+				PersistentLogEntryCache.CacheUpdater listener = cache.createUpdater(this, lastRevisionDate != null);
 				IStatus status = Command.LOG.execute(
 					session,
-					Command.NO_GLOBAL_OPTIONS, Command.NO_LOCAL_OPTIONS,
-					new ICVSResource[] { RemoteFile.this }, new LogListener(RemoteFile.this, listener),
+					Command.NO_GLOBAL_OPTIONS, options,
+					new ICVSResource[] { RemoteFile.this }, listener,
 					Policy.subMonitorFor(monitor, 90));
 				if (status.getCode() == CVSStatus.SERVER_ERROR) {
 					throw new CVSServerException(status);
 				}
-				return listener.getEntries();
+				return listener.commit();
 			} finally {
 				CVSProviderPlugin.getPlugin().setQuietness(quietness);
 				monitor.done();
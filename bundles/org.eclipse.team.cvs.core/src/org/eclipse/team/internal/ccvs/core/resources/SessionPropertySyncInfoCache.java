@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,7 +28,9 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
  * This cache uses session properties to hold the bytes representing the sync
  * info. In addition when the workbench closes or a project is closed, the dirty 
  * state for all cvs managed folders are persisted using the resource's plugin
- * synchronizer.
+ * synchronizer. Each folder also records the number of its children that are
+ * known to be dirty so that cleaning a child does not invalidate the dirty state
+ * of the folder and its ancestors while other children remain dirty.
  */
 /*package*/ class SessionPropertySyncInfoCache extends SyncInfoCache implements ISaveParticipant {
 	
@@ -39,6 +41,9 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 	/*package*/ static final FileNameMatcher NULL_IGNORES = new FileNameMatcher();
 	private static final FolderSyncInfo NULL_FOLDER_SYNC_INFO = new FolderSyncInfo("dummy-repo", "dummy-root", null, false); //$NON-NLS-1$ //$NON-NLS-2$
 	
+	// key used on a folder to hold the number of its children that are known to be dirty
+	private static final QualifiedName DIRTY_COUNT_KEY = new QualifiedName(CVSProviderPlugin.ID, "dirty-count"); //$NON-NLS-1$
+	
 	private QualifiedName FOLDER_DIRTY_STATE_KEY = new QualifiedName(CVSProviderPlugin.ID, "folder-dirty-state-cached"); //$NON-NLS-1$
 	
 	// defer to the sychronizer if there is no sync info
@@ -204,11 +209,13 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 	}
 
 	/*package*/ void setDirtyIndicator(IResource resource, String indicator) throws CVSException {
+		String oldIndicator = (String)safeGetSessionProperty(resource, IS_DIRTY);
 		if (resource.getType() == IResource.FILE) {
 			internalSetDirtyIndicator((IFile)resource, indicator);
 		} else {
 			internalSetDirtyIndicator((IContainer)resource, indicator);
 		}
+		adjustDirtyCount(resource, oldIndicator, indicator);
 	}
 	/*package*/ String getDirtyIndicator(IResource resource, boolean threadSafeAccess) throws CVSException {
 		if (resource.getType() == IResource.FILE) {
@@ -271,15 +278,59 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 	 */
 	/*package*/ void flushDirtyCache(IResource resource) throws CVSException {
 		if (resource.exists()) {
+			String oldIndicator = (String)safeGetSessionProperty(resource, IS_DIRTY);
 			if (resource.getType() == IResource.FILE) {
 				safeSetSessionProperty(resource, IS_DIRTY, null);
 			} else {
 				safeSetSessionProperty(resource, IS_DIRTY, null);
 				flushDirtyStateFromDisk((IContainer)resource);
 			}
+			adjustDirtyCount(resource, oldIndicator, null);
 		}
 	}
 	
+	/*
+	 * Update the dirty count of the parent of the resource if the dirty indicator
+	 * of the resource changed from or to dirty. The count is only ever increased
+	 * when a child becomes dirty so it never exceeds the number of dirty children
+	 * (i.e. a positive count means that the parent is dirty).
+	 */
+	private void adjustDirtyCount(IResource resource, String oldIndicator, String newIndicator) throws CVSException {
+		boolean wasDirty = oldIndicator == IS_DIRTY_INDICATOR;
+		boolean isDirty = newIndicator == IS_DIRTY_INDICATOR;
+		if (wasDirty == isDirty) return;
+		IContainer parent = resource.getParent();
+		if (parent == null || parent.getType() == IResource.ROOT || !parent.exists()) return;
+		int count = getDirtyCount(parent) + (isDirty ? 1 : -1);
+		safeSetSessionProperty(parent, DIRTY_COUNT_KEY, count > 0 ? new Integer(count) : null);
+	}
+	
+	/**
+	 * Return the number of children of the container that are known to be
+	 * dirty. The count is maintained incrementally as the dirty indicators of
+	 * the children change so a positive count means that the container is
+	 * dirty without having to check its members.
+	 * 
+	 * @param container the container
+	 * @return the number of children known to be dirty
+	 */
+	/*package*/ int getDirtyCount(IContainer container) throws CVSException {
+		if (container.getType() == IResource.ROOT || !container.exists()) return 0;
+		Integer count = (Integer)safeGetSessionProperty(container, DIRTY_COUNT_KEY);
+		return count == null ? 0 : count.intValue();
+	}
+	
+	/**
+	 * Forget the dirty count of the container. This is required when a child is
+	 * deleted since the dirty state of the child is no longer available.
+	 * 
+	 * @param container the container
+	 */
+	/*package*/ void resetDirtyCount(IContainer container) throws CVSException {
+		if (container.getType() == IResource.ROOT || !container.exists()) return;
+		safeSetSessionProperty(container, DIRTY_COUNT_KEY, null);
+	}
+	
 	/**
 	 * Method isSyncInfoLoaded returns true if all the sync info for the
 	 * provided resources is loaded into the internal cache.
@@ -466,7 +517,9 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 		if (! resource.exists()) return;
 		try {
 			if (resource.getType() != IResource.ROOT) {
+				String oldIndicator = (String)safeGetSessionProperty(resource, IS_DIRTY);
 				safeSetSessionProperty(resource, IS_DIRTY, null);
+				adjustDirtyCount(resource, oldIndicator, null);
 			}
 			if (resource.getType() != IResource.FILE) {
 				ResourcesPlugin.getWorkspace().getSynchronizer().flushSyncInfo(FOLDER_DIRTY_STATE_KEY, resource, IResource.DEPTH_INFINITE);
@@ -0,0 +1,409 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.ui;
+
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.content.IContentTypeManager.ContentTypeChangeEvent;
+import org.eclipse.core.runtime.content.IContentTypeManager.IContentTypeChangeListener;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.team.core.RepositoryProvider;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.client.Command.KSubstOption;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
+import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
+import org.eclipse.team.internal.ccvs.core.util.KnownRepositories;
+import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
+import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
+import org.eclipse.team.internal.core.TeamPlugin;
+import org.eclipse.team.ui.TeamUI;
+
+/**
+ * Caches the decoration attributes that the CVS decorator derives from the
+ * CVS sync info of a resource (ignored state, revision, tag, keyword mode,
+ * repository location, etc.) so that they are only computed once for each
+ * resource instead of each time the resource is decorated. The dirty state
+ * is not cached since it is provided by the workspace subscriber.
+ * <p>
+ * The attributes are grouped by the parent of the resource since the tag
+ * and the ignored state of a resource depend on its parent. The attributes
+ * of a resource are discarded when the CVS state or the workspace state of
+ * the resource changes, and those of the children of a folder are discarded
+ * as well when the folder or its <code>.cvsignore</code> file changes. The
+ * attributes of all the resources of a project are discarded when the sync
+ * info of the project changes, which is also reported when the watch/edit
+ * setting of the project changes.
+ * <p>
+ * All attributes are discarded when the content types, the file types, the
+ * ignore patterns, the watch/edit default or the decorator preferences change.
+ */
+public class CVSDecorationCache implements IResourceChangeListener, IResourceStateChangeListener {
+
+	// The cache is cleared when it grows beyond this number of folders
+	private static final int MAX_FOLDERS = 5000;
+
+	/**
+	 * The CVS decoration attributes of a resource.
+	 */
+	public static class Attributes {
+		private boolean file;
+		// Whether the file or folder has CVS sync info
+		private boolean hasSyncInfo;
+		private boolean hasRemote;
+		private boolean ignored;
+		private boolean newResource;
+		private CVSTag tag;
+		// File attributes
+		private boolean added;
+		private String revision;
+		private boolean readOnly;
+		private boolean needsMerge;
+		private String keywordSubstitution;
+		private boolean watchEditEnabled;
+		// Container attributes
+		private ICVSRepositoryLocation location;
+		private String repository;
+		private boolean virtualFolder;
+
+		public boolean hasRemote() {
+			return hasRemote;
+		}
+
+		public boolean isIgnored() {
+			return ignored;
+		}
+
+		public boolean isNewResource() {
+			return newResource;
+		}
+
+		/**
+		 * Return the tag that should be shown for the resource or
+		 * <code>null</code> if the tag is the same as the parent's tag.
+		 * @return the tag that should be shown for the resource
+		 */
+		public CVSTag getTag() {
+			return tag;
+		}
+
+		/**
+		 * Apply the type specific attributes to the given decoration.
+		 * @param decoration the decoration
+		 */
+		public void applyTypeProperties(CVSDecoration decoration) {
+			if (file) {
+				if (hasSyncInfo) {
+					decoration.setAdded(added);
+					decoration.setRevision(revision);
+					decoration.setReadOnly(readOnly);
+					decoration.setNeedsMerge(needsMerge);
+				}
+				decoration.setKeywordSubstitution(keywordSubstitution);
+				decoration.setWatchEditEnabled(watchEditEnabled);
+			} else if (hasSyncInfo) {
+				decoration.setLocation(location);
+				if (repository != null)
+					decoration.setRepository(repository);
+				decoration.setVirtualFolder(virtualFolder);
+			}
+		}
+	}
+
+	// Maps each parent container to a map from its children to their attributes
+	private final Map folders = new HashMap();
+	// Incremented on each change so that attributes calculated concurrently with a change are not kept
+	private long generation;
+
+	// Whether a file is text depends on the content types
+	private final IContentTypeChangeListener contentTypeListener = new IContentTypeChangeListener() {
+		public void contentTypeChanged(ContentTypeChangeEvent event) {
+			clear();
+		}
+	};
+	// Team core keeps the file types and the ignore patterns in its preferences
+	private final Preferences.IPropertyChangeListener teamPreferenceListener = new Preferences.IPropertyChangeListener() {
+		public void propertyChange(Preferences.PropertyChangeEvent event) {
+			clear();
+		}
+	};
+	// The watch/edit default applies to the projects that do not have their own setting
+	private final Preferences.IPropertyChangeListener cvsPreferenceListener = new Preferences.IPropertyChangeListener() {
+		public void propertyChange(Preferences.PropertyChangeEvent event) {
+			if (event.getProperty().equals(CVSProviderPlugin.READ_ONLY))
+				clear();
+		}
+	};
+	// Broadcast when the file types, the ignore patterns or the keyword substitution default are changed from the UI
+	private final IPropertyChangeListener uiPropertyListener = new IPropertyChangeListener() {
+		public void propertyChange(PropertyChangeEvent event) {
+			String property = event.getProperty();
+			if (property.equals(TeamUI.GLOBAL_IGNORES_CHANGED)
+					|| property.equals(TeamUI.GLOBAL_FILE_TYPES_CHANGED)
+					|| property.equals(CVSUIPlugin.P_DECORATORS_CHANGED))
+				clear();
+		}
+	};
+
+	/**
+	 * Start listening for the changes that affect the cached attributes. The
+	 * cache should start listening before the decorator so that the attributes
+	 * are discarded before the decorator is notified of a change.
+	 */
+	public void addListeners() {
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+		ResourceStateChangeListeners.getListener().addResourceStateChangeListener(this);
+		Platform.getContentTypeManager().addContentTypeChangeListener(contentTypeListener);
+		TeamPlugin.getPlugin().getPluginPreferences().addPropertyChangeListener(teamPreferenceListener);
+		CVSProviderPlugin.getPlugin().getPluginPreferences().addPropertyChangeListener(cvsPreferenceListener);
+		TeamUI.addPropertyChangeListener(uiPropertyListener);
+		CVSUIPlugin.addPropertyChangeListener(uiPropertyListener);
+	}
+
+	/**
+	 * Stop listening for changes and discard all cached attributes.
+	 */
+	public void removeListeners() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+		ResourceStateChangeListeners.getListener().removeResourceStateChangeListener(this);
+		Platform.getContentTypeManager().removeContentTypeChangeListener(contentTypeListener);
+		TeamPlugin.getPlugin().getPluginPreferences().removePropertyChangeListener(teamPreferenceListener);
+		CVSProviderPlugin.getPlugin().getPluginPreferences().removePropertyChangeListener(cvsPreferenceListener);
+		TeamUI.removePropertyChangeListener(uiPropertyListener);
+		CVSUIPlugin.removePropertyChangeListener(uiPropertyListener);
+		clear();
+	}
+
+	/**
+	 * Return the decoration attributes of the given resource.
+	 * @param resource the resource
+	 * @return the decoration attributes of the resource
+	 * @throws CVSException if the attributes could not be determined
+	 */
+	public Attributes getAttributes(IResource resource) throws CVSException {
+		IContainer parent = resource.getParent();
+		long startGeneration;
+		synchronized (folders) {
+			Map children = (Map)folders.get(parent);
+			if (children != null) {
+				Attributes attributes = (Attributes)children.get(resource);
+				if (attributes != null)
+					return attributes;
+			}
+			startGeneration = generation;
+		}
+		Attributes attributes = computeAttributes(resource);
+		synchronized (folders) {
+			if (generation == startGeneration) {
+				Map children = (Map)folders.get(parent);
+				if (children == null) {
+					if (folders.size() >= MAX_FOLDERS)
+						folders.clear();
+					children = new HashMap();
+					folders.put(parent, children);
+				}
+				children.put(resource, attributes);
+			}
+		}
+		return attributes;
+	}
+
+	/* package */ static Attributes computeAttributes(IResource resource) throws CVSException {
+		Attributes attributes = new Attributes();
+		ICVSResource cvsResource = CVSWorkspaceRoot.getCVSResourceFor(resource);
+		attributes.hasRemote = hasRemote(cvsResource);
+		attributes.ignored = cvsResource.isIgnored();
+		attributes.tag = CVSLightweightDecorator.getTagToShow(cvsResource);
+		if (cvsResource.exists()) {
+			if (cvsResource.isFolder()) {
+				attributes.newResource = !((ICVSFolder) cvsResource).isCVSFolder();
+			} else {
+				attributes.newResource = !cvsResource.isManaged();
+			}
+		}
+		if (resource.getType() == IResource.FILE) {
+			attributes.file = true;
+			ICVSFile file = (ICVSFile) cvsResource;
+			ResourceSyncInfo fileInfo = file.getSyncInfo();
+			KSubstOption option;
+			if (fileInfo != null) {
+				attributes.hasSyncInfo = true;
+				attributes.added = fileInfo.isAdded();
+				attributes.revision = fileInfo.getRevision();
+				attributes.readOnly = file.isReadOnly();
+				attributes.needsMerge = fileInfo.isNeedsMerge(file.getTimeStamp());
+				option = fileInfo.getKeywordMode();
+			} else {
+				option = KSubstOption.fromFile((IFile) resource);
+			}
+			attributes.keywordSubstitution = option.getShortDisplayText();
+			RepositoryProvider provider = RepositoryProvider.getProvider(resource.getProject(), CVSProviderPlugin.getTypeId());
+			if (provider != null)
+				attributes.watchEditEnabled = ((CVSTeamProvider) provider).isWatchEditEnabled();
+		} else if (resource.getType() != IResource.ROOT) {
+			FolderSyncInfo folderInfo = ((ICVSFolder) cvsResource).getFolderSyncInfo();
+			if (folderInfo != null) {
+				attributes.hasSyncInfo = true;
+				attributes.location = KnownRepositories.getInstance().getRepository(folderInfo.getRoot());
+				// Ignore the relative 'repository' path if it is the same locally
+				if (!resource.getFullPath().toString().substring(1).equals(folderInfo.getRepository()))
+					attributes.repository = folderInfo.getRepository();
+				attributes.virtualFolder = folderInfo.isVirtualDirectory();
+			}
+		}
+		return attributes;
+	}
+
+	private static boolean hasRemote(ICVSResource cvsResource) {
+		try {
+			return (cvsResource.isManaged() || cvsResource.isFolder() && ((ICVSFolder)cvsResource).isCVSFolder());
+		} catch (CVSException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Discard the attributes of the given resources and, for containers,
+	 * of their children.
+	 * @param resources the changed resources
+	 */
+	public void invalidate(IResource[] resources) {
+		synchronized (folders) {
+			generation++;
+			for (int i = 0; i < resources.length; i++) {
+				invalidateResource(resources[i]);
+			}
+		}
+	}
+
+	private void invalidateResource(IResource resource) {
+		Map children = (Map)folders.get(resource.getParent());
+		if (children != null)
+			children.remove(resource);
+		if (resource.getType() != IResource.FILE)
+			folders.remove(resource);
+		if (resource.getType() == IResource.FILE && resource.getName().equals(SyncFileWriter.IGNORE_FILE))
+			folders.remove(resource.getParent());
+	}
+
+	/**
+	 * Discard the attributes of the resources of the given project.
+	 * @param project the project
+	 */
+	public void invalidate(IProject project) {
+		synchronized (folders) {
+			generation++;
+			IPath path = project.getFullPath();
+			for (Iterator iter = folders.keySet().iterator(); iter.hasNext();) {
+				IContainer parent = (IContainer) iter.next();
+				if (path.isPrefixOf(parent.getFullPath()))
+					iter.remove();
+			}
+			invalidateResource(project);
+		}
+	}
+
+	/**
+	 * Return the number of resources whose attributes are cached.
+	 * @return the number of cached resources
+	 */
+	public int size() {
+		synchronized (folders) {
+			int size = 0;
+			for (Iterator iter = folders.values().iterator(); iter.hasNext();) {
+				size += ((Map) iter.next()).size();
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Discard all cached attributes.
+	 */
+	public void clear() {
+		synchronized (folders) {
+			generation++;
+			folders.clear();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+	 */
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null)
+			return;
+		final List changed = new ArrayList();
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta child) {
+					// Marker changes do not affect the decoration attributes
+					if (child.getKind() != IResourceDelta.CHANGED || (child.getFlags() & ~IResourceDelta.MARKERS) != 0) {
+						IResource resource = child.getResource();
+						if (resource.getType() != IResource.ROOT)
+							changed.add(resource);
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			CVSUIPlugin.log(e);
+			clear();
+			return;
+		}
+		if (!changed.isEmpty())
+			invalidate((IResource[]) changed.toArray(new IResource[changed.size()]));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ccvs.core.IResourceStateChangeListener#resourceSyncInfoChanged(org.eclipse.core.resources.IResource[])
+	 */
+	public void resourceSyncInfoChanged(IResource[] changedResources) {
+		invalidate(changedResources);
+		for (int i = 0; i < changedResources.length; i++) {
+			// The project holds settings, such as watch/edit, that apply to all of its files
+			if (changedResources[i].getType() == IResource.PROJECT)
+				invalidate((IProject) changedResources[i]);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ccvs.core.IResourceStateChangeListener#externalSyncInfoChange(org.eclipse.core.resources.IResource[])
+	 */
+	public void externalSyncInfoChange(IResource[] changedResources) {
+		invalidate(changedResources);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ccvs.core.IResourceStateChangeListener#resourceModified(org.eclipse.core.resources.IResource[])
+	 */
+	public void resourceModified(IResource[] changedResources) {
+		invalidate(changedResources);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ccvs.core.IResourceStateChangeListener#projectConfigured(org.eclipse.core.resources.IProject)
+	 */
+	public void projectConfigured(IProject project) {
+		invalidate(project);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ccvs.core.IResourceStateChangeListener#projectDeconfigured(org.eclipse.core.resources.IProject)
+	 */
+	public void projectDeconfigured(IProject project) {
+		invalidate(project);
+	}
+}
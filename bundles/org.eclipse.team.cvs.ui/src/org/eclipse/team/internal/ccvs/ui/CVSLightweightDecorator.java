@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,11 +25,9 @@ import org.eclipse.team.core.RepositoryProvider;
 import org.eclipse.team.core.diff.IDiff;
 import org.eclipse.team.core.diff.IThreeWayDiff;
 import org.eclipse.team.internal.ccvs.core.*;
-import org.eclipse.team.internal.ccvs.core.client.Command.KSubstOption;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
-import org.eclipse.team.internal.ccvs.core.util.KnownRepositories;
 import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
 import org.eclipse.team.internal.core.ExceptionCollector;
 import org.eclipse.team.internal.ui.Utils;
@@ -63,7 +61,13 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 	
 	private static final SynchronizationStateTester DEFAULT_TESTER = new SynchronizationStateTester();
 
+	// The cache of decoration attributes, available while a decorator exists
+	private static volatile CVSDecorationCache cache;
+	private final CVSDecorationCache attributeCache = new CVSDecorationCache();
+
 	public CVSLightweightDecorator() {
+		cache = attributeCache;
+		attributeCache.addListeners();
 		ResourceStateChangeListeners.getListener().addResourceStateChangeListener(this);
 		TeamUI.addPropertyChangeListener(this);
 		CVSUIPlugin.addPropertyChangeListener(this);
@@ -112,22 +116,6 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 		}
 	}
 	
-	/*
-	 * Answers null if a provider does not exist or the provider is not a CVS provider. These resources
-	 * will be ignored by the decorator.
-	 */
-	private static CVSTeamProvider getCVSProviderFor(IResource resource) {
-		if (resource == null) return null;
-		RepositoryProvider p =
-			RepositoryProvider.getProvider(
-				resource.getProject(),
-				CVSProviderPlugin.getTypeId());
-		if (p == null) {
-			return null;
-		}
-		return (CVSTeamProvider) p;
-	}
-	
 	/**
 	 * This method should only be called by the decorator thread.
 	 * 
@@ -273,11 +261,11 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 
 	private static void decorate(IResource resource, CVSDecoration cvsDecoration) throws CVSException {
 		IPreferenceStore store = CVSUIPlugin.getPlugin().getPreferenceStore();
-		ICVSResource cvsResource = CVSWorkspaceRoot.getCVSResourceFor(resource);
+		CVSDecorationCache.Attributes attributes = getAttributes(resource);
 		cvsDecoration.setResourceType(resource.getType());
 		
-		cvsDecoration.setHasRemote(hasRemote(cvsResource));
-		if (cvsResource.isIgnored()) {
+		cvsDecoration.setHasRemote(attributes.hasRemote());
+		if (attributes.isIgnored()) {
 			cvsDecoration.setIgnored(true);
 		}
 		if (!cvsDecoration.isIgnored()) {
@@ -302,31 +290,24 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 			}
 			// Is a new resource
 			if (store.getBoolean(ICVSUIConstants.PREF_SHOW_NEWRESOURCE_DECORATION)) {
-				if (cvsResource.exists()) {
-					if (cvsResource.isFolder()) {
-						if (!((ICVSFolder) cvsResource).isCVSFolder()) {
-							cvsDecoration.setNewResource(true);
-						}
-					} else if (!cvsResource.isManaged()) {
-						cvsDecoration.setNewResource(true);
-					}
+				if (attributes.isNewResource()) {
+					cvsDecoration.setNewResource(true);
 				}
 			}
 			// Extract type specific properties
-			if (resource.getType() == IResource.FILE) {
-				extractFileProperties((IFile) resource, cvsDecoration);
-			} else {
-				extractContainerProperties((IContainer) resource, cvsDecoration);
-			}
+			attributes.applyTypeProperties(cvsDecoration);
 		}
 	}
 
-	private static boolean hasRemote(ICVSResource cvsResource) {
-		try {
-			return (cvsResource.isManaged() || cvsResource.isFolder() && ((ICVSFolder)cvsResource).isCVSFolder());
-		} catch (CVSException e) {
-			return false;
-		}
+	/*
+	 * Return the decoration attributes of the resource from the cache
+	 * or compute them if there is no decorator to keep the cache up-to-date.
+	 */
+	private static CVSDecorationCache.Attributes getAttributes(IResource resource) throws CVSException {
+		CVSDecorationCache current = cache;
+		if (current == null)
+			return CVSDecorationCache.computeAttributes(resource);
+		return current.getAttributes(resource);
 	}
 
 	public static CVSDecoration decorate(IResource resource, boolean includeDirtyCheck) throws CVSException {
@@ -352,36 +333,6 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 		return cvsDecoration;
 	}
 
-	private static void extractContainerProperties(IContainer resource, CVSDecoration cvsDecoration) throws CVSException {
-		ICVSFolder folder = CVSWorkspaceRoot.getCVSFolderFor(resource);
-		FolderSyncInfo folderInfo = folder.getFolderSyncInfo();
-		if (folderInfo != null) {
-			cvsDecoration.setLocation(KnownRepositories.getInstance().getRepository(folderInfo.getRoot()));
-			
-			// Ignore the relative 'repository' path if it is the same locally 
-			if (!resource.getFullPath().toString().substring(1).equals(folderInfo.getRepository()))
-				cvsDecoration.setRepository(folderInfo.getRepository());
-			cvsDecoration.setVirtualFolder(folderInfo.isVirtualDirectory());
-		}
-	}
-
-	private static void extractFileProperties(IFile resource, CVSDecoration cvsDecoration) throws CVSException {
-		ICVSFile file = CVSWorkspaceRoot.getCVSFileFor(resource);
-		ResourceSyncInfo fileInfo = file.getSyncInfo();
-		KSubstOption option = KSubstOption.fromFile(resource);
-		if (fileInfo != null) {
-			cvsDecoration.setAdded(fileInfo.isAdded());
-			cvsDecoration.setRevision(fileInfo.getRevision());
-			cvsDecoration.setReadOnly(file.isReadOnly());
-			cvsDecoration.setNeedsMerge(fileInfo.isNeedsMerge(file.getTimeStamp()));
-			option = fileInfo.getKeywordMode();
-		}
-		cvsDecoration.setKeywordSubstitution(option.getShortDisplayText());
-		CVSTeamProvider provider = getCVSProviderFor(resource);
-		if (provider != null)
-			cvsDecoration.setWatchEditEnabled(provider.isWatchEditEnabled());	
-	}
-
 	protected static CVSTag getTagToShow(Object element) throws CoreException {
 		IResource r = getResource(element);
 		if (r != null)
@@ -418,7 +369,10 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 	 * names will clutter the text decorations.
 	 */
 	protected static CVSTag getTagToShow(IResource resource) throws CVSException {
-		ICVSResource cvsResource = CVSWorkspaceRoot.getCVSResourceFor(resource);
+		return getAttributes(resource).getTag();
+	}
+
+	/* package */ static CVSTag getTagToShow(ICVSResource cvsResource) throws CVSException {
 		CVSTag tag = null;
 
 		// for unmanaged resources don't show a tag since they will be added in
@@ -572,6 +526,9 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 	 */
 	public void dispose() {
 		super.dispose();
+		attributeCache.removeListeners();
+		if (cache == attributeCache)
+			cache = null;
 		PlatformUI.getWorkbench().getThemeManager().getCurrentTheme().removePropertyChangeListener(this);
 		CVSProviderPlugin.broadcastDecoratorEnablementChanged(false /* disabled */);
 		TeamUI.removePropertyChangeListener(this);
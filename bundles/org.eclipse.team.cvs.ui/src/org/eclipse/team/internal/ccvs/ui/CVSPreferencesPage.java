@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -590,7 +590,9 @@ public class CVSPreferencesPage extends PreferencePage implements IWorkbenchPref
 		CVSProviderPlugin.getPlugin().setQuietness(getQuietnessOptionFor(store.getInt(ICVSUIConstants.PREF_QUIETNESS)));
 		CVSProviderPlugin.getPlugin().setCompressionLevel(store.getInt(ICVSUIConstants.PREF_COMPRESSION_LEVEL));
 		CVSProviderPlugin.getPlugin().setDebugProtocol(store.getBoolean(ICVSUIConstants.PREF_DEBUG_PROTOCOL));
-		CVSProviderPlugin.getPlugin().setRepositoriesAreBinary(store.getBoolean(ICVSUIConstants.PREF_REPOSITORIES_ARE_BINARY));
+		boolean oldBinary = CVSProviderPlugin.getPlugin().getRepositoriesAreBinary();
+		boolean newBinary = store.getBoolean(ICVSUIConstants.PREF_REPOSITORIES_ARE_BINARY);
+		CVSProviderPlugin.getPlugin().setRepositoriesAreBinary(newBinary);
 		KSubstOption oldKSubst = CVSProviderPlugin.getPlugin().getDefaultTextKSubstOption();
 		KSubstOption newKSubst = KSubstOption.fromMode(store.getString(ICVSUIConstants.PREF_TEXT_KSUBST));
 		CVSProviderPlugin.getPlugin().setDefaultTextKSubstOption(newKSubst);
@@ -598,9 +600,9 @@ public class CVSPreferencesPage extends PreferencePage implements IWorkbenchPref
 		CVSProviderPlugin.getPlugin().setDetermineVersionEnabled(store.getBoolean(ICVSUIConstants.PREF_DETERMINE_SERVER_VERSION));
         CVSProviderPlugin.getPlugin().setAutoshareOnImport(store.getBoolean(ICVSUIConstants.PREF_AUTO_SHARE_ON_IMPORT));
 		
-		// changing the default keyword substitution mode for text files may affect
-		// information displayed in the decorators
-		if (! oldKSubst.equals(newKSubst)) {
+		// changing the default keyword substitution mode for text files or whether
+		// files are binary may affect information displayed in the decorators
+		if (! oldKSubst.equals(newKSubst) || oldBinary != newBinary) {
 			CVSUIPlugin.broadcastPropertyChange(new PropertyChangeEvent(this, CVSUIPlugin.P_DECORATORS_CHANGED, null, null));
 		}
 		
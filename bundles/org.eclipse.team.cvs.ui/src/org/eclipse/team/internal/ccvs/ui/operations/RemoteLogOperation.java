@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,7 +30,9 @@ import org.eclipse.team.internal.ccvs.core.client.RLog;
 import org.eclipse.team.internal.ccvs.core.client.Session;
 import org.eclipse.team.internal.ccvs.core.client.listeners.ILogEntryListener;
 import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
+import org.eclipse.team.internal.ccvs.core.filehistory.PersistentLogEntryCache;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 import org.eclipse.team.internal.ccvs.ui.CVSUIMessages;
 import org.eclipse.team.internal.ccvs.ui.CVSUIPlugin;
@@ -67,7 +69,7 @@ public class RemoteLogOperation extends RepositoryLocationOperation {
          * @param path the file path
          * @return the log entries for the file
          */
-        public ILogEntry[] getLogEntries(String path) {
+        public synchronized ILogEntry[] getLogEntries(String path) {
             Map map = internalGetLogEntries(path);
             return (ILogEntry[]) map.values().toArray(new ILogEntry[map.values().size()]);
         }
@@ -80,7 +82,7 @@ public class RemoteLogOperation extends RepositoryLocationOperation {
 	        return null;
         }
         
-        public String[] getCachedFilePaths() {
+        public synchronized String[] getCachedFilePaths() {
             return (String[]) entries.keySet().toArray(new String[entries.size()]);
         }
         
@@ -223,7 +225,7 @@ public class RemoteLogOperation extends RepositoryLocationOperation {
         /* (non-Javadoc)
          * @see org.eclipse.team.internal.ccvs.core.client.listeners.ILogEntryListener#addEntry(org.eclipse.team.internal.ccvs.core.client.listeners.LogEntry)
          */
-        public void handleLogEntryReceived(ILogEntry entry) {
+        public synchronized void handleLogEntryReceived(ILogEntry entry) {
     		ICVSRemoteFile file = entry.getRemoteFile();
     		String fullPath = getFullPath(file);
     		String revision = entry.getRevision();
@@ -257,11 +259,18 @@ public class RemoteLogOperation extends RepositoryLocationOperation {
 		if(tag1 == null || tag2 == null) {
 			// Optimize the cases were we are only fetching the history for a single revision. If it is
 			// already cached, don't fetch it again.
+			PersistentLogEntryCache persistentCache = isFetchingTags(localOptions) ? null : PersistentLogEntryCache.getCache();
 			ArrayList unCachedRemotes = new ArrayList();
 			for (int i = 0; i < remoteResources.length; i++) {
 				ICVSRemoteResource r = remoteResources[i];
 				if(entryCache.getLogEntry(r) == null) {
-					unCachedRemotes.add(r);
+					// Use the persisted entries, which have no tags, when the tags are not fetched
+					ILogEntry entry = persistentCache != null && r instanceof RemoteFile ? persistentCache.getLogEntry((RemoteFile) r) : null;
+					if (entry != null) {
+						entryCache.handleLogEntryReceived(entry);
+					} else {
+						unCachedRemotes.add(r);
+					}
 				}
 			}
 			remotes = (ICVSRemoteResource[]) unCachedRemotes.toArray(new ICVSRemoteResource[unCachedRemotes.size()]);
@@ -277,6 +286,14 @@ public class RemoteLogOperation extends RepositoryLocationOperation {
 		}
 	}
 
+	private boolean isFetchingTags(Command.LocalOption[] localOptions) {
+		for (int i = 0; i < localOptions.length; i++) {
+			if (localOptions[i] == RLog.NO_TAGS)
+				return false;
+		}
+		return true;
+	}
+
     /* (non-Javadoc)
 	 * @see org.eclipse.team.internal.ccvs.ui.operations.CVSOperation#getTaskName()
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,10 +12,15 @@ package org.eclipse.team.internal.ccvs.ui.subscriber;
 
 import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -24,6 +29,7 @@ import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.subscribers.Subscriber;
 import org.eclipse.team.core.synchronize.*;
 import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.filehistory.PersistentLogEntryCache;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
@@ -68,6 +74,13 @@ public class LogEntryCacheUpdateHandler extends BackgroundEventHandler {
     private static final int WAIT_INCREMENT = 10;
     private static final int MAX_WAIT = 1000;
     
+    /*
+     * The maximum number of projects whose log entries are fetched concurrently
+     * and how often (in milliseconds) cancellation is checked while waiting for them
+     */
+    private static final int MAX_CONCURRENT_FETCHES = 4;
+    private static final int FETCH_POLL_INTERVAL = 100;
+    
     /*
      * Set that keeps track of all resource for which we haved fetched log entries
      */
@@ -167,6 +180,58 @@ public class LogEntryCacheUpdateHandler extends BackgroundEventHandler {
         }
     }
     
+    /*
+     * The outcome of fetching the log entries of a project
+     */
+    private static class FetchResult {
+        private final SyncInfoSet set;
+        private CVSException exception;
+        private boolean canceled;
+        public FetchResult(SyncInfoSet set) {
+            this.set = set;
+        }
+    }
+    
+    /*
+     * Job that fetches the log entries of the projects taken from a shared list
+     * and queues the result of each project as soon as it is available.
+     */
+    private class FetchJob extends Job {
+        private final LogEntryCache logEntriesCache;
+        private final LinkedList pending;
+        private final BlockingQueue results;
+        public FetchJob(LogEntryCache logEntriesCache, LinkedList pending, BlockingQueue results) {
+            super(CVSUIMessages.CVSChangeSetCollector_4);
+            this.logEntriesCache = logEntriesCache;
+            this.pending = pending;
+            this.results = results;
+            setSystem(true);
+        }
+        protected IStatus run(IProgressMonitor monitor) {
+            while (!monitor.isCanceled()) {
+                SyncInfoSet set;
+                synchronized (pending) {
+                    if (pending.isEmpty())
+                        break;
+                    set = (SyncInfoSet) pending.removeFirst();
+                }
+                FetchResult result = new FetchResult(set);
+                try {
+                    fetchLogEntries(logEntriesCache, set, monitor);
+                } catch (CVSException e) {
+                    result.exception = e;
+                } catch (OperationCanceledException e) {
+                    result.canceled = true;
+                }
+                results.add(result);
+            }
+            return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+        }
+        public boolean belongsTo(Object family) {
+            return family == getJobFamiliy();
+        }
+    }
+    
     public LogEntryCacheUpdateHandler(ISynchronizePageConfiguration configuration) {
         super(CVSUIMessages.LogEntryCacheUpdateHandler_1, CVSUIMessages.LogEntryCacheUpdateHandler_0); // 
         this.configuration = configuration;
@@ -305,12 +370,14 @@ public class LogEntryCacheUpdateHandler extends BackgroundEventHandler {
     private void remove(SyncInfo info) {
         if (info != null) {
             collectedInfos.remove(info.getLocal());
+            ICVSRemoteResource remoteResource = getRemoteResource(info);
             LogEntryCache cache = (LogEntryCache)cacheReference.get();
-            if (cache != null) {
-				ICVSRemoteResource remoteResource = getRemoteResource(info);
-				if (remoteResource != null)
-					cache.clearEntries(remoteResource);
+            if (cache != null && remoteResource != null) {
+				cache.clearEntries(remoteResource);
 			}
+			// Discard the persisted entries as well so they are refetched with the new sync info
+			if (remoteResource instanceof RemoteFile)
+				PersistentLogEntryCache.getCache().invalidate((RemoteFile) remoteResource);
         }
     }
 
@@ -449,11 +516,17 @@ public class LogEntryCacheUpdateHandler extends BackgroundEventHandler {
             }
             monitor.beginTask(CVSUIMessages.CVSChangeSetCollector_4, 100 * projectMapping.size()); 
             monitor.setTaskName(CVSUIMessages.CVSChangeSetCollector_4); 
-            for (Iterator iter = projectMapping.values().iterator(); iter.hasNext();) {
-                SyncInfoSet set = (SyncInfoSet) iter.next();
+            if (projectMapping.size() == 1) {
+                SyncInfoSet set = (SyncInfoSet) projectMapping.values().iterator().next();
                 Policy.checkCanceled(monitor);
-                fetchLogEntries(logEntriesCache, set, Policy.subMonitorFor(monitor, 90));
+                try {
+                    fetchLogEntries(logEntriesCache, set, Policy.subMonitorFor(monitor, 90));
+                } catch (CVSException e) {
+                    handleException(e);
+                }
                 fireFetchedNotification(logEntriesCache, set, Policy.subMonitorFor(monitor, 10));
+            } else {
+                fetchConcurrently(logEntriesCache, projectMapping.values(), monitor);
             }
         } finally {
             // Clear the fetches even if we were cancelled.
@@ -464,6 +537,51 @@ public class LogEntryCacheUpdateHandler extends BackgroundEventHandler {
         return true;
     }
 
+    /*
+     * Fetch the log entries of the given project sets in several jobs. The listener
+     * is notified in this thread for each project as soon as its entries are available
+     * so that change sets are shown without waiting for the remaining projects.
+     */
+    private void fetchConcurrently(LogEntryCache logEntriesCache, Collection sets, IProgressMonitor monitor) {
+        LinkedList pending = new LinkedList(sets);
+        BlockingQueue results = new LinkedBlockingQueue();
+        int jobCount = Math.min(MAX_CONCURRENT_FETCHES, sets.size());
+        FetchJob[] jobs = new FetchJob[jobCount];
+        for (int i = 0; i < jobCount; i++) {
+            jobs[i] = new FetchJob(logEntriesCache, pending, results);
+            jobs[i].schedule();
+        }
+        try {
+            for (int remaining = sets.size(); remaining > 0;) {
+                Policy.checkCanceled(monitor);
+                FetchResult result = (FetchResult) results.poll(FETCH_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (result == null)
+                    continue;
+                remaining--;
+                if (result.canceled)
+                    throw new OperationCanceledException();
+                monitor.worked(90);
+                if (result.exception != null)
+                    handleException(result.exception);
+                fireFetchedNotification(logEntriesCache, result.set, Policy.subMonitorFor(monitor, 10));
+            }
+        } catch (InterruptedException e) {
+            throw new OperationCanceledException();
+        } finally {
+            // Stop any jobs that are still fetching if we were cancelled
+            for (int i = 0; i < jobs.length; i++) {
+                jobs[i].cancel();
+            }
+            for (int i = 0; i < jobs.length; i++) {
+                try {
+                    jobs[i].join();
+                } catch (InterruptedException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
     private void fireFetchedNotification(LogEntryCache logEntriesCache, SyncInfoSet set, IProgressMonitor monitor) {
         if (listener != null) {
             listener.logEntriesFetched(set, logEntriesCache, monitor);
@@ -541,9 +659,10 @@ public class LogEntryCacheUpdateHandler extends BackgroundEventHandler {
 	}
 	
     /*
-     * Fetch the log entries for the info in the given set
+     * Fetch the log entries for the info in the given set. This method may be
+     * invoked concurrently for the sets of different projects.
      */
-    private void fetchLogEntries(LogEntryCache logEntriesCache, SyncInfoSet set, IProgressMonitor monitor) {
+    private void fetchLogEntries(LogEntryCache logEntriesCache, SyncInfoSet set, IProgressMonitor monitor) throws CVSException {
 	    try {
             if (subscriber instanceof CVSCompareSubscriber) {
                 CVSCompareSubscriber compareSubscriber = (CVSCompareSubscriber)subscriber;
@@ -552,8 +671,6 @@ public class LogEntryCacheUpdateHandler extends BackgroundEventHandler {
                 // Run the log command once with no tags
             	fetchLogs(logEntriesCache, set, null, null, monitor);
             }
-        } catch (CVSException e) {
-            handleException(e);
         } catch (InterruptedException e) {
             throw new OperationCanceledException();
         }
@@ -660,6 +777,15 @@ public class LogEntryCacheUpdateHandler extends BackgroundEventHandler {
 	    if (remoteResources.length > 0) {
 			RemoteLogOperation logOperation = new RemoteLogOperation(getConfiguration().getSite().getPart(), remoteResources, localTag, remoteTag, logEntriesCache);
 			logOperation.execute(monitor);
+			// Persist the fetched entries so they are available in later sessions
+			PersistentLogEntryCache persistentCache = PersistentLogEntryCache.getCache();
+			for (int i = 0; i < remoteResources.length; i++) {
+				if (remoteResources[i] instanceof RemoteFile) {
+					ILogEntry entry = logEntriesCache.getLogEntry(remoteResources[i]);
+					if (entry != null)
+						persistentCache.addLogEntry((RemoteFile) remoteResources[i], entry);
+				}
+			}
 	    }
 	    collectedInfos.addAll(set);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -250,6 +250,16 @@ public class WorkspaceSynchronizeParticipant extends ScopableSubscriberParticipa
 		return null;
 	}
 
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.ScopableSubscriberParticipant#getSnapshotId()
+	 */
+	public String getSnapshotId() {
+		// The participants for working sets and selections are usually short lived
+		if (getScope() instanceof WorkspaceScope)
+			return ID;
+		return null;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.team.ui.synchronize.ISynchronizeParticipant#init(org.eclipse.ui.IMemento)
 	 */
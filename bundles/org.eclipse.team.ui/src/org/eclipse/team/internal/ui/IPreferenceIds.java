@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -38,6 +38,13 @@ public interface IPreferenceIds {
 	 */
 	public static final String SYNCVIEW_VIEW_SYNCINFO_IN_LABEL = PREFIX + "view_syncinfo_in_label"; //$NON-NLS-1$
 
+	/*
+	 * Preference to build the children of the folders shown in the synchronize view
+	 * when they are first shown instead of building the whole model up front. This
+	 * preference is used by {@link org.eclipse.team.internal.ui.synchronize.HierarchicalModelProvider}.
+	 */
+	public static final String SYNCVIEW_BUILD_MODEL_ON_DEMAND = PREFIX + "build_model_on_demand"; //$NON-NLS-1$
+
 	/*
 	 * Preference to enable the presence of the author field in a compare editor
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -283,6 +283,7 @@ public class TeamUIMessages extends NLS {
 	public static String SyncViewerPreferencePage_45;
 	public static String SyncViewerPreferencePage_46;
 	public static String SyncViewerPreferencePage_47;
+	public static String SyncViewerPreferencePage_48;
 
 	public static String TeamAction_internal;
 	public static String TextPreferencePage_add;
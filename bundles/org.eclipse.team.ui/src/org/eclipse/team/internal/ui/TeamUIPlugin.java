@@ -150,6 +150,7 @@ public class TeamUIPlugin extends AbstractUIPlugin {
 	protected void initializeDefaultPluginPreferences() {
 		IPreferenceStore store = getPreferenceStore();
 		store.setDefault(IPreferenceIds.SYNCVIEW_VIEW_SYNCINFO_IN_LABEL, false);
+		store.setDefault(IPreferenceIds.SYNCVIEW_BUILD_MODEL_ON_DEMAND, false);
 		store.setDefault(IPreferenceIds.SHOW_AUTHOR_IN_COMPARE_EDITOR, false);
 		store.setDefault(IPreferenceIds.MAKE_FILE_WRITTABLE_IF_CONTEXT_MISSING, false);
 		store.setDefault(IPreferenceIds.REUSE_OPEN_COMPARE_EDITOR, true);
@@ -97,6 +97,12 @@ public class SyncViewerPreferencePage extends FieldEditorPreferencePage implemen
 				BooleanFieldEditor.DEFAULT,
 				getFieldEditorParent()));
 
+		addField(new BooleanFieldEditor(
+				SYNCVIEW_BUILD_MODEL_ON_DEMAND,
+		        TeamUIMessages.SyncViewerPreferencePage_48,
+				BooleanFieldEditor.DEFAULT,
+				getFieldEditorParent()));
+
 		if (isIncludeDefaultLayout()) {
 		    defaultLayout = new RadioGroupFieldEditor(SYNCVIEW_DEFAULT_LAYOUT,
 		            TeamUIMessages.SyncViewerPreferencePage_0, 3,
@@ -19,13 +19,11 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.jface.viewers.*;
-import org.eclipse.swt.SWTException;
 import org.eclipse.swt.events.TreeEvent;
 import org.eclipse.swt.events.TreeListener;
 import org.eclipse.swt.widgets.Tree;
 import org.eclipse.team.core.ITeamStatus;
 import org.eclipse.team.core.synchronize.*;
-import org.eclipse.team.internal.core.TeamPlugin;
 import org.eclipse.team.internal.ui.*;
 import org.eclipse.team.ui.synchronize.*;
 
@@ -227,43 +225,8 @@ public abstract class AbstractSynchronizeModelProvider implements ISynchronizeMo
 		IResource resource = element.getResource();
 		String property = null;
 		if (resource != null && resource.exists()) {
-			try {
-				IMarker[] markers = resource.findMarkers(IMarker.PROBLEM, true, getLogicalModelDepth(resource));
-				for (int i = 0; i < markers.length; i++) {
-					IMarker marker = markers[i];
-					try {
-						Integer severity = (Integer) marker.getAttribute(IMarker.SEVERITY);
-						if (severity != null) {
-							if (severity.intValue() == IMarker.SEVERITY_ERROR) {
-								property = ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY;
-								break;
-							} else if (severity.intValue() == IMarker.SEVERITY_WARNING) {
-								property = ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY;
-								// Keep going because there may be errors on other resources
-							}
-						}
-					} catch (CoreException e) {
-						if (!resource.exists()) {
-							// The resource was deleted concurrently. Forget any previously found property
-							property = null;
-							break;
-						}
-						// If the marker exists, log the exception and continue.
-						// Otherwise, just ignore the exception and keep going
-						if (marker.exists()) {
-							TeamPlugin.log(e);
-						}
-					}
-				}
-			} catch (CoreException e) {
-				// If the resource exists (is accessible), log the exception and continue.
-				// Otherwise, just ignore the exception
-				if (resource.isAccessible()
-						&& e.getStatus().getCode() != IResourceStatus.RESOURCE_NOT_FOUND
-						&& e.getStatus().getCode() != IResourceStatus.PROJECT_NOT_OPEN) {
-					TeamPlugin.log(e);
-				}
-			}
+			// The markers are counted by the cache so they need not be searched for each element
+			property = updateHandler.getProblemMarkerCache().getMarkerProperty(resource, getLogicalModelDepth(resource));
 		} else if (resource == null) {
 		    // For non-resource elements, show the same propogaqted marker as the children
 		    IDiffElement[] children = element.getChildren();
@@ -938,19 +901,7 @@ public abstract class AbstractSynchronizeModelProvider implements ISynchronizeMo
 	 * @param elements the elements to be removed
 	 */
 	protected void doRemove(ISynchronizeModelElement[] elements) {
-		AbstractTreeViewer viewer = (AbstractTreeViewer)getViewer();
-		try {
-            viewer.remove(elements);
-        } catch (SWTException e) {
-            // The remove failed due to an SWT exception. Log it and continue
-            TeamUIPlugin.log(IStatus.ERROR, "An error occurred removing elements from the synchronize view", e); //$NON-NLS-1$
-        }
-	    if (DEBUG) {
-	        for (int i = 0; i < elements.length; i++) {
-                ISynchronizeModelElement element = elements[i];
-		        System.out.println("Removing view item " + element.getName()); //$NON-NLS-1$
-            }
-	    }
+		updateHandler.doRemove(elements);
 	}
 
 	/**
@@ -987,6 +938,28 @@ public abstract class AbstractSynchronizeModelProvider implements ISynchronizeMo
         // Default is to do nothing
     }
 
+    /**
+     * Build the children of the given element if they have not been built yet.
+     * This is invoked by the content provider of the viewer before it asks
+     * the element for its children so that providers can build the children
+     * of elements on demand. The default is to do nothing since the model is
+     * built up front.
+     * @param element the element whose children are about to be shown
+     */
+    public void prepareChildren(ISynchronizeModelElement element) {
+        // Default is to do nothing
+    }
+
+    /**
+     * Return whether the given element has children that have not been
+     * built yet. The default is to return <code>false</code>.
+     * @param element a model element
+     * @return whether the element has children that will be built on demand
+     */
+    public boolean hasPendingChildren(ISynchronizeModelElement element) {
+        return false;
+    }
+
     @Override
 	public void addPropertyChangeListener(IPropertyChangeListener listener) {
         synchronized (this) {
@@ -101,6 +101,12 @@ public class CompressedFoldersModelProvider extends HierarchicalModelProvider {
 		return compressedDescriptor;
 	}
 
+	@Override
+	protected boolean isBuildOnDemand() {
+		// Additions are applied to the compressed folders directly so the model is always complete
+		return false;
+	}
+
 	@Override
 	public ViewerSorter getViewerSorter() {
 		return new SynchronizeModelElementSorter() {
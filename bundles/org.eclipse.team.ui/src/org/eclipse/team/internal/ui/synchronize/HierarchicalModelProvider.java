@@ -11,8 +11,10 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ui.synchronize;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 
 import org.eclipse.compare.structuremergeviewer.IDiffElement;
 import org.eclipse.core.resources.*;
@@ -35,7 +37,10 @@ import org.eclipse.team.ui.synchronize.ISynchronizePageConfiguration;
  * model then update the viewer. In effect mediating between the sync set
  * changes and the model shown to the user. This happens in the ui thread.
  * </ol>
- * NOT ON DEMAND - model is created then maintained!
+ * NOT ON DEMAND - model is created then maintained! Unless the
+ * {@link IPreferenceIds#SYNCVIEW_BUILD_MODEL_ON_DEMAND} preference is set,
+ * in which case the children of a folder are built when the viewer first
+ * asks for them.
  *
  * @since 3.0
  */
@@ -58,6 +63,11 @@ public class HierarchicalModelProvider extends SynchronizeModelProvider {
 	}
 	private static final HierarchicalModelProviderDescriptor hierarchicalDescriptor = new HierarchicalModelProviderDescriptor();
 
+	private final boolean buildOnDemand;
+	// Container nodes whose children have not been built yet
+	private final Set<ISynchronizeModelElement> pendingNodes = Collections.synchronizedSet(new HashSet<>());
+	private boolean preparingChildren;
+
 	/**
 	 * Create an input based on the provide sync set. The input is not
 	 * initialized until <code>prepareInput</code> is called.
@@ -71,6 +81,8 @@ public class HierarchicalModelProvider extends SynchronizeModelProvider {
 	 */
 	public HierarchicalModelProvider(ISynchronizePageConfiguration configuration, SyncInfoSet set) {
 		super(configuration, set);
+		// Only the root provider is notified when the viewer asks for children
+		buildOnDemand = TeamUIPlugin.getPlugin().getPreferenceStore().getBoolean(IPreferenceIds.SYNCVIEW_BUILD_MODEL_ON_DEMAND);
 	}
 
     public HierarchicalModelProvider(
@@ -78,6 +90,7 @@ public class HierarchicalModelProvider extends SynchronizeModelProvider {
             ISynchronizeModelElement modelRoot,
             ISynchronizePageConfiguration configuration, SyncInfoSet set) {
         super(parentProvider, modelRoot, configuration, set);
+        buildOnDemand = false;
     }
 
 	@Override
@@ -94,6 +107,16 @@ public class HierarchicalModelProvider extends SynchronizeModelProvider {
 		return (SyncInfoTree)getSyncInfoSet();
 	}
 
+	/**
+	 * Return whether the children of folders are built when the viewer
+	 * first asks for them instead of when the model is built.
+	 * Subclasses whose model is not a strict hierarchy may override.
+	 * @return whether the model is built on demand
+	 */
+	protected boolean isBuildOnDemand() {
+		return buildOnDemand;
+	}
+
 	/**
 	 * Invoked by the <code>buildModelObject</code> method to create
 	 * the childen of the given node. This method can be overriden
@@ -174,12 +197,122 @@ public class HierarchicalModelProvider extends SynchronizeModelProvider {
 		for (int i = 0; i < children.length; i++) {
 			IDiffElement element = children[i];
 			if (element instanceof ISynchronizeModelElement) {
-				buildModelObjects((ISynchronizeModelElement) element);
+				if (isBuildOnDemand()) {
+					deferModelObjects((ISynchronizeModelElement) element);
+				} else {
+					buildModelObjects((ISynchronizeModelElement) element);
+				}
 			}
 		}
 		return children;
 	}
 
+	/*
+	 * Remember that the children of the node still need to be built. The
+	 * conflict state of the subtree is taken from the sync set until then.
+	 */
+	private void deferModelObjects(ISynchronizeModelElement node) {
+		IResource resource = node.getResource();
+		if (resource != null && resource.getType() != IResource.FILE && getSyncInfoTree().hasMembers(resource)) {
+			pendingNodes.add(node);
+			propogateConflictState(node, false);
+		}
+	}
+
+	@Override
+	public void prepareChildren(ISynchronizeModelElement element) {
+		if (!pendingNodes.remove(element))
+			return;
+		// The viewer obtains the new children from the content provider so they are not added to it
+		boolean wasPreparing = preparingChildren;
+		preparingChildren = true;
+		try {
+			buildModelObjects(element);
+		} finally {
+			preparingChildren = wasPreparing;
+		}
+	}
+
+	@Override
+	public boolean hasPendingChildren(ISynchronizeModelElement element) {
+		return pendingNodes.contains(element) && getSyncInfoTree().hasMembers(element.getResource());
+	}
+
+	@Override
+	protected void doAdd(ISynchronizeModelElement parent, ISynchronizeModelElement element) {
+		if (!preparingChildren) {
+			super.doAdd(parent, element);
+		}
+	}
+
+	@Override
+	protected ISynchronizeModelElement[] getModelObjects(IResource resource) {
+		// The resource is being revealed so build the nodes on the path to it
+		if (isBuildOnDemand()) {
+			prepareAncestors(resource);
+		}
+		return super.getModelObjects(resource);
+	}
+
+	private void prepareAncestors(IResource resource) {
+		IResource parent = resource.getParent();
+		if (parent == null || getModelObject(resource) != null)
+			return;
+		prepareAncestors(parent);
+		ISynchronizeModelElement parentNode = getModelObject(parent);
+		if (parentNode != null) {
+			prepareChildren(parentNode);
+		}
+	}
+
+	@Override
+	protected boolean isConflicting(ISynchronizeModelElement element) {
+		if (super.isConflicting(element))
+			return true;
+		return pendingNodes.contains(element) && getSyncInfoTree().hasConflicts(element.getResource());
+	}
+
+	/*
+	 * Changes to resources that are not built yet are reflected
+	 * in the conflict state of their closest pending ancestor.
+	 */
+	private void updatePendingAncestor(IResource resource) {
+		if (getModelObject(resource) != null)
+			return;
+		IResource parent = resource.getParent();
+		while (parent != null) {
+			ISynchronizeModelElement node = getModelObject(parent);
+			if (node != null) {
+				if (pendingNodes.contains(node)) {
+					propogateConflictState(node, false);
+				}
+				return;
+			}
+			parent = parent.getParent();
+		}
+	}
+
+	@Override
+	protected void recursiveClearModelObjects(ISynchronizeModelElement node) {
+		super.recursiveClearModelObjects(node);
+		if (node == getModelRoot()) {
+			pendingNodes.clear();
+		} else {
+			pendingNodes.remove(node);
+		}
+	}
+
+	@Override
+	protected void handleResourceChanges(ISyncInfoTreeChangeEvent event) {
+		super.handleResourceChanges(event);
+		if (isBuildOnDemand()) {
+			SyncInfo[] infos = event.getChangedResources();
+			for (int i = 0; i < infos.length; i++) {
+				updatePendingAncestor(infos[i].getLocal());
+			}
+		}
+	}
+
 	@Override
 	protected void handleResourceAdditions(ISyncInfoTreeChangeEvent event) {
 		SyncInfo[] infos = event.getAddedResources();
@@ -210,6 +343,11 @@ public class HierarchicalModelProvider extends SynchronizeModelProvider {
 				}
 			}
 		}
+		if (isBuildOnDemand()) {
+			for (int i = 0; i < removedResources.length; i++) {
+				updatePendingAncestor(removedResources[i]);
+			}
+		}
 	}
 
     @Override
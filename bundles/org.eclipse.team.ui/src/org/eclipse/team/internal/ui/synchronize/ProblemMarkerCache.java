@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ui.synchronize;
+
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.internal.core.TeamPlugin;
+import org.eclipse.team.ui.synchronize.ISynchronizeModelElement;
+
+/**
+ * Counts the error and warning problem markers of the resources of the
+ * projects that are shown in a synchronize model. For each resource the
+ * cache keeps the counts of the markers on the resource itself, on the
+ * resource and its children and on the resource and all its descendants so
+ * that the propagated marker property of a model element can be determined
+ * without searching for markers.
+ * <p>
+ * The markers of a project are counted when the project is first queried.
+ * Afterwards, the counts are updated from the marker deltas of resource
+ * change events, which only requires walking up the ancestors of each
+ * changed marker. The severity of each counted marker is remembered so that
+ * the deltas can be applied whether or not they were already reflected
+ * when the project was counted.
+ */
+public class ProblemMarkerCache {
+
+	private static final int ERRORS = 0;
+	private static final int WARNINGS = 1;
+
+	/*
+	 * The severity and resource of a counted marker
+	 */
+	private static class MarkerInfo {
+		final IResource resource;
+		final int severity;
+		MarkerInfo(IResource resource, int severity) {
+			this.resource = resource;
+			this.severity = severity;
+		}
+	}
+
+	// Counts for markers on the resource itself
+	private final Map<IResource, int[]> resourceCounts = new HashMap<>();
+	// Counts for markers on the resource and its children
+	private final Map<IResource, int[]> childCounts = new HashMap<>();
+	// Counts for markers on the resource and all its descendants
+	private final Map<IResource, int[]> subtreeCounts = new HashMap<>();
+	private final Map<Long, MarkerInfo> markers = new HashMap<>();
+	private final Set<IProject> countedProjects = new HashSet<>();
+
+	/**
+	 * Return the marker property that should be shown for the given resource
+	 * when the markers of the resource to the given depth are considered.
+	 * @param resource the resource
+	 * @param depth the depth (one of <code>IResource.DEPTH_ZERO</code>,
+	 * <code>IResource.DEPTH_ONE</code> or <code>IResource.DEPTH_INFINITE</code>)
+	 * @return {@link ISynchronizeModelElement#PROPAGATED_ERROR_MARKER_PROPERTY},
+	 * {@link ISynchronizeModelElement#PROPAGATED_WARNING_MARKER_PROPERTY}
+	 * or <code>null</code>
+	 */
+	public synchronized String getMarkerProperty(IResource resource, int depth) {
+		int errors = 0;
+		int warnings = 0;
+		if (resource.getType() == IResource.ROOT) {
+			IProject[] projects = ((IWorkspaceRoot) resource).getProjects();
+			for (int i = 0; i < projects.length; i++) {
+				if (depth == IResource.DEPTH_INFINITE) {
+					int[] counts = getCounts(projects[i], subtreeCounts);
+					errors += counts[ERRORS];
+					warnings += counts[WARNINGS];
+				} else if (depth == IResource.DEPTH_ONE) {
+					int[] counts = getCounts(projects[i], resourceCounts);
+					errors += counts[ERRORS];
+					warnings += counts[WARNINGS];
+				}
+			}
+		} else {
+			Map<IResource, int[]> map;
+			switch (depth) {
+			case IResource.DEPTH_INFINITE:
+				map = subtreeCounts;
+				break;
+			case IResource.DEPTH_ONE:
+				map = childCounts;
+				break;
+			default:
+				map = resourceCounts;
+				break;
+			}
+			int[] counts = getCounts(resource, map);
+			errors = counts[ERRORS];
+			warnings = counts[WARNINGS];
+		}
+		if (errors > 0)
+			return ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY;
+		if (warnings > 0)
+			return ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY;
+		return null;
+	}
+
+	private int[] getCounts(IResource resource, Map<IResource, int[]> map) {
+		IProject project = resource.getProject();
+		if (!countedProjects.contains(project))
+			countMarkers(project);
+		int[] counts = map.get(resource);
+		return counts != null ? counts : new int[2];
+	}
+
+	/*
+	 * Count the markers of a project that has not been counted yet.
+	 */
+	private void countMarkers(IProject project) {
+		if (!project.isAccessible())
+			return;
+		countedProjects.add(project);
+		try {
+			IMarker[] projectMarkers = project.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+			for (int i = 0; i < projectMarkers.length; i++) {
+				IMarker marker = projectMarkers[i];
+				setSeverity(marker.getId(), marker.getResource(), marker.getAttribute(IMarker.SEVERITY, -1));
+			}
+		} catch (CoreException e) {
+			// If the project exists (is accessible), log the exception and continue.
+			// Otherwise, just ignore the exception
+			if (project.isAccessible())
+				TeamPlugin.log(e);
+		}
+	}
+
+	/**
+	 * Update the counts from the marker deltas of the given event.
+	 * @param event a resource change event
+	 */
+	public synchronized void update(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta != null) {
+			// Projects that are closed, opened or removed are counted again when queried
+			IResourceDelta[] projectDeltas = delta.getAffectedChildren();
+			for (int i = 0; i < projectDeltas.length; i++) {
+				IResourceDelta projectDelta = projectDeltas[i];
+				if (projectDelta.getKind() == IResourceDelta.REMOVED
+						|| (projectDelta.getFlags() & IResourceDelta.OPEN) != 0) {
+					forget((IProject) projectDelta.getResource());
+				}
+			}
+		}
+		IMarkerDelta[] markerDeltas = event.findMarkerDeltas(IMarker.PROBLEM, true);
+		for (int i = 0; i < markerDeltas.length; i++) {
+			IMarkerDelta markerDelta = markerDeltas[i];
+			IResource resource = markerDelta.getResource();
+			if (!countedProjects.contains(resource.getProject()))
+				continue;
+			switch (markerDelta.getKind()) {
+			case IResourceDelta.ADDED:
+				setSeverity(markerDelta.getId(), resource, markerDelta.getAttribute(IMarker.SEVERITY, -1));
+				break;
+			case IResourceDelta.REMOVED:
+				setSeverity(markerDelta.getId(), resource, -1);
+				break;
+			case IResourceDelta.CHANGED:
+				// The delta holds the old attributes
+				setSeverity(markerDelta.getId(), resource, markerDelta.getMarker().getAttribute(IMarker.SEVERITY, -1));
+				break;
+			}
+		}
+	}
+
+	/*
+	 * Record the severity of the marker with the given id, updating the counts
+	 * if it differs from the recorded one. A severity of -1 removes the marker.
+	 */
+	private void setSeverity(long id, IResource resource, int severity) {
+		Long key = Long.valueOf(id);
+		MarkerInfo info = markers.get(key);
+		int oldSeverity = info == null ? -1 : info.severity;
+		if (oldSeverity == severity)
+			return;
+		if (info != null)
+			addCount(info.resource, oldSeverity, -1);
+		if (severity == -1) {
+			markers.remove(key);
+		} else {
+			markers.put(key, new MarkerInfo(resource, severity));
+			addCount(resource, severity, 1);
+		}
+	}
+
+	private void addCount(IResource resource, int severity, int increment) {
+		int index;
+		if (severity == IMarker.SEVERITY_ERROR)
+			index = ERRORS;
+		else if (severity == IMarker.SEVERITY_WARNING)
+			index = WARNINGS;
+		else
+			return;
+		addCount(resourceCounts, resource, index, increment);
+		addCount(childCounts, resource, index, increment);
+		IResource parent = resource.getParent();
+		if (parent != null && parent.getType() != IResource.ROOT)
+			addCount(childCounts, parent, index, increment);
+		IResource current = resource;
+		while (current != null && current.getType() != IResource.ROOT) {
+			addCount(subtreeCounts, current, index, increment);
+			current = current.getParent();
+		}
+	}
+
+	private void addCount(Map<IResource, int[]> map, IResource resource, int index, int increment) {
+		int[] counts = map.get(resource);
+		if (counts == null) {
+			counts = new int[2];
+			map.put(resource, counts);
+		}
+		counts[index] += increment;
+		if (counts[ERRORS] == 0 && counts[WARNINGS] == 0)
+			map.remove(resource);
+	}
+
+	private void forget(IProject project) {
+		if (!countedProjects.remove(project))
+			return;
+		for (Iterator<MarkerInfo> iter = markers.values().iterator(); iter.hasNext();) {
+			if (iter.next().resource.getProject().equals(project))
+				iter.remove();
+		}
+		removeProject(resourceCounts, project);
+		removeProject(childCounts, project);
+		removeProject(subtreeCounts, project);
+	}
+
+	private void removeProject(Map<IResource, int[]> map, IProject project) {
+		for (Iterator<IResource> iter = map.keySet().iterator(); iter.hasNext();) {
+			if (iter.next().getProject().equals(project))
+				iter.remove();
+		}
+	}
+
+	/**
+	 * Discard all counts.
+	 */
+	public synchronized void clear() {
+		resourceCounts.clear();
+		childCounts.clear();
+		subtreeCounts.clear();
+		markers.clear();
+		countedProjects.clear();
+	}
+}
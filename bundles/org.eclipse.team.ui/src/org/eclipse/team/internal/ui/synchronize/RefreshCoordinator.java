@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ui.synchronize;
+
+import java.util.*;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.mapping.ResourceTraversal;
+import org.eclipse.team.core.subscribers.Subscriber;
+
+/**
+ * Coordinates the refreshes of the participants that share a subscriber.
+ * Several participants (e.g. a workspace participant and a participant on
+ * one of the projects) may refresh the same resources with the same
+ * subscriber. The coordinator remembers the resources that were recently
+ * refreshed with each subscriber so that a refresh whose resources are
+ * covered by a refresh that started after it was requested (or, for a
+ * scheduled refresh, that started within the reuse window) can reuse the
+ * result instead of contacting the server again.
+ * <p>
+ * The coordinator also staggers the delays of scheduled refreshes so that
+ * the scheduled refreshes of several participants, and of several clients
+ * of the same server, do not all start at the same moment.
+ */
+public class RefreshCoordinator {
+
+	/**
+	 * The time in milliseconds during which a completed refresh is reused
+	 * by the scheduled refreshes of other participants
+	 */
+	public static final long REUSE_WINDOW = 5 * 60 * 1000;
+
+	// The time after which a completed refresh is forgotten
+	private static final long MAX_AGE = 60 * 60 * 1000;
+	private static final long MIN_STAGGER = 30 * 1000;
+	private static final long MAX_STAGGER = 5 * 60 * 1000;
+
+	private static RefreshCoordinator instance;
+
+	/*
+	 * A resource that was refreshed to a depth by a refresh that started at a time
+	 */
+	private static class RefreshedResource {
+		final IResource resource;
+		final int depth;
+		final long startTime;
+		RefreshedResource(IResource resource, int depth, long startTime) {
+			this.resource = resource;
+			this.depth = depth;
+			this.startTime = startTime;
+		}
+		boolean covers(IResource other, int otherDepth) {
+			// The depth is irrelevant for files
+			if (other.getType() == IResource.FILE)
+				otherDepth = IResource.DEPTH_ZERO;
+			if (resource.equals(other))
+				return depth >= otherDepth;
+			switch (depth) {
+			case IResource.DEPTH_INFINITE:
+				return resource.getFullPath().isPrefixOf(other.getFullPath());
+			case IResource.DEPTH_ONE:
+				return otherDepth == IResource.DEPTH_ZERO && resource.equals(other.getParent());
+			default:
+				return false;
+			}
+		}
+	}
+
+	private final Map<Subscriber, List<RefreshedResource>> refreshed = new WeakHashMap<>();
+	private final Random random = new Random();
+
+	/**
+	 * Return the coordinator that is shared by all refresh jobs.
+	 * @return the refresh coordinator
+	 */
+	public static synchronized RefreshCoordinator getInstance() {
+		if (instance == null)
+			instance = new RefreshCoordinator();
+		return instance;
+	}
+
+	/**
+	 * Record that the given traversals were refreshed successfully with the
+	 * given subscriber by a refresh that started at the given time.
+	 * @param subscriber the subscriber
+	 * @param traversals the refreshed traversals
+	 * @param startTime the time in milliseconds at which the refresh started
+	 */
+	public synchronized void refreshed(Subscriber subscriber, ResourceTraversal[] traversals, long startTime) {
+		List<RefreshedResource> resources = refreshed.get(subscriber);
+		if (resources == null) {
+			resources = new ArrayList<>();
+			refreshed.put(subscriber, resources);
+		}
+		long now = System.currentTimeMillis();
+		for (Iterator<RefreshedResource> iter = resources.iterator(); iter.hasNext();) {
+			if (now - iter.next().startTime > MAX_AGE)
+				iter.remove();
+		}
+		for (int i = 0; i < traversals.length; i++) {
+			ResourceTraversal traversal = traversals[i];
+			IResource[] traversalResources = traversal.getResources();
+			for (int j = 0; j < traversalResources.length; j++) {
+				resources.add(new RefreshedResource(traversalResources[j], traversal.getDepth(), startTime));
+			}
+		}
+	}
+
+	/**
+	 * Return whether all the resources of the given traversals were refreshed
+	 * with the given subscriber by refreshes that started at or after the
+	 * given time.
+	 * @param subscriber the subscriber
+	 * @param traversals the traversals to be refreshed
+	 * @param since the time in milliseconds
+	 * @return whether the refresh of the traversals can be skipped
+	 */
+	public synchronized boolean isRefreshed(Subscriber subscriber, ResourceTraversal[] traversals, long since) {
+		List<RefreshedResource> resources = refreshed.get(subscriber);
+		if (resources == null || traversals.length == 0)
+			return false;
+		for (int i = 0; i < traversals.length; i++) {
+			ResourceTraversal traversal = traversals[i];
+			IResource[] traversalResources = traversal.getResources();
+			for (int j = 0; j < traversalResources.length; j++) {
+				if (!isRefreshed(resources, traversalResources[j], traversal.getDepth(), since))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isRefreshed(List<RefreshedResource> resources, IResource resource, int depth, long since) {
+		for (RefreshedResource refreshedResource : resources) {
+			if (refreshedResource.startTime >= since && refreshedResource.covers(resource, depth))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the given schedule delay extended by a random amount of up to a
+	 * tenth of the delay, bounded by half a minute and five minutes. A delay
+	 * of zero, which requests an immediate refresh, is returned unchanged.
+	 * @param delay the delay in milliseconds
+	 * @return the staggered delay in milliseconds
+	 */
+	public long getStaggeredDelay(long delay) {
+		if (delay <= 0)
+			return delay;
+		long range = Math.min(MAX_STAGGER, Math.max(MIN_STAGGER, delay / 10));
+		synchronized (random) {
+			return delay + (long) (random.nextDouble() * range);
+		}
+	}
+}
@@ -15,12 +15,15 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.core.resources.mapping.ResourceMapping;
+import org.eclipse.core.resources.mapping.ResourceTraversal;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.team.core.diff.*;
-import org.eclipse.team.core.mapping.IResourceDiffTree;
-import org.eclipse.team.core.mapping.ISynchronizationContext;
+import org.eclipse.team.core.mapping.*;
+import org.eclipse.team.core.subscribers.Subscriber;
+import org.eclipse.team.internal.core.mapping.CompoundResourceTraversal;
 import org.eclipse.team.internal.core.mapping.GroupProgressMonitor;
+import org.eclipse.team.internal.core.subscribers.SubscriberDiffTreeEventHandler;
 import org.eclipse.team.ui.synchronize.ISynchronizeParticipant;
 import org.eclipse.team.ui.synchronize.ModelSynchronizeParticipant;
 
@@ -82,6 +85,64 @@ public class RefreshModelParticipantJob extends RefreshParticipantJob {
 		}
 	}
 
+	@Override
+	protected Subscriber getRefreshSubscriber() {
+		SubscriberDiffTreeEventHandler handler = getHandler();
+		if (handler != null)
+			return handler.getSubscriber();
+		return null;
+	}
+
+	@Override
+	protected ResourceTraversal[] getRefreshTraversals() {
+		ISynchronizationScope scope = ((ModelSynchronizeParticipant)getParticipant()).getContext().getScope();
+		CompoundResourceTraversal result = new CompoundResourceTraversal();
+		for (int i = 0; i < mappings.length; i++) {
+			ResourceTraversal[] traversals = scope.getTraversals(mappings[i]);
+			// Mappings that are not in the scope yet are not coordinated
+			if (traversals == null)
+				return null;
+			result.addTraversals(traversals);
+		}
+		return result.asTraversals();
+	}
+
+	@Override
+	protected void doReuseRefresh(IChangeDescription changeListener, IProgressMonitor monitor) {
+		ISynchronizationContext context = ((ModelSynchronizeParticipant)getParticipant()).getContext();
+		SubscriberDiffTreeEventHandler handler = getHandler();
+		if (handler != null)
+			handler.initializeIfNeeded();
+		// Wait for the changes found by the other refresh to be collected
+		try {
+			Job.getJobManager().join(context, monitor);
+		} catch (InterruptedException e) {
+			// Ignore
+		}
+		// A refresh only changes the remote state so report the incoming changes of the mappings
+		ResourceTraversal[] traversals = getRefreshTraversals();
+		if (traversals == null)
+			return;
+		IDiff[] diffs = context.getDiffTree().getDiffs(traversals);
+		Map<IPath, IDiff> changes = ((ChangeDescription)changeListener).changes;
+		for (int i = 0; i < diffs.length; i++) {
+			IDiff diff = diffs[i];
+			if (isIncoming(context, diff))
+				changes.put(diff.getPath(), diff);
+		}
+	}
+
+	private boolean isIncoming(ISynchronizationContext context, IDiff diff) {
+		if (context.getType() == ISynchronizationContext.TWO_WAY || !(diff instanceof IThreeWayDiff))
+			return true;
+		int direction = ((IThreeWayDiff)diff).getDirection();
+		return direction == IThreeWayDiff.INCOMING || direction == IThreeWayDiff.CONFLICTING;
+	}
+
+	private SubscriberDiffTreeEventHandler getHandler() {
+		return Adapters.adapt(((ModelSynchronizeParticipant)getParticipant()).getContext(), SubscriberDiffTreeEventHandler.class);
+	}
+
 	@Override
 	protected int getChangeCount() {
 		return ((ModelSynchronizeParticipant)getParticipant()).getContext().getDiffTree().size();
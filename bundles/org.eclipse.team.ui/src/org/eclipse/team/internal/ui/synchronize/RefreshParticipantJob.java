@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.mapping.ResourceTraversal;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.*;
 import org.eclipse.jface.action.IAction;
@@ -73,6 +74,11 @@ public abstract class RefreshParticipantJob extends Job {
 	 */
 	private String taskName;
 
+	/**
+	 * The time at which the last run of this job was requested.
+	 */
+	private volatile long requestTime;
+
 	/**
 	 * Refresh started/completed listener for every refresh
 	 */
@@ -236,6 +242,10 @@ public abstract class RefreshParticipantJob extends Job {
 
 		// Handle restarting of job if it is configured as a scheduled refresh job.
 		addJobChangeListener(new JobChangeAdapter() {
+			@Override
+			public void scheduled(IJobChangeEvent event) {
+				requestTime = System.currentTimeMillis() + event.getDelay();
+			}
 			@Override
 			public void done(IJobChangeEvent event) {
 				if(shouldReschedule()) {
@@ -243,7 +253,7 @@ public abstract class RefreshParticipantJob extends Job {
 					if(result.getSeverity() == IStatus.CANCEL && ! restartOnCancel) {
 						return;
 					}
-					long delay = scheduleDelay;
+					long delay = RefreshCoordinator.getInstance().getStaggeredDelay(scheduleDelay);
 					if (result == POSTPONED) {
 						// Restart in 5 seconds
 						delay = 5000;
@@ -313,7 +323,16 @@ public abstract class RefreshParticipantJob extends Job {
 				// Perform the refresh
 				monitor.setTaskName(getName());
 				wrappedMonitor = new NonblockingProgressMonitor(monitor, this);
-				doRefresh(changeDescription, wrappedMonitor);
+				Subscriber subscriber = getRefreshSubscriber();
+				ResourceTraversal[] traversals = subscriber == null ? null : getRefreshTraversals();
+				if (traversals != null && isRefreshed(subscriber, traversals)) {
+					// A refresh of another participant already covered the resources
+					doReuseRefresh(changeDescription, wrappedMonitor);
+				} else {
+					doRefresh(changeDescription, wrappedMonitor);
+					if (traversals != null)
+						RefreshCoordinator.getInstance().refreshed(subscriber, traversals, event.getStartTime());
+				}
 				// Prepare the results
 				setProperty(IProgressConstants.KEEPONE_PROPERTY, Boolean.valueOf(! isJobModal()));
 			} catch(OperationCanceledException e2) {
@@ -369,6 +388,48 @@ public abstract class RefreshParticipantJob extends Job {
 
 	protected abstract void doRefresh(IChangeDescription changeListener, IProgressMonitor monitor) throws CoreException;
 
+	/**
+	 * Return the subscriber that is refreshed by this job or <code>null</code>
+	 * if the refresh is not coordinated with the refreshes of other participants.
+	 * @return the subscriber that is refreshed by this job or <code>null</code>
+	 */
+	protected Subscriber getRefreshSubscriber() {
+		return null;
+	}
+
+	/**
+	 * Return the traversals that are refreshed by this job or <code>null</code>
+	 * if the refresh is not coordinated with the refreshes of other participants.
+	 * @return the traversals that are refreshed by this job or <code>null</code>
+	 */
+	protected ResourceTraversal[] getRefreshTraversals() {
+		return null;
+	}
+
+	/**
+	 * Called instead of {@link #doRefresh(IChangeDescription, IProgressMonitor)}
+	 * when the resources of this job were already refreshed by the refresh of
+	 * another participant. Subclasses must wait until the results of that
+	 * refresh are available to the participant and then add the changes of
+	 * the participant that a refresh would have reported to the change
+	 * description so that the results are reported as for a regular refresh.
+	 * @param changeDescription the change description of this refresh
+	 * @param monitor a progress monitor
+	 * @throws CoreException
+	 */
+	protected abstract void doReuseRefresh(IChangeDescription changeDescription, IProgressMonitor monitor) throws CoreException;
+
+	/*
+	 * A user refresh only reuses refreshes that started after it was requested
+	 * while a scheduled refresh also reuses those of the recent past.
+	 */
+	private boolean isRefreshed(Subscriber subscriber, ResourceTraversal[] traversals) {
+		long since = requestTime;
+		if (reschedule)
+			since = Math.min(since, System.currentTimeMillis() - RefreshCoordinator.REUSE_WINDOW);
+		return RefreshCoordinator.getInstance().isRefreshed(subscriber, traversals, since);
+	}
+
 	/**
 	 * Return the total number of changes covered by the resources
 	 * of this job.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2009 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,10 +11,16 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ui.synchronize;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.mapping.ResourceTraversal;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.subscribers.ISubscriberChangeEvent;
 import org.eclipse.team.core.subscribers.Subscriber;
+import org.eclipse.team.core.subscribers.SubscriberChangeEvent;
 import org.eclipse.team.core.synchronize.SyncInfo;
 import org.eclipse.team.core.synchronize.SyncInfoTree;
 import org.eclipse.team.internal.core.subscribers.SubscriberSyncInfoCollector;
@@ -115,6 +121,31 @@ public class RefreshSubscriberParticipantJob extends RefreshParticipantJob {
 		return super.belongsTo(family);
 	}
 
+	@Override
+	protected Subscriber getRefreshSubscriber() {
+		return getSubscriber();
+	}
+
+	@Override
+	protected ResourceTraversal[] getRefreshTraversals() {
+		return new ResourceTraversal[] { new ResourceTraversal(resources, IResource.DEPTH_INFINITE, IResource.NONE) };
+	}
+
+	@Override
+	protected void doReuseRefresh(IChangeDescription changeListener, IProgressMonitor monitor) {
+		getCollector().waitForCollector(monitor);
+		// The changes found by the other refresh are among the current out-of-sync resources
+		SyncInfoTree set = getCollector().getSyncInfoSet();
+		List<ISubscriberChangeEvent> changes = new ArrayList<>();
+		for (int i = 0; i < resources.length; i++) {
+			SyncInfo[] infos = set.getSyncInfos(resources[i], IResource.DEPTH_INFINITE);
+			for (int j = 0; j < infos.length; j++) {
+				changes.add(new SubscriberChangeEvent(getSubscriber(), ISubscriberChangeEvent.SYNC_CHANGED, infos[j].getLocal()));
+			}
+		}
+		((RefreshChangeListener)changeListener).subscriberResourceChanged(changes.toArray(new ISubscriberChangeEvent[changes.size()]));
+	}
+
 	@Override
 	protected void doRefresh(IChangeDescription changeListener, IProgressMonitor monitor) throws TeamException {
 		Subscriber subscriber = getSubscriber();
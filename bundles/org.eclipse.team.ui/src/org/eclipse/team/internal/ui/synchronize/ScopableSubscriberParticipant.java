@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -49,6 +49,19 @@ public abstract class ScopableSubscriberParticipant extends SubscriberParticipan
 		}
 	}
 
+	/**
+	 * Return the id under which the out-of-sync resources of this participant
+	 * are persisted between sessions or <code>null</code> if they are not.
+	 * The id must identify the configuration of the subscriber of the participant
+	 * and be stable between sessions. Short lived participants should not persist
+	 * their state. This is called when the subscriber is set and returns
+	 * <code>null</code> by default.
+	 * @return the snapshot id or <code>null</code>
+	 */
+	public String getSnapshotId() {
+		return null;
+	}
+
 	/**
 	 * Return the descriptor for this participant
 	 * @return the descriptor for this participant
@@ -151,11 +151,9 @@ public class SubscriberRefreshSchedule {
 		job.setRefreshInterval(getRefreshInterval());
 		job.setRestartOnCancel(true);
 		job.setReschedule(!runOnce);
-		if (refreshStart != null) {
-			job.schedule(getJobDelay());
-		} else {
-			job.schedule();
-		}
+		// Stagger a delayed start so that the scheduled refreshes of several participants do not coincide
+		long delay = refreshStart != null ? getJobDelay() : 0;
+		job.schedule(RefreshCoordinator.getInstance().getStaggeredDelay(delay));
 	}
 
 	/**
@@ -38,6 +38,8 @@ public class SyncInfoModelElement extends SynchronizeModelElement {
 
 	private ITypedElement ancestor;
 	private SyncInfo info;
+	// The typed elements of the sides are created when they are first accessed
+	private boolean typedElementsCreated;
 
 	/**
 	 * Construct a <code>SyncInfoModelElement</code> for the given resource.
@@ -52,14 +54,25 @@ public class SyncInfoModelElement extends SynchronizeModelElement {
 		this.info = info;
 		// update state
 		setKind(info.getKind());
+
+		fireChange();
+	}
+
+	/*
+	 * Create the typed elements of the sides if they have not been created yet.
+	 * Most elements of a large model are never compared so the typed elements
+	 * (and the encoding lookups they require) are only created on demand.
+	 */
+	private void createTypedElements() {
+		if (typedElementsCreated)
+			return;
+		typedElementsCreated = true;
 		// local
-		setLeft(createLocalTypeElement(info));
+		super.setLeft(createLocalTypeElement(info));
 		// remote
-		setRight(createRemoteTypeElement(info));
+		super.setRight(createRemoteTypeElement(info));
 		// base
-		setAncestor(createBaseTypeElement(info));
-
-		fireChange();
+		this.ancestor = createBaseTypeElement(info);
 	}
 
 	/**
@@ -72,6 +85,11 @@ public class SyncInfoModelElement extends SynchronizeModelElement {
 		this.info = info;
 		// update state
 		setKind(info.getKind());
+		if (!typedElementsCreated) {
+			// The typed elements will be created from the new sync info
+			fireChange();
+			return;
+		}
 
 		// Remote
 		RemoteResourceTypedElement rightEl = (RemoteResourceTypedElement)getRight();
@@ -118,14 +136,46 @@ public class SyncInfoModelElement extends SynchronizeModelElement {
 	 */
 	@Override
 	public void setAncestor(ITypedElement ancestor) {
+		createTypedElements();
 		this.ancestor = ancestor;
 	}
 
 	@Override
 	public ITypedElement getAncestor() {
+		createTypedElements();
 		return this.ancestor;
 	}
 
+	@Override
+	public void setLeft(ITypedElement left) {
+		createTypedElements();
+		super.setLeft(left);
+	}
+
+	@Override
+	public ITypedElement getLeft() {
+		createTypedElements();
+		return super.getLeft();
+	}
+
+	@Override
+	public void setRight(ITypedElement right) {
+		createTypedElements();
+		super.setRight(right);
+	}
+
+	@Override
+	public ITypedElement getRight() {
+		createTypedElements();
+		return super.getRight();
+	}
+
+	@Override
+	public ITypedElement getId() {
+		createTypedElements();
+		return super.getId();
+	}
+
 	@Override
 	public String getName() {
 		IResource resource = getResource();
@@ -12,11 +12,13 @@ package org.eclipse.team.internal.ui.synchronize;
 
 import com.ibm.icu.text.DateFormat;
 import com.ibm.icu.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,6 +27,7 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.viewers.AbstractTreeViewer;
 import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.swt.SWTException;
 import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.team.core.ITeamStatus;
@@ -50,6 +53,8 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
 	private AbstractSynchronizeModelProvider provider;
 
+	private final ProblemMarkerCache problemMarkerCache = new ProblemMarkerCache();
+
 	private Set<ISynchronizeModelElement> pendingLabelUpdates = Collections.synchronizedSet(new HashSet<>());
 
 	// Flag to indicate the need for an early dispath in order to show
@@ -58,6 +63,13 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
 	private static final int EARLY_DISPATCH_INCREMENT = 100;
 
+	// Number of additions to a parent above which the parent is refreshed
+	// instead of having the children added to the viewer one by one
+	private static final int REFRESH_THRESHOLD = 50;
+
+	// Sync info set changes that are applied together when events are dispatched
+	private final List<ISyncInfoSetChangeEvent> pendingSyncChanges = new ArrayList<>();
+
 	/**
 	 * Custom event for posting marker changes
 	 */
@@ -121,6 +133,11 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
      */
     private Map<ISynchronizeModelElement, Set<ISynchronizeModelElement>> additionsMap;
 
+    /*
+     * Set used to keep track of removals so they can be removed in batch at the end of the update
+     */
+    private Set<ISynchronizeModelElement> removals;
+
 	/**
      * Create the marker update handler.
      */
@@ -131,6 +148,14 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
         provider.getSyncInfoSet().addSyncSetChangedListener(this);
     }
 
+    /**
+     * Return the cache of the problem markers of the resources in the model.
+     * @return the problem marker cache
+     */
+    public ProblemMarkerCache getProblemMarkerCache() {
+        return problemMarkerCache;
+    }
+
     /**
      * Return the marker types that are of interest to this handler.
      * @return the marker types that are of interest to this handler
@@ -150,6 +175,8 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
 	@Override
 	public void resourceChanged(final IResourceChangeEvent event) {
+			// Update the counts before the elements are queued for recalculation
+			problemMarkerCache.update(event);
 			String[] markerTypes = getMarkerTypes();
 			Set<IResource> handledResources = new HashSet<>();
 			Set<ISynchronizeModelElement> changes = new HashSet<>();
@@ -218,18 +245,27 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
             }
             break;
         case RESET:
-            // Perform the reset immediately
+            // Perform the reset immediately. The reset rebuilds the model
+            // from the set so any pending changes are obsolete
             pendingLabelUpdates.clear();
+            pendingSyncChanges.clear();
             provider.reset();
             break;
         case SYNC_INFO_SET_CHANGED:
-            // Handle the sync change immediately
-            handleChanges(((SyncInfoSetChangeEvent)event).getEvent(), monitor);
+            // Accumulate the sync changes so they update the view together
+            pendingSyncChanges.add(((SyncInfoSetChangeEvent)event).getEvent());
+            break;
         default:
             break;
         }
     }
 
+    @Override
+	protected boolean isCoalescable(Event event) {
+        // Consecutive resets of the model are redundant
+        return event.getType() == RESET && event instanceof ResourceEvent;
+    }
+
     private ISynchronizeModelElement[] getChangedElements(Event event) {
         if (event.getType() == MARKERS_CHANGED) {
             return ((MarkerChangeEvent)event).getElements();
@@ -239,10 +275,17 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
     @Override
 	protected boolean doDispatchEvents(IProgressMonitor monitor) throws TeamException {
+        boolean dispatched = false;
+        if (!pendingSyncChanges.isEmpty()) {
+            ISyncInfoSetChangeEvent[] changes = pendingSyncChanges.toArray(new ISyncInfoSetChangeEvent[pendingSyncChanges.size()]);
+            pendingSyncChanges.clear();
+            handleChanges(changes, monitor);
+            dispatched = true;
+        }
 		// Fire label changed
         dispatchEarly = false;
         if (pendingLabelUpdates.isEmpty()) {
-            return false;
+            return dispatched;
         } else {
 			Utils.asyncExec((Runnable) () -> firePendingLabelUpdates(), getViewer());
 			return true;
@@ -255,9 +298,26 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 	 * should only be invoked in the UI thread.
 	 */
 	protected void firePendingLabelUpdates() {
+		firePendingLabelUpdates(Collections.<ISynchronizeModelElement>emptySet());
+	}
+
+	/*
+	 * Update the labels of the queued elements except for those in the given
+	 * subtrees, whose labels were updated when they were refreshed.
+	 */
+	private void firePendingLabelUpdates(Set<ISynchronizeModelElement> refreshedRoots) {
 		if (!Utils.canUpdateViewer(getViewer())) return;
 		try {
 			Object[] updates = pendingLabelUpdates.toArray(new Object[pendingLabelUpdates.size()]);
+			if (!refreshedRoots.isEmpty()) {
+				List<Object> remaining = new ArrayList<>();
+				for (int i = 0; i < updates.length; i++) {
+					if (!isInSubtree((ISynchronizeModelElement)updates[i], refreshedRoots)) {
+						remaining.add(updates[i]);
+					}
+				}
+				updates = remaining.toArray();
+			}
 			updateLabels(updates);
 		} finally {
 			pendingLabelUpdates.clear();
@@ -379,6 +439,7 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
         shutdown();
         ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
         provider.getSyncInfoSet().removeSyncSetChangedListener(this);
+        problemMarkerCache.clear();
     }
 
     @Override
@@ -470,12 +531,14 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
     }
 
     /*
-     * Handle the sync info set change event in the UI thread.
+     * Handle the sync info set change events in the UI thread. The viewer
+     * changes of all the events are applied together at the end of the update.
      */
-    private void handleChanges(final ISyncInfoSetChangeEvent event, final IProgressMonitor monitor) {
+    private void handleChanges(final ISyncInfoSetChangeEvent[] events, final IProgressMonitor monitor) {
         runViewUpdate(() -> {
-			provider.handleChanges((ISyncInfoTreeChangeEvent)event, monitor);
-			firePendingLabelUpdates();
+			for (int i = 0; i < events.length; i++) {
+				provider.handleChanges((ISyncInfoTreeChangeEvent)events[i], monitor);
+			}
 		}, true /* preserve expansion */);
     }
 
@@ -537,24 +600,20 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 		            expanded = provider.getExpandedResources();
 		            selected = provider.getSelectedResources();
 		        }
-                if (viewer instanceof AbstractTreeViewer && additionsMap == null)
+                if (viewer instanceof AbstractTreeViewer && additionsMap == null) {
                     additionsMap = new HashMap<>();
+                    removals = new HashSet<>();
+                }
 		    }
 			runnable.run();
 		} finally {
 		    if (Utils.canUpdateViewer(viewer)) {
                 try {
-                    if (additionsMap != null && !additionsMap.isEmpty() && Utils.canUpdateViewer(viewer)) {
-                        for (Iterator iter = additionsMap.keySet().iterator(); iter.hasNext();) {
-                            ISynchronizeModelElement parent = (ISynchronizeModelElement) iter.next();
-                            if (Policy.DEBUG_SYNC_MODELS) {
-                                System.out.println("Adding child view items of " + parent.getName()); //$NON-NLS-1$
-                            }
-                            Set<ISynchronizeModelElement> toAdd = additionsMap.get(parent);
-                            ((AbstractTreeViewer)viewer).add(parent, toAdd.toArray(new Object[toAdd.size()]));
-                        }
-                        additionsMap = null;
+                    Set<ISynchronizeModelElement> refreshedRoots = Collections.emptySet();
+                    if (additionsMap != null && Utils.canUpdateViewer(viewer)) {
+                        refreshedRoots = applyViewerChanges((AbstractTreeViewer)viewer);
                     }
+                    firePendingLabelUpdates(refreshedRoots);
     		        if (expanded != null) {
     		            provider.expandResources(expanded);
     		        }
@@ -670,6 +729,91 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 		}
 	}
 
+    /*
+     * Apply the additions and removals accumulated during a view update. The
+     * removals are made in one call. Parents with many additions are refreshed,
+     * once for each topmost affected subtree, instead of having each child added
+     * individually. Return the parents that were refreshed.
+     */
+    private Set<ISynchronizeModelElement> applyViewerChanges(AbstractTreeViewer viewer) {
+        Map<ISynchronizeModelElement, Set<ISynchronizeModelElement>> additions = additionsMap;
+        Set<ISynchronizeModelElement> removed = removals;
+        additionsMap = null;
+        removals = null;
+        if (!removed.isEmpty()) {
+            try {
+                viewer.remove(removed.toArray());
+            } catch (SWTException e) {
+                // The remove failed due to an SWT exception. Log it and continue
+                TeamUIPlugin.log(IStatus.ERROR, "An error occurred removing elements from the synchronize view", e); //$NON-NLS-1$
+            }
+        }
+        Set<ISynchronizeModelElement> refreshedRoots = new HashSet<>();
+        for (Iterator<Map.Entry<ISynchronizeModelElement, Set<ISynchronizeModelElement>>> iter = additions.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<ISynchronizeModelElement, Set<ISynchronizeModelElement>> entry = iter.next();
+            ISynchronizeModelElement parent = entry.getKey();
+            // Ignore additions to parents that were removed later in the update
+            if (!isInModel(parent)) {
+                iter.remove();
+            } else if (entry.getValue().size() > REFRESH_THRESHOLD) {
+                refreshedRoots.add(parent);
+            }
+        }
+        for (Iterator<Map.Entry<ISynchronizeModelElement, Set<ISynchronizeModelElement>>> iter = additions.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<ISynchronizeModelElement, Set<ISynchronizeModelElement>> entry = iter.next();
+            ISynchronizeModelElement parent = entry.getKey();
+            if (isInSubtree(parent, refreshedRoots))
+                continue;
+            List<ISynchronizeModelElement> toAdd = new ArrayList<>();
+            for (Iterator<ISynchronizeModelElement> children = entry.getValue().iterator(); children.hasNext();) {
+                ISynchronizeModelElement child = children.next();
+                if (child.getParent() == parent) {
+                    toAdd.add(child);
+                }
+            }
+            if (Policy.DEBUG_SYNC_MODELS) {
+                System.out.println("Adding child view items of " + parent.getName()); //$NON-NLS-1$
+            }
+            if (!toAdd.isEmpty())
+                viewer.add(parent, toAdd.toArray());
+        }
+        for (Iterator<ISynchronizeModelElement> iter = refreshedRoots.iterator(); iter.hasNext();) {
+            ISynchronizeModelElement parent = iter.next();
+            if (!isInSubtree((ISynchronizeModelElement)parent.getParent(), refreshedRoots)) {
+                if (Policy.DEBUG_SYNC_MODELS) {
+                    System.out.println("Refreshing view items of " + parent.getName()); //$NON-NLS-1$
+                }
+                viewer.refresh(parent);
+            }
+        }
+        return refreshedRoots;
+    }
+
+    /*
+     * Return whether the element is still attached to the model root
+     */
+    private boolean isInModel(ISynchronizeModelElement element) {
+        ISynchronizeModelElement root = provider.getModelRoot();
+        while (element != null) {
+            if (element == root)
+                return true;
+            element = (ISynchronizeModelElement)element.getParent();
+        }
+        return false;
+    }
+
+    /*
+     * Return whether the element is one of the given roots or a descendant of one
+     */
+    private boolean isInSubtree(ISynchronizeModelElement element, Set<ISynchronizeModelElement> roots) {
+        while (element != null) {
+            if (roots.contains(element))
+                return true;
+            element = (ISynchronizeModelElement)element.getParent();
+        }
+        return false;
+    }
+
     /**
      * Add the element to the viewer.
      * @param parent the parent of the element which is already added to the viewer
@@ -695,4 +839,29 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
             toAdd.add(element);
         }
     }
+
+    /**
+     * Remove the elements from the viewer. The removal is deferred to the end of
+     * the view update if one is in progress.
+     * @param elements the elements to be removed from the viewer
+     */
+    protected void doRemove(ISynchronizeModelElement[] elements) {
+        if (removals == null) {
+            AbstractTreeViewer viewer = (AbstractTreeViewer)getViewer();
+            try {
+                viewer.remove(elements);
+            } catch (SWTException e) {
+                // The remove failed due to an SWT exception. Log it and continue
+                TeamUIPlugin.log(IStatus.ERROR, "An error occurred removing elements from the synchronize view", e); //$NON-NLS-1$
+            }
+        } else {
+            // Accumulate the removals
+            Collections.addAll(removals, elements);
+        }
+        if (Policy.DEBUG_SYNC_MODELS) {
+            for (int i = 0; i < elements.length; i++) {
+                System.out.println("Removing view item " + elements[i].getName()); //$NON-NLS-1$
+            }
+        }
+    }
 }
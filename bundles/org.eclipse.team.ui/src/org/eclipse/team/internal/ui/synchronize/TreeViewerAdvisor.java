@@ -293,7 +293,34 @@ public class TreeViewerAdvisor extends AbstractTreeViewerAdvisor {
 	 * @return the content provider for the viewer.
 	 */
 	protected IStructuredContentProvider getContentProvider() {
-		return new BaseWorkbenchContentProvider();
+		return new BaseWorkbenchContentProvider() {
+			@Override
+			public Object[] getChildren(Object element) {
+				AbstractSynchronizeModelProvider provider = getActiveModelProvider();
+				if (provider != null && element instanceof ISynchronizeModelElement) {
+					// Allow the provider to build the children when they are first shown
+					provider.prepareChildren((ISynchronizeModelElement) element);
+				}
+				return super.getChildren(element);
+			}
+			@Override
+			public boolean hasChildren(Object element) {
+				AbstractSynchronizeModelProvider provider = getActiveModelProvider();
+				if (provider != null && element instanceof ISynchronizeModelElement
+						&& provider.hasPendingChildren((ISynchronizeModelElement) element)) {
+					return true;
+				}
+				return super.hasChildren(element);
+			}
+		};
+	}
+
+	private AbstractSynchronizeModelProvider getActiveModelProvider() {
+		ISynchronizeModelProvider provider = modelManager.getActiveModelProvider();
+		if (provider instanceof AbstractSynchronizeModelProvider) {
+			return (AbstractSynchronizeModelProvider) provider;
+		}
+		return null;
 	}
 
 	/**
@@ -447,6 +447,10 @@ public abstract class SubscriberParticipant extends AbstractSynchronizeParticipa
 			scope = new WorkspaceScope();
 		}
 		collector = new SubscriberSyncInfoCollector(subscriber, scope.getRoots());
+		if (this instanceof ScopableSubscriberParticipant) {
+			// Only participants that are restored between sessions persist their state
+			collector.setSnapshotId(((ScopableSubscriberParticipant) this).getSnapshotId());
+		}
 
 		// listen for global ignore changes
 		TeamUI.addPropertyChangeListener(this);
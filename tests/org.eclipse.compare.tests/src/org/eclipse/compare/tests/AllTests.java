@@ -38,6 +38,9 @@ public class AllTests {
 		suite.addTestSuite(CompareUIPluginTest.class);
 		suite.addTestSuite(StructureCreatorTest.class);
 		suite.addTestSuite(CompareFileRevisionEditorInputTest.class);
+		suite.addTestSuite(BinaryComparatorTest.class);
+		suite.addTestSuite(ZipFileStructureCreatorTest.class);
+		suite.addTestSuite(DocumentManagerTest.class);
 		// $JUnit-END$
 		return suite;
 	}
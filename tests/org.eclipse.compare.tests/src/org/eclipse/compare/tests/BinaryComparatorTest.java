@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.eclipse.compare.internal.BinaryComparator;
+import org.eclipse.compare.internal.BinaryComparator.Result;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import junit.framework.TestCase;
+
+public class BinaryComparatorTest extends TestCase {
+
+	private static final int SIZE= 3 * 1024 * 1024 + 17;
+
+	private static byte[] createContents() {
+		byte[] bytes= new byte[SIZE];
+		for (int i= 0; i < bytes.length; i++) {
+			bytes[i]= (byte) (i * 31);
+		}
+		return bytes;
+	}
+
+	private static Result compare(byte[] left, byte[] right, boolean summarize) throws IOException {
+		return BinaryComparator.compare(new ByteArrayInputStream(left), new ByteArrayInputStream(right), summarize, new NullProgressMonitor());
+	}
+
+	public void testIdentical() throws IOException {
+		Result result= compare(createContents(), createContents(), true);
+		assertTrue(result.isIdentical());
+		assertEquals(0, result.getRanges().length);
+		assertEquals(SIZE, result.getLeftLength());
+		assertEquals(SIZE, result.getRightLength());
+	}
+
+	public void testFirstDifference() throws IOException {
+		byte[] left= createContents();
+		byte[] right= createContents();
+		right[2 * 1024 * 1024 + 3]++;
+		right[SIZE - 1]++;
+		Result result= compare(left, right, false);
+		assertFalse(result.isIdentical());
+		assertEquals(2 * 1024 * 1024 + 3, result.getFirstDifference());
+		assertEquals(0, result.getRanges().length);
+	}
+
+	public void testSummary() throws IOException {
+		byte[] left= createContents();
+		byte[] right= createContents();
+		for (int i= 10; i < 20; i++)
+			right[i]++;
+		right[1024 * 1024 - 1]++;
+		right[1024 * 1024]++;
+		right[SIZE - 1]++;
+		Result result= compare(left, right, true);
+		assertEquals(10, result.getFirstDifference());
+		long[][] ranges= result.getRanges();
+		assertEquals(3, ranges.length);
+		assertEquals(10, ranges[0][0]);
+		assertEquals(20, ranges[0][1]);
+		// A range spanning the chunk boundary is reported once
+		assertEquals(1024 * 1024 - 1, ranges[1][0]);
+		assertEquals(1024 * 1024 + 1, ranges[1][1]);
+		assertEquals(SIZE - 1, ranges[2][0]);
+		assertEquals(SIZE, ranges[2][1]);
+		assertEquals(13, result.getDifferingBytes());
+		assertFalse(result.isTruncated());
+	}
+
+	public void testDifferentLengths() throws IOException {
+		byte[] left= createContents();
+		byte[] right= new byte[SIZE - 100];
+		System.arraycopy(left, 0, right, 0, right.length);
+		Result result= compare(left, right, false);
+		assertEquals(SIZE - 100, result.getFirstDifference());
+
+		result= compare(left, right, true);
+		assertEquals(SIZE - 100, result.getFirstDifference());
+		assertEquals(SIZE, result.getLeftLength());
+		assertEquals(SIZE - 100, result.getRightLength());
+		assertEquals(1, result.getRanges().length);
+		assertEquals(100, result.getDifferingBytes());
+	}
+
+	public void testFiles() throws IOException {
+		byte[] left= createContents();
+		byte[] right= createContents();
+		right[SIZE / 2]++;
+		File leftFile= createFile(left);
+		File rightFile= createFile(right);
+		File emptyFile= createFile(new byte[0]);
+		try {
+			Result result= BinaryComparator.compare(leftFile, rightFile, true, new NullProgressMonitor());
+			assertEquals(SIZE / 2, result.getFirstDifference());
+			assertEquals(1, result.getRanges().length);
+			assertEquals(SIZE, result.getLeftLength());
+			result= BinaryComparator.compare(leftFile, leftFile, false, new NullProgressMonitor());
+			assertTrue(result.isIdentical());
+			result= BinaryComparator.compare(leftFile, emptyFile, true, new NullProgressMonitor());
+			assertEquals(0, result.getFirstDifference());
+			assertEquals(0, result.getRightLength());
+			assertEquals(SIZE, result.getDifferingBytes());
+		} finally {
+			// The files are no longer in use once they have been compared
+			assertTrue(leftFile.delete());
+			assertTrue(rightFile.delete());
+			assertTrue(emptyFile.delete());
+		}
+	}
+
+	public void testCancel() throws IOException {
+		NullProgressMonitor monitor= new NullProgressMonitor();
+		monitor.setCanceled(true);
+		try {
+			BinaryComparator.compare(new ByteArrayInputStream(createContents()), new ByteArrayInputStream(createContents()), true, monitor);
+			fail("The comparison should have been canceled"); //$NON-NLS-1$
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+	}
+
+	private File createFile(byte[] contents) throws IOException {
+		File file= File.createTempFile("binary", ".bin"); //$NON-NLS-1$ //$NON-NLS-2$
+		try (FileOutputStream out= new FileOutputStream(file)) {
+			out.write(contents);
+		}
+		return file;
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import org.eclipse.compare.internal.DocumentManager;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+import junit.framework.TestCase;
+
+public class DocumentManagerTest extends TestCase {
+
+	public void testIdentity() {
+		// Equal inputs that are not identical have their own documents
+		Object input1= new String("input"); //$NON-NLS-1$
+		Object input2= new String("input"); //$NON-NLS-1$
+		IDocument document1= new Document();
+		IDocument document2= new Document();
+		DocumentManager.put(input1, document1);
+		DocumentManager.put(input2, document2);
+		try {
+			assertSame(document1, DocumentManager.get(input1));
+			assertSame(document2, DocumentManager.get(input2));
+			assertNull(DocumentManager.get(new String("input"))); //$NON-NLS-1$
+		} finally {
+			DocumentManager.remove(document1);
+			DocumentManager.remove(document2);
+		}
+		assertNull(DocumentManager.get(input1));
+		assertNull(DocumentManager.get(input2));
+	}
+
+	public void testReplace() {
+		Object input= new Object();
+		IDocument document1= new Document();
+		IDocument document2= new Document();
+		int size= DocumentManager.size();
+		DocumentManager.put(input, document1);
+		DocumentManager.put(input, document2);
+		assertEquals(size + 1, DocumentManager.size());
+		assertSame(document2, DocumentManager.get(input));
+		DocumentManager.remove(document1);
+		assertSame(document2, DocumentManager.get(input));
+		DocumentManager.remove(document2);
+		assertNull(DocumentManager.get(input));
+		assertEquals(size, DocumentManager.size());
+	}
+
+	public void testHitCount() {
+		Object input= new Object();
+		IDocument document= new Document();
+		long hits= DocumentManager.getHitCount();
+		long misses= DocumentManager.getMissCount();
+		DocumentManager.get(input);
+		DocumentManager.put(input, document);
+		DocumentManager.get(input);
+		DocumentManager.remove(document);
+		assertEquals(hits + 1, DocumentManager.getHitCount());
+		assertEquals(misses + 1, DocumentManager.getMissCount());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,7 +13,10 @@ package org.eclipse.compare.tests;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import junit.framework.TestCase;
@@ -23,26 +26,38 @@ import org.eclipse.compare.ICompareFilter;
 import org.eclipse.compare.IEditableContent;
 import org.eclipse.compare.IStreamContentAccessor;
 import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.contentmergeviewer.ITokenComparator;
 import org.eclipse.compare.contentmergeviewer.TextMergeViewer;
+import org.eclipse.compare.contentmergeviewer.TokenComparator;
 import org.eclipse.compare.internal.ChangeCompareFilterPropertyAction;
+import org.eclipse.compare.internal.CompareMessages;
 import org.eclipse.compare.internal.IMergeViewerTestAdapter;
 import org.eclipse.compare.internal.MergeViewerContentProvider;
 import org.eclipse.compare.internal.Utilities;
+import org.eclipse.compare.internal.merge.DocumentMerger;
+import org.eclipse.compare.internal.merge.DocumentMerger.Diff;
+import org.eclipse.compare.internal.merge.DocumentMerger.IDocumentMergerInput;
+import org.eclipse.compare.rangedifferencer.RangeDifference;
+import org.eclipse.compare.rangedifferencer.RangeDifferencer;
 import org.eclipse.compare.structuremergeviewer.DiffNode;
 import org.eclipse.compare.structuremergeviewer.Differencer;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentPartitioner;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.Region;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.PlatformUI;
 
@@ -467,6 +482,497 @@ public class TextMergeViewerTest extends TestCase {
 	}
 
 
+	private static String createLines(int count, String prefix) {
+		StringBuffer buffer = new StringBuffer();
+		for (int i = 0; i < count; i++) {
+			buffer.append(prefix).append(i).append('\n');
+		}
+		return buffer.toString();
+	}
+
+	private DiffNode createTextNode(String left, String right) {
+		DiffNode parentNode = new DiffNode(new ParentTestElement(), new ParentTestElement());
+		return new DiffNode(parentNode, Differencer.CHANGE, null, new EditableTestElement(left.getBytes()), new EditableTestElement(right.getBytes()));
+	}
+
+	private void waitForIncrementalDiff(IMergeViewerTestAdapter adapter) {
+		Display display = viewer.getControl().getDisplay();
+		long timeout = System.currentTimeMillis() + 10000;
+		while (adapter.isIncrementalDiffPending()) {
+			assertTrue("Timed out waiting for the comparison of the edited text", System.currentTimeMillis() < timeout);
+			if (!display.readAndDispatch())
+				display.sleep();
+		}
+	}
+
+	/*
+	 * Returns the number of changes found by comparing the given texts as a whole
+	 */
+	private int getChangesCount(String left, String right) throws Exception {
+		final int[] count = new int[1];
+		runInDialog(createTextNode(left, right), new Runnable() {
+			public void run() {
+				count[0] = viewer.getAdapter(IMergeViewerTestAdapter.class).getChangesCount();
+			}
+		});
+		return count[0];
+	}
+
+	/*
+	 * Edits one side, waits for the comparison of the edited region and checks
+	 * that the number of changes is the one of a comparison of the whole texts.
+	 * Returns the number of changes after the edit.
+	 */
+	private int assertIncrementalDiff(String left, String right, final boolean editLeft, final int offset, final int length, final String text) throws Exception {
+		final int[] count = new int[2];
+		final String[] edited = new String[2];
+		runInDialog(createTextNode(left, right), new Runnable() {
+			public void run() {
+				IMergeViewerTestAdapter adapter = viewer.getAdapter(IMergeViewerTestAdapter.class);
+				count[0] = adapter.getChangesCount();
+				IDocument document = adapter.getDocument(editLeft ? MergeViewerContentProvider.LEFT_CONTRIBUTOR : MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+				try {
+					document.replace(offset, length, text);
+				} catch (BadLocationException e) {
+					throw new WrappedException(e);
+				}
+				waitForIncrementalDiff(adapter);
+				count[1] = adapter.getChangesCount();
+				edited[0] = adapter.getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR).get();
+				edited[1] = adapter.getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR).get();
+			}
+		});
+		assertEquals(getChangesCount(edited[0], edited[1]), count[1]);
+		return count[1];
+	}
+
+	public void testIncrementalDiffRemovesChange() throws Exception {
+		String left = createLines(100, "line ");
+		String right = left.replaceFirst("line 10\n", "LINE 10\n").replaceFirst("line 80\n", "LINE 80\n");
+		assertEquals(2, getChangesCount(left, right));
+		int offset = left.indexOf("line 10\n");
+		assertEquals(1, assertIncrementalDiff(left, right, true, offset, 4, "LINE"));
+	}
+
+	public void testIncrementalDiffAddsChange() throws Exception {
+		String left = createLines(100, "line ");
+		String right = left.replaceFirst("line 10\n", "LINE 10\n");
+		int offset = right.indexOf("line 50\n");
+		assertEquals(2, assertIncrementalDiff(left, right, false, offset, 0, "inserted\n"));
+	}
+
+	public void testIncrementalDiffOfAdjacentChanges() throws Exception {
+		String left = createLines(100, "line ");
+		String right = left.replaceFirst("line 10\n", "LINE 10\n").replaceFirst("line 12\n", "LINE 12\n");
+		assertEquals(2, getChangesCount(left, right));
+		// Changing the line between the changes joins them
+		int offset = left.indexOf("line 11\n");
+		assertEquals(1, assertIncrementalDiff(left, right, true, offset, 4, "edit"));
+	}
+
+	public void testIncrementalDiffOfDeletion() throws Exception {
+		String left = createLines(100, "line ");
+		String right = left.replaceFirst("line 90\n", "LINE 90\n");
+		int start = left.indexOf("line 20\n");
+		int end = left.indexOf("line 30\n");
+		assertEquals(2, assertIncrementalDiff(left, right, true, start, end - start, ""));
+	}
+
+	/*
+	 * Input of a document merger that compares documents without a viewer
+	 */
+	private static class DocumentMergerInput implements IDocumentMergerInput {
+		private final IDocument ancestor;
+		private final IDocument left;
+		private final IDocument right;
+		private final CompareConfiguration configuration = new CompareConfiguration();
+
+		DocumentMergerInput(String ancestor, String left, String right) {
+			this.ancestor = ancestor != null ? new Document(ancestor) : null;
+			this.left = new Document(left);
+			this.right = new Document(right);
+		}
+		public IDocument getDocument(char contributor) {
+			switch (contributor) {
+			case MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR:
+				return ancestor;
+			case MergeViewerContentProvider.LEFT_CONTRIBUTOR:
+				return left;
+			case MergeViewerContentProvider.RIGHT_CONTRIBUTOR:
+				return right;
+			}
+			return null;
+		}
+		public Position getRegion(char contributor) {
+			return null;
+		}
+		public boolean isIgnoreAncestor() {
+			return false;
+		}
+		public boolean isThreeWay() {
+			return ancestor != null;
+		}
+		public CompareConfiguration getCompareConfiguration() {
+			return configuration;
+		}
+		public ITokenComparator createTokenComparator(String s) {
+			return new TokenComparator(s);
+		}
+		public boolean isHunkOnLeft() {
+			return false;
+		}
+		public int getHunkStart() {
+			return 0;
+		}
+		public boolean isPatchHunk() {
+			return false;
+		}
+		public boolean isShowPseudoConflicts() {
+			return false;
+		}
+		public boolean isPatchHunkOk() {
+			return false;
+		}
+	}
+
+	private static DocumentMerger createMerger(String ancestor, String left, String right) throws CoreException {
+		DocumentMerger merger = new DocumentMerger(new DocumentMergerInput(ancestor, left, right));
+		merger.doDiff();
+		return merger;
+	}
+
+	private static List<Diff> getChanges(DocumentMerger merger) {
+		List<Diff> changes = new ArrayList<Diff>();
+		for (Iterator<Diff> iterator = merger.changesIterator(); iterator.hasNext();) {
+			changes.add(iterator.next());
+		}
+		return changes;
+	}
+
+	/*
+	 * Creates texts of the given number of lines in which every fourth line differs
+	 */
+	private static String[] createChangedTexts(int lines, boolean threeWay) {
+		StringBuffer ancestor = new StringBuffer();
+		StringBuffer left = new StringBuffer();
+		StringBuffer right = new StringBuffer();
+		for (int i = 0; i < lines; i++) {
+			String line = "the line " + i + " of the text\n";
+			ancestor.append(line);
+			if (i % 4 == 1) {
+				left.append("the line " + i + " of the left text\n");
+				right.append(i % 8 == 1 ? "a line " + i + " of the text\n" : line);
+			} else if (i % 4 == 3 && !threeWay) {
+				left.append(line);
+				right.append("the changed line " + i + "\n");
+			} else {
+				left.append(line);
+				right.append(line);
+			}
+		}
+		return new String[] { threeWay ? ancestor.toString() : null, left.toString(), right.toString() };
+	}
+
+	private static String describeTokenDiff(int kind, int leftStart, int leftEnd, int rightStart, int rightEnd) {
+		return kind + ":" + leftStart + "-" + leftEnd + "/" + rightStart + "-" + rightEnd;
+	}
+
+	private static int getTokenEnd(ITokenComparator tc, int start, int count) {
+		if (count <= 0)
+			return tc.getTokenStart(start);
+		int index = start + count - 1;
+		return tc.getTokenStart(index) + tc.getTokenLength(index);
+	}
+
+	/*
+	 * Computes the token diffs of the given change the way they were computed
+	 * for every change when the documents were compared
+	 */
+	private static List<String> computeTokenDiffs(Diff change, String[] texts) {
+		List<String> result = new ArrayList<String>();
+		Position lp = change.getPosition(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+		Position rp = change.getPosition(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+		String s = texts[1].substring(lp.offset, lp.offset + lp.length);
+		String d = texts[2].substring(rp.offset, rp.offset + rp.length);
+		if (s.length() == 0 || d.length() == 0)
+			return result;
+		ITokenComparator sa = null;
+		if (texts[0] != null) {
+			Position ap = change.getPosition(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR);
+			sa = new TokenComparator(texts[0].substring(ap.offset, ap.offset + ap.length));
+		}
+		ITokenComparator sy = new TokenComparator(s);
+		ITokenComparator sm = new TokenComparator(d);
+		RangeDifference[] ranges = RangeDifferencer.findRanges(sa, sy, sm);
+		for (int i = 0; i < ranges.length; i++) {
+			RangeDifference es = ranges[i];
+			if (es.kind() == RangeDifference.NOCHANGE)
+				continue;
+			int leftStart = lp.offset + sy.getTokenStart(es.leftStart());
+			int leftEnd = lp.offset + getTokenEnd(sy, es.leftStart(), es.leftLength());
+			int rightStart = rp.offset + sm.getTokenStart(es.rightStart());
+			int rightEnd = rp.offset + getTokenEnd(sm, es.rightStart(), es.rightLength());
+			if (leftStart != lp.offset || leftEnd != lp.offset + lp.length || rightStart != rp.offset || rightEnd != rp.offset + rp.length)
+				result.add(describeTokenDiff(es.kind(), leftStart, leftEnd, rightStart, rightEnd));
+		}
+		return result;
+	}
+
+	private static List<String> getTokenDiffs(Diff change) {
+		List<String> result = new ArrayList<String>();
+		for (Iterator<Diff> iterator = change.childIterator(); iterator.hasNext();) {
+			Diff diff = iterator.next();
+			Position lp = diff.getPosition(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+			Position rp = diff.getPosition(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+			result.add(describeTokenDiff(diff.getKind(), lp.offset, lp.offset + lp.length, rp.offset, rp.offset + rp.length));
+		}
+		return result;
+	}
+
+	private static void waitForTokenDiffPrefetch() throws InterruptedException {
+		Job[] jobs = Job.getJobManager().find(null);
+		for (int i = 0; i < jobs.length; i++) {
+			if (CompareMessages.DocumentMerger_0.equals(jobs[i].getName()))
+				jobs[i].join();
+		}
+	}
+
+	/*
+	 * Shows the first changes, which computes their token diffs and prefetches the
+	 * ones of the following changes, and checks that the token diffs of all changes
+	 * are those that are computed when the whole documents are compared
+	 */
+	private void assertLazyTokenDiffs(String[] texts) throws Exception {
+		DocumentMerger merger = createMerger(texts[0], texts[1], texts[2]);
+		List<Diff> changes = getChanges(merger);
+		assertTrue(changes.size() > 50);
+		Position visible = changes.get(2).getPosition(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+		Diff[] shown = merger.getChangeDiffs(MergeViewerContentProvider.LEFT_CONTRIBUTOR, new Region(0, visible.offset + visible.length));
+		assertTrue(shown.length > 0);
+		waitForTokenDiffPrefetch();
+		int withTokenDiffs = 0;
+		for (int i = 0; i < changes.size(); i++) {
+			Diff change = changes.get(i);
+			List<String> expected = computeTokenDiffs(change, texts);
+			assertEquals("Token diffs of change " + i, expected, getTokenDiffs(change));
+			if (!expected.isEmpty())
+				withTokenDiffs++;
+		}
+		assertTrue(withTokenDiffs > 0);
+	}
+
+	public void testLazyTokenDiffs() throws Exception {
+		assertLazyTokenDiffs(createChangedTexts(400, false));
+	}
+
+	public void testLazyTokenDiffsThreeWay() throws Exception {
+		assertLazyTokenDiffs(createChangedTexts(400, true));
+	}
+
+	public void testLazyTokenDiffsOfChangedDocument() throws Exception {
+		String[] texts = createChangedTexts(400, false);
+		DocumentMergerInput input = new DocumentMergerInput(null, texts[1], texts[2]);
+		DocumentMerger merger = new DocumentMerger(input);
+		merger.doDiff();
+		List<Diff> changes = getChanges(merger);
+		// Edit the last change before its token diffs are computed
+		Diff last = changes.get(changes.size() - 1);
+		Position lp = last.getPosition(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+		input.getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR).replace(lp.offset, 3, "one");
+		texts[1] = input.getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR).get();
+		// The token diffs reflect the current contents of the change
+		assertEquals(computeTokenDiffs(last, texts), getTokenDiffs(last));
+		assertFalse(getTokenDiffs(last).isEmpty());
+	}
+
+	private static List<Diff> getChildren(Diff diff) {
+		List<Diff> children = new ArrayList<Diff>();
+		for (Iterator<Diff> iterator = diff.childIterator(); iterator.hasNext();) {
+			children.add(iterator.next());
+		}
+		return children;
+	}
+
+	/*
+	 * The following methods look up the diffs by visiting all of them, which
+	 * is what the binary searches of the document merger have to be equivalent to
+	 */
+	private static Diff findDiffLinearly(DocumentMerger merger, Position p, boolean left) {
+		char contributor = left ? MergeViewerContentProvider.LEFT_CONTRIBUTOR : MergeViewerContentProvider.RIGHT_CONTRIBUTOR;
+		for (Iterator<Diff> iterator = merger.rangesIterator(); iterator.hasNext();) {
+			Diff diff = iterator.next();
+			Position diffPos = diff.getPosition(contributor);
+			if (diffPos.offset + diffPos.length >= p.offset && diff.getKind() != RangeDifference.NOCHANGE)
+				return diff;
+			if (diffPos.offset >= p.offset)
+				return diff;
+		}
+		return null;
+	}
+
+	private static Diff findDiffLinearly(DocumentMerger merger, char contributor, int rangeStart, int rangeEnd, int docLength) {
+		for (Iterator<Diff> iterator = merger.changesIterator(); iterator.hasNext();) {
+			Diff diff = iterator.next();
+			if (diff.isDeleted() || diff.getKind() == RangeDifference.NOCHANGE)
+				continue;
+			if (diff.overlaps(contributor, rangeStart, rangeEnd, docLength))
+				return diff;
+		}
+		return null;
+	}
+
+	private static Diff findNextLinearly(DocumentMerger merger, char contributor, List<Diff> diffs, int start, int end, boolean deep) {
+		for (int i = 0; i < diffs.size(); i++) {
+			Diff diff = diffs.get(i);
+			Position p = diff.getPosition(contributor);
+			int startOffset = p.getOffset();
+			if (end < startOffset)
+				return diff;
+			if (deep) {
+				Diff d = null;
+				int endOffset = startOffset + p.getLength();
+				if (start == startOffset && (end == endOffset || end == endOffset - 1)) {
+					if (diff.hasChildren())
+						d = findNextLinearly(merger, contributor, getChildren(diff), start - 1, start - 1, deep);
+				} else if (end < endOffset) {
+					if (diff.hasChildren())
+						d = findNextLinearly(merger, contributor, getChildren(diff), start, end, deep);
+				}
+				if (d != null)
+					return d;
+			}
+		}
+		return null;
+	}
+
+	private static Diff findPrevLinearly(DocumentMerger merger, char contributor, List<Diff> diffs, int start, int end, boolean deep) {
+		for (int i = diffs.size() - 1; i >= 0; i--) {
+			Diff diff = diffs.get(i);
+			Position p = diff.getPosition(contributor);
+			int startOffset = p.getOffset();
+			int endOffset = startOffset + p.getLength();
+			if (start > endOffset) {
+				if (deep && diff.hasChildren())
+					return findPrevLinearly(merger, contributor, getChildren(diff), end, end, deep);
+				return diff;
+			}
+			if (deep && start >= startOffset && diff.hasChildren()) {
+				Diff d = null;
+				if (start != startOffset || end != endOffset) {
+					if (merger.isFirstChildDiff(contributor, start, diff))
+						return diff;
+					d = findPrevLinearly(merger, contributor, getChildren(diff), start, end, deep);
+				}
+				if (d != null)
+					return d;
+			}
+		}
+		return null;
+	}
+
+	private static int findChangeIndexLinearly(DocumentMerger merger, IDocument document, char contributor, int line) throws BadLocationException {
+		if (line <= 0)
+			return 0;
+		int offset = line < document.getNumberOfLines() ? document.getLineOffset(line) : document.getLength();
+		List<Diff> changes = getChanges(merger);
+		for (int i = 0; i < changes.size(); i++) {
+			Position p = changes.get(i).getPosition(contributor);
+			if (p.offset + p.length >= offset)
+				return i;
+		}
+		return changes.size();
+	}
+
+	/*
+	 * Checks the lookups at every offset and line of the documents, which includes
+	 * the boundaries of the diffs and the unchanged ranges between them
+	 */
+	private void assertDiffLookups(DocumentMerger merger, IDocument document, boolean left) throws BadLocationException {
+		char contributor = left ? MergeViewerContentProvider.LEFT_CONTRIBUTOR : MergeViewerContentProvider.RIGHT_CONTRIBUTOR;
+		List<Diff> changes = getChanges(merger);
+		int length = document.getLength();
+		for (int offset = 0; offset <= length + 1; offset++) {
+			String at = contributor + " at " + offset;
+			assertSame("findDiff " + at, findDiffLinearly(merger, new Position(offset, 0), left), merger.findDiff(new Position(offset, 0), left));
+			assertSame("findDiff " + at, findDiffLinearly(merger, new Position(offset, 2), left), merger.findDiff(new Position(offset, 2), left));
+			assertSame("findDiff range " + at, findDiffLinearly(merger, contributor, offset, offset, length), merger.findDiff(contributor, offset, offset));
+			assertSame("findDiff range " + at, findDiffLinearly(merger, contributor, offset, offset + 3, length), merger.findDiff(contributor, offset, offset + 3));
+			for (int deep = 0; deep < 2; deep++) {
+				assertSame("findNext " + at, findNextLinearly(merger, contributor, changes, offset, offset, deep == 1), merger.findNext(contributor, offset, offset, deep == 1));
+				assertSame("findNext " + at, findNextLinearly(merger, contributor, changes, offset, offset + 3, deep == 1), merger.findNext(contributor, offset, offset + 3, deep == 1));
+				assertSame("findPrev " + at, findPrevLinearly(merger, contributor, changes, offset, offset, deep == 1), merger.findPrev(contributor, offset, offset, deep == 1));
+				assertSame("findPrev " + at, findPrevLinearly(merger, contributor, changes, offset, offset + 3, deep == 1), merger.findPrev(contributor, offset, offset + 3, deep == 1));
+			}
+		}
+		for (Iterator<Diff> iterator = changes.iterator(); iterator.hasNext();) {
+			// The lookups of the whole ranges of the changes
+			Position p = iterator.next().getPosition(contributor);
+			int end = p.offset + p.length;
+			assertSame(findNextLinearly(merger, contributor, changes, p.offset, end, true), merger.findNext(contributor, p.offset, end, true));
+			assertSame(findPrevLinearly(merger, contributor, changes, p.offset, end, true), merger.findPrev(contributor, p.offset, end, true));
+		}
+		for (int line = -1; line <= document.getNumberOfLines() + 1; line++) {
+			assertEquals("findChangeIndex " + contributor + " at line " + line, findChangeIndexLinearly(merger, document, contributor, line), merger.findChangeIndex(contributor, line));
+		}
+	}
+
+	private void assertDiffLookups(String ancestor, String left, String right) throws Exception {
+		DocumentMergerInput input = new DocumentMergerInput(ancestor, left, right);
+		DocumentMerger merger = new DocumentMerger(input);
+		merger.doDiff();
+		assertDiffLookups(merger, input.getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR), true);
+		assertDiffLookups(merger, input.getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR), false);
+	}
+
+	public void testDiffLookups() throws Exception {
+		// An insertion at the start, a change, a deletion, adjacent changed
+		// lines and a change at the end without a line delimiter
+		String left = "a\nb\nc\nd\ne\nf\ng\nh\ni\nj\nk\nl\n";
+		String right = "x\na\nb\nC c\nd\nf\ng\nH\nI\nj\nk\nL";
+		assertDiffLookups(null, left, right);
+		assertDiffLookups(null, right, left);
+	}
+
+	public void testDiffLookupsThreeWay() throws Exception {
+		String[] texts = createChangedTexts(40, true);
+		assertDiffLookups(texts[0], texts[1], texts[2]);
+	}
+
+	public void testDiffLookupsOfManyChanges() throws Exception {
+		String[] texts = createChangedTexts(80, false);
+		assertDiffLookups(texts[0], texts[1], texts[2]);
+	}
+
+	public void testDiffLookupsWithoutChanges() throws Exception {
+		String text = "a\nb\nc\n";
+		DocumentMerger merger = createMerger(null, text, text);
+		assertEquals(0, merger.changesCount());
+		assertDiffLookups(null, text, text);
+		assertNull(merger.findDiff(MergeViewerContentProvider.LEFT_CONTRIBUTOR, 0, text.length()));
+		assertNull(merger.findNext(MergeViewerContentProvider.LEFT_CONTRIBUTOR, 0, 0, true));
+		assertNull(merger.findPrev(MergeViewerContentProvider.LEFT_CONTRIBUTOR, text.length(), text.length(), true));
+		assertEquals(0, merger.findChangeIndex(MergeViewerContentProvider.LEFT_CONTRIBUTOR, 2));
+		assertFalse(merger.changesIterator(merger.findChangeIndex(MergeViewerContentProvider.LEFT_CONTRIBUTOR, 2)).hasNext());
+	}
+
+	public void testDiffLookupsOfEmptyDocuments() throws Exception {
+		DocumentMerger merger = createMerger(null, "", "");
+		assertEquals(0, merger.changesCount());
+		assertDiffLookups(null, "", "");
+		assertDiffLookups(null, "", "a\nb\n");
+	}
+
+	public void testDiffLookupsBeforeComparison() throws Exception {
+		DocumentMerger merger = new DocumentMerger(new DocumentMergerInput(null, "a\n", "b\n"));
+		assertEquals(0, merger.changesCount());
+		assertNull(merger.findDiff(new Position(0, 0), true));
+		assertNull(merger.findDiff(MergeViewerContentProvider.LEFT_CONTRIBUTOR, 0, 1));
+		assertNull(merger.findNext(MergeViewerContentProvider.LEFT_CONTRIBUTOR, 0, 0, false));
+		assertNull(merger.findPrev(MergeViewerContentProvider.LEFT_CONTRIBUTOR, 1, 1, false));
+		assertEquals(0, merger.findChangeIndex(MergeViewerContentProvider.LEFT_CONTRIBUTOR, 1));
+		assertFalse(merger.changesIterator(0).hasNext());
+	}
+
 	public void testDocumentAsTypedElement() throws Exception {
 		class DocumentAsTypedElement extends Document implements ITypedElement {
 
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.compare.IStreamContentAccessor;
+import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.ResourceNode;
+import org.eclipse.compare.ZipFileStructureCreator;
+import org.eclipse.compare.internal.IContentChecksum;
+import org.eclipse.compare.structuremergeviewer.DiffNode;
+import org.eclipse.compare.structuremergeviewer.Differencer;
+import org.eclipse.compare.structuremergeviewer.IDiffElement;
+import org.eclipse.compare.structuremergeviewer.IStructureComparator;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+
+public class ZipFileStructureCreatorTest extends WorkspaceTest {
+
+	private static class ArchiveAccessor implements IStreamContentAccessor {
+		private final byte[] fBytes;
+
+		ArchiveAccessor(byte[] bytes) {
+			fBytes= bytes;
+		}
+
+		@Override
+		public InputStream getContents() {
+			return new ByteArrayInputStream(fBytes);
+		}
+	}
+
+	private static byte[] createArchive(String[] names, String[] contents) throws IOException {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		ZipOutputStream zip= new ZipOutputStream(bytes);
+		for (int i= 0; i < names.length; i++) {
+			zip.putNextEntry(new ZipEntry(names[i]));
+			zip.write(contents[i].getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+		zip.close();
+		return bytes.toByteArray();
+	}
+
+	private static IStructureComparator getStructure(byte[] archive) {
+		return new ZipFileStructureCreator().getStructure(new ArchiveAccessor(archive));
+	}
+
+	private static IStructureComparator getStructure(IFile archive) {
+		return new ZipFileStructureCreator().getStructure(new ResourceNode(archive));
+	}
+
+	private static IFile createArchive(IProject project, String name, String[] names, String[] contents) throws IOException, CoreException {
+		IFile file= project.getFile(name);
+		file.create(new ByteArrayInputStream(createArchive(names, contents)), true, DEFAULT_MONITOR);
+		return file;
+	}
+
+	private static IStructureComparator getChild(IStructureComparator parent, String name) {
+		Object[] children= parent.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (name.equals(((ITypedElement) children[i]).getName()))
+				return (IStructureComparator) children[i];
+		}
+		return null;
+	}
+
+	public void testChecksum() throws IOException, CoreException {
+		IStructureComparator root= getStructure(createArchive(
+				new String[] { "a.txt", "b.txt" }, //$NON-NLS-1$ //$NON-NLS-2$
+				new String[] { "first", "second" })); //$NON-NLS-1$ //$NON-NLS-2$
+		IStructureComparator entry= getChild(root, "b.txt"); //$NON-NLS-1$
+		assertTrue(entry instanceof IContentChecksum);
+		IContentChecksum checksum= (IContentChecksum) entry;
+		assertEquals(6, checksum.getSize());
+		assertTrue(checksum.getChecksum() >= 0);
+		InputStream contents= ((IStreamContentAccessor) entry).getContents();
+		byte[] buffer= new byte[16];
+		int n= contents.read(buffer);
+		assertEquals("second", new String(buffer, 0, n, StandardCharsets.UTF_8)); //$NON-NLS-1$
+	}
+
+	public void testDifferences() throws IOException {
+		IStructureComparator left= getStructure(createArchive(
+				new String[] { "same.txt", "changed.txt", "removed.txt" }, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				new String[] { "contents", "left", "removed" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		IStructureComparator right= getStructure(createArchive(
+				new String[] { "same.txt", "changed.txt" }, //$NON-NLS-1$ //$NON-NLS-2$
+				new String[] { "contents", "rght" })); //$NON-NLS-1$ //$NON-NLS-2$
+		DiffNode root= (DiffNode) new Differencer().findDifferences(false, null, null, null, left, right);
+		IDiffElement[] children= root.getChildren();
+		assertEquals(2, children.length);
+		for (int i= 0; i < children.length; i++) {
+			String name= children[i].getName();
+			if ("changed.txt".equals(name)) //$NON-NLS-1$
+				assertEquals(Differencer.CHANGE, children[i].getKind());
+			else if ("removed.txt".equals(name)) //$NON-NLS-1$
+				assertEquals(Differencer.DELETION, children[i].getKind());
+			else
+				fail("Unexpected difference " + name); //$NON-NLS-1$
+		}
+	}
+
+	public void testLocalArchiveDifferences() throws IOException, CoreException {
+		IProject project= createProject("ZipFileStructureCreatorTest", new String[0]); //$NON-NLS-1$
+		IFile leftFile= createArchive(project, "left.zip", //$NON-NLS-1$
+				new String[] { "same.txt", "changed.txt", "resized.txt" }, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				new String[] { "contents", "left", "left" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		IFile rightFile= createArchive(project, "right.zip", //$NON-NLS-1$
+				new String[] { "same.txt", "changed.txt", "resized.txt" }, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				new String[] { "contents", "rght", "right" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		IStructureComparator left= getStructure(leftFile);
+		IStructureComparator right= getStructure(rightFile);
+		IContentChecksum leftSame= (IContentChecksum) getChild(left, "same.txt"); //$NON-NLS-1$
+		IContentChecksum rightSame= (IContentChecksum) getChild(right, "same.txt"); //$NON-NLS-1$
+		assertEquals(8, leftSame.getSize());
+		assertEquals(leftSame.getSize(), rightSame.getSize());
+		assertEquals(leftSame.getChecksum(), rightSame.getChecksum());
+
+		// Remove the archives behind the back of the workspace so that
+		// any attempt to read the contents of an entry fails
+		assertTrue(new File(leftFile.getLocation().toOSString()).delete());
+		assertTrue(new File(rightFile.getLocation().toOSString()).delete());
+
+		DiffNode root= (DiffNode) new Differencer().findDifferences(false, null, null, null, left, right);
+		IDiffElement[] children= root.getChildren();
+		assertEquals(2, children.length);
+		for (int i= 0; i < children.length; i++) {
+			String name= children[i].getName();
+			if ("changed.txt".equals(name) || "resized.txt".equals(name)) //$NON-NLS-1$ //$NON-NLS-2$
+				assertEquals(Differencer.CHANGE, children[i].getKind());
+			else
+				fail("Unexpected difference " + name); //$NON-NLS-1$
+		}
+		try {
+			((IStreamContentAccessor) leftSame).getContents();
+			fail("The contents of an equal entry should not have been read"); //$NON-NLS-1$
+		} catch (CoreException e) {
+			// expected since the archive is gone and the entry was never inflated
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -37,6 +37,11 @@ public class AllTeamTests extends ResourceTest {
 		suite.addTest(RepositoryProviderTests.suite());
 		suite.addTest(StreamTests.suite());
 		suite.addTest(StorageMergerTests.suite());
+		suite.addTest(PathTreeTests.suite());
+		suite.addTest(ParallelCollectionTests.suite());
+		suite.addTest(SubscriberSnapshotTests.suite());
+		suite.addTest(BufferedByteStoreTests.suite());
+		suite.addTest(SubscriberStateIndexTests.suite());
 		suite.addTest(org.eclipse.team.tests.core.regression.AllTests.suite());
 		return suite;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,8 @@ import junit.framework.TestSuite;
 
 import org.eclipse.core.tests.resources.ResourceTest;
 import org.eclipse.team.tests.core.mapping.ScopeTests;
+import org.eclipse.team.tests.ui.ProblemMarkerCacheTest;
+import org.eclipse.team.tests.ui.RefreshCoordinatorTest;
 import org.eclipse.team.tests.ui.SaveableCompareEditorInputTest;
 
 public class AllTeamUITests extends ResourceTest {
@@ -31,6 +33,8 @@ public class AllTeamUITests extends ResourceTest {
 		TestSuite suite = new TestSuite();
 		suite.addTest(ScopeTests.suite());
 		suite.addTest(SaveableCompareEditorInputTest.suite());
+		suite.addTest(ProblemMarkerCacheTest.suite());
+		suite.addTest(RefreshCoordinatorTest.suite());
 		return suite;
 	}
 }
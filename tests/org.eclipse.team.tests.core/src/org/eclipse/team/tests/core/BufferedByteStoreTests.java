@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.variants.BufferedResourceVariantByteStore;
+
+public class BufferedByteStoreTests extends TeamTest {
+
+	private static final QualifiedName SYNC_NAME = new QualifiedName("org.eclipse.team.tests.core", "buffered-byte-store");
+
+	public static Test suite() {
+		return suite(BufferedByteStoreTests.class);
+	}
+
+	private IProject project;
+	private BufferedResourceVariantByteStore store;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createProject("BufferedByteStore_", new String[] {
+				"a/", "a/file1.txt", "a/b/", "a/b/file2.txt",
+				"a2/", "a2/file3.txt", "c/", "c/file4.txt", "file5.txt" });
+	}
+
+	protected void tearDown() throws Exception {
+		if (store != null)
+			store.dispose();
+		store = null;
+		super.tearDown();
+	}
+
+	private BufferedResourceVariantByteStore createStore(int cacheSize) {
+		if (store != null)
+			store.dispose();
+		store = new BufferedResourceVariantByteStore(SYNC_NAME, cacheSize);
+		return store;
+	}
+
+	private static ISynchronizer getSynchronizer() {
+		return ResourcesPlugin.getWorkspace().getSynchronizer();
+	}
+
+	private static byte[] bytes(IResource resource) {
+		return resource.getFullPath().toString().getBytes();
+	}
+
+	private void setBytes(String[] paths) throws TeamException {
+		for (int i = 0; i < paths.length; i++) {
+			IResource resource = project.findMember(paths[i]);
+			assertTrue(store.setBytes(resource, bytes(resource)));
+		}
+	}
+
+	private void assertBytes(String[] paths, boolean known) throws TeamException {
+		for (int i = 0; i < paths.length; i++) {
+			IResource resource = project.findMember(paths[i]);
+			if (known) {
+				assertTrue(paths[i], Arrays.equals(bytes(resource), store.getBytes(resource)));
+			} else {
+				assertNull(paths[i], store.getBytes(resource));
+			}
+		}
+	}
+
+	private void assertPersisted(String[] paths, boolean persisted) throws CoreException {
+		for (int i = 0; i < paths.length; i++) {
+			IResource resource = project.findMember(paths[i]);
+			byte[] syncBytes = getSynchronizer().getSyncInfo(SYNC_NAME, resource);
+			if (persisted) {
+				assertTrue(paths[i], Arrays.equals(bytes(resource), syncBytes));
+			} else {
+				assertNull(paths[i], syncBytes);
+			}
+		}
+	}
+
+	public void testPersist() throws CoreException {
+		createStore(BufferedResourceVariantByteStore.DEFAULT_CACHE_SIZE);
+		String[] paths = new String[] { "a/file1.txt", "a/b/file2.txt", "c/file4.txt" };
+		setBytes(paths);
+		assertBytes(paths, true);
+		assertPersisted(paths, false);
+		// Only the bytes of the given resource are written
+		store.persist(project.getFolder("a"), null);
+		assertPersisted(new String[] { "a/file1.txt", "a/b/file2.txt" }, true);
+		assertPersisted(new String[] { "c/file4.txt" }, false);
+		store.persist(project, null);
+		assertPersisted(paths, true);
+		// The bytes are read from the synchronizer by a new store
+		createStore(BufferedResourceVariantByteStore.DEFAULT_CACHE_SIZE);
+		assertBytes(paths, true);
+		assertBytes(new String[] { "a2/file3.txt" }, false);
+	}
+
+	public void testMembers() throws CoreException {
+		createStore(BufferedResourceVariantByteStore.DEFAULT_CACHE_SIZE);
+		setBytes(new String[] { "a/file1.txt", "a/b/" });
+		Set<IResource> expected = new HashSet<>(Arrays.asList(new IResource[] { project.getFile("a/file1.txt"), project.getFolder("a/b") }));
+		assertEquals(expected, new HashSet<>(Arrays.asList(store.members(project.getFolder("a")))));
+		store.persist(project, null);
+		assertEquals(expected, new HashSet<>(Arrays.asList(store.members(project.getFolder("a")))));
+		assertTrue(store.deleteBytes(project.getFile("a/file1.txt")));
+		assertTrue(store.isVariantKnown(project.getFile("a/file1.txt")));
+		assertEquals(Arrays.asList(new IResource[] { project.getFolder("a/b") }), Arrays.asList(store.members(project.getFolder("a"))));
+	}
+
+	public void testFlushToInfiniteDepth() throws CoreException {
+		createStore(BufferedResourceVariantByteStore.DEFAULT_CACHE_SIZE);
+		String[] persisted = new String[] { "a/", "a/b/file2.txt", "a2/file3.txt" };
+		setBytes(persisted);
+		store.persist(project, null);
+		String[] modified = new String[] { "a/file1.txt", "a/b/", "a2/", "c/file4.txt", "file5.txt" };
+		setBytes(modified);
+		assertTrue(store.flushBytes(project.getFolder("a"), IResource.DEPTH_INFINITE));
+		String[] flushed = new String[] { "a/", "a/file1.txt", "a/b/", "a/b/file2.txt" };
+		// The siblings whose name starts with the name of the folder are not flushed
+		String[] kept = new String[] { "a2/", "a2/file3.txt", "c/file4.txt", "file5.txt" };
+		assertBytes(flushed, false);
+		assertBytes(kept, true);
+		store.persist(project, null);
+		assertPersisted(flushed, false);
+		assertPersisted(kept, true);
+	}
+
+	public void testFlushToDepthOne() throws CoreException {
+		createStore(BufferedResourceVariantByteStore.DEFAULT_CACHE_SIZE);
+		setBytes(new String[] { "a/", "a/file1.txt", "a/b/", "a/b/file2.txt" });
+		assertTrue(store.flushBytes(project.getFolder("a"), IResource.DEPTH_ONE));
+		assertBytes(new String[] { "a/", "a/file1.txt", "a/b/" }, false);
+		assertBytes(new String[] { "a/b/file2.txt" }, true);
+		assertTrue(store.flushBytes(project.getFile("a/b/file2.txt"), IResource.DEPTH_ZERO));
+		assertBytes(new String[] { "a/b/file2.txt" }, false);
+		assertFalse(store.flushBytes(project.getFile("a/b/file2.txt"), IResource.DEPTH_ZERO));
+	}
+
+	public void testCacheSize() throws CoreException {
+		createStore(2);
+		String[] persisted = new String[] { "a/file1.txt", "a/b/file2.txt", "a2/file3.txt" };
+		setBytes(persisted);
+		store.persist(project, null);
+		// The modified bytes are kept while the unmodified ones are discarded and read again
+		String[] modified = new String[] { "c/file4.txt", "file5.txt" };
+		setBytes(modified);
+		for (int i = 0; i < 3; i++) {
+			assertBytes(persisted, true);
+			assertBytes(new String[] { "a/", "a/b/", "a2/", "c/" }, false);
+			assertBytes(modified, true);
+		}
+		assertPersisted(modified, false);
+		store.persist(project, null);
+		assertPersisted(modified, true);
+		assertTrue(store.flushBytes(project, IResource.DEPTH_INFINITE));
+		assertBytes(persisted, false);
+		assertBytes(modified, false);
+	}
+
+	public void testFailedPersist() throws CoreException {
+		createStore(BufferedResourceVariantByteStore.DEFAULT_CACHE_SIZE);
+		String[] paths = new String[] { "a/file1.txt", "c/file4.txt" };
+		setBytes(paths);
+		// The bytes cannot be written while the sync partner is not registered
+		getSynchronizer().remove(SYNC_NAME);
+		try {
+			store.persist(project, null);
+			fail("The bytes should not have been written");
+		} catch (TeamException e) {
+			assertEquals(2, e.getStatus().getChildren().length);
+		} finally {
+			getSynchronizer().add(SYNC_NAME);
+		}
+		// The bytes are kept and written by the next persist
+		assertBytes(paths, true);
+		store.persist(project, null);
+		assertPersisted(paths, true);
+	}
+
+	public void testPersistOfDeletedProject() throws CoreException {
+		createStore(BufferedResourceVariantByteStore.DEFAULT_CACHE_SIZE);
+		IResource file = project.getFile("a/file1.txt");
+		assertTrue(store.setBytes(file, bytes(file)));
+		project.delete(true, null);
+		store.persist(ResourcesPlugin.getWorkspace().getRoot(), null);
+		assertNull(store.getBytes(file));
+	}
+}
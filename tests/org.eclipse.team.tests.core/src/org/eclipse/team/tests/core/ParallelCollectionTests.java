@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.core.synchronize.SyncInfoSet;
+import org.eclipse.team.tests.core.mapping.ScopeTestSubscriber;
+
+public class ParallelCollectionTests extends TeamTest {
+
+	public static Test suite() {
+		return suite(ParallelCollectionTests.class);
+	}
+
+	/*
+	 * Subscriber for which the files whose name starts with "out" are outgoing changes
+	 */
+	private static class OutgoingSubscriber extends ScopeTestSubscriber {
+		public SyncInfo getSyncInfo(IResource resource) throws TeamException {
+			if (resource.getType() != IResource.FILE || !resource.getName().startsWith("out"))
+				return null;
+			SyncInfo info = new SyncInfo(resource, null, null, getResourceComparator()) {
+				protected int calculateKind() throws TeamException {
+					return SyncInfo.OUTGOING | SyncInfo.CHANGE;
+				}
+			};
+			info.init();
+			return info;
+		}
+	}
+
+	private IProject project;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createProject("Project_", new String[] {
+				"a/", "a/out1.txt", "a/in1.txt", "a/b/out2.txt",
+				"c/", "c/in2.txt", "c/out3.txt",
+				"d/", "d/e/f/out4.txt",
+				"out5.txt", "in3.txt" });
+	}
+
+	private Set<IResource> collect(boolean parallel, IResource[] resources, int depth) {
+		OutgoingSubscriber subscriber = new OutgoingSubscriber();
+		subscriber.setParallelCollectionEnabled(parallel);
+		SyncInfoSet set = new SyncInfoSet();
+		subscriber.collectOutOfSync(resources, depth, set, new NullProgressMonitor());
+		assertEquals(0, set.getErrors().length);
+		return new HashSet<>(Arrays.asList(set.getResources()));
+	}
+
+	public void testParallelCollection() {
+		IResource[] resources = new IResource[] { project };
+		Set<IResource> sequential = collect(false, resources, IResource.DEPTH_INFINITE);
+		assertEquals(5, sequential.size());
+		assertEquals(sequential, collect(true, resources, IResource.DEPTH_INFINITE));
+	}
+
+	public void testParallelCollectionOfWorkspace() {
+		IResource[] resources = new IResource[] { ResourcesPlugin.getWorkspace().getRoot() };
+		Set<IResource> parallel = collect(true, resources, IResource.DEPTH_INFINITE);
+		assertEquals(collect(false, resources, IResource.DEPTH_INFINITE), parallel);
+		assertTrue(parallel.contains(project.getFile("d/e/f/out4.txt")));
+	}
+
+	public void testParallelCollectionToDepthOne() {
+		IResource[] resources = new IResource[] { project.getFolder("a"), project.getFolder("c"), project };
+		Set<IResource> parallel = collect(true, resources, IResource.DEPTH_ONE);
+		assertEquals(new HashSet<>(Arrays.asList(new IResource[] {
+				project.getFile("a/out1.txt"), project.getFile("c/out3.txt"), project.getFile("out5.txt") })), parallel);
+		assertEquals(collect(false, resources, IResource.DEPTH_ONE), parallel);
+	}
+
+	public void testCancelledCollection() {
+		OutgoingSubscriber subscriber = new OutgoingSubscriber();
+		subscriber.setParallelCollectionEnabled(true);
+		IProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		try {
+			subscriber.collectOutOfSync(new IResource[] { project }, IResource.DEPTH_INFINITE, new SyncInfoSet(), monitor);
+			fail("The collection should have been cancelled");
+		} catch (OperationCanceledException e) {
+			// Expected
+		}
+	}
+}
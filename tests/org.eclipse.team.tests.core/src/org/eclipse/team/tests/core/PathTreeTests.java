@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.internal.core.mapping.PathTree;
+
+public class PathTreeTests extends TestCase {
+
+	private static final int FLAG = 0x1;
+
+	public PathTreeTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(PathTreeTests.class);
+	}
+
+	public void testPutAndRemove() {
+		PathTree tree = new PathTree();
+		assertTrue(tree.isEmpty());
+		assertNull(tree.put(new Path("/p/a/b.txt"), "b"));
+		assertNull(tree.put(new Path("/p/c.txt"), "c"));
+		assertEquals("b", tree.put(new Path("/p/a/b.txt"), "b2"));
+		assertEquals(2, tree.size());
+		assertEquals("b2", tree.get(new Path("/p/a/b.txt")));
+		assertNull(tree.get(new Path("/p/a")));
+		assertTrue(tree.hasChildren(new Path("/p/a")));
+
+		assertEquals("b2", tree.remove(new Path("/p/a/b.txt")));
+		assertNull(tree.remove(new Path("/p/a/b.txt")));
+		assertFalse(tree.hasChildren(new Path("/p/a")));
+		assertEquals(1, tree.size());
+		assertEquals("c", tree.remove(new Path("/p/c.txt")));
+		assertTrue(tree.isEmpty());
+		assertEquals(0, tree.getChildren(Path.ROOT).length);
+	}
+
+	public void testGetChildren() {
+		PathTree tree = new PathTree();
+		tree.put(new Path("/p/a/b/c.txt"), "c");
+		tree.put(new Path("/p/a/d.txt"), "d");
+		tree.put(new Path("/p/e.txt"), "e");
+		tree.put(new Path("/p"), "p");
+		assertPaths(tree.getChildren(Path.ROOT), "/p");
+		assertPaths(tree.getChildren(new Path("/p")), "/p/a", "/p/e.txt");
+		assertPaths(tree.getChildren(new Path("/p/a")), "/p/a/b", "/p/a/d.txt");
+		assertPaths(tree.getChildren(new Path("/p/a/b/c.txt")));
+		assertPaths(tree.getPaths(), "/p", "/p/a/b/c.txt", "/p/a/d.txt", "/p/e.txt");
+		assertEquals(4, tree.values().size());
+	}
+
+	public void testPropagatedProperty() {
+		PathTree tree = new PathTree();
+		tree.put(new Path("/p/a/b.txt"), "b");
+		tree.put(new Path("/p/a/c.txt"), "c");
+		assertPaths(tree.setPropogatedProperty(new Path("/p/a/b.txt"), FLAG, true), "/p/a/b.txt", "/p/a", "/p");
+		assertPaths(tree.setPropogatedProperty(new Path("/p/a/c.txt"), FLAG, true), "/p/a/c.txt");
+		assertPaths(tree.setPropogatedProperty(new Path("/p/a/b.txt"), FLAG, false), "/p/a/b.txt");
+		assertTrue(tree.getProperty(new Path("/p/a"), FLAG));
+		assertPaths(tree.setPropogatedProperty(new Path("/p/a/c.txt"), FLAG, false), "/p/a/c.txt", "/p/a", "/p");
+		assertFalse(tree.getProperty(new Path("/p"), FLAG));
+		assertPaths(tree.setPropogatedProperty(new Path("/p/missing.txt"), FLAG, true));
+	}
+
+	private void assertPaths(IPath[] actual, String... expected) {
+		Set<IPath> expectedPaths = new HashSet<>();
+		for (String path : expected) {
+			expectedPaths.add(new Path(path));
+		}
+		assertEquals(expectedPaths, new HashSet<>(Arrays.asList(actual)));
+	}
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.*;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.mapping.ResourceTraversal;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.core.synchronize.SyncInfoSet;
+import org.eclipse.team.internal.core.subscribers.SubscriberStateSnapshot;
+import org.eclipse.team.internal.core.subscribers.SubscriberSyncInfoCollector;
+import org.eclipse.team.tests.core.mapping.ScopeTestSubscriber;
+
+public class SubscriberSnapshotTests extends TeamTest {
+
+	public static Test suite() {
+		return suite(SubscriberSnapshotTests.class);
+	}
+
+	/*
+	 * Subscriber for which the files whose name starts with "out" are outgoing
+	 * changes unless they have been marked as in-sync. The resources whose state
+	 * is obtained and the resources that are collected are recorded.
+	 */
+	private static class SnapshotSubscriber extends ScopeTestSubscriber {
+		final Set<IResource> inSync = Collections.synchronizedSet(new HashSet<IResource>());
+		final List<IResource> visited = Collections.synchronizedList(new ArrayList<IResource>());
+		final List<IResource> collected = Collections.synchronizedList(new ArrayList<IResource>());
+		public String getName() {
+			return "Snapshot Tests";
+		}
+		public boolean isSupervised(IResource resource) throws TeamException {
+			return true;
+		}
+		public SyncInfo getSyncInfo(IResource resource) throws TeamException {
+			visited.add(resource);
+			if (resource.getType() != IResource.FILE || !resource.getName().startsWith("out") || inSync.contains(resource))
+				return null;
+			SyncInfo info = new SyncInfo(resource, null, null, getResourceComparator()) {
+				protected int calculateKind() throws TeamException {
+					return SyncInfo.OUTGOING | SyncInfo.CHANGE;
+				}
+			};
+			info.init();
+			return info;
+		}
+		public void collectOutOfSync(IResource[] resources, int depth, SyncInfoSet set, IProgressMonitor monitor) {
+			collected.addAll(Arrays.asList(resources));
+			super.collectOutOfSync(resources, depth, set, monitor);
+		}
+	}
+
+	private IProject project;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createProject("SnapshotProject_", new String[] {
+				"a/", "a/out1.txt", "a/in1.txt", "b/", "b/out2.txt", "in2.txt" });
+	}
+
+	private String getSnapshotId() {
+		// Use one snapshot per project so that the tests do not share snapshots
+		return "snapshotTests/" + project.getName();
+	}
+
+	private SubscriberSyncInfoCollector startCollector(SnapshotSubscriber subscriber) {
+		SubscriberSyncInfoCollector collector = new SubscriberSyncInfoCollector(subscriber, new IResource[] { project });
+		collector.setSnapshotId(getSnapshotId());
+		collector.start();
+		collector.waitForCollector(new NullProgressMonitor());
+		return collector;
+	}
+
+	private SubscriberStateSnapshot getSnapshot(SnapshotSubscriber subscriber, String id) {
+		return new SubscriberStateSnapshot(subscriber, id, new ResourceTraversal[] {
+				new ResourceTraversal(new IResource[] { project }, IResource.DEPTH_INFINITE, IResource.NONE) });
+	}
+
+	private SubscriberStateSnapshot getSnapshot(SnapshotSubscriber subscriber) {
+		return getSnapshot(subscriber, getSnapshotId());
+	}
+
+	private Set<IResource> asSet(IResource[] resources) {
+		return new HashSet<>(Arrays.asList(resources));
+	}
+
+	public void testSnapshotRestore() {
+		Set<IResource> outOfSync = asSet(new IResource[] { project.getFile("a/out1.txt"), project.getFile("b/out2.txt") });
+
+		// The first collection walks the scope and the shutdown saves its output
+		SnapshotSubscriber subscriber = new SnapshotSubscriber();
+		SubscriberSyncInfoCollector collector = startCollector(subscriber);
+		try {
+			assertEquals(outOfSync, asSet(collector.getSubscriberSyncInfoSet().getResources()));
+			assertTrue(subscriber.collected.contains(project));
+		} finally {
+			collector.dispose();
+		}
+		IResource[] saved = getSnapshot(subscriber).load();
+		assertNotNull(saved);
+		assertEquals(outOfSync, asSet(saved));
+
+		// Changes made while no collector is running
+		IFile added = project.getFile("c/out3.txt");
+		ensureExistsInWorkspace(added, true);
+		subscriber = new SnapshotSubscriber();
+		subscriber.inSync.add(project.getFile("a/out1.txt"));
+
+		// The resources of the snapshot are visited first and the scope is still collected
+		collector = startCollector(subscriber);
+		try {
+			assertEquals(asSet(new IResource[] { project.getFile("b/out2.txt"), added }),
+					asSet(collector.getSubscriberSyncInfoSet().getResources()));
+			assertTrue(subscriber.visited.size() >= 2);
+			assertEquals(outOfSync, new HashSet<>(subscriber.visited.subList(0, 2)));
+			assertTrue(subscriber.collected.contains(project));
+			// The snapshot is consumed when it is loaded
+			assertNull(getSnapshot(subscriber).load());
+		} finally {
+			collector.dispose();
+		}
+		assertEquals(asSet(new IResource[] { project.getFile("b/out2.txt"), added }), asSet(getSnapshot(subscriber).load()));
+	}
+
+	public void testEmptySnapshot() {
+		SnapshotSubscriber subscriber = new SnapshotSubscriber();
+		subscriber.inSync.add(project.getFile("a/out1.txt"));
+		subscriber.inSync.add(project.getFile("b/out2.txt"));
+		startCollector(subscriber).dispose();
+		IResource[] saved = getSnapshot(subscriber).load();
+		assertNotNull(saved);
+		assertEquals(0, saved.length);
+
+		// The files that went out-of-sync since the snapshot was saved are collected
+		subscriber = new SnapshotSubscriber();
+		SubscriberSyncInfoCollector collector = startCollector(subscriber);
+		try {
+			assertEquals(asSet(new IResource[] { project.getFile("a/out1.txt"), project.getFile("b/out2.txt") }),
+					asSet(collector.getSubscriberSyncInfoSet().getResources()));
+			assertTrue(subscriber.collected.contains(project));
+		} finally {
+			collector.dispose();
+		}
+	}
+
+	public void testSnapshotId() {
+		SnapshotSubscriber subscriber = new SnapshotSubscriber();
+		startCollector(subscriber).dispose();
+		// The snapshot is only loaded for the same id and scope
+		assertNull(getSnapshot(subscriber, getSnapshotId() + "/other").load());
+		assertNull(new SubscriberStateSnapshot(subscriber, getSnapshotId(), new ResourceTraversal[] {
+				new ResourceTraversal(new IResource[] { project.getFolder("a") }, IResource.DEPTH_INFINITE, IResource.NONE) }).load());
+		assertNotNull(getSnapshot(subscriber).load());
+	}
+
+	public void testNoSnapshotWithoutId() {
+		SnapshotSubscriber subscriber = new SnapshotSubscriber();
+		SubscriberSyncInfoCollector collector = new SubscriberSyncInfoCollector(subscriber, new IResource[] { project });
+		collector.start();
+		collector.waitForCollector(new NullProgressMonitor());
+		collector.dispose();
+		assertNull(getSnapshot(subscriber).load());
+	}
+
+	public void testNoSnapshotWithoutCompleteCollection() {
+		SnapshotSubscriber subscriber = new SnapshotSubscriber();
+		SubscriberSyncInfoCollector collector = new SubscriberSyncInfoCollector(subscriber, new IResource[] { project });
+		collector.setSnapshotId(getSnapshotId());
+		// Disposing a collector that was never started does not save its (empty) output
+		collector.dispose();
+		assertNull(getSnapshot(subscriber).load());
+	}
+}
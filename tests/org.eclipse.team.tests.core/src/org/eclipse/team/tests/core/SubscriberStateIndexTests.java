@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.mapping.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.IThreeWayDiff;
+import org.eclipse.team.core.diff.provider.ThreeWayDiff;
+import org.eclipse.team.core.mapping.provider.ResourceDiff;
+import org.eclipse.team.core.subscribers.ISubscriberChangeEvent;
+import org.eclipse.team.core.subscribers.SubscriberChangeEvent;
+import org.eclipse.team.internal.core.subscribers.SubscriberStateIndex;
+import org.eclipse.team.tests.core.mapping.ScopeTestSubscriber;
+
+public class SubscriberStateIndexTests extends TeamTest {
+
+	private static final int ALL_STATES = IDiff.ADD | IDiff.REMOVE | IDiff.CHANGE | IThreeWayDiff.DIRECTION_MASK;
+
+	public static Test suite() {
+		return suite(SubscriberStateIndexTests.class);
+	}
+
+	/*
+	 * Subscriber whose diffs are set by the tests. The files whose name starts
+	 * with "new" are outgoing additions, as if they had been created locally.
+	 */
+	private static class DiffSubscriber extends ScopeTestSubscriber {
+		private final Map<IResource, IDiff> diffs = new HashMap<>();
+		public IDiff getDiff(IResource resource) throws CoreException {
+			synchronized (diffs) {
+				IDiff diff = diffs.get(resource);
+				if (diff != null)
+					return diff;
+			}
+			if (resource.getType() == IResource.FILE && resource.exists() && resource.getName().startsWith("new"))
+				return createDiff(resource, IDiff.ADD, IThreeWayDiff.OUTGOING);
+			return null;
+		}
+		public boolean isSupervised(IResource resource) {
+			return true;
+		}
+		void setDiff(IResource resource, int kind, int direction) {
+			synchronized (diffs) {
+				diffs.put(resource, createDiff(resource, kind, direction));
+			}
+			fireTeamResourceChange(new ISubscriberChangeEvent[] { new SubscriberChangeEvent(this, ISubscriberChangeEvent.SYNC_CHANGED, resource) });
+		}
+		void removeDiff(IResource resource) {
+			synchronized (diffs) {
+				diffs.remove(resource);
+			}
+			fireTeamResourceChange(new ISubscriberChangeEvent[] { new SubscriberChangeEvent(this, ISubscriberChangeEvent.SYNC_CHANGED, resource) });
+		}
+		private static IDiff createDiff(IResource resource, int kind, int direction) {
+			ResourceDiff local = null;
+			ResourceDiff remote = null;
+			if ((direction & IThreeWayDiff.OUTGOING) != 0)
+				local = new ResourceDiff(resource, kind, 0, null, null);
+			if ((direction & IThreeWayDiff.INCOMING) != 0)
+				remote = new ResourceDiff(resource, kind, 0, null, null);
+			return new ThreeWayDiff(local, remote);
+		}
+	}
+
+	/*
+	 * Mapping that covers a resource to the given depth
+	 */
+	private static class DepthMapping extends ResourceMapping {
+		private final IResource resource;
+		private final int depth;
+		DepthMapping(IResource resource, int depth) {
+			this.resource = resource;
+			this.depth = depth;
+		}
+		public Object getModelObject() {
+			return resource;
+		}
+		public String getModelProviderId() {
+			return ModelProvider.RESOURCE_MODEL_PROVIDER_ID;
+		}
+		public IProject[] getProjects() {
+			return new IProject[] { resource.getProject() };
+		}
+		public ResourceTraversal[] getTraversals(ResourceMappingContext context, IProgressMonitor monitor) {
+			return new ResourceTraversal[] { new ResourceTraversal(new IResource[] { resource }, depth, IResource.NONE) };
+		}
+	}
+
+	private IProject project;
+	private DiffSubscriber subscriber;
+	private SubscriberStateIndex index;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createProject("SubscriberStateIndex_", new String[] {
+				"a/", "a/file1.txt", "a/b/", "a/b/file2.txt", "a/b/file3.txt",
+				"c/", "c/file4.txt", "c/d/", "c/d/file5.txt", "file6.txt" });
+		subscriber = new DiffSubscriber();
+		index = new SubscriberStateIndex(subscriber);
+	}
+
+	protected void tearDown() throws Exception {
+		index.dispose();
+		subscriber.setStateIndexEnabled(false);
+		super.tearDown();
+	}
+
+	private ResourceMapping[] getMappings() {
+		return new ResourceMapping[] {
+				new DepthMapping(project, IResource.DEPTH_INFINITE),
+				new DepthMapping(project.getFolder("a"), IResource.DEPTH_INFINITE),
+				new DepthMapping(project.getFolder("a/b"), IResource.DEPTH_INFINITE),
+				new DepthMapping(project.getFolder("c"), IResource.DEPTH_INFINITE),
+				new DepthMapping(project, IResource.DEPTH_ONE),
+				new DepthMapping(project.getFolder("a"), IResource.DEPTH_ONE),
+				new DepthMapping(project.getFolder("a/b"), IResource.DEPTH_ONE),
+				new DepthMapping(project.getFile("a/b/file2.txt"), IResource.DEPTH_ZERO),
+				new DepthMapping(project.getFolder("c/d"), IResource.DEPTH_ZERO),
+				(ResourceMapping) project.getAdapter(ResourceMapping.class),
+				(ResourceMapping) project.getFolder("a").getAdapter(ResourceMapping.class) };
+	}
+
+	/*
+	 * Assert that the index returns the state determined by visiting the diffs
+	 * of the subscriber for all the mappings and the given masks
+	 */
+	private void assertStates() throws CoreException {
+		int[] masks = new int[] { ALL_STATES, IThreeWayDiff.DIRECTION_MASK, IDiff.ADD | IDiff.REMOVE | IDiff.CHANGE, IThreeWayDiff.INCOMING };
+		ResourceMapping[] mappings = getMappings();
+		// Twice so that the second round uses the cached states
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < mappings.length; i++) {
+				for (int j = 0; j < masks.length; j++) {
+					int expected = subscriber.getState(mappings[i], masks[j], new NullProgressMonitor());
+					int actual = index.getState(mappings[i], masks[j], new NullProgressMonitor());
+					assertEquals("Mapping " + i, expected, actual);
+				}
+			}
+		}
+	}
+
+	public void testNoChanges() throws CoreException {
+		assertStates();
+		assertEquals(0, index.getState(new DepthMapping(project, IResource.DEPTH_INFINITE), ALL_STATES, null));
+	}
+
+	public void testAdds() throws CoreException {
+		assertStates();
+		subscriber.setDiff(project.getFile("a/b/file2.txt"), IDiff.ADD, IThreeWayDiff.INCOMING);
+		assertStates();
+		assertEquals(IDiff.ADD | IThreeWayDiff.INCOMING, index.getState(new DepthMapping(project, IResource.DEPTH_INFINITE), ALL_STATES, null));
+		subscriber.setDiff(project.getFile("c/d/file5.txt"), IDiff.ADD, IThreeWayDiff.OUTGOING);
+		assertStates();
+		assertEquals(IDiff.ADD | IThreeWayDiff.DIRECTION_MASK, index.getState(new DepthMapping(project, IResource.DEPTH_INFINITE), ALL_STATES, null));
+		// An added folder hides the state of its children
+		subscriber.setDiff(project.getFolder("a"), IDiff.ADD, IThreeWayDiff.OUTGOING);
+		subscriber.setDiff(project.getFile("a/file1.txt"), IDiff.CHANGE, IThreeWayDiff.CONFLICTING);
+		assertStates();
+		assertEquals(IDiff.ADD | IThreeWayDiff.OUTGOING, index.getState(new DepthMapping(project.getFolder("a"), IResource.DEPTH_INFINITE), ALL_STATES, null));
+	}
+
+	public void testRemoves() throws CoreException {
+		subscriber.setDiff(project.getFile("a/file1.txt"), IDiff.REMOVE, IThreeWayDiff.OUTGOING);
+		subscriber.setDiff(project.getFile("c/d/file5.txt"), IDiff.CHANGE, IThreeWayDiff.INCOMING);
+		assertStates();
+		subscriber.removeDiff(project.getFile("c/d/file5.txt"));
+		assertStates();
+		assertEquals(IDiff.REMOVE | IThreeWayDiff.OUTGOING, index.getState(new DepthMapping(project, IResource.DEPTH_INFINITE), ALL_STATES, null));
+		subscriber.removeDiff(project.getFile("a/file1.txt"));
+		assertStates();
+		assertEquals(0, index.getState(new DepthMapping(project, IResource.DEPTH_INFINITE), ALL_STATES, null));
+	}
+
+	public void testChanges() throws CoreException {
+		subscriber.setDiff(project.getFile("a/b/file2.txt"), IDiff.ADD, IThreeWayDiff.OUTGOING);
+		subscriber.setDiff(project.getFile("a/b/file3.txt"), IDiff.ADD, IThreeWayDiff.OUTGOING);
+		assertStates();
+		assertEquals(IDiff.ADD | IThreeWayDiff.OUTGOING, index.getState(new DepthMapping(project.getFolder("a/b"), IResource.DEPTH_INFINITE), ALL_STATES, null));
+		// A combination of kinds is a change
+		subscriber.setDiff(project.getFile("a/b/file3.txt"), IDiff.REMOVE, IThreeWayDiff.INCOMING);
+		assertStates();
+		assertEquals(IDiff.CHANGE | IThreeWayDiff.DIRECTION_MASK, index.getState(new DepthMapping(project.getFolder("a/b"), IResource.DEPTH_INFINITE), ALL_STATES, null));
+		subscriber.setDiff(project.getFile("a/b/file3.txt"), IDiff.CHANGE, IThreeWayDiff.CONFLICTING);
+		subscriber.setDiff(project.getFolder("c"), IDiff.CHANGE, IThreeWayDiff.INCOMING);
+		subscriber.setDiff(project.getFile("c/d/file5.txt"), IDiff.REMOVE, IThreeWayDiff.OUTGOING);
+		assertStates();
+		subscriber.setDiff(project.getFile("a/b/file2.txt"), IDiff.NO_CHANGE, IThreeWayDiff.OUTGOING);
+		subscriber.setDiff(project.getFile("a/b/file3.txt"), IDiff.CHANGE, IThreeWayDiff.INCOMING);
+		assertStates();
+		assertEquals(IDiff.CHANGE | IThreeWayDiff.INCOMING, index.getState(new DepthMapping(project.getFolder("a/b"), IResource.DEPTH_INFINITE), ALL_STATES, null));
+	}
+
+	public void testWorkspaceChanges() throws CoreException {
+		assertStates();
+		// The files whose name starts with "new" are added without a subscriber event
+		IFile file = project.getFile("a/b/new.txt");
+		file.create(getRandomContents(), true, null);
+		assertStates();
+		assertEquals(IDiff.ADD | IThreeWayDiff.OUTGOING, index.getState(new DepthMapping(project, IResource.DEPTH_INFINITE), ALL_STATES, null));
+		file.delete(true, null);
+		assertStates();
+		assertEquals(0, index.getState(new DepthMapping(project, IResource.DEPTH_INFINITE), ALL_STATES, null));
+		IFolder folder = project.getFolder("c/d");
+		subscriber.setDiff(folder.getFile("file5.txt"), IDiff.CHANGE, IThreeWayDiff.INCOMING);
+		assertStates();
+		folder.getFile("new.txt").create(getRandomContents(), true, null);
+		folder.delete(true, null);
+		assertStates();
+	}
+
+	public void testCachedStates() throws CoreException {
+		subscriber.setDiff(project.getFile("a/b/file2.txt"), IDiff.CHANGE, IThreeWayDiff.OUTGOING);
+		assertEquals(0, index.size());
+		index.getState(new DepthMapping(project, IResource.DEPTH_INFINITE), ALL_STATES, null);
+		// The project and its folders
+		assertEquals(5, index.size());
+		// A change discards the states of the ancestors only
+		subscriber.setDiff(project.getFile("a/b/file3.txt"), IDiff.CHANGE, IThreeWayDiff.INCOMING);
+		assertEquals(2, index.size());
+		assertEquals(IDiff.CHANGE | IThreeWayDiff.DIRECTION_MASK, index.getState(new DepthMapping(project, IResource.DEPTH_INFINITE), ALL_STATES, null));
+		assertEquals(5, index.size());
+		// A marker change keeps the states
+		project.getFile("c/file4.txt").createMarker(IMarker.PROBLEM);
+		assertEquals(5, index.size());
+		project.getFile("c/file4.txt").setContents(getRandomContents(), true, false, null);
+		assertEquals(3, index.size());
+	}
+
+	public void testEnabledIndex() throws CoreException {
+		ResourceMapping mapping = new DepthMapping(project, IResource.DEPTH_INFINITE);
+		subscriber.setStateIndexEnabled(true);
+		assertTrue(subscriber.isStateIndexEnabled());
+		assertEquals(0, subscriber.getState(mapping, ALL_STATES, null));
+		subscriber.setDiff(project.getFile("c/d/file5.txt"), IDiff.REMOVE, IThreeWayDiff.INCOMING);
+		assertEquals(IDiff.REMOVE | IThreeWayDiff.INCOMING, subscriber.getState(mapping, ALL_STATES, null));
+		subscriber.setDiff(project.getFile("file6.txt"), IDiff.CHANGE, IThreeWayDiff.OUTGOING);
+		int indexed = subscriber.getState(mapping, ALL_STATES, null);
+		subscriber.setStateIndexEnabled(false);
+		assertFalse(subscriber.isStateIndexEnabled());
+		int visited = subscriber.getState(mapping, ALL_STATES, null);
+		assertEquals(IDiff.CHANGE | IThreeWayDiff.DIRECTION_MASK, visited);
+		assertEquals(visited, indexed);
+	}
+}
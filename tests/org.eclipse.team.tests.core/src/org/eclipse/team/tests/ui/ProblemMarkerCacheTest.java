@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.internal.ui.synchronize.ProblemMarkerCache;
+import org.eclipse.team.tests.core.TeamTest;
+import org.eclipse.team.ui.synchronize.ISynchronizeModelElement;
+
+public class ProblemMarkerCacheTest extends TeamTest {
+
+	public static Test suite() {
+		return suite(ProblemMarkerCacheTest.class);
+	}
+
+	private ProblemMarkerCache cache;
+	private IResourceChangeListener listener;
+	private IProject project;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createProject("Project_", new String[] {
+				"folder/", "folder/file.txt", "other.txt" });
+		cache = new ProblemMarkerCache();
+		listener = new IResourceChangeListener() {
+			public void resourceChanged(IResourceChangeEvent event) {
+				cache.update(event);
+			}
+		};
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	protected void tearDown() throws Exception {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+		super.tearDown();
+	}
+
+	private IMarker createMarker(IResource resource, int severity) throws CoreException {
+		IMarker marker = resource.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		return marker;
+	}
+
+	public void testExistingMarkers() throws CoreException {
+		IFile file = project.getFile("folder/file.txt");
+		createMarker(file, IMarker.SEVERITY_WARNING);
+		assertEquals(ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY, cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+		assertEquals(ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY, cache.getMarkerProperty(file.getParent(), IResource.DEPTH_ONE));
+		assertNull(cache.getMarkerProperty(project, IResource.DEPTH_ONE));
+		assertNull(cache.getMarkerProperty(project.getFile("other.txt"), IResource.DEPTH_ZERO));
+	}
+
+	public void testMarkerChanges() throws CoreException {
+		IFile file = project.getFile("folder/file.txt");
+		assertNull(cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+
+		IMarker warning = createMarker(file, IMarker.SEVERITY_WARNING);
+		assertEquals(ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY, cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+
+		IMarker error = createMarker(project.getFile("other.txt"), IMarker.SEVERITY_INFO);
+		assertEquals(ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY, cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+		error.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		assertEquals(ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY, cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+		assertEquals(ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY, cache.getMarkerProperty(project, IResource.DEPTH_ONE));
+		assertEquals(ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY, cache.getMarkerProperty(file.getParent(), IResource.DEPTH_INFINITE));
+
+		error.delete();
+		assertEquals(ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY, cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+		warning.delete();
+		assertNull(cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+	}
+
+	public void testDeletedResource() throws CoreException {
+		IFile file = project.getFile("folder/file.txt");
+		assertNull(cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+		createMarker(file, IMarker.SEVERITY_ERROR);
+		assertEquals(ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY, cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+		file.getParent().delete(true, null);
+		assertNull(cache.getMarkerProperty(project, IResource.DEPTH_INFINITE));
+	}
+}
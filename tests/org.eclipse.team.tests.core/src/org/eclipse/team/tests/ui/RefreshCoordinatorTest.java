@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.mapping.ResourceTraversal;
+import org.eclipse.team.core.subscribers.Subscriber;
+import org.eclipse.team.internal.ui.synchronize.RefreshCoordinator;
+import org.eclipse.team.tests.core.TeamTest;
+import org.eclipse.team.tests.core.mapping.ScopeTestSubscriber;
+
+public class RefreshCoordinatorTest extends TeamTest {
+
+	public static Test suite() {
+		return suite(RefreshCoordinatorTest.class);
+	}
+
+	private RefreshCoordinator coordinator;
+	private Subscriber subscriber;
+	private IProject project;
+	private long start;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createProject("Project_", new String[] {
+				"folder/", "folder/file.txt", "other.txt" });
+		coordinator = new RefreshCoordinator();
+		subscriber = new ScopeTestSubscriber();
+		start = System.currentTimeMillis();
+	}
+
+	private ResourceTraversal[] traversal(IResource resource, int depth) {
+		return new ResourceTraversal[] { new ResourceTraversal(new IResource[] { resource }, depth, IResource.NONE) };
+	}
+
+	public void testCoveredRefresh() {
+		IFolder folder = project.getFolder("folder");
+		assertFalse(coordinator.isRefreshed(subscriber, traversal(folder, IResource.DEPTH_INFINITE), start));
+		coordinator.refreshed(subscriber, traversal(project, IResource.DEPTH_INFINITE), start + 100);
+		assertTrue(coordinator.isRefreshed(subscriber, traversal(folder, IResource.DEPTH_INFINITE), start + 100));
+		assertTrue(coordinator.isRefreshed(subscriber, traversal(project, IResource.DEPTH_ONE), start + 50));
+		// Refreshes that started before the request are not reused
+		assertFalse(coordinator.isRefreshed(subscriber, traversal(folder, IResource.DEPTH_INFINITE), start + 101));
+		// Refreshes of other subscribers are not reused
+		assertFalse(coordinator.isRefreshed(new ScopeTestSubscriber(), traversal(folder, IResource.DEPTH_INFINITE), start));
+	}
+
+	public void testShallowRefresh() {
+		IFolder folder = project.getFolder("folder");
+		coordinator.refreshed(subscriber, traversal(folder, IResource.DEPTH_ONE), start + 100);
+		assertTrue(coordinator.isRefreshed(subscriber, traversal(folder.getFile("file.txt"), IResource.DEPTH_ZERO), start));
+		assertTrue(coordinator.isRefreshed(subscriber, traversal(folder, IResource.DEPTH_ZERO), start));
+		assertFalse(coordinator.isRefreshed(subscriber, traversal(folder, IResource.DEPTH_INFINITE), start));
+		assertFalse(coordinator.isRefreshed(subscriber, traversal(project, IResource.DEPTH_ONE), start));
+	}
+
+	public void testPartiallyCoveredRefresh() {
+		coordinator.refreshed(subscriber, traversal(project.getFolder("folder"), IResource.DEPTH_INFINITE), start + 100);
+		ResourceTraversal[] traversals = new ResourceTraversal[] {
+				new ResourceTraversal(new IResource[] { project.getFolder("folder"), project.getFile("other.txt") }, IResource.DEPTH_INFINITE, IResource.NONE) };
+		assertFalse(coordinator.isRefreshed(subscriber, traversals, start));
+		coordinator.refreshed(subscriber, traversal(project.getFile("other.txt"), IResource.DEPTH_ZERO), start + 200);
+		assertTrue(coordinator.isRefreshed(subscriber, traversals, start));
+		assertFalse(coordinator.isRefreshed(subscriber, traversals, start + 150));
+	}
+
+	public void testStaggeredDelay() {
+		long hour = 60 * 60 * 1000;
+		for (int i = 0; i < 10; i++) {
+			long delay = coordinator.getStaggeredDelay(hour);
+			assertTrue(delay >= hour);
+			assertTrue(delay <= hour + 5 * 60 * 1000);
+		}
+		// An immediate refresh is not delayed
+		assertEquals(0, coordinator.getStaggeredDelay(0));
+	}
+}
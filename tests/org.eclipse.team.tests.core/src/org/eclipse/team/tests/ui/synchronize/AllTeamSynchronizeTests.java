@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,6 +28,8 @@ public class AllTeamSynchronizeTests extends ResourceTest {
 	public static Test suite() {
 		TestSuite suite = new TestSuite();
 		suite.addTest(ResourceContentTests.suite());
+		suite.addTest(HierarchicalModelProviderTests.suite());
+		suite.addTest(SynchronizeModelUpdateHandlerTests.suite());
 		return suite;
 	}
 }
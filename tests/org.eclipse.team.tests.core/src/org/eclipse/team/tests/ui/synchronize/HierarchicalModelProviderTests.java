@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui.synchronize;
+
+import junit.framework.Test;
+
+import org.eclipse.compare.structuremergeviewer.IDiffContainer;
+import org.eclipse.compare.structuremergeviewer.IDiffElement;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.team.core.ITeamStatus;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.synchronize.*;
+import org.eclipse.team.internal.ui.IPreferenceIds;
+import org.eclipse.team.internal.ui.TeamUIPlugin;
+import org.eclipse.team.internal.ui.synchronize.HierarchicalModelProvider;
+import org.eclipse.team.internal.ui.synchronize.SynchronizePageConfiguration;
+import org.eclipse.team.tests.core.TeamTest;
+import org.eclipse.team.tests.core.mapping.ScopeTestSubscriber;
+import org.eclipse.team.ui.synchronize.ISynchronizeModelElement;
+import org.eclipse.team.ui.synchronize.ISynchronizePage;
+import org.eclipse.team.ui.synchronize.ISynchronizePageConfiguration;
+import org.eclipse.team.ui.synchronize.ISynchronizePageSite;
+
+public class HierarchicalModelProviderTests extends TeamTest {
+
+	public static Test suite() {
+		return suite(HierarchicalModelProviderTests.class);
+	}
+
+	/*
+	 * Tree whose changes are passed to the provider by the test in the UI thread
+	 * instead of being queued by the update handler of the provider
+	 */
+	private static class TestSyncInfoTree extends SyncInfoTree {
+		public void addSyncSetChangedListener(ISyncInfoSetChangeListener listener) {
+			// Ignore the update handler
+		}
+		void addTestListener(ISyncInfoSetChangeListener listener) {
+			super.addSyncSetChangedListener(listener);
+		}
+	}
+
+	/*
+	 * Page that only provides the viewer in which the model is shown
+	 */
+	static class TestPage implements ISynchronizePage {
+		private final TreeViewer viewer;
+		TestPage(TreeViewer viewer) {
+			this.viewer = viewer;
+		}
+		public void init(ISynchronizePageSite site) {
+			// Nothing to initialize
+		}
+		public Viewer getViewer() {
+			return viewer;
+		}
+		public boolean aboutToChangeProperty(ISynchronizePageConfiguration configuration, String key, Object newValue) {
+			return true;
+		}
+	}
+
+	static class DiffContentProvider implements ITreeContentProvider {
+		public Object[] getElements(Object inputElement) {
+			return getChildren(inputElement);
+		}
+		public Object[] getChildren(Object parentElement) {
+			return ((IDiffContainer) parentElement).getChildren();
+		}
+		public Object getParent(Object element) {
+			return ((IDiffElement) element).getParent();
+		}
+		public boolean hasChildren(Object element) {
+			return ((IDiffContainer) element).hasChildren();
+		}
+		public void dispose() {
+			// Nothing to dispose
+		}
+		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+			// Nothing to do
+		}
+	}
+
+	private static class TestModelProvider extends HierarchicalModelProvider {
+		TestModelProvider(SynchronizePageConfiguration configuration, TestSyncInfoTree set) {
+			super(configuration, set);
+			set.addTestListener(new ISyncInfoSetChangeListener() {
+				public void syncInfoSetReset(SyncInfoSet set, IProgressMonitor monitor) {
+					// Not used by the tests
+				}
+				public void syncInfoChanged(ISyncInfoSetChangeEvent event, IProgressMonitor monitor) {
+					handleChanges((ISyncInfoTreeChangeEvent) event, monitor);
+				}
+				public void syncInfoSetErrors(SyncInfoSet set, ITeamStatus[] errors, IProgressMonitor monitor) {
+					// Not used by the tests
+				}
+			});
+		}
+		void build() {
+			buildModelObjects(getModelRoot());
+		}
+		ISynchronizeModelElement getNode(IResource resource) {
+			return getModelObject(resource);
+		}
+		boolean isConflict(ISynchronizeModelElement element) {
+			return isConflicting(element);
+		}
+	}
+
+	private IProject project;
+	private Shell shell;
+	private TestSyncInfoTree set;
+	private TestModelProvider provider;
+	private boolean buildOnDemand;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createProject("HierarchicalModel_", new String[] {
+				"a/", "a/b/", "a/b/conflict.txt", "a/b/out.txt",
+				"c/", "c/out.txt", "c/d/", "c/d/in.txt", "out.txt" });
+		IPreferenceStore store = TeamUIPlugin.getPlugin().getPreferenceStore();
+		buildOnDemand = store.getBoolean(IPreferenceIds.SYNCVIEW_BUILD_MODEL_ON_DEMAND);
+		set = new TestSyncInfoTree();
+		set.add(createSyncInfo("a/b/conflict.txt", SyncInfo.CONFLICTING | SyncInfo.CHANGE));
+		set.add(createSyncInfo("a/b/out.txt", SyncInfo.OUTGOING | SyncInfo.CHANGE));
+		set.add(createSyncInfo("c/out.txt", SyncInfo.OUTGOING | SyncInfo.CHANGE));
+		set.add(createSyncInfo("c/d/in.txt", SyncInfo.INCOMING | SyncInfo.CHANGE));
+		set.add(createSyncInfo("out.txt", SyncInfo.OUTGOING | SyncInfo.ADDITION));
+	}
+
+	protected void tearDown() throws Exception {
+		if (provider != null)
+			provider.dispose();
+		if (shell != null)
+			shell.dispose();
+		TeamUIPlugin.getPlugin().getPreferenceStore().setValue(IPreferenceIds.SYNCVIEW_BUILD_MODEL_ON_DEMAND, buildOnDemand);
+		super.tearDown();
+	}
+
+	private SyncInfo createSyncInfo(String path, final int kind) throws TeamException {
+		SyncInfo info = new SyncInfo(project.findMember(path), null, null, new ScopeTestSubscriber().getResourceComparator()) {
+			protected int calculateKind() throws TeamException {
+				return kind;
+			}
+		};
+		info.init();
+		return info;
+	}
+
+	private TestModelProvider createProvider(boolean onDemand) {
+		TeamUIPlugin.getPlugin().getPreferenceStore().setValue(IPreferenceIds.SYNCVIEW_BUILD_MODEL_ON_DEMAND, onDemand);
+		shell = new Shell(Display.getDefault());
+		TreeViewer viewer = new TreeViewer(shell);
+		viewer.setContentProvider(new DiffContentProvider());
+		SynchronizePageConfiguration configuration = new SynchronizePageConfiguration(null);
+		configuration.setPage(new TestPage(viewer));
+		provider = new TestModelProvider(configuration, set);
+		viewer.setInput(provider.getModelRoot());
+		provider.build();
+		return provider;
+	}
+
+	private ISynchronizeModelElement getNode(String path) {
+		return provider.getNode(project.findMember(path));
+	}
+
+	private void assertConflict(String path, boolean conflict) {
+		ISynchronizeModelElement node = getNode(path);
+		assertNotNull(path, node);
+		assertEquals(path, conflict, node.getProperty(ISynchronizeModelElement.PROPAGATED_CONFLICT_PROPERTY));
+	}
+
+	public void testBuildOnDemand() {
+		createProvider(true);
+		ISynchronizeModelElement projectNode = provider.getNode(project);
+		assertNotNull(projectNode);
+		ISynchronizeModelElement a = getNode("a");
+		assertNotNull(a);
+		assertNotNull(getNode("out.txt"));
+		// The children of the folders are built when they are first asked for
+		assertTrue(provider.hasPendingChildren(a));
+		assertNull(getNode("a/b"));
+		provider.prepareChildren(a);
+		assertFalse(provider.hasPendingChildren(a));
+		assertNotNull(getNode("a/b"));
+		assertTrue(provider.hasPendingChildren(getNode("a/b")));
+		assertNull(getNode("a/b/out.txt"));
+		provider.prepareChildren(getNode("a/b"));
+		assertNotNull(getNode("a/b/conflict.txt"));
+		assertNotNull(getNode("a/b/out.txt"));
+	}
+
+	public void testBuildAll() {
+		createProvider(false);
+		assertFalse(provider.hasPendingChildren(getNode("a")));
+		assertNotNull(getNode("a/b/conflict.txt"));
+		assertNotNull(getNode("c/d/in.txt"));
+	}
+
+	public void testConflictStateOfPendingFolders() {
+		createProvider(true);
+		// The conflict state of a pending folder is taken from the set
+		assertTrue(provider.isConflict(getNode("a")));
+		assertFalse(provider.isConflict(getNode("c")));
+		assertConflict("a", true);
+		assertConflict("c", false);
+		assertTrue(provider.getNode(project).getProperty(ISynchronizeModelElement.PROPAGATED_CONFLICT_PROPERTY));
+		provider.prepareChildren(getNode("a"));
+		assertConflict("a/b", true);
+		// The conflict state is the same as that of the complete model
+		provider.prepareChildren(getNode("a/b"));
+		assertConflict("a/b/conflict.txt", true);
+		assertConflict("a/b/out.txt", false);
+		assertConflict("a", true);
+	}
+
+	public void testConflictStateChanges() throws TeamException {
+		createProvider(true);
+		// A conflict in a pending folder is reflected in its conflict state
+		set.add(createSyncInfo("c/d/in.txt", SyncInfo.CONFLICTING | SyncInfo.CHANGE));
+		assertTrue(set.hasConflicts(project.getFolder("c")));
+		assertConflict("c", true);
+		set.add(createSyncInfo("c/d/in.txt", SyncInfo.INCOMING | SyncInfo.CHANGE));
+		assertFalse(set.hasConflicts(project.getFolder("c")));
+		assertConflict("c", false);
+		// Removing the only conflict clears the conflict state
+		set.remove(project.getFile("a/b/conflict.txt"));
+		assertFalse(set.hasConflicts(project));
+		assertConflict("a", false);
+		assertFalse(provider.getNode(project).getProperty(ISynchronizeModelElement.PROPAGATED_CONFLICT_PROPERTY));
+		// A conflict that is added to a pending folder
+		set.add(createSyncInfo("a/b/conflict.txt", SyncInfo.CONFLICTING | SyncInfo.CHANGE));
+		assertTrue(set.hasConflicts(project.getFolder("a/b")));
+		assertConflict("a", true);
+		provider.prepareChildren(getNode("a"));
+		provider.prepareChildren(getNode("a/b"));
+		assertConflict("a/b/conflict.txt", true);
+	}
+
+	public void testConflictCounts() throws TeamException {
+		assertTrue(set.hasConflicts(project.getWorkspace().getRoot()));
+		assertTrue(set.hasConflicts(project));
+		assertTrue(set.hasConflicts(project.getFolder("a/b")));
+		assertTrue(set.hasConflicts(project.getFile("a/b/conflict.txt")));
+		assertFalse(set.hasConflicts(project.getFile("a/b/out.txt")));
+		assertFalse(set.hasConflicts(project.getFolder("c")));
+		set.add(createSyncInfo("c/out.txt", SyncInfo.CONFLICTING | SyncInfo.CHANGE));
+		set.add(createSyncInfo("c/out.txt", SyncInfo.CONFLICTING | SyncInfo.DELETION));
+		assertTrue(set.hasConflicts(project.getFolder("c")));
+		set.remove(project.getFolder("c"), IResource.DEPTH_INFINITE);
+		assertFalse(set.hasConflicts(project.getFolder("c")));
+		assertTrue(set.hasConflicts(project));
+		set.clear();
+		assertFalse(set.hasConflicts(project));
+		assertFalse(set.hasConflicts(project.getWorkspace().getRoot()));
+	}
+}
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui.synchronize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.eclipse.compare.structuremergeviewer.IDiffElement;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TreeItem;
+import org.eclipse.team.core.ITeamStatus;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.synchronize.*;
+import org.eclipse.team.internal.ui.IPreferenceIds;
+import org.eclipse.team.internal.ui.TeamUIPlugin;
+import org.eclipse.team.internal.ui.synchronize.HierarchicalModelProvider;
+import org.eclipse.team.internal.ui.synchronize.SynchronizeModelUpdateHandler;
+import org.eclipse.team.internal.ui.synchronize.SynchronizePageConfiguration;
+import org.eclipse.team.tests.core.TeamTest;
+import org.eclipse.team.tests.core.mapping.ScopeTestSubscriber;
+import org.eclipse.team.ui.synchronize.ISynchronizeModelElement;
+
+public class SynchronizeModelUpdateHandlerTests extends TeamTest {
+
+	/*
+	 * The number of additions to a parent above which the handler
+	 * refreshes the parent instead of adding the children
+	 */
+	private static final int REFRESH_THRESHOLD = 50;
+
+	private static final int FILE_COUNT = 60;
+
+	public static Test suite() {
+		return suite(SynchronizeModelUpdateHandlerTests.class);
+	}
+
+	/*
+	 * Tree that only lets the update handler of the provider queue its
+	 * changes if asked to. Otherwise, the test passes the changes to the
+	 * provider in the UI thread.
+	 */
+	private static class TestSyncInfoTree extends SyncInfoTree {
+		private final boolean queueChanges;
+		TestSyncInfoTree(boolean queueChanges) {
+			this.queueChanges = queueChanges;
+		}
+		public void addSyncSetChangedListener(ISyncInfoSetChangeListener listener) {
+			if (queueChanges || !(listener instanceof SynchronizeModelUpdateHandler))
+				super.addSyncSetChangedListener(listener);
+		}
+	}
+
+	/*
+	 * Viewer that records the structural changes and label updates made to it
+	 */
+	private static class RecordingTreeViewer extends TreeViewer {
+		final List<Object> addParents = new ArrayList<>();
+		final List<Object[]> addChildren = new ArrayList<>();
+		final List<Object[]> removals = new ArrayList<>();
+		final List<Object> refreshes = new ArrayList<>();
+		final List<Object> updates = new ArrayList<>();
+		RecordingTreeViewer(Composite parent) {
+			super(parent);
+		}
+		public void add(Object parentElementOrTreePath, Object[] childElements) {
+			addParents.add(parentElementOrTreePath);
+			addChildren.add(childElements);
+			super.add(parentElementOrTreePath, childElements);
+		}
+		public void remove(Object[] elementsOrTreePaths) {
+			removals.add(elementsOrTreePaths);
+			super.remove(elementsOrTreePaths);
+		}
+		public void refresh(Object element) {
+			refreshes.add(element);
+			super.refresh(element);
+		}
+		public void update(Object[] elements, String[] properties) {
+			for (int i = 0; i < elements.length; i++) {
+				updates.add(elements[i]);
+			}
+			super.update(elements, properties);
+		}
+		void clear() {
+			addParents.clear();
+			addChildren.clear();
+			removals.clear();
+			refreshes.clear();
+			updates.clear();
+		}
+	}
+
+	private static class TestModelProvider extends HierarchicalModelProvider {
+		TestModelProvider(SynchronizePageConfiguration configuration, SyncInfoSet set) {
+			super(configuration, set);
+		}
+		void build() {
+			buildModelObjects(getModelRoot());
+		}
+		ISynchronizeModelElement getNode(String path, IProject project) {
+			return getModelObject(project.findMember(path));
+		}
+	}
+
+	private IProject project;
+	private Shell shell;
+	private RecordingTreeViewer viewer;
+	private TestSyncInfoTree set;
+	private TestModelProvider provider;
+	private boolean buildOnDemand;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		String[] resources = new String[FILE_COUNT + 2];
+		resources[0] = "many/";
+		for (int i = 0; i < FILE_COUNT; i++) {
+			resources[i + 1] = getFileName(i);
+		}
+		resources[FILE_COUNT + 1] = "out.txt";
+		project = createProject("ModelUpdateHandler_", resources);
+		IPreferenceStore store = TeamUIPlugin.getPlugin().getPreferenceStore();
+		buildOnDemand = store.getBoolean(IPreferenceIds.SYNCVIEW_BUILD_MODEL_ON_DEMAND);
+	}
+
+	protected void tearDown() throws Exception {
+		if (provider != null)
+			provider.dispose();
+		if (shell != null)
+			shell.dispose();
+		TeamUIPlugin.getPlugin().getPreferenceStore().setValue(IPreferenceIds.SYNCVIEW_BUILD_MODEL_ON_DEMAND, buildOnDemand);
+		super.tearDown();
+	}
+
+	private static String getFileName(int i) {
+		return "many/file" + i + ".txt";
+	}
+
+	private SyncInfo createSyncInfo(String path, final int kind) throws TeamException {
+		SyncInfo info = new SyncInfo(project.findMember(path), null, null, new ScopeTestSubscriber().getResourceComparator()) {
+			protected int calculateKind() throws TeamException {
+				return kind;
+			}
+		};
+		info.init();
+		return info;
+	}
+
+	/*
+	 * Create a provider that shows the first file of the folder and a file of the project
+	 * in an expanded tree
+	 */
+	private void createProvider(boolean queueChanges) throws TeamException {
+		TeamUIPlugin.getPlugin().getPreferenceStore().setValue(IPreferenceIds.SYNCVIEW_BUILD_MODEL_ON_DEMAND, false);
+		set = new TestSyncInfoTree(queueChanges);
+		set.add(createSyncInfo(getFileName(0), SyncInfo.OUTGOING | SyncInfo.CHANGE));
+		set.add(createSyncInfo("out.txt", SyncInfo.OUTGOING | SyncInfo.ADDITION));
+		shell = new Shell(Display.getDefault());
+		viewer = new RecordingTreeViewer(shell);
+		viewer.setContentProvider(new HierarchicalModelProviderTests.DiffContentProvider());
+		SynchronizePageConfiguration configuration = new SynchronizePageConfiguration(null);
+		configuration.setPage(new HierarchicalModelProviderTests.TestPage(viewer));
+		provider = new TestModelProvider(configuration, set);
+		if (!queueChanges) {
+			set.addSyncSetChangedListener(new ISyncInfoSetChangeListener() {
+				public void syncInfoSetReset(SyncInfoSet set, IProgressMonitor monitor) {
+					// Not used by the tests
+				}
+				public void syncInfoChanged(ISyncInfoSetChangeEvent event, IProgressMonitor monitor) {
+					// Apply the changes in a view update of the update handler
+					provider.syncInfoChanged(event, monitor);
+				}
+				public void syncInfoSetErrors(SyncInfoSet set, ITeamStatus[] errors, IProgressMonitor monitor) {
+					// Not used by the tests
+				}
+			});
+		}
+		viewer.setInput(provider.getModelRoot());
+		provider.build();
+		viewer.expandAll();
+		viewer.clear();
+	}
+
+	/*
+	 * Add the files with the given indices to the set in a single change event
+	 */
+	private void addFiles(int first, int last) throws TeamException {
+		set.beginInput();
+		try {
+			for (int i = first; i <= last; i++) {
+				set.add(createSyncInfo(getFileName(i), SyncInfo.OUTGOING | SyncInfo.CHANGE));
+			}
+		} finally {
+			set.endInput(new NullProgressMonitor());
+		}
+	}
+
+	private ISynchronizeModelElement getNode(String path) {
+		return provider.getNode(path, project);
+	}
+
+	private boolean isInSubtree(Object element, Object root) {
+		for (Object e = element; e != null; e = ((IDiffElement) e).getParent()) {
+			if (e == root)
+				return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Assert that the tree shows the given number of children for the node
+	 * and that each child of the node in the model has an item
+	 */
+	private void assertChildItems(ISynchronizeModelElement node, int count) {
+		assertNotNull(node);
+		IDiffElement[] children = node.getChildren();
+		assertEquals(count, children.length);
+		TreeItem item = (TreeItem) viewer.testFindItem(node);
+		assertNotNull(item);
+		assertEquals(count, item.getItemCount());
+		for (int i = 0; i < children.length; i++) {
+			assertNotNull(children[i].getName(), viewer.testFindItem(children[i]));
+		}
+	}
+
+	/*
+	 * Assert that the children of each parent were added in a single call
+	 */
+	private void assertGroupedAdditions() {
+		for (int i = 0; i < viewer.addParents.size(); i++) {
+			assertEquals(i, viewer.addParents.lastIndexOf(viewer.addParents.get(i)));
+		}
+	}
+
+	public void testAdditionsBelowThreshold() throws TeamException {
+		createProvider(false);
+		addFiles(1, 9);
+		ISynchronizeModelElement many = getNode("many");
+		// The additions are grouped by parent and nothing is refreshed
+		assertTrue(viewer.refreshes.isEmpty());
+		assertGroupedAdditions();
+		int index = viewer.addParents.indexOf(many);
+		assertTrue(index >= 0);
+		assertEquals(10, viewer.addChildren.get(index).length);
+		// The previous project node is removed in one call
+		assertEquals(1, viewer.removals.size());
+		assertChildItems(many, 10);
+	}
+
+	public void testAdditionsAboveThreshold() throws TeamException {
+		createProvider(false);
+		addFiles(1, FILE_COUNT - 1);
+		ISynchronizeModelElement many = getNode("many");
+		assertTrue(many.getChildren().length > REFRESH_THRESHOLD);
+		// The folder is refreshed once instead of having each child added
+		assertEquals(1, viewer.refreshes.size());
+		assertSame(many, viewer.refreshes.get(0));
+		assertFalse(viewer.addParents.contains(many));
+		assertGroupedAdditions();
+		// The labels in the refreshed folder are not updated again
+		for (int i = 0; i < viewer.updates.size(); i++) {
+			assertFalse(isInSubtree(viewer.updates.get(i), many));
+		}
+		assertChildItems(many, FILE_COUNT);
+		assertChildItems(getNode(""), 2);
+	}
+
+	public void testBatchedRemovals() throws TeamException {
+		createProvider(false);
+		addFiles(1, 9);
+		viewer.clear();
+		set.beginInput();
+		try {
+			for (int i = 1; i <= 9; i++) {
+				set.remove(project.findMember(getFileName(i)));
+			}
+		} finally {
+			set.endInput(new NullProgressMonitor());
+		}
+		// The removed files are removed from the tree in one call
+		assertEquals(1, viewer.removals.size());
+		assertEquals(9, viewer.removals.get(0).length);
+		assertTrue(viewer.addParents.isEmpty());
+		assertTrue(viewer.refreshes.isEmpty());
+		assertChildItems(getNode("many"), 1);
+	}
+
+	public void testQueuedChanges() throws Exception {
+		createProvider(true);
+		// Each addition is a separate change event that the handler queues
+		for (int i = 1; i < FILE_COUNT; i++) {
+			set.add(createSyncInfo(getFileName(i), SyncInfo.OUTGOING | SyncInfo.CHANGE));
+		}
+		Display display = Display.getCurrent();
+		long end = System.currentTimeMillis() + 30000;
+		while (System.currentTimeMillis() < end) {
+			ISynchronizeModelElement many = getNode("many");
+			if (many != null && many.getChildren().length == FILE_COUNT)
+				break;
+			if (!display.readAndDispatch())
+				Thread.sleep(10);
+		}
+		// The queued changes are applied to the view together instead
+		// of rebuilding the project once for each change
+		assertTrue(viewer.removals.size() < FILE_COUNT - 1);
+		assertChildItems(getNode("many"), FILE_COUNT);
+	}
+}
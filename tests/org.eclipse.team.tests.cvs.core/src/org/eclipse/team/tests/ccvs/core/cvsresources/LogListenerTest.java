@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSTag;
+import org.eclipse.team.internal.ccvs.core.ILogEntry;
+import org.eclipse.team.internal.ccvs.core.client.listeners.ILogEntryListener;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
+import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class LogListenerTest extends EclipseTest {
+
+	private static final String[] LOG = new String[] {
+		"RCS file: /root/path/project/file.txt,v",
+		"head: 1.2",
+		"branch:",
+		"locks: strict",
+		"access list:",
+		"symbolic names:",
+		"\tv1: 1.1",
+		"\tb1: 1.1.0.2",
+		"keyword substitution: kv",
+		"total revisions: 3;\tselected revisions: 3",
+		"description:",
+		"----------------------------",
+		"revision 1.2\tlocked by: somebody;",
+		"date: 2008-05-02 10:22:33 +0200;  author: somebody;  state: Exp;  lines: +1 -1;  commitid: 1234;",
+		"Second line",
+		"of the comment",
+		"----------------------------",
+		"revision 1.1",
+		"date: 2000/06/19 04:56:21;  author: other;  state: Exp;",
+		"branches:  1.1.2;",
+		"Initial",
+		"----------------------------",
+		"revision 1.1.2.1",
+		"date: 2000/06/20 04:56:21;  author: somebody;  state: dead;  lines: +0 -0",
+		"Removed on branch",
+		"============================================================================="
+	};
+
+	public LogListenerTest() {
+		super();
+	}
+
+	public LogListenerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(LogListenerTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	private ILogEntry[] parse(String[] lines) throws CVSException {
+		final List entries = new ArrayList();
+		LogListener listener = new LogListener(new ILogEntryListener() {
+			public void handleLogEntryReceived(ILogEntry entry) {
+				entries.add(entry);
+			}
+		});
+		CVSRepositoryLocation location = CVSRepositoryLocation.fromString(":pserver:user@host.here:/root/path");
+		for (int i = 0; i < lines.length; i++) {
+			listener.messageLine(lines[i], location, null, null);
+		}
+		return (ILogEntry[]) entries.toArray(new ILogEntry[entries.size()]);
+	}
+
+	private long getTime(int year, int month, int day, int hour, int minute, int second) {
+		Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+		calendar.clear();
+		calendar.set(year, month - 1, day, hour, minute, second);
+		return calendar.getTimeInMillis();
+	}
+
+	private boolean hasTag(CVSTag[] tags, String name) {
+		for (int i = 0; i < tags.length; i++) {
+			if (tags[i].getName().equals(name))
+				return true;
+		}
+		return false;
+	}
+
+	public void testParseEntries() throws CVSException {
+		ILogEntry[] entries = parse(LOG);
+		assertEquals(3, entries.length);
+
+		assertEquals("1.2", entries[0].getRevision());
+		assertEquals("somebody", entries[0].getAuthor());
+		assertEquals("Exp", entries[0].getState());
+		assertEquals("Second line\nof the comment", entries[0].getComment());
+		assertEquals(getTime(2008, 5, 2, 8, 22, 33), entries[0].getDate().getTime());
+		assertEquals("project/file.txt", entries[0].getRemoteFile().getRepositoryRelativePath());
+
+		assertEquals("1.1", entries[1].getRevision());
+		assertEquals("other", entries[1].getAuthor());
+		assertEquals("Initial", entries[1].getComment());
+		assertEquals(getTime(2000, 6, 19, 4, 56, 21), entries[1].getDate().getTime());
+		assertTrue(hasTag(entries[1].getTags(), "v1"));
+		assertFalse(hasTag(entries[0].getTags(), "v1"));
+
+		assertEquals("1.1.2.1", entries[2].getRevision());
+		assertEquals("dead", entries[2].getState());
+		CVSTag[] branches = entries[2].getBranches();
+		assertEquals(1, branches.length);
+		assertEquals("b1", branches[0].getName());
+	}
+
+	public void testInternedAuthors() throws CVSException {
+		ILogEntry[] entries = parse(LOG);
+		assertSame(entries[0].getAuthor(), entries[2].getAuthor());
+	}
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import java.util.Date;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSTag;
+import org.eclipse.team.internal.ccvs.core.ILogEntry;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogEntry;
+import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.filehistory.PersistentLogEntryCache;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class PersistentLogEntryCacheTest extends EclipseTest {
+
+	private static final String[] LOG = new String[] {
+		"RCS file: /root/cache/project/file.txt,v",
+		"head: 1.2",
+		"branch:",
+		"locks: strict",
+		"access list:",
+		"symbolic names:",
+		"\tv1: 1.1",
+		"keyword substitution: kv",
+		"total revisions: 2;\tselected revisions: 2",
+		"description:",
+		"----------------------------",
+		"revision 1.2",
+		"date: 2008/05/02 08:22:33;  author: somebody;  state: Exp;  lines: +1 -1",
+		"Second",
+		"----------------------------",
+		"revision 1.1",
+		"date: 2000/06/19 04:56:21;  author: other;  state: Exp;",
+		"Initial",
+		"============================================================================="
+	};
+
+	private CVSRepositoryLocation location;
+
+	public PersistentLogEntryCacheTest() {
+		super();
+	}
+
+	public PersistentLogEntryCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(PersistentLogEntryCacheTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		location = CVSRepositoryLocation.fromString(":pserver:user@host.here:/root/cache");
+		PersistentLogEntryCache.getCache().clear(location);
+	}
+
+	protected void tearDown() throws Exception {
+		PersistentLogEntryCache.getCache().clear(location);
+		super.tearDown();
+	}
+
+	private RemoteFile getFile(String revision) {
+		return RemoteFile.create("project/file.txt", location, null, revision);
+	}
+
+	private ILogEntry createEntry(String revision, String comment) {
+		return new LogEntry(getFile(revision), revision, "author", new Date(), comment, "Exp",
+				new CVSTag[] { new CVSTag("v1", CVSTag.VERSION) }, new CVSTag[0], new String[0]);
+	}
+
+	private ILogEntry[] fetchLog(RemoteFile file) throws CVSException {
+		PersistentLogEntryCache.CacheUpdater updater = PersistentLogEntryCache.getCache().createUpdater(file, false);
+		for (int i = 0; i < LOG.length; i++) {
+			updater.messageLine(LOG[i], location, null, null);
+		}
+		return updater.commit();
+	}
+
+	public void testSingleRevisionEntry() {
+		PersistentLogEntryCache cache = PersistentLogEntryCache.getCache();
+		RemoteFile file = getFile("1.3");
+		cache.addLogEntry(file, createEntry("1.3", "Third"));
+
+		ILogEntry entry = cache.getLogEntry(file);
+		assertNotNull(entry);
+		assertEquals("Third", entry.getComment());
+		assertEquals("author", entry.getAuthor());
+		// The tags may have changed since the entry was cached
+		assertEquals(0, entry.getTags().length);
+		// A single revision is not the log of the file
+		assertNull(cache.getLogEntries(file));
+		assertNull(cache.getLastRevisionDate(file));
+		assertNull(cache.getLogEntry(getFile("1.2")));
+	}
+
+	public void testInvalidate() {
+		PersistentLogEntryCache cache = PersistentLogEntryCache.getCache();
+		RemoteFile file = getFile("1.3");
+		cache.addLogEntry(file, createEntry("1.3", "Third"));
+		cache.invalidate(file);
+		assertNull(cache.getLogEntry(file));
+	}
+
+	public void testFullLogIsKept() throws CVSException {
+		RemoteFile file = getFile("1.2");
+		assertEquals(2, fetchLog(file).length);
+
+		PersistentLogEntryCache cache = PersistentLogEntryCache.getCache();
+		assertNotNull(cache.getLastRevisionDate(file));
+		// Single revisions are not merged into the full log and invalidation keeps it
+		cache.addLogEntry(getFile("1.3"), createEntry("1.3", "Third"));
+		cache.invalidate(file);
+		ILogEntry[] entries = cache.getLogEntries(file);
+		assertNotNull(entries);
+		assertEquals(2, entries.length);
+		assertNull(cache.getLogEntry(getFile("1.3")));
+
+		// The full log has the tags from the symbolic names
+		for (int i = 0; i < entries.length; i++) {
+			if (entries[i].getRevision().equals("1.1")) {
+				assertEquals(1, entries[i].getTags().length);
+				assertEquals("v1", entries[i].getTags()[0].getName());
+			}
+		}
+		// Single revision lookups do not return them
+		assertEquals(0, cache.getLogEntry(getFile("1.1")).getTags().length);
+	}
+
+	public void testPersistence() throws CVSException {
+		RemoteFile file = getFile("1.2");
+		fetchLog(file);
+		RemoteFile other = getFile("1.3");
+		PersistentLogEntryCache.getCache().addLogEntry(other, createEntry("1.3", "Third"));
+
+		// Reload the cache from disk
+		PersistentLogEntryCache.shutdown();
+		PersistentLogEntryCache cache = PersistentLogEntryCache.getCache();
+		assertEquals(2, cache.getLogEntries(file).length);
+		assertNull(cache.getLogEntry(other));
+	}
+
+	public void testSingleRevisionPersistence() {
+		RemoteFile file = getFile("1.3");
+		PersistentLogEntryCache.getCache().addLogEntry(file, createEntry("1.3", "Third"));
+
+		// Reload the cache from disk
+		PersistentLogEntryCache.shutdown();
+		ILogEntry entry = PersistentLogEntryCache.getCache().getLogEntry(file);
+		assertNotNull(entry);
+		assertEquals("Third", entry.getComment());
+	}
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.internal.ccvs.core.CVSTag;
+import org.eclipse.team.internal.ccvs.core.ICVSResource;
+import org.eclipse.team.internal.ccvs.core.filesystem.CVSURI;
+import org.eclipse.team.internal.ccvs.core.filesystem.RemoteListingCache;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class RemoteListingCacheTest extends EclipseTest {
+
+	private RemoteListingCache cache;
+	private long timeToLive;
+
+	public RemoteListingCacheTest() {
+		super();
+	}
+
+	public RemoteListingCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(RemoteListingCacheTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		cache = RemoteListingCache.getCache();
+		timeToLive = cache.getTimeToLive();
+		// Listings only expire when they are invalidated
+		cache.setTimeToLive(Long.MAX_VALUE);
+		cache.invalidateAll();
+	}
+
+	protected void tearDown() throws Exception {
+		cache.setTimeToLive(timeToLive);
+		cache.invalidateAll();
+		super.tearDown();
+	}
+
+	private CVSURI getURI(IProject project, CVSTag tag) throws CoreException {
+		String path = CVSWorkspaceRoot.getCVSFolderFor(project).getFolderSyncInfo().getRepository();
+		return new CVSURI(getRepository(), new Path(path), tag);
+	}
+
+	private Set getNames(ICVSResource[] children) {
+		Set names = new HashSet();
+		for (int i = 0; i < children.length; i++) {
+			names.add(children[i].getName());
+		}
+		return names;
+	}
+
+	/*
+	 * Return the children of the folder with the given URI after
+	 * checking that they are cached
+	 */
+	private ICVSResource[] getCachedChildren(CVSURI uri) throws CoreException {
+		ICVSResource[] children = cache.getChildren(uri, DEFAULT_MONITOR);
+		assertSame(children, cache.getChildren(uri, DEFAULT_MONITOR));
+		return children;
+	}
+
+	public void testCommit() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt", "folder1/", "folder1/a.txt" });
+		CVSURI uri = getURI(project, null);
+		ICVSResource[] children = getCachedChildren(uri);
+		assertFalse(getNames(children).contains("added.txt"));
+		addResources(project, new String[] { "added.txt" }, true);
+		ICVSResource[] newChildren = getCachedChildren(uri);
+		assertNotSame(children, newChildren);
+		assertTrue(getNames(newChildren).contains("added.txt"));
+	}
+
+	public void testUpdate() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt", "folder1/", "folder1/a.txt" });
+		CVSURI uri = getURI(project, null);
+		ICVSResource[] children = getCachedChildren(uri);
+		// Fetching the listing of another folder keeps the cached listing
+		getCachedChildren(uri.append("folder1"));
+		assertSame(children, cache.getChildren(uri, DEFAULT_MONITOR));
+		updateProject(project, null, false);
+		assertNotSame(children, getCachedChildren(uri));
+	}
+
+	public void testTag() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt", "folder1/", "folder1/a.txt" });
+		CVSTag tag = new CVSTag("v1", CVSTag.VERSION);
+		tagProject(project, tag, false);
+		addResources(project, new String[] { "added.txt" }, true);
+		CVSURI uri = getURI(project, tag);
+		ICVSResource[] children = getCachedChildren(uri);
+		assertFalse(getNames(children).contains("added.txt"));
+		// Moving the tag changes the listing for the tag
+		tagProject(project, tag, true);
+		ICVSResource[] newChildren = getCachedChildren(uri);
+		assertNotSame(children, newChildren);
+		assertTrue(getNames(newChildren).contains("added.txt"));
+	}
+
+	public void testRemoteTag() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt", "folder1/", "folder1/a.txt" });
+		CVSTag tag = new CVSTag("v1", CVSTag.VERSION);
+		tagProject(project, tag, false);
+		addResources(project, new String[] { "added.txt" }, true);
+		CVSURI uri = getURI(project, tag);
+		ICVSResource[] children = getCachedChildren(uri);
+		assertFalse(getNames(children).contains("added.txt"));
+		tagRemoteResource(CVSWorkspaceRoot.getRemoteResourceFor(project), tag, true);
+		ICVSResource[] newChildren = getCachedChildren(uri);
+		assertNotSame(children, newChildren);
+		assertTrue(getNames(newChildren).contains("added.txt"));
+	}
+
+	public void testInvalidateRepository() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt", "folder1/", "folder1/a.txt" });
+		CVSURI uri = getURI(project, null);
+		ICVSResource[] children = getCachedChildren(uri);
+		ICVSResource[] folderChildren = getCachedChildren(uri.append("folder1"));
+		cache.invalidate(getRepository());
+		assertNotSame(children, cache.getChildren(uri, DEFAULT_MONITOR));
+		ICVSResource[] newFolderChildren = cache.getChildren(uri.append("folder1"), DEFAULT_MONITOR);
+		assertNotSame(folderChildren, newFolderChildren);
+		assertEquals(getNames(folderChildren), getNames(newFolderChildren));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -255,6 +255,21 @@ public class IsModifiedTests extends EclipseTest {
 		assertModificationState(project, null, true);
 	}
 
+	public void testSiblingModifications() throws CoreException, TeamException {
+		IProject project = createProject("testSiblingModifications", new String[] { "folder1/", "folder1/a.txt", "folder1/b.txt", "folder1/folder2/c.txt" });
+		// change three files in the same folder hierarchy and clean them one at a time
+		setContentsAndEnsureModified(project.getFile(new Path("folder1/a.txt")));
+		setContentsAndEnsureModified(project.getFile(new Path("folder1/b.txt")));
+		setContentsAndEnsureModified(project.getFile(new Path("folder1/folder2/c.txt")));
+		assertModificationState(project, new String[] {".", "folder1/", "folder1/a.txt", "folder1/b.txt", "folder1/folder2/", "folder1/folder2/c.txt"}, true);
+		commitResources(project, new String[] {"folder1/a.txt"});
+		assertModificationState(project, new String[] {".", "folder1/", "folder1/b.txt", "folder1/folder2/", "folder1/folder2/c.txt"}, true);
+		replace(new IResource[] {project.getFile("folder1/folder2/c.txt")}, null, true);
+		assertModificationState(project, new String[] {".", "folder1/", "folder1/b.txt"}, true);
+		commitResources(project, new String[] {"folder1/b.txt"});
+		assertModificationState(project, null, true);
+	}
+
 	public void testFileDeletions() throws CoreException, TeamException {
 		if (TeamCVSTestPlugin.IS_UNSTABLE_TEST && Util.isMac())
 			return;
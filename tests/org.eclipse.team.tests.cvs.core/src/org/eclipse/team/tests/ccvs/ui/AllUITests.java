@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -41,6 +41,7 @@ public class AllUITests extends EclipseTest {
 		suite.addTest(CVSHisoryTableProviderTest.suite());
 		suite.addTest(PatchTreeTest.suite());
 		suite.addTest(RepositoriesViewTests.suite());
+		suite.addTest(CVSDecorationCacheTests.suite());
 		return suite;
 	}
 
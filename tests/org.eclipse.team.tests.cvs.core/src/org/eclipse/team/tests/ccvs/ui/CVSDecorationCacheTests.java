@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.ui;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Preferences;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.team.core.IFileContentManager;
+import org.eclipse.team.core.Team;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
+import org.eclipse.team.internal.ccvs.core.CVSTeamProvider;
+import org.eclipse.team.internal.ccvs.core.client.Command;
+import org.eclipse.team.internal.ccvs.ui.CVSDecoration;
+import org.eclipse.team.internal.ccvs.ui.CVSDecorationCache;
+import org.eclipse.team.internal.ccvs.ui.CVSUIPlugin;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class CVSDecorationCacheTests extends EclipseTest {
+
+	private CVSDecorationCache cache;
+
+	public CVSDecorationCacheTests() {
+		super();
+	}
+
+	public CVSDecorationCacheTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(CVSDecorationCacheTests.class);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		cache = new CVSDecorationCache();
+		cache.addListeners();
+	}
+
+	protected void tearDown() throws Exception {
+		cache.removeListeners();
+		super.tearDown();
+	}
+
+	private CVSDecoration decorate(IResource resource) throws CoreException {
+		CVSDecoration decoration = new CVSDecoration();
+		cache.getAttributes(resource).applyTypeProperties(decoration);
+		return decoration;
+	}
+
+	private IFile createUnmanagedFile(IProject project, String name) throws CoreException {
+		IFile file = project.getFile(name);
+		file.create(new ByteArrayInputStream("contents".getBytes()), true, null);
+		return file;
+	}
+
+	public void testAttributesAreCached() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt", "folder1/", "folder1/a.txt" });
+		IResource file = project.getFile("folder1/a.txt");
+		CVSDecorationCache.Attributes attributes = cache.getAttributes(file);
+		assertSame(attributes, cache.getAttributes(file));
+		cache.getAttributes(project.getFile("file1.txt"));
+		assertEquals(2, cache.size());
+		// A change to the CVS state of a file discards its attributes only
+		setContentsAndEnsureModified(project.getFile("file1.txt"));
+		assertEquals(1, cache.size());
+		assertSame(attributes, cache.getAttributes(file));
+	}
+
+	public void testWatchEditChange() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt", "folder1/", "folder1/a.txt" });
+		IResource file = project.getFile("file1.txt");
+		IResource deepFile = project.getFile("folder1/a.txt");
+		CVSTeamProvider provider = getProvider(project);
+		boolean enabled = provider.isWatchEditEnabled();
+		assertEquals(enabled, decorate(file).isWatchEditEnabled());
+		assertEquals(enabled, decorate(deepFile).isWatchEditEnabled());
+		provider.setWatchEditEnabled(!enabled);
+		// The setting applies to all the files of the project
+		assertEquals(0, cache.size());
+		assertEquals(!enabled, decorate(file).isWatchEditEnabled());
+		assertEquals(!enabled, decorate(deepFile).isWatchEditEnabled());
+	}
+
+	public void testWatchEditDefaultChange() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt" });
+		decorate(project.getFile("file1.txt"));
+		assertEquals(1, cache.size());
+		Preferences preferences = CVSProviderPlugin.getPlugin().getPluginPreferences();
+		boolean readOnly = preferences.getBoolean(CVSProviderPlugin.READ_ONLY);
+		try {
+			preferences.setValue(CVSProviderPlugin.READ_ONLY, !readOnly);
+			assertEquals(0, cache.size());
+		} finally {
+			preferences.setValue(CVSProviderPlugin.READ_ONLY, readOnly);
+		}
+	}
+
+	public void testFileTypeChange() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt" });
+		IFile file = createUnmanagedFile(project, "new.decorationcache");
+		IFileContentManager manager = Team.getFileContentManager();
+		try {
+			manager.addExtensionMappings(new String[] { "decorationcache" }, new int[] { Team.TEXT });
+			assertEquals(Command.KSubstOption.getDefaultTextMode().getShortDisplayText(), decorate(file).getKeywordSubstitution());
+			manager.addExtensionMappings(new String[] { "decorationcache" }, new int[] { Team.BINARY });
+			assertEquals(0, cache.size());
+			assertEquals(Command.KSUBST_BINARY.getShortDisplayText(), decorate(file).getKeywordSubstitution());
+		} finally {
+			manager.addExtensionMappings(new String[] { "decorationcache" }, new int[] { Team.UNKNOWN });
+		}
+	}
+
+	public void testKeywordDefaultChange() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt" });
+		IFile file = createUnmanagedFile(project, "new.txt");
+		Command.KSubstOption ksubst = CVSProviderPlugin.getPlugin().getDefaultTextKSubstOption();
+		Command.KSubstOption newKSubst = ksubst.equals(Command.KSUBST_TEXT) ? Command.KSUBST_TEXT_EXPAND : Command.KSUBST_TEXT;
+		assertEquals(ksubst.getShortDisplayText(), decorate(file).getKeywordSubstitution());
+		try {
+			// The preference page announces the change of the default once it is set
+			CVSProviderPlugin.getPlugin().setDefaultTextKSubstOption(newKSubst);
+			CVSUIPlugin.broadcastPropertyChange(new PropertyChangeEvent(this, CVSUIPlugin.P_DECORATORS_CHANGED, null, null));
+			assertEquals(0, cache.size());
+			assertEquals(newKSubst.getShortDisplayText(), decorate(file).getKeywordSubstitution());
+		} finally {
+			CVSProviderPlugin.getPlugin().setDefaultTextKSubstOption(ksubst);
+		}
+	}
+}